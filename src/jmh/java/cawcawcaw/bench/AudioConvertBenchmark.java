@@ -0,0 +1,69 @@
+package cawcawcaw.bench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.humble.video.AudioChannel;
+import io.humble.video.AudioFormat;
+import io.humble.video.MediaAudio;
+import io.humble.video.javaxsound.MediaAudioConverter;
+import io.humble.video.javaxsound.MediaAudioConverterFactory;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.bench
+ * File: AudioConvertBenchmark.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 10:47:19 AM
+ */
+
+/**
+ * <p>
+ * {@link MediaAudioConverter#toJavaAudio(ByteBuffer, MediaAudio)} on one mp3
+ * sized frame, the per frame conversion <code>Humble102</code> does before
+ * playing (resampling to 16-bit stereo 22,050 Hz included).
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.bench.AudioConvertBenchmark
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AudioConvertBenchmark {
+    
+    private MediaAudio samples;
+    
+    private MediaAudioConverter converter;
+    
+    private ByteBuffer rawAudio = null;
+    
+    @Setup
+    public void setUp() {
+        
+        this.samples = MediaAudio.make(SyntheticMedia.MP3_FRAME_SIZE, SyntheticMedia.SAMPLE_RATE, 1,
+                AudioChannel.Layout.CH_LAYOUT_MONO, AudioFormat.Type.SAMPLE_FMT_S16P);
+        SyntheticMedia.fillTone(this.samples, 0);
+        
+        this.converter = MediaAudioConverterFactory.createConverter(MediaAudioConverterFactory.DEFAULT_JAVA_AUDIO,
+                this.samples);
+    }
+    
+    @Benchmark
+    public ByteBuffer toJavaAudio() {
+        
+        this.rawAudio = this.converter.toJavaAudio(this.rawAudio, this.samples);
+        
+        return this.rawAudio;
+    }
+}
@@ -0,0 +1,91 @@
+package cawcawcaw.bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import cawcawcaw.pipeline.Decoding;
+import io.humble.video.Decoder;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.MediaPacket;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.bench
+ * File: AudioDecodeBenchmark.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 10:31:02 AM
+ */
+
+/**
+ * <p>
+ * Audio {@link Decoder#decode} into a reused {@link MediaAudio} through
+ * {@link Decoding#decodeAll}, the inner loop of <code>Humble102</code> and
+ * <code>Humble103</code>. The packets are read into memory up front so that
+ * only decoding is measured; one operation decodes 10 seconds of mp3.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.bench.AudioDecodeBenchmark
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AudioDecodeBenchmark {
+    
+    private Path dir;
+    
+    private SyntheticMedia.DecodableStream stream;
+    
+    private MediaAudio samples;
+    
+    @Setup
+    public void setUp() throws Exception {
+        
+        this.dir = SyntheticMedia.scratch();
+        this.stream = SyntheticMedia.DecodableStream.read(SyntheticMedia.tone(this.dir, 10),
+                MediaDescriptor.Type.MEDIA_AUDIO);
+        
+        Decoder decoder = this.stream.decoder;
+        this.samples = MediaAudio.make(decoder.getFrameSize(), decoder.getSampleRate(), decoder.getChannels(),
+                decoder.getChannelLayout(), decoder.getSampleFormat());
+    }
+    
+    @TearDown
+    public void tearDown() throws Exception {
+        
+        SyntheticMedia.delete(this.dir);
+    }
+    
+    /**
+     * @return The number of frames decoded
+     */
+    @Benchmark
+    public int decode() {
+        
+        int[] frames = { 0 };
+        
+        for (MediaPacket packet : this.stream.packets) {
+            
+            this.samples = Decoding.decodeAll(this.stream.decoder, packet, this.samples, complete -> {
+                
+                frames[0]++;
+                
+                return complete;
+            });
+        }
+        
+        return frames[0];
+    }
+}
@@ -0,0 +1,97 @@
+package cawcawcaw.bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import cawcawcaw.io.MediaInput;
+import io.humble.video.Demuxer;
+import io.humble.video.MediaPacket;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.bench
+ * File: DemuxBenchmark.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 10:12:36 AM
+ */
+
+/**
+ * <p>
+ * Raw {@link Demuxer#read(MediaPacket)} throughput, the packet loop of
+ * <code>Humble102</code> without any decoding. One operation is a whole pass
+ * over a 60 second file, read by FFmpeg or out of a memory mapped
+ * {@link MediaInput}.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.bench.DemuxBenchmark
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DemuxBenchmark {
+    
+    @Param({ "tone", "gradient" })
+    public String media;
+    
+    @Param({ "path", "mapped" })
+    public String input;
+    
+    private Path dir;
+    
+    private Path file;
+    
+    private final MediaPacket packet = MediaPacket.make();
+    
+    @Setup
+    public void setUp() throws Exception {
+        
+        this.dir = SyntheticMedia.scratch();
+        this.file = "tone".equals(this.media) ? SyntheticMedia.tone(this.dir, 60)
+                : SyntheticMedia.gradient(this.dir, 60, 640, 360);
+    }
+    
+    @TearDown
+    public void tearDown() throws Exception {
+        
+        SyntheticMedia.delete(this.dir);
+    }
+    
+    /**
+     * @return The number of packets read, so that the JIT can't drop the loop
+     */
+    @Benchmark
+    public int readAllPackets() throws Exception {
+        
+        Demuxer demuxer = Demuxer.make();
+        int packets = 0;
+        
+        try {
+            
+            MediaInput mediaInput = "mapped".equals(this.input) ? MediaInput.mapped() : MediaInput.path();
+            mediaInput.open(demuxer, this.file.toString(), true, null);
+            
+            while (demuxer.read(this.packet) >= 0) {
+                
+                packets++;
+            }
+        } finally {
+            
+            demuxer.close();
+        }
+        
+        return packets;
+    }
+}
@@ -0,0 +1,92 @@
+package cawcawcaw.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.humble.video.AudioChannel;
+import io.humble.video.AudioFormat;
+import io.humble.video.Encoder;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaPacket;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.bench
+ * File: Mp3EncodeBenchmark.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 11:20:09 AM
+ */
+
+/**
+ * <p>
+ * {@link Encoder#encodeAudio(MediaPacket, MediaAudio)} into MP3, the encode
+ * path of <code>Humble103</code>. One operation encodes one second of tone.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.bench.Mp3EncodeBenchmark
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class Mp3EncodeBenchmark {
+    
+    private static final int FRAMES_PER_SECOND = SyntheticMedia.SAMPLE_RATE / SyntheticMedia.MP3_FRAME_SIZE;
+    
+    private Encoder encoder;
+    
+    private MediaAudio[] frames;
+    
+    private final MediaPacket packet = MediaPacket.make();
+    
+    private long timestamp = 0;
+    
+    @Setup
+    public void setUp() {
+        
+        this.encoder = SyntheticMedia.mp3Encoder(null);
+        this.frames = new MediaAudio[FRAMES_PER_SECOND];
+        
+        for (int i = 0; i < this.frames.length; i++) {
+            
+            this.frames[i] = MediaAudio.make(SyntheticMedia.MP3_FRAME_SIZE, SyntheticMedia.SAMPLE_RATE, 1,
+                    AudioChannel.Layout.CH_LAYOUT_MONO, AudioFormat.Type.SAMPLE_FMT_S16P);
+            SyntheticMedia.fillTone(this.frames[i], (long) i * SyntheticMedia.MP3_FRAME_SIZE);
+        }
+    }
+    
+    /**
+     * @return The number of packets that came out
+     */
+    @Benchmark
+    public int encodeAudio() {
+        
+        int packets = 0;
+        
+        for (MediaAudio frame : this.frames) {
+            
+            // keep the timestamps increasing across invocations, encoders
+            // don't like going back in time
+            frame.setTimeStamp(this.timestamp);
+            this.timestamp += SyntheticMedia.MP3_FRAME_SIZE;
+            
+            this.encoder.encodeAudio(this.packet, frame);
+            
+            if (this.packet.isComplete()) {
+                
+                packets++;
+            }
+        }
+        
+        return packets;
+    }
+}
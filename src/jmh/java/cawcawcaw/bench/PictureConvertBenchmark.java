@@ -0,0 +1,143 @@
+package cawcawcaw.bench;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import cawcawcaw.picture.PictureConverter;
+import cawcawcaw.picture.PictureView;
+import io.humble.video.Decoder;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.MediaPacket;
+import io.humble.video.MediaPicture;
+import io.humble.video.awt.MediaPictureConverter;
+import io.humble.video.awt.MediaPictureConverterFactory;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.bench
+ * File: PictureConvertBenchmark.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 11:05:44 AM
+ */
+
+/**
+ * <p>
+ * {@link MediaPictureConverter#toImage(BufferedImage, MediaPicture)} with
+ * {@link MediaPictureConverterFactory#HUMBLE_BGR_24}, the per frame conversion
+ * <code>LibraryTest</code> used to do before displaying, on one decoded frame.
+ * Against the pooled {@link PictureConverter}, and against reading the luma
+ * plane in place through a {@link PictureView}. Run with
+ * <code>-prof gc</code> to see the bytes allocated per frame.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.bench.PictureConvertBenchmark
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PictureConvertBenchmark {
+    
+    @Param({ "640x360", "1920x1080" })
+    public String size;
+    
+    private Path dir;
+    
+    private MediaPicture picture;
+    
+    private MediaPictureConverter converter;
+    
+    private BufferedImage image = null;
+    
+    private PictureConverter pooled;
+    
+    private BufferedImage pooledImage = null;
+    
+    private final PictureView view = new PictureView();
+    
+    @Setup
+    public void setUp() throws Exception {
+        
+        String[] dimensions = this.size.split("x");
+        
+        this.dir = SyntheticMedia.scratch();
+        SyntheticMedia.DecodableStream stream = SyntheticMedia.DecodableStream.read(
+                SyntheticMedia.gradient(this.dir, 1, Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1])),
+                MediaDescriptor.Type.MEDIA_VIDEO);
+        
+        Decoder decoder = stream.decoder;
+        this.picture = MediaPicture.make(decoder.getWidth(), decoder.getHeight(), decoder.getPixelFormat());
+        
+        // decode until we have a picture to convert
+        for (MediaPacket packet : stream.packets) {
+            
+            decoder.decode(this.picture, packet, 0);
+            
+            if (this.picture.isComplete()) {
+                
+                break;
+            }
+        }
+        
+        this.converter = MediaPictureConverterFactory.createConverter(MediaPictureConverterFactory.HUMBLE_BGR_24,
+                this.picture);
+        this.pooled = PictureConverter.bgr(this.picture.getWidth(), this.picture.getHeight());
+    }
+    
+    @TearDown
+    public void tearDown() throws Exception {
+        
+        SyntheticMedia.delete(this.dir);
+    }
+    
+    @Benchmark
+    public BufferedImage toImage() {
+        
+        this.image = this.converter.toImage(this.image, this.picture);
+        
+        return this.image;
+    }
+    
+    @Benchmark
+    public BufferedImage pooledToImage() throws InterruptedException {
+        
+        this.pooledImage = this.pooled.toImage(this.picture, this.pooledImage);
+        
+        return this.pooledImage;
+    }
+    
+    /**
+     * @return The mean brightness of the picture, what a scene detector
+     *         starts from
+     */
+    @Benchmark
+    public long meanLuma() {
+        
+        this.view.wrap(this.picture);
+        
+        long sum = 0;
+        
+        for (int y = 0; y < this.view.getHeight(); y++) {
+            
+            for (int x = 0; x < this.view.getWidth(); x++) {
+                
+                sum += this.view.getLuma(x, y);
+            }
+        }
+        
+        return sum / ((long) this.view.getWidth() * this.view.getHeight());
+    }
+}
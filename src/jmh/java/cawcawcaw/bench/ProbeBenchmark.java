@@ -0,0 +1,151 @@
+package cawcawcaw.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import cawcawcaw.probe.MediaInfo;
+import cawcawcaw.probe.Prober;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.bench
+ * File: ProbeBenchmark.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 4:41:09 PM
+ */
+
+/**
+ * <p>
+ * Per-file latency of {@link Prober#probe(Path)} in each {@link Prober.Mode}.
+ * One operation probes the next file of the corpus, round robin.
+ * 
+ * <p>
+ * Without a corpus the benchmark copies a short tone and a short gradient into
+ * a few hundred files, which stay in the page cache. Point it at a large local
+ * collection to see the cost of the read ahead on a cold disk:
+ * 
+ * <pre>
+ * gradle jmh -Pjmh.include=ProbeBenchmark -Pjmh.params="corpus=/media/library"
+ * </pre>
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.bench.ProbeBenchmark
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProbeBenchmark {
+    
+    private static final int SYNTHETIC_FILES = 256;
+    
+    @Param({ "FULL", "HEADER", "LAZY" })
+    public String mode;
+    
+    /**
+     * A directory of media files, probed recursively, or empty for the
+     * synthetic corpus.
+     */
+    @Param({ "" })
+    public String corpus;
+    
+    private Path dir;
+    
+    private List<Path> files;
+    
+    private Prober prober;
+    
+    private int next;
+    
+    @Setup
+    public void setUp() throws Exception {
+        
+        this.prober = new Prober().withMode(Prober.Mode.valueOf(this.mode));
+        
+        if (this.corpus.isEmpty()) {
+            
+            this.dir = SyntheticMedia.scratch();
+            
+            Path tone = SyntheticMedia.tone(this.dir, 10);
+            Path gradient = SyntheticMedia.gradient(this.dir, 10, 640, 360);
+            
+            this.files = new ArrayList<>();
+            
+            for (int i = 0; i < SYNTHETIC_FILES; i++) {
+                
+                Path original = i % 2 == 0 ? tone : gradient;
+                String name = original.getFileName().toString();
+                
+                this.files.add(Files.copy(original, this.dir.resolve(i + "-" + name)));
+            }
+        } else {
+            
+            try (Stream<Path> paths = Files.walk(Paths.get(this.corpus))) {
+                
+                this.files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+        }
+        
+        // drop the files that aren't media, so that every operation is a probe
+        List<Path> media = new ArrayList<>();
+        
+        for (Path file : this.files) {
+            
+            try {
+                
+                this.prober.probe(file);
+                media.add(file);
+            } catch (Exception e) {
+                
+                // not media, skip it
+            }
+        }
+        
+        if (media.isEmpty()) {
+            
+            throw new IllegalStateException(String.format("No media files found in %s", this.corpus));
+        }
+        
+        this.files = media;
+    }
+    
+    @TearDown
+    public void tearDown() throws Exception {
+        
+        if (this.dir != null) {
+            
+            SyntheticMedia.delete(this.dir);
+        }
+    }
+    
+    /**
+     * @return The probed file, so that the JIT can't drop the probe
+     */
+    @Benchmark
+    public MediaInfo probe() throws Exception {
+        
+        Path file = this.files.get(this.next);
+        
+        this.next = (this.next + 1) % this.files.size();
+        
+        return this.prober.probe(file);
+    }
+}
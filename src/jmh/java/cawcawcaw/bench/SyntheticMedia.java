@@ -0,0 +1,315 @@
+package cawcawcaw.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import cawcawcaw.pipeline.MediaStreams;
+import io.humble.video.AudioChannel;
+import io.humble.video.AudioFormat;
+import io.humble.video.Codec;
+import io.humble.video.Coder;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.Encoder;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.MediaPacket;
+import io.humble.video.MediaPicture;
+import io.humble.video.MediaSampled;
+import io.humble.video.Muxer;
+import io.humble.video.MuxerFormat;
+import io.humble.video.PixelFormat;
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.bench
+ * File: SyntheticMedia.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 9:40:51 AM
+ */
+
+/**
+ * <p>
+ * Generates the media the benchmarks run on, so that they need no fixtures
+ * and give the same numbers on every box: a sine tone encoded to mp3, and a
+ * moving gradient encoded to mpeg4 in an mkv.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.bench.SyntheticMedia
+ *
+ */
+final class SyntheticMedia {
+    
+    static final int SAMPLE_RATE = 44100;
+    
+    static final int MP3_FRAME_SIZE = 1152;
+    
+    static final int FRAME_RATE = 25;
+    
+    private SyntheticMedia() {
+        
+    }
+    
+    /**
+     * @return A fresh scratch directory for the generated media
+     */
+    static Path scratch() throws IOException {
+        
+        return Files.createTempDirectory("cawcawcaw-bench");
+    }
+    
+    /**
+     * Deletes the scratch directory and everything in it.
+     */
+    static void delete(Path dir) throws IOException {
+        
+        try (Stream<Path> paths = Files.walk(dir)) {
+            
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                
+                Files.delete(path);
+            }
+        }
+    }
+    
+    /**
+     * Writes a mono 440 Hz tone as an mp3.
+     * 
+     * @param dir
+     *            The directory to write into
+     * @param seconds
+     *            The duration of the tone
+     * @return The mp3 file
+     */
+    static Path tone(Path dir, int seconds) throws InterruptedException, IOException {
+        
+        Path file = dir.resolve("tone.mp3");
+        Muxer muxer = Muxer.make(file.toString(), null, "mp3");
+        
+        try {
+            
+            Encoder encoder = mp3Encoder(muxer.getFormat());
+            muxer.addNewStream(encoder);
+            muxer.open(null, null);
+            
+            MediaAudio samples = MediaAudio.make(MP3_FRAME_SIZE, SAMPLE_RATE, 1, AudioChannel.Layout.CH_LAYOUT_MONO,
+                    AudioFormat.Type.SAMPLE_FMT_S16P);
+            
+            for (long sample = 0; sample < (long) seconds * SAMPLE_RATE; sample += MP3_FRAME_SIZE) {
+                
+                fillTone(samples, sample);
+                encodeAndWrite(encoder, muxer, samples);
+            }
+            
+            encodeAndWrite(encoder, muxer, null);
+        } finally {
+            
+            muxer.close();
+        }
+        
+        return file;
+    }
+    
+    /**
+     * Writes a moving gradient as mpeg4 in an mkv.
+     * 
+     * @param dir
+     *            The directory to write into
+     * @param seconds
+     *            The duration of the video
+     * @param width
+     *            The width of the video
+     * @param height
+     *            The height of the video
+     * @return The mkv file
+     */
+    static Path gradient(Path dir, int seconds, int width, int height) throws InterruptedException, IOException {
+        
+        Path file = dir.resolve(String.format("gradient-%dx%d.mkv", width, height));
+        Muxer muxer = Muxer.make(file.toString(), null, "matroska");
+        
+        try {
+            
+            Encoder encoder = Encoder.make(Codec.findEncodingCodec(Codec.ID.CODEC_ID_MPEG4));
+            
+            encoder.setWidth(width);
+            encoder.setHeight(height);
+            encoder.setPixelFormat(PixelFormat.Type.PIX_FMT_YUV420P);
+            encoder.setTimeBase(Rational.make(1, FRAME_RATE));
+            
+            if (muxer.getFormat().getFlag(MuxerFormat.Flag.GLOBAL_HEADER)) {
+                
+                encoder.setFlag(Coder.Flag.FLAG_GLOBAL_HEADER, true);
+            }
+            
+            encoder.open(null, null);
+            muxer.addNewStream(encoder);
+            muxer.open(null, null);
+            
+            MediaPicture picture = MediaPicture.make(width, height, PixelFormat.Type.PIX_FMT_YUV420P);
+            picture.setTimeBase(Rational.make(1, FRAME_RATE));
+            
+            for (int frame = 0; frame < seconds * FRAME_RATE; frame++) {
+                
+                fillGradient(picture, frame);
+                encodeAndWrite(encoder, muxer, picture);
+            }
+            
+            encodeAndWrite(encoder, muxer, null);
+        } finally {
+            
+            muxer.close();
+        }
+        
+        return file;
+    }
+    
+    /**
+     * @return An opened mono S16P mp3 encoder
+     */
+    static Encoder mp3Encoder(MuxerFormat format) {
+        
+        Encoder encoder = Encoder.make(Codec.findEncodingCodec(Codec.ID.CODEC_ID_MP3));
+        
+        encoder.setSampleRate(SAMPLE_RATE);
+        encoder.setChannels(1);
+        encoder.setChannelLayout(AudioChannel.Layout.CH_LAYOUT_MONO);
+        encoder.setSampleFormat(AudioFormat.Type.SAMPLE_FMT_S16P);
+        
+        if (!Objects.isNull(format) && format.getFlag(MuxerFormat.Flag.GLOBAL_HEADER)) {
+            
+            encoder.setFlag(Coder.Flag.FLAG_GLOBAL_HEADER, true);
+        }
+        
+        encoder.open(null, null);
+        
+        return encoder;
+    }
+    
+    /**
+     * Fills a mono S16P frame with the tone, starting at the given sample.
+     */
+    static void fillTone(MediaAudio samples, long firstSample) {
+        
+        ByteBuffer data = samples.getData(0).getByteBuffer(0, samples.getDataPlaneSize(0))
+                .order(ByteOrder.nativeOrder());
+        
+        for (int i = 0; i < MP3_FRAME_SIZE; i++) {
+            
+            double t = (double) (firstSample + i) / SAMPLE_RATE;
+            data.putShort((short) (Math.sin(2 * Math.PI * 440 * t) * Short.MAX_VALUE * 0.5));
+        }
+        
+        samples.setNumSamples(MP3_FRAME_SIZE);
+        samples.setTimeStamp(firstSample);
+        samples.setComplete(true);
+    }
+    
+    private static void fillGradient(MediaPicture picture, int frame) {
+        
+        int height = picture.getHeight();
+        
+        // luma: a diagonal gradient moving one pixel per frame
+        ByteBuffer luma = picture.getData(0).getByteBuffer(0, picture.getDataPlaneSize(0));
+        int stride = picture.getLineSize(0);
+        
+        for (int y = 0; y < height; y++) {
+            
+            for (int x = 0; x < picture.getWidth(); x++) {
+                
+                luma.put(y * stride + x, (byte) (x + y + frame));
+            }
+        }
+        
+        // chroma: flat grey
+        for (int plane = 1; plane < 3; plane++) {
+            
+            ByteBuffer chroma = picture.getData(plane).getByteBuffer(0, picture.getDataPlaneSize(plane));
+            
+            while (chroma.hasRemaining()) {
+                
+                chroma.put((byte) 128);
+            }
+        }
+        
+        picture.setTimeStamp(frame);
+        picture.setComplete(true);
+    }
+    
+    /**
+     * Encodes one frame (null to flush) and writes whatever comes out.
+     */
+    private static void encodeAndWrite(Encoder encoder, Muxer muxer, MediaSampled frame) {
+        
+        MediaPacket packet = MediaPacket.make();
+        
+        do {
+            
+            encoder.encode(packet, frame);
+            
+            if (packet.isComplete()) {
+                
+                muxer.write(packet, false);
+            }
+        } while (frame == null && packet.isComplete());
+    }
+    
+    /**
+     * The packets of the first stream of a type, read into memory, together
+     * with the opened decoder for them.
+     */
+    static final class DecodableStream {
+        
+        final Decoder decoder;
+        
+        final List<MediaPacket> packets;
+        
+        private DecodableStream(Decoder decoder, List<MediaPacket> packets) {
+            
+            this.decoder = decoder;
+            this.packets = packets;
+        }
+        
+        static DecodableStream read(Path file, MediaDescriptor.Type type) throws InterruptedException, IOException {
+            
+            Demuxer demuxer = Demuxer.make();
+            
+            try {
+                
+                demuxer.open(file.toString(), null, false, true, null, null);
+                
+                DemuxerStream stream = MediaStreams.firstOfType(demuxer, type);
+                Decoder decoder = Decoder.make(stream.getDecoder());
+                decoder.open(null, null);
+                
+                List<MediaPacket> packets = new ArrayList<>();
+                MediaPacket packet = MediaPacket.make();
+                
+                while (demuxer.read(packet) >= 0) {
+                    
+                    if (packet.getStreamIndex() == stream.getIndex()) {
+                        
+                        packets.add(MediaPacket.make(packet, true));
+                    }
+                }
+                
+                return new DecodableStream(decoder, packets);
+            } finally {
+                
+                demuxer.close();
+            }
+        }
+    }
+}
@@ -1,8 +0,0 @@
-/*
- * This Java source file was generated by the Gradle 'init' task.
- */
-public class Library {
-    public boolean someLibraryMethod() {
-        return true;
-    }
-}
@@ -0,0 +1,284 @@
+package cawcawcaw.audio;
+
+import java.util.Collection;
+import java.util.Objects;
+
+import io.humble.video.AudioChannel;
+import io.humble.video.AudioFormat;
+import io.humble.video.Codec;
+import io.humble.video.Coder;
+import io.humble.video.MediaAudio;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.audio
+ * File: AudioTarget.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 20, 2026 4:05:31 PM
+ */
+
+/**
+ * <p>
+ * An audio shape: sample rate, channel layout and sample format. Used both for
+ * what a {@link ResampleStage} converts to and as the key of the
+ * {@link ResamplerCache}.
+ * 
+ * <p>
+ * {@link #forCodec(Codec, Coder)} picks what an encoder accepts, as close as
+ * possible to the decoder feeding it: the MP3 encoder for instance only takes
+ * planar 16-bit or 32-bit integer samples, so the planar float output of AAC
+ * or Opus decoders has to be converted before encoding.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.audio.AudioTarget
+ *
+ */
+public final class AudioTarget {
+    
+    /**
+     * What speech recognition and translation engines want, and what the
+     * {@link cawcawcaw.vad.VoiceActivityDetector} is tuned for: 16 kHz mono,
+     * signed 16-bit samples.
+     */
+    public static final AudioTarget SPEECH = of(16000, AudioChannel.Layout.CH_LAYOUT_MONO,
+            AudioFormat.Type.SAMPLE_FMT_S16);
+    
+    private final int sampleRate;
+    
+    private final AudioChannel.Layout layout;
+    
+    private final AudioFormat.Type format;
+    
+    private AudioTarget(int sampleRate, AudioChannel.Layout layout, AudioFormat.Type format) {
+        
+        this.sampleRate = sampleRate;
+        this.layout = layout;
+        this.format = format;
+    }
+    
+    /**
+     * @param sampleRate
+     *            The samples per second, must be positive
+     * @param layout
+     *            The channel layout
+     * @param format
+     *            The sample format
+     * @return The audio shape
+     */
+    public static AudioTarget of(int sampleRate, AudioChannel.Layout layout, AudioFormat.Type format) {
+        
+        if (sampleRate <= 0) {
+            
+            throw new IllegalArgumentException("Sample rate must be positive, got " + sampleRate);
+        }
+        
+        return new AudioTarget(sampleRate, Objects.requireNonNull(layout), Objects.requireNonNull(format));
+    }
+    
+    /**
+     * @param coder
+     *            An audio decoder or encoder
+     * @return The shape of its audio
+     */
+    public static AudioTarget of(Coder coder) {
+        
+        return of(coder.getSampleRate(), layoutOf(coder.getChannelLayout(), coder.getChannels()),
+                coder.getSampleFormat());
+    }
+    
+    /**
+     * @param audio
+     *            An audio frame
+     * @return The shape of its audio
+     */
+    public static AudioTarget of(MediaAudio audio) {
+        
+        return of(audio.getSampleRate(), layoutOf(audio.getChannelLayout(), audio.getChannels()),
+                audio.getFormat());
+    }
+    
+    /**
+     * Picks the shape an encoder of the codec accepts that is the closest to
+     * the source: each of the source's sample rate, layout and format is kept
+     * when the codec supports it.
+     * 
+     * @param codec
+     *            The encoding codec
+     * @param source
+     *            The decoder (or anything else) whose audio will be encoded
+     * @return The shape to resample to before encoding
+     */
+    public static AudioTarget forCodec(Codec codec, Coder source) {
+        
+        AudioTarget wanted = of(source);
+        
+        return of(closestRate(codec.getSupportedAudioSampleRates(), wanted.sampleRate),
+                closestLayout(codec.getSupportedAudioChannelLayouts(), wanted.layout),
+                closestFormat(codec.getSupportedAudioFormats(), wanted.format));
+    }
+    
+    /**
+     * Sets the sample rate, channels, layout and sample format of an encoder,
+     * before it's opened.
+     * 
+     * @param encoder
+     *            The encoder, not opened yet
+     */
+    public void configure(Coder encoder) {
+        
+        encoder.setSampleRate(this.sampleRate);
+        encoder.setChannels(getChannels());
+        encoder.setChannelLayout(this.layout);
+        encoder.setSampleFormat(this.format);
+    }
+    
+    /**
+     * @param audio
+     *            An audio frame
+     * @return True when the frame already has this shape
+     */
+    public boolean matches(MediaAudio audio) {
+        
+        return audio.getSampleRate() == this.sampleRate && audio.getFormat() == this.format
+                && audio.getChannels() == getChannels()
+                && layoutOf(audio.getChannelLayout(), audio.getChannels()) == this.layout;
+    }
+    
+    /**
+     * @return The samples per second
+     */
+    public int getSampleRate() {
+        
+        return this.sampleRate;
+    }
+    
+    /**
+     * @return The channel layout
+     */
+    public AudioChannel.Layout getLayout() {
+        
+        return this.layout;
+    }
+    
+    /**
+     * @return The number of channels of the layout
+     */
+    public int getChannels() {
+        
+        return AudioChannel.getNumChannelsInLayout(this.layout);
+    }
+    
+    /**
+     * @return The sample format
+     */
+    public AudioFormat.Type getFormat() {
+        
+        return this.format;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        
+        if (!(other instanceof AudioTarget)) {
+            
+            return false;
+        }
+        
+        AudioTarget that = (AudioTarget) other;
+        
+        return this.sampleRate == that.sampleRate && this.layout == that.layout && this.format == that.format;
+    }
+    
+    @Override
+    public int hashCode() {
+        
+        return Objects.hash(this.sampleRate, this.layout, this.format);
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("%d Hz %s %s", this.sampleRate, this.layout, this.format);
+    }
+    
+    /**
+     * Some demuxers leave the layout unknown, the default layout for the
+     * number of channels is assumed then.
+     */
+    private static AudioChannel.Layout layoutOf(AudioChannel.Layout layout, int channels) {
+        
+        if (Objects.isNull(layout) || layout == AudioChannel.Layout.CH_LAYOUT_UNKNOWN) {
+            
+            return AudioChannel.getDefaultLayout(channels);
+        }
+        
+        return layout;
+    }
+    
+    /**
+     * The wanted rate when supported (or when the codec takes any), the
+     * lowest rate above it otherwise, and the highest of all when none is
+     * above.
+     */
+    private static int closestRate(Collection<Integer> supported, int wanted) {
+        
+        if (Objects.isNull(supported) || supported.isEmpty() || supported.contains(wanted)) {
+            
+            return wanted;
+        }
+        
+        return supported.stream().filter(rate -> rate > wanted).min(Integer::compare)
+                .orElseGet(() -> supported.stream().max(Integer::compare).get());
+    }
+    
+    /**
+     * The wanted layout when supported, stereo or the first supported layout
+     * otherwise.
+     */
+    private static AudioChannel.Layout closestLayout(Collection<AudioChannel.Layout> supported,
+            AudioChannel.Layout wanted) {
+        
+        if (Objects.isNull(supported) || supported.isEmpty() || supported.contains(wanted)) {
+            
+            return wanted;
+        }
+        
+        if (supported.contains(AudioChannel.Layout.CH_LAYOUT_STEREO)) {
+            
+            return AudioChannel.Layout.CH_LAYOUT_STEREO;
+        }
+        
+        return supported.iterator().next();
+    }
+    
+    /**
+     * The wanted format when supported, then the same samples packed or
+     * planar, then the first supported format, which is the codec's
+     * preferred one.
+     */
+    private static AudioFormat.Type closestFormat(Collection<AudioFormat.Type> supported, AudioFormat.Type wanted) {
+        
+        if (Objects.isNull(supported) || supported.isEmpty() || supported.contains(wanted)) {
+            
+            return wanted;
+        }
+        
+        AudioFormat.Type packed = AudioFormat.getPackedSampleFormat(wanted);
+        
+        if (supported.contains(packed)) {
+            
+            return packed;
+        }
+        
+        AudioFormat.Type planar = AudioFormat.getPlanarSampleFormat(wanted);
+        
+        if (supported.contains(planar)) {
+            
+            return planar;
+        }
+        
+        return supported.iterator().next();
+    }
+}
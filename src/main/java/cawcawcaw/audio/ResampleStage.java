@@ -0,0 +1,271 @@
+package cawcawcaw.audio;
+
+import java.util.Objects;
+
+import cawcawcaw.pipeline.Emitter;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.pipeline.Stage;
+import cawcawcaw.pool.MediaPool;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.AudioFormat;
+import io.humble.video.Global;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaAudioResampler;
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.audio
+ * File: ResampleStage.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 20, 2026 5:02:16 PM
+ */
+
+/**
+ * <p>
+ * Converts decoded audio, whatever its sample rate, layout and format, to an
+ * {@link AudioTarget}: 16 kHz mono for the speech engines
+ * ({@link AudioTarget#SPEECH}), what the encoder accepts before encoding
+ * ({@link AudioTarget#of(io.humble.video.Coder)} of the encoder).
+ * 
+ * <p>
+ * Frames already in the target shape go through untouched. The others are
+ * converted by a resampler borrowed from a {@link ResamplerCache} for as long
+ * as the stream keeps the same shape, so nothing is set up per file once the
+ * cache is warm. The converted frames come from a pool and are stamped in a
+ * time base of 1 / target sample rate, counting samples from the timestamp of
+ * the first frame converted.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.audio.ResampleStage
+ *
+ */
+public class ResampleStage implements Stage<Pooled<MediaAudio>, Pooled<MediaAudio>> {
+    
+    /**
+     * Slack added to the frame size the resampler asks for, so that a few
+     * samples more than expected don't need a new pool.
+     */
+    private static final int SLACK_SAMPLES = 256;
+    
+    private final AudioTarget target;
+    
+    private final ResamplerCache cache;
+    
+    private final int capacity;
+    
+    private final Rational timeBase;
+    
+    private AudioTarget source = null;
+    
+    private Pooled<MediaAudioResampler> resampler = null;
+    
+    private MediaPool<MediaAudio> frames = null;
+    
+    private int frameSamples = 0;
+    
+    private long next = Global.NO_PTS;
+    
+    /**
+     * @param target
+     *            The shape to convert to
+     */
+    public ResampleStage(AudioTarget target) {
+        
+        this(target, ResamplerCache.shared(), Pipeline.DEFAULT_POOL_CAPACITY);
+    }
+    
+    /**
+     * @param target
+     *            The shape to convert to
+     * @param cache
+     *            The cache to borrow the resamplers from
+     * @param capacity
+     *            The max number of converted frames alive at any time
+     */
+    public ResampleStage(AudioTarget target, ResamplerCache cache, int capacity) {
+        
+        this.target = target;
+        this.cache = cache;
+        this.capacity = capacity;
+        this.timeBase = Rational.make(1, target.getSampleRate());
+    }
+    
+    /**
+     * @return The shape the audio is converted to
+     */
+    public AudioTarget getTarget() {
+        
+        return this.target;
+    }
+    
+    @Override
+    public void process(Pooled<MediaAudio> input, Emitter<Pooled<MediaAudio>> output) throws InterruptedException {
+        
+        if (this.target.matches(input.get())) {
+            
+            // whatever is still in the resampler comes first
+            release(output);
+            
+            output.emit(input); // owned downstream from now on
+            
+            return;
+        }
+        
+        try {
+            
+            convert(input.get(), output);
+        } finally {
+            
+            input.release();
+        }
+    }
+    
+    /**
+     * Converts a frame that isn't pooled, for single threaded loops.
+     * 
+     * @param audio
+     *            A complete frame
+     * @param output
+     *            Gets the converted frames, to be released
+     */
+    public void convert(MediaAudio audio, Emitter<Pooled<MediaAudio>> output) throws InterruptedException {
+        
+        if (!audio.isComplete() || audio.getNumSamples() == 0) {
+            
+            return;
+        }
+        
+        AudioTarget shape = AudioTarget.of(audio);
+        
+        if (!shape.equals(this.source)) {
+            
+            release(output);
+            
+            this.resampler = this.cache.acquire(shape, this.target);
+            this.source = shape;
+            this.next = audio.getTimeStamp() == Global.NO_PTS ? Global.NO_PTS
+                    : this.timeBase.rescale(audio.getTimeStamp(), audio.getTimeBase());
+        }
+        
+        resample(audio, output);
+    }
+    
+    /**
+     * Drains the samples the resampler still holds.
+     */
+    @Override
+    public void flush(Emitter<Pooled<MediaAudio>> output) throws InterruptedException {
+        
+        release(output);
+    }
+    
+    /**
+     * Gives the resampler back to the cache, drained of the samples of this
+     * stream.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        
+        release(Pooled::release);
+    }
+    
+    /**
+     * Drains the resampler into the output and gives it back.
+     */
+    private void release(Emitter<Pooled<MediaAudio>> output) throws InterruptedException {
+        
+        if (Objects.isNull(this.resampler)) {
+            
+            return;
+        }
+        
+        try {
+            
+            while (resample(null, output)) {
+                
+                // until nothing comes out
+            }
+        } finally {
+            
+            this.resampler.release();
+            this.resampler = null;
+            this.source = null;
+        }
+    }
+    
+    /**
+     * @param audio
+     *            The frame to convert, null to drain
+     * @return True when a frame came out
+     */
+    private boolean resample(MediaAudio audio, Emitter<Pooled<MediaAudio>> output) throws InterruptedException {
+        
+        MediaAudioResampler resampler = this.resampler.get();
+        int needed = resampler.getNumResampledSamples(Objects.isNull(audio) ? 0 : audio.getNumSamples());
+        
+        Pooled<MediaAudio> converted = framesFor(needed).acquire();
+        
+        try {
+            
+            resampler.resample(converted.get(), audio);
+        } catch (RuntimeException e) {
+            
+            converted.release();
+            
+            throw e;
+        }
+        
+        if (!converted.get().isComplete() || converted.get().getNumSamples() == 0) {
+            
+            converted.release();
+            
+            return false;
+        }
+        
+        stamp(converted.get());
+        output.emit(converted);
+        
+        return true;
+    }
+    
+    /**
+     * Stamps a converted frame with the sample count, left unstamped when the
+     * source had no timestamps.
+     */
+    private void stamp(MediaAudio audio) {
+        
+        if (this.next == Global.NO_PTS) {
+            
+            return;
+        }
+        
+        audio.setTimeBase(this.timeBase);
+        audio.setTimeStamp(this.next);
+        this.next += audio.getNumSamples();
+    }
+    
+    /**
+     * @return The pool of converted frames, made again with bigger frames when
+     *         the resampler needs more room than they have
+     */
+    private MediaPool<MediaAudio> framesFor(int samples) {
+        
+        if (Objects.isNull(this.frames) || samples > this.frameSamples) {
+            
+            int frameSamples = Math.max(samples, this.frameSamples) + SLACK_SAMPLES;
+            AudioTarget target = this.target;
+            
+            this.frames = new MediaPool<>("resample", this.capacity, Pipeline.DEFAULT_POOL_BYTES,
+                    () -> MediaAudio.make(frameSamples, target.getSampleRate(), target.getChannels(),
+                            target.getLayout(), target.getFormat()),
+                    audio -> AudioFormat.getBufferSizeNeeded(audio.getMaxNumSamples(), audio.getChannels(),
+                            audio.getFormat()));
+            this.frameSamples = frameSamples;
+        }
+        
+        return this.frames;
+    }
+}
@@ -0,0 +1,137 @@
+package cawcawcaw.audio;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import cawcawcaw.pool.MediaPool;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.MediaAudioResampler;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.audio
+ * File: ResamplerCache.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 20, 2026 4:31:52 PM
+ */
+
+/**
+ * <p>
+ * Opened {@link MediaAudioResampler}s, kept by (source shape, target shape) and
+ * lent out to whoever needs that conversion, so that a batch of files (which
+ * mostly share a handful of shapes) sets up each conversion only once per
+ * concurrent user instead of once per file.
+ * 
+ * <p>
+ * A resampler keeps state between calls (the samples it buffers for rate
+ * conversion), so it's lent to one user at a time through a {@link MediaPool}
+ * per conversion, and must be drained (resampled with a null input until
+ * nothing comes out) before it's released. {@link ResampleStage} does that.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.audio.ResamplerCache
+ *
+ */
+public final class ResamplerCache {
+    
+    private static final ResamplerCache SHARED = new ResamplerCache(
+            Math.max(16, Runtime.getRuntime().availableProcessors() * 2));
+    
+    private final int capacity;
+    
+    private final ConcurrentMap<Key, MediaPool<MediaAudioResampler>> pools = new ConcurrentHashMap<>();
+    
+    /**
+     * @param capacity
+     *            The max number of resamplers per conversion, which is the max
+     *            number of concurrent users of a conversion before
+     *            {@link #acquire(AudioTarget, AudioTarget)} blocks
+     */
+    public ResamplerCache(int capacity) {
+        
+        if (capacity <= 0) {
+            
+            throw new IllegalArgumentException("Cache capacity must be positive, got " + capacity);
+        }
+        
+        this.capacity = capacity;
+    }
+    
+    /**
+     * @return The cache shared by the whole JVM
+     */
+    public static ResamplerCache shared() {
+        
+        return SHARED;
+    }
+    
+    /**
+     * Borrows an opened resampler, blocking while all the resamplers of the
+     * conversion are in use.
+     * 
+     * @param source
+     *            The shape of the audio to convert
+     * @param target
+     *            The shape to convert to
+     * @return The resampler, to be drained and released
+     * @throws InterruptedException
+     *             When interrupted while waiting for a resampler
+     */
+    public Pooled<MediaAudioResampler> acquire(AudioTarget source, AudioTarget target) throws InterruptedException {
+        
+        return this.pools.computeIfAbsent(new Key(source, target), this::pool).acquire();
+    }
+    
+    /**
+     * @return The number of conversions seen so far
+     */
+    public int size() {
+        
+        return this.pools.size();
+    }
+    
+    private MediaPool<MediaAudioResampler> pool(Key key) {
+        
+        return new MediaPool<>("resample", this.capacity, 0, () -> {
+            
+            MediaAudioResampler resampler = MediaAudioResampler.make(key.target.getLayout(),
+                    key.target.getSampleRate(), key.target.getFormat(), key.source.getLayout(),
+                    key.source.getSampleRate(), key.source.getFormat());
+            resampler.open();
+            
+            return resampler;
+        }, resampler -> 0);
+    }
+    
+    /**
+     * A conversion.
+     */
+    private static final class Key {
+        
+        final AudioTarget source;
+        
+        final AudioTarget target;
+        
+        Key(AudioTarget source, AudioTarget target) {
+            
+            this.source = source;
+            this.target = target;
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            
+            return other instanceof Key && ((Key) other).source.equals(this.source)
+                    && ((Key) other).target.equals(this.target);
+        }
+        
+        @Override
+        public int hashCode() {
+            
+            return Objects.hash(this.source, this.target);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package cawcawcaw.batch;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.batch
+ * File: BatchReport.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 4:41:05 PM
+ */
+
+/**
+ * <p>
+ * The outcome of a whole batch: one {@link FileResult} per file, and the
+ * overall throughput, which is what sizes the nightly runs.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.batch.BatchReport
+ *
+ */
+public final class BatchReport {
+    
+    private final List<FileResult> files;
+    
+    private final double wallSeconds;
+    
+    BatchReport(List<FileResult> files, double wallSeconds) {
+        
+        this.files = Collections.unmodifiableList(files);
+        this.wallSeconds = wallSeconds;
+    }
+    
+    /**
+     * @return The results, in the order the files were given
+     */
+    public List<FileResult> getFiles() {
+        
+        return this.files;
+    }
+    
+    /**
+     * @return The wall time of the whole batch
+     */
+    public double getWallSeconds() {
+        
+        return this.wallSeconds;
+    }
+    
+    /**
+     * @return The number of files that failed
+     */
+    public long getFailures() {
+        
+        return this.files.stream().filter(file -> !file.isSuccess()).count();
+    }
+    
+    /**
+     * @return The duration of all the media successfully processed
+     */
+    public double getMediaSeconds() {
+        
+        return this.files.stream().filter(FileResult::isSuccess).mapToDouble(FileResult::getMediaSeconds).sum();
+    }
+    
+    /**
+     * @return Media-seconds processed per wall-second over the whole batch
+     */
+    public double getThroughput() {
+        
+        return this.wallSeconds > 0 ? getMediaSeconds() / this.wallSeconds : 0;
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("%d files (%d failed): %.1fs of media in %.1fs (%.1fx)", this.files.size(),
+                getFailures(), getMediaSeconds(), this.wallSeconds, getThroughput());
+    }
+}
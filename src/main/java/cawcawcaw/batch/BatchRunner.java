@@ -0,0 +1,432 @@
+package cawcawcaw.batch;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.metrics.Metrics;
+import cawcawcaw.pipeline.AudioExtractor;
+import io.humble.video.Demuxer;
+import io.humble.video.Global;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.batch
+ * File: BatchRunner.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 5:14:31 PM
+ */
+
+/**
+ * <p>
+ * Runs a {@link FileJob} over a whole directory (or a manifest listing the
+ * files) concurrently. A failing file is logged and reported, and the batch
+ * keeps going.
+ * 
+ * <p>
+ * Two knobs bound the resources used:
+ * 
+ * <ul>
+ * 
+ * <li>workers: the number of files processed at once, by default sized by the
+ * number of cores and the physical memory.</li>
+ * 
+ * <li>max open files: the number of files allowed to hold native resources
+ * (demuxers, encoders) at once, by default the number of workers.</li>
+ * 
+ * </ul>
+ * 
+ * <p>
+ * Run as:
+ * 
+ * <pre>
+ * BatchRunner &lt;input directory or manifest&gt; &lt;output directory&gt;
+ * </pre>
+ * 
+ * which extracts the audio of every file into an mp3 in the output directory.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.batch.BatchRunner
+ *
+ */
+public class BatchRunner {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class);
+    // # Logging stuff
+    
+    /**
+     * The native memory a single file is expected to need, for sizing the
+     * default number of workers.
+     */
+    public static final long DEFAULT_MEMORY_PER_FILE = 512L * 1024 * 1024;
+    
+    /**
+     * The extensions of the files picked up when given a directory.
+     */
+    public static final Set<String> MEDIA_EXTENSIONS = new HashSet<>(
+            Arrays.asList("mkv", "mp4", "m4v", "avi", "mov", "webm", "flv", "ts", "wmv", "mpg", "mpeg", "ogm"));
+    
+    private final FileJob job;
+    
+    private int workers = defaultWorkers(DEFAULT_MEMORY_PER_FILE);
+    
+    private int maxOpenFiles = -1;
+    
+    /**
+     * @param job
+     *            The work to do on every file
+     */
+    public BatchRunner(FileJob job) {
+        
+        this.job = job;
+    }
+    
+    /**
+     * @param workers
+     *            The number of files processed at once
+     * @return this
+     */
+    public BatchRunner withWorkers(int workers) {
+        
+        if (workers <= 0) {
+            
+            throw new IllegalArgumentException("Need at least 1 worker, got " + workers);
+        }
+        
+        this.workers = workers;
+        
+        return this;
+    }
+    
+    /**
+     * @param maxOpenFiles
+     *            The number of files allowed to hold demuxers and encoders at
+     *            once, the number of workers by default
+     * @return this
+     */
+    public BatchRunner withMaxOpenFiles(int maxOpenFiles) {
+        
+        if (maxOpenFiles <= 0) {
+            
+            throw new IllegalArgumentException("Need at least 1 open file, got " + maxOpenFiles);
+        }
+        
+        this.maxOpenFiles = maxOpenFiles;
+        
+        return this;
+    }
+    
+    /**
+     * The number of cores, lowered when the physical memory can't hold that
+     * many files at once.
+     * 
+     * @param memoryPerFile
+     *            The memory a single file is expected to need
+     * @return The number of workers to use
+     */
+    public static int defaultWorkers(long memoryPerFile) {
+        
+        int cores = Runtime.getRuntime().availableProcessors();
+        long memory = Runtime.getRuntime().maxMemory();
+        
+        try {
+            
+            // read as an attribute, the getter is deprecated on newer JDKs and missing on some VMs
+            Object physical = ManagementFactory.getPlatformMBeanServer().getAttribute(
+                    ObjectName.getInstance(ManagementFactory.OPERATING_SYSTEM_MXBEAN_NAME), "TotalPhysicalMemorySize");
+            
+            if (physical instanceof Long) {
+                
+                memory = (Long) physical;
+            }
+        } catch (JMException | RuntimeException e) {
+            
+            logger.debug("No physical memory size, sizing by the heap", e);
+        }
+        
+        return (int) Math.max(1, Math.min(cores, memory / memoryPerFile));
+    }
+    
+    /**
+     * Processes the files, blocking until all of them are done. When the
+     * calling thread is interrupted, the files not done yet are cancelled and
+     * reported as failed, and the thread is left interrupted.
+     * 
+     * @param files
+     *            The media files
+     * @return The per file and overall results, in the order of the files
+     */
+    public BatchReport run(List<Path> files) {
+        
+        int openFiles = this.maxOpenFiles > 0 ? this.maxOpenFiles : this.workers;
+        Semaphore open = new Semaphore(openFiles, true);
+        
+        logger.info(String.format("Processing %d files on %d workers, at most %d open at once", files.size(),
+                this.workers, openFiles));
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(this.workers,
+                runnable -> new Thread(runnable, "batch-" + threadCount.incrementAndGet()));
+        
+        long batchStart = System.nanoTime();
+        List<FileResult> results = new ArrayList<>();
+        
+        try {
+            
+            List<Future<FileResult>> futures = new ArrayList<>();
+            
+            for (Path file : files) {
+                
+                futures.add(executor.submit(() -> processFile(file, open)));
+            }
+            
+            for (int i = 0; i < futures.size(); i++) {
+                
+                try {
+                    
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    
+                    // processFile only throws when its worker is interrupted
+                    results.add(new FileResult(files.get(i), 0, 0, e.getCause()));
+                }
+            }
+        } catch (InterruptedException e) {
+            
+            Thread.currentThread().interrupt();
+            
+            logger.warn(String.format("Batch interrupted, cancelling the %d files not done",
+                    files.size() - results.size()));
+            
+            for (int i = results.size(); i < files.size(); i++) {
+                
+                results.add(new FileResult(files.get(i), 0, 0,
+                        new CancellationException("Cancelled, the batch was interrupted")));
+            }
+        } finally {
+            
+            executor.shutdownNow();
+        }
+        
+        BatchReport report = new BatchReport(results, (System.nanoTime() - batchStart) / 1e9);
+        
+        logger.info("Batch done :: " + report);
+        
+        return report;
+    }
+    
+    /**
+     * Runs the job on one file, turning any failure into a result.
+     */
+    private FileResult processFile(Path file, Semaphore open) throws InterruptedException {
+        
+        open.acquire();
+        
+        long start = System.nanoTime();
+        double mediaSeconds = 0;
+        
+        try {
+            
+            mediaSeconds = probeDuration(file);
+            this.job.process(file);
+            
+            FileResult result = new FileResult(file, mediaSeconds, (System.nanoTime() - start) / 1e9, null);
+            logger.info(result.toString());
+            
+            return result;
+        } catch (InterruptedException e) {
+            
+            throw e;
+        } catch (Exception e) {
+            
+            FileResult result = new FileResult(file, mediaSeconds, (System.nanoTime() - start) / 1e9, e);
+            logger.error(result.toString(), e);
+            
+            return result;
+        } finally {
+            
+            open.release();
+        }
+    }
+    
+    /**
+     * Reads the duration off the container header, without looking for the
+     * streams.
+     * 
+     * @return The duration in seconds, 0 when the container doesn't know
+     */
+    private static double probeDuration(Path file) throws InterruptedException, IOException {
+        
+        Demuxer demuxer = Demuxer.make();
+        
+        try {
+            
+            demuxer.open(file.toString(), null, false, false, null, null);
+            
+            long duration = demuxer.getDuration();
+            
+            return duration == Global.NO_PTS ? 0 : 1.0 * duration / Global.DEFAULT_PTS_PER_SECOND;
+        } finally {
+            
+            demuxer.close();
+        }
+    }
+    
+    /**
+     * Lists the inputs of a batch.
+     * 
+     * @param input
+     *            Either a directory, searched recursively for files with one
+     *            of the {@link #MEDIA_EXTENSIONS}, or a manifest file listing
+     *            one path per line (blank lines and lines starting with # are
+     *            skipped)
+     * @return The files, sorted when found in a directory
+     */
+    public static List<Path> listInputs(Path input) throws IOException {
+        
+        if (Files.isDirectory(input)) {
+            
+            try (Stream<Path> paths = Files.walk(input)) {
+                
+                return paths.filter(Files::isRegularFile).filter(BatchRunner::isMedia).sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+        
+        return Files.readAllLines(input, StandardCharsets.UTF_8).stream().map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#")).map(Paths::get)
+                .collect(Collectors.toList());
+    }
+    
+    private static boolean isMedia(Path path) {
+        
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        
+        return dot > 0 && MEDIA_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * Maps every input to its output file, before anything runs. Inputs found
+     * in a directory keep their path relative to it under the output
+     * directory, so <code>S1/01.mkv</code> and <code>S2/01.mkv</code> don't
+     * write the same file; inputs from a manifest go straight into the output
+     * directory.
+     * 
+     * @param files
+     *            The inputs, see {@link #listInputs}
+     * @param inputDir
+     *            The directory the inputs were found in, null for a manifest
+     * @param outputDir
+     *            The output directory
+     * @param extension
+     *            The extension of the outputs, without the dot
+     * @return The output of every input, in the order of the inputs
+     * @throws IOException
+     *             When 2 inputs would be written to the same output
+     */
+    static Map<Path, Path> outputPaths(List<Path> files, Path inputDir, Path outputDir, String extension)
+            throws IOException {
+        
+        Map<Path, Path> outputs = new LinkedHashMap<>();
+        Map<Path, Path> inputs = new HashMap<>();
+        
+        for (Path file : files) {
+            
+            Path relative = Objects.isNull(inputDir) ? file.getFileName() : inputDir.relativize(file);
+            Path parent = relative.getParent();
+            String name = baseName(relative) + "." + extension;
+            Path output = (Objects.isNull(parent) ? outputDir : outputDir.resolve(parent)).resolve(name);
+            Path other = inputs.putIfAbsent(output.toAbsolutePath().normalize(), file);
+            
+            if (!Objects.isNull(other)) {
+                
+                throw new IOException(String.format("%s and %s would both be written to %s", other, file, output));
+            }
+            
+            outputs.put(file, output);
+        }
+        
+        return outputs;
+    }
+    
+    /**
+     * @return The file name without its extension
+     */
+    static String baseName(Path path) {
+        
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+    
+    /**
+     * Logs a metrics snapshot every 10 seconds (or the
+     * <code>cawcawcaw.metrics.seconds</code> system property) and exposes the
+     * metrics through JMX while the batch runs.
+     * 
+     * @param args
+     *            The input directory or manifest, and the output directory
+     */
+    public static void main(String[] args) throws Exception {
+        
+        if (args.length != 2) {
+            
+            throw new Exception("Need the input directory (or manifest) and the output directory");
+        }
+        
+        Path input = Paths.get(args[0]);
+        Path outputDir = Files.createDirectories(Paths.get(args[1]));
+        List<Path> files = listInputs(input);
+        Map<Path, Path> outputs = outputPaths(files, Files.isDirectory(input) ? input : null, outputDir, "mp3");
+        
+        Metrics.registerMBean();
+        Metrics.startReporter(Long.getLong("cawcawcaw.metrics.seconds", 10), TimeUnit.SECONDS);
+        
+        BatchReport report = new BatchRunner(file -> {
+            
+            Path output = outputs.get(file);
+            Files.createDirectories(output.getParent());
+            
+            new AudioExtractor(file.toString(), output.toString()).extract();
+        }).run(files);
+        
+        if (report.getFailures() > 0) {
+            
+            System.exit(1);
+        }
+    }
+}
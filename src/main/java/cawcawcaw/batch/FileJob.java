@@ -0,0 +1,37 @@
+package cawcawcaw.batch;
+
+import java.nio.file.Path;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.batch
+ * File: FileJob.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 4:30:12 PM
+ */
+
+/**
+ * <p>
+ * The work done on a single file of a batch, extracting its audio for
+ * example.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.batch.FileJob
+ *
+ */
+@FunctionalInterface
+public interface FileJob {
+    
+    /**
+     * Processes one file. Runs on a batch worker, concurrently with other
+     * files.
+     * 
+     * @param input
+     *            The media file
+     * @throws Exception
+     *             When the file failed, the batch moves on to the next one
+     */
+    void process(Path input) throws Exception;
+}
@@ -0,0 +1,99 @@
+package cawcawcaw.batch;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.batch
+ * File: FileResult.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 4:36:48 PM
+ */
+
+/**
+ * <p>
+ * How a single file of a batch went.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.batch.FileResult
+ *
+ */
+public final class FileResult {
+    
+    private final Path path;
+    
+    private final double mediaSeconds;
+    
+    private final double wallSeconds;
+    
+    private final Throwable error;
+    
+    FileResult(Path path, double mediaSeconds, double wallSeconds, Throwable error) {
+        
+        this.path = path;
+        this.mediaSeconds = mediaSeconds;
+        this.wallSeconds = wallSeconds;
+        this.error = error;
+    }
+    
+    /**
+     * @return The file
+     */
+    public Path getPath() {
+        
+        return this.path;
+    }
+    
+    /**
+     * @return The duration of the media in the file, 0 when unknown
+     */
+    public double getMediaSeconds() {
+        
+        return this.mediaSeconds;
+    }
+    
+    /**
+     * @return The time spent processing the file
+     */
+    public double getWallSeconds() {
+        
+        return this.wallSeconds;
+    }
+    
+    /**
+     * @return The failure, null when the file succeeded
+     */
+    public Throwable getError() {
+        
+        return this.error;
+    }
+    
+    /**
+     * @return True when the file succeeded
+     */
+    public boolean isSuccess() {
+        
+        return Objects.isNull(this.error);
+    }
+    
+    /**
+     * @return Media-seconds processed per wall-second, the "speed" of the file
+     */
+    public double getThroughput() {
+        
+        return this.wallSeconds > 0 ? this.mediaSeconds / this.wallSeconds : 0;
+    }
+    
+    @Override
+    public String toString() {
+        
+        return isSuccess()
+                ? String.format("%s: %.1fs of media in %.1fs (%.1fx)", this.path, this.mediaSeconds,
+                        this.wallSeconds, getThroughput())
+                : String.format("%s: FAILED after %.1fs (%s)", this.path, this.wallSeconds,
+                        this.error.getMessage());
+    }
+}
@@ -0,0 +1,207 @@
+package cawcawcaw.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.humble.video.customio.IURLProtocolHandler;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.io
+ * File: ByteBufferHandler.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 6:02:47 PM
+ */
+
+/**
+ * <p>
+ * A read only, seekable input for FFmpeg over byte buffers held on the Java
+ * side. FFmpeg calls {@link #read(byte[], int)} with its own buffer length, see
+ * {@link MediaInput#withReadSize(int)}, and every read is served by copying out
+ * of the buffers instead of a <code>read(2)</code> call.
+ * 
+ * <p>
+ * Subclasses only say where the bytes at a position live, see
+ * {@link #window(long)}, so the same handler works over memory mapped files,
+ * in-memory media or chunks of a bigger source.
+ * 
+ * <p>
+ * A handler serves one demuxer, FFmpeg calls it from the demuxing thread only.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.io.ByteBufferHandler
+ *
+ */
+public abstract class ByteBufferHandler implements IURLProtocolHandler {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(ByteBufferHandler.class);
+    // # Logging stuff
+    
+    private long position = 0;
+    
+    /**
+     * Gets the source ready, called when FFmpeg opens the input.
+     * 
+     * @throws IOException
+     *             When the source can't be opened
+     */
+    protected abstract void openSource() throws IOException;
+    
+    /**
+     * @return The length of the source in bytes
+     * @throws IOException
+     *             When the length can't be found out
+     */
+    protected abstract long size() throws IOException;
+    
+    /**
+     * @param position
+     *            A position before the end of the source
+     * @return A buffer holding the bytes from the position on, between its
+     *         position and limit. Never empty, reads won't change the
+     *         position of the returned buffer.
+     * @throws IOException
+     *             When the bytes can't be read
+     */
+    protected abstract ByteBuffer window(long position) throws IOException;
+    
+    /**
+     * Lets go of the source, called when FFmpeg closes the input.
+     * 
+     * @throws IOException
+     *             When the source can't be closed
+     */
+    protected abstract void closeSource() throws IOException;
+    
+    @Override
+    public int open(String url, int flags) {
+        
+        if (flags != URL_RDONLY_MODE) {
+            
+            logger.error(String.format("%s can only be opened for reading", url));
+            
+            return -1;
+        }
+        
+        try {
+            
+            openSource();
+            this.position = 0;
+            
+            return 0;
+        } catch (IOException e) {
+            
+            logger.error(e.getMessage(), e);
+            
+            return -1;
+        }
+    }
+    
+    @Override
+    public int read(byte[] buf, int size) {
+        
+        try {
+            
+            long length = size();
+            int read = 0;
+            
+            // a read can span the end of one window and the start of the next
+            while (read < size && this.position < length) {
+                
+                ByteBuffer window = window(this.position).duplicate();
+                int chunk = Math.min(size - read, window.remaining());
+                
+                window.get(buf, read, chunk);
+                
+                read += chunk;
+                this.position += chunk;
+            }
+            
+            return read == 0 && size > 0 ? -1 : read;
+        } catch (IOException e) {
+            
+            logger.error(e.getMessage(), e);
+            
+            return -1;
+        }
+    }
+    
+    @Override
+    public int write(byte[] buf, int size) {
+        
+        return -1;
+    }
+    
+    @Override
+    public long seek(long offset, int whence) {
+        
+        try {
+            
+            long length = size();
+            long target;
+            
+            switch (whence) {
+                
+                case SEEK_SIZE:
+                    return length;
+                
+                case SEEK_SET:
+                    target = offset;
+                    break;
+                
+                case SEEK_CUR:
+                    target = this.position + offset;
+                    break;
+                
+                case SEEK_END:
+                    target = length + offset;
+                    break;
+                
+                default:
+                    return -1;
+            }
+            
+            if (target < 0 || target > length) {
+                
+                return -1;
+            }
+            
+            this.position = target;
+            
+            return target;
+        } catch (IOException e) {
+            
+            logger.error(e.getMessage(), e);
+            
+            return -1;
+        }
+    }
+    
+    @Override
+    public boolean isStreamed(String url, int flags) {
+        
+        return false;
+    }
+    
+    @Override
+    public int close() {
+        
+        try {
+            
+            closeSource();
+            
+            return 0;
+        } catch (IOException e) {
+            
+            logger.error(e.getMessage(), e);
+            
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package cawcawcaw.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.io
+ * File: MappedFileHandler.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 6:20:13 PM
+ */
+
+/**
+ * <p>
+ * Serves a media file out of memory mapped windows of a {@link FileChannel}.
+ * Reads are page cache copies without syscalls, only moving to another window
+ * maps again.
+ * 
+ * <p>
+ * Windows are aligned on multiples of the window size and only the current
+ * one is held, so files bigger than the address space we want to give away
+ * (or than the 2GB a single mapping can hold) work too. An old window is
+ * unmapped when the garbage collector gets to it.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.io.MappedFileHandler
+ *
+ */
+public class MappedFileHandler extends ByteBufferHandler {
+    
+    private final Path path;
+    
+    private final int windowSize;
+    
+    private FileChannel channel;
+    
+    private long size;
+    
+    private MappedByteBuffer window;
+    
+    private long windowStart;
+    
+    /**
+     * @param path
+     *            The file to read
+     * @param windowSize
+     *            The max bytes mapped at once
+     */
+    public MappedFileHandler(Path path, int windowSize) {
+        
+        if (windowSize <= 0) {
+            
+            throw new IllegalArgumentException(String.format("Window size must be positive, was %d", windowSize));
+        }
+        
+        this.path = path;
+        this.windowSize = windowSize;
+    }
+    
+    @Override
+    protected void openSource() throws IOException {
+        
+        closeSource();
+        
+        this.channel = FileChannel.open(this.path, StandardOpenOption.READ);
+        this.size = this.channel.size();
+    }
+    
+    @Override
+    protected long size() {
+        
+        return this.size;
+    }
+    
+    @Override
+    protected ByteBuffer window(long position) throws IOException {
+        
+        if (Objects.isNull(this.window) || position < this.windowStart
+                || position >= this.windowStart + this.window.capacity()) {
+            
+            this.windowStart = position - position % this.windowSize;
+            this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowStart,
+                    Math.min(this.windowSize, this.size - this.windowStart));
+        }
+        
+        ByteBuffer view = this.window.duplicate();
+        view.position((int) (position - this.windowStart));
+        
+        return view;
+    }
+    
+    @Override
+    protected void closeSource() throws IOException {
+        
+        this.window = null;
+        
+        if (!Objects.isNull(this.channel)) {
+            
+            // close resources
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+}
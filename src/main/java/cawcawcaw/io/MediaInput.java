@@ -0,0 +1,197 @@
+package cawcawcaw.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.humble.video.Demuxer;
+import io.humble.video.KeyValueBag;
+import io.humble.video.customio.HumbleIO;
+import io.humble.video.customio.IURLProtocolHandler;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.io
+ * File: MediaInput.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 6:48:25 PM
+ */
+
+/**
+ * <p>
+ * How a {@link Demuxer} gets at the bytes of a file. By default the path is
+ * handed to FFmpeg, which reads it with its own file protocol in small
+ * buffered reads. The mapped input backs the demuxer with a
+ * {@link MappedFileHandler} instead, which cuts the syscalls on large files.
+ * 
+ * <p>
+ * Any other {@link IURLProtocolHandler}, like a {@link MemoryHandler}, can be
+ * opened the same way with {@link #open(Demuxer, IURLProtocolHandler, String,
+ * boolean, KeyValueBag)}.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.io.MediaInput
+ *
+ */
+public class MediaInput {
+    
+    /**
+     * The default max bytes mapped at once, 64MB.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+    
+    /**
+     * The default length of the reads FFmpeg does through a handler, 256KB.
+     */
+    public static final int DEFAULT_READ_SIZE = 256 << 10;
+    
+    private static final AtomicLong names = new AtomicLong();
+    
+    private final boolean mapped;
+    
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    
+    private int readSize = DEFAULT_READ_SIZE;
+    
+    private MediaInput(boolean mapped) {
+        
+        this.mapped = mapped;
+    }
+    
+    /**
+     * @return An input that hands the path to FFmpeg, like Humble101 does
+     */
+    public static MediaInput path() {
+        
+        return new MediaInput(false);
+    }
+    
+    /**
+     * @return An input that memory maps the file
+     */
+    public static MediaInput mapped() {
+        
+        return new MediaInput(true);
+    }
+    
+    /**
+     * @param windowSize
+     *            The max bytes of a file mapped at once
+     * @return this
+     */
+    public MediaInput withWindowSize(int windowSize) {
+        
+        if (windowSize <= 0) {
+            
+            throw new IllegalArgumentException(String.format("Window size must be positive, was %d", windowSize));
+        }
+        
+        this.windowSize = windowSize;
+        
+        return this;
+    }
+    
+    /**
+     * @param readSize
+     *            The length of the reads FFmpeg does through a handler, the
+     *            length of its input buffer
+     * @return this
+     */
+    public MediaInput withReadSize(int readSize) {
+        
+        if (readSize <= 0) {
+            
+            throw new IllegalArgumentException(String.format("Read size must be positive, was %d", readSize));
+        }
+        
+        this.readSize = readSize;
+        
+        return this;
+    }
+    
+    /**
+     * @return true when files are memory mapped
+     */
+    public boolean isMapped() {
+        
+        return this.mapped;
+    }
+    
+    /**
+     * Opens a media file.
+     * 
+     * @param demuxer
+     *            The demuxer to open
+     * @param path
+     *            The media file
+     * @param queryStreamMetaData
+     *            Whether to read ahead to find out about the streams, see
+     *            {@link Demuxer#open(String, io.humble.video.DemuxerFormat,
+     *            boolean, boolean, KeyValueBag, KeyValueBag)}
+     * @param options
+     *            The demuxer options, or null
+     * @throws IOException
+     *             When the file can't be opened as media
+     */
+    public void open(Demuxer demuxer, String path, boolean queryStreamMetaData, KeyValueBag options)
+            throws IOException, InterruptedException {
+        
+        if (!this.mapped) {
+            
+            demuxer.open(path, null, false, queryStreamMetaData, options, null);
+            
+            return;
+        }
+        
+        Path file = Paths.get(path);
+        
+        open(demuxer, new MappedFileHandler(file, this.windowSize), file.getFileName().toString(),
+                queryStreamMetaData, options);
+    }
+    
+    /**
+     * Opens media served by a handler.
+     * 
+     * @param demuxer
+     *            The demuxer to open
+     * @param handler
+     *            Serves the media bytes, opened and closed by the demuxer
+     * @param name
+     *            A name for the media, its extension helps FFmpeg guess the
+     *            format
+     * @param queryStreamMetaData
+     *            Whether to read ahead to find out about the streams
+     * @param options
+     *            The demuxer options, or null
+     * @throws IOException
+     *             When the media can't be opened
+     */
+    public void open(Demuxer demuxer, IURLProtocolHandler handler, String name, boolean queryStreamMetaData,
+            KeyValueBag options) throws IOException, InterruptedException {
+        
+        // the mapping is dropped once the demuxer has picked up the handler,
+        // a unique url keeps concurrent opens of the same name apart
+        String url = HumbleIO.map(String.format("cawcawcaw-%d-%s", names.incrementAndGet(),
+                Objects.isNull(name) ? "" : name), handler);
+        
+        demuxer.setInputBufferLength(this.readSize);
+        
+        try {
+            
+            demuxer.open(url, null, false, queryStreamMetaData, options, null);
+        } finally {
+            
+            HumbleIO.unmap(url);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        
+        return this.mapped ? String.format("mapped(window=%d, read=%d)", this.windowSize, this.readSize) : "path";
+    }
+}
@@ -0,0 +1,62 @@
+package cawcawcaw.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.io
+ * File: MemoryHandler.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 6:31:40 PM
+ */
+
+/**
+ * <p>
+ * Serves media that is already in memory, a downloaded file or a test fixture
+ * for example. The bytes between the buffer's position and limit are the
+ * media, the buffer itself is never changed.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.io.MemoryHandler
+ *
+ */
+public class MemoryHandler extends ByteBufferHandler {
+    
+    private final ByteBuffer media;
+    
+    /**
+     * @param media
+     *            The media bytes
+     */
+    public MemoryHandler(ByteBuffer media) {
+        
+        this.media = media.slice().asReadOnlyBuffer();
+    }
+    
+    @Override
+    protected void openSource() {
+        
+    }
+    
+    @Override
+    protected long size() {
+        
+        return this.media.capacity();
+    }
+    
+    @Override
+    protected ByteBuffer window(long position) {
+        
+        ByteBuffer view = this.media.duplicate();
+        view.position((int) position);
+        
+        return view;
+    }
+    
+    @Override
+    protected void closeSource() {
+        
+    }
+}
@@ -0,0 +1,248 @@
+package cawcawcaw.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.log
+ * File: SampledLogger.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 20, 2026 2:12:44 PM
+ */
+
+/**
+ * <p>
+ * Logging for the packet and frame loops, which run thousands of times per
+ * second: only every n-th message is logged, and no more than a given number
+ * per second. The messages skipped in between are counted in the next one
+ * logged.
+ * 
+ * <p>
+ * Messages are parameterized the SLF4J way, with <code>{}</code> place
+ * holders, so nothing is formatted (and, with an object argument, nothing is
+ * allocated) when the level is disabled or the message is skipped:
+ * 
+ * <pre>
+ * private static final SampledLogger packetLog = new SampledLogger(logger).withSampling(100);
+ * ...
+ * packetLog.debug("Read {}", packet);
+ * </pre>
+ * 
+ * <p>
+ * Thread safe, a single instance is meant to be shared by all the loops
+ * logging the same thing.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.log.SampledLogger
+ *
+ */
+public final class SampledLogger {
+    
+    /**
+     * The default max number of messages logged per second.
+     */
+    public static final int DEFAULT_RATE_LIMIT = 10;
+    
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private final Logger logger;
+    
+    private int sampling = 1;
+    
+    private int rateLimit = DEFAULT_RATE_LIMIT;
+    
+    private final AtomicLong seen = new AtomicLong();
+    
+    private final AtomicLong skipped = new AtomicLong();
+    
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    
+    private final AtomicInteger windowCount = new AtomicInteger();
+    
+    /**
+     * @param logger
+     *            The logger the messages that get through go to
+     */
+    public SampledLogger(Logger logger) {
+        
+        this.logger = logger;
+    }
+    
+    /**
+     * @param every
+     *            Logs one message out of every, 1 to log them all
+     * @return This logger
+     */
+    public SampledLogger withSampling(int every) {
+        
+        if (every <= 0) {
+            
+            throw new IllegalArgumentException("Sampling must be positive, got " + every);
+        }
+        
+        this.sampling = every;
+        
+        return this;
+    }
+    
+    /**
+     * @param perSecond
+     *            The max number of messages logged per second
+     * @return This logger
+     */
+    public SampledLogger withRateLimit(int perSecond) {
+        
+        if (perSecond <= 0) {
+            
+            throw new IllegalArgumentException("Rate limit must be positive, got " + perSecond);
+        }
+        
+        this.rateLimit = perSecond;
+        
+        return this;
+    }
+    
+    /**
+     * @return The number of messages skipped so far, while their level was
+     *         enabled
+     */
+    public long getSkipped() {
+        
+        return this.skipped.get();
+    }
+    
+    /**
+     * @param pattern
+     *            The message, with a <code>{}</code> for the argument
+     * @param arg
+     *            The argument
+     */
+    public void trace(String pattern, Object arg) {
+        
+        if (this.logger.isTraceEnabled() && admit()) {
+            
+            this.logger.trace(withSkipped(pattern), arg, this.skipped.getAndSet(0));
+        }
+    }
+    
+    /**
+     * @param pattern
+     *            The message, with a <code>{}</code> for each argument
+     * @param arg1
+     *            The first argument
+     * @param arg2
+     *            The second argument
+     */
+    public void trace(String pattern, Object arg1, Object arg2) {
+        
+        if (this.logger.isTraceEnabled() && admit()) {
+            
+            this.logger.trace(withSkipped(pattern), arg1, arg2, this.skipped.getAndSet(0));
+        }
+    }
+    
+    /**
+     * @param pattern
+     *            The message, with a <code>{}</code> for the argument
+     * @param arg
+     *            The argument
+     */
+    public void debug(String pattern, Object arg) {
+        
+        if (this.logger.isDebugEnabled() && admit()) {
+            
+            this.logger.debug(withSkipped(pattern), arg, this.skipped.getAndSet(0));
+        }
+    }
+    
+    /**
+     * @param pattern
+     *            The message, with a <code>{}</code> for each argument
+     * @param arg1
+     *            The first argument
+     * @param arg2
+     *            The second argument
+     */
+    public void debug(String pattern, Object arg1, Object arg2) {
+        
+        if (this.logger.isDebugEnabled() && admit()) {
+            
+            this.logger.debug(withSkipped(pattern), arg1, arg2, this.skipped.getAndSet(0));
+        }
+    }
+    
+    /**
+     * @param pattern
+     *            The message, with a <code>{}</code> for the argument
+     * @param arg
+     *            The argument
+     */
+    public void info(String pattern, Object arg) {
+        
+        if (this.logger.isInfoEnabled() && admit()) {
+            
+            this.logger.info(withSkipped(pattern), arg, this.skipped.getAndSet(0));
+        }
+    }
+    
+    /**
+     * @param pattern
+     *            The message, with a <code>{}</code> for each argument
+     * @param arg1
+     *            The first argument
+     * @param arg2
+     *            The second argument
+     */
+    public void info(String pattern, Object arg1, Object arg2) {
+        
+        if (this.logger.isInfoEnabled() && admit()) {
+            
+            this.logger.info(withSkipped(pattern), arg1, arg2, this.skipped.getAndSet(0));
+        }
+    }
+    
+    /**
+     * Decides whether a message gets through: it must be the n-th one and the
+     * rate limit of the current second must not be used up. Counts the skipped
+     * ones.
+     * 
+     * @return True to log the message
+     */
+    boolean admit() {
+        
+        if (this.seen.getAndIncrement() % this.sampling != 0) {
+            
+            this.skipped.incrementAndGet();
+            
+            return false;
+        }
+        
+        long now = System.nanoTime();
+        long start = this.windowStart.get();
+        
+        if (now - start >= WINDOW_NANOS && this.windowStart.compareAndSet(start, now)) {
+            
+            this.windowCount.set(0);
+        }
+        
+        if (this.windowCount.incrementAndGet() > this.rateLimit) {
+            
+            this.skipped.incrementAndGet();
+            
+            return false;
+        }
+        
+        return true;
+    }
+    
+    private static String withSkipped(String pattern) {
+        
+        return pattern + " ({} skipped)";
+    }
+}
@@ -0,0 +1,414 @@
+package cawcawcaw.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.pool.MediaPool;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.metrics
+ * File: Metrics.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 20, 2026 10:14:05 AM
+ */
+
+/**
+ * <p>
+ * The metrics of everything running in this JVM: per stage item counts,
+ * latency histograms and queue depths (recorded by the
+ * {@link cawcawcaw.pipeline.Pipeline} nodes), named counters (packets read,
+ * frames decoded and encoded, bytes muxed) and the usage of the live
+ * {@link MediaPool}s.
+ * 
+ * <p>
+ * The stages are keyed by node name, so the "decode" nodes of all the
+ * pipelines a batch runs add up into one {@link StageMetrics}.
+ * 
+ * <p>
+ * Nothing is exported unless asked for: {@link #registerMBean()} exposes the
+ * cumulative values through JMX, {@link #startReporter(long, TimeUnit)} logs
+ * one line per period with the rates and latencies of that period, like:
+ * 
+ * <pre>
+ * 10.0s | demux in=0/s out=2400/s busy=3% p50=0.01ms p99=0.05ms max=0.20ms queue=0 | decode ...
+ *       | pools decode-audio=60/68 (12.3MB) | demux.packets=2400/s mux.bytes=24000/s
+ * </pre>
+ * 
+ * <p>
+ * A stage busy close to 100% is the bottleneck of its pipeline (more than
+ * 100% when several pipelines run the same stage).
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.metrics.Metrics
+ *
+ */
+public final class Metrics {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+    // # Logging stuff
+    
+    /**
+     * The JMX name of the metrics.
+     */
+    public static final String OBJECT_NAME = "cawcawcaw:type=Metrics";
+    
+    private static final long STARTED = System.nanoTime();
+    
+    private static final Map<String, StageMetrics> stages = Collections.synchronizedMap(new LinkedHashMap<>());
+    
+    private static final Map<String, LongAdder> counters = Collections.synchronizedMap(new LinkedHashMap<>());
+    
+    private static final Set<MediaPool<?>> pools = Collections
+            .synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    
+    // # Guarded by Metrics.class
+    private static ScheduledExecutorService reporter = null;
+    // # Guarded by Metrics.class
+    
+    private Metrics() {
+        
+    }
+    
+    /**
+     * @param name
+     *            The name of the pipeline node
+     * @return The metrics of all the nodes with that name
+     */
+    public static StageMetrics stage(String name) {
+        
+        return stages.computeIfAbsent(name, StageMetrics::new);
+    }
+    
+    /**
+     * @param name
+     *            The name of the counter, like "demux.packets"
+     * @return The counter, to be incremented by everyone counting that
+     */
+    public static LongAdder counter(String name) {
+        
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+    
+    /**
+     * Reports the usage of a pool for as long as it's alive. Done by the pools
+     * themselves.
+     * 
+     * @param pool
+     *            The pool
+     */
+    public static void pool(MediaPool<?> pool) {
+        
+        pools.add(pool);
+    }
+    
+    /**
+     * @return The metrics of all the stages seen so far
+     */
+    public static List<StageMetrics> stages() {
+        
+        synchronized (stages) {
+            
+            return new ArrayList<>(stages.values());
+        }
+    }
+    
+    /**
+     * @return The current values of all the counters
+     */
+    public static Map<String, Long> counters() {
+        
+        Map<String, Long> values = new LinkedHashMap<>();
+        
+        synchronized (counters) {
+            
+            counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        }
+        
+        return values;
+    }
+    
+    /**
+     * @return The pools alive right now
+     */
+    static List<MediaPool<?>> pools() {
+        
+        synchronized (pools) {
+            
+            return new ArrayList<>(pools);
+        }
+    }
+    
+    /**
+     * @return A line with everything since the start, latencies included
+     */
+    public static String snapshot() {
+        
+        return new Snapshot(STARTED, true).take();
+    }
+    
+    /**
+     * Logs a snapshot line every period, with the rates and latencies of that
+     * period. Replaces the reporter started before, if any.
+     * 
+     * @param period
+     *            The period, must be positive
+     * @param unit
+     *            The unit of the period
+     */
+    public static synchronized void startReporter(long period, TimeUnit unit) {
+        
+        if (period <= 0) {
+            
+            throw new IllegalArgumentException("Reporting period must be positive, got " + period);
+        }
+        
+        stopReporter();
+        
+        Snapshot snapshot = new Snapshot(System.nanoTime(), false);
+        
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            
+            return thread;
+        });
+        
+        reporter.scheduleAtFixedRate(() -> {
+            
+            try {
+                
+                logger.info(snapshot.take());
+            } catch (RuntimeException e) {
+                
+                logger.error(e.getMessage(), e); // keep reporting
+            }
+        }, period, period, unit);
+    }
+    
+    /**
+     * Stops the periodic snapshot log, if started.
+     */
+    public static synchronized void stopReporter() {
+        
+        if (!Objects.isNull(reporter)) {
+            
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+    
+    /**
+     * Registers the {@link MetricsMXBean} with the platform MBean server,
+     * under {@value #OBJECT_NAME}. Does nothing when already registered.
+     */
+    public static synchronized void registerMBean() {
+        
+        try {
+            
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            
+            if (!server.isRegistered(name)) {
+                
+                server.registerMBean(new MBean(), name);
+            }
+        } catch (JMException e) {
+            
+            logger.error(String.format("Couldn't register the metrics MBean: %s", e.getMessage()), e);
+        }
+    }
+    
+    /**
+     * Computes the snapshot lines, each one covering the time since the
+     * previous one.
+     */
+    private static final class Snapshot {
+        
+        private final boolean cumulative;
+        
+        private long since;
+        
+        private final Map<String, long[]> previousStages = new LinkedHashMap<>();
+        
+        private final Map<String, Long> previousCounters = new LinkedHashMap<>();
+        
+        Snapshot(long since, boolean cumulative) {
+            
+            this.since = since;
+            this.cumulative = cumulative;
+        }
+        
+        String take() {
+            
+            long now = System.nanoTime();
+            double seconds = Math.max(now - this.since, 1) / 1e9;
+            this.since = now;
+            
+            StringBuilder line = new StringBuilder(String.format("%.1fs", seconds));
+            
+            for (StageMetrics stage : stages()) {
+                
+                long[] current = { stage.getReceived(), stage.getEmitted(), stage.getBusyNanos() };
+                long[] previous = this.previousStages.getOrDefault(stage.getName(), new long[3]);
+                this.previousStages.put(stage.getName(), current);
+                
+                Histogram latency = this.cumulative ? stage.getLatency() : stage.takeLatencySinceReport();
+                
+                line.append(String.format(
+                        " | %s in=%.0f/s out=%.0f/s busy=%.0f%% p50=%.2fms p99=%.2fms max=%.2fms queue=%d",
+                        stage.getName(), (current[0] - previous[0]) / seconds, (current[1] - previous[1]) / seconds,
+                        (current[2] - previous[2]) / seconds / 1e7, latency.getValueAtPercentile(50) / 1e6,
+                        latency.getValueAtPercentile(99) / 1e6, latency.getMaxValue() / 1e6,
+                        stage.getQueueDepth()));
+            }
+            
+            Map<String, long[]> usage = new LinkedHashMap<>(); // in flight, allocated, bytes, by pool name
+            
+            for (MediaPool<?> pool : pools()) {
+                
+                long[] sums = usage.computeIfAbsent(pool.getName(), name -> new long[3]);
+                sums[0] += pool.getInFlight();
+                sums[1] += pool.getAllocated();
+                sums[2] += pool.getInFlightBytes();
+            }
+            
+            if (!usage.isEmpty()) {
+                
+                line.append(" | pools");
+                
+                usage.forEach((name, sums) -> line.append(
+                        String.format(" %s=%d/%d (%.1fMB)", name, sums[0], sums[1], sums[2] / (1024.0 * 1024.0))));
+            }
+            
+            Map<String, Long> current = counters();
+            
+            if (!current.isEmpty()) {
+                
+                line.append(" |");
+                
+                current.forEach((name, value) -> line.append(String.format(" %s=%.0f/s", name,
+                        (value - this.previousCounters.getOrDefault(name, 0L)) / seconds)));
+            }
+            
+            this.previousCounters.putAll(current);
+            
+            return line.toString();
+        }
+    }
+    
+    /**
+     * The JMX view of the metrics.
+     */
+    private static final class MBean implements MetricsMXBean {
+        
+        @Override
+        public Map<String, Long> getCounters() {
+            
+            return counters();
+        }
+        
+        @Override
+        public Map<String, Long> getItemsIn() {
+            
+            return byStage(StageMetrics::getReceived);
+        }
+        
+        @Override
+        public Map<String, Long> getItemsOut() {
+            
+            return byStage(StageMetrics::getEmitted);
+        }
+        
+        @Override
+        public Map<String, Double> getLatencyP50Micros() {
+            
+            return byStage(stage -> percentileMicros(stage, 50));
+        }
+        
+        @Override
+        public Map<String, Double> getLatencyP99Micros() {
+            
+            return byStage(stage -> percentileMicros(stage, 99));
+        }
+        
+        @Override
+        public Map<String, Integer> getQueueDepths() {
+            
+            return byStage(StageMetrics::getQueueDepth);
+        }
+        
+        @Override
+        public Map<String, Long> getPoolInFlight() {
+            
+            return byPool(pool -> (long) pool.getInFlight());
+        }
+        
+        @Override
+        public Map<String, Long> getPoolAllocated() {
+            
+            return byPool(pool -> (long) pool.getAllocated());
+        }
+        
+        @Override
+        public Map<String, Long> getPoolInFlightBytes() {
+            
+            return byPool(MediaPool::getInFlightBytes);
+        }
+        
+        @Override
+        public String getSnapshot() {
+            
+            return snapshot();
+        }
+        
+        private static <V> Map<String, V> byStage(Function<StageMetrics, V> value) {
+            
+            Map<String, V> values = new LinkedHashMap<>();
+            stages().forEach(stage -> values.put(stage.getName(), value.apply(stage)));
+            
+            return values;
+        }
+        
+        /**
+         * Sums up the pools with the same name, like the ones of the
+         * pipelines of a batch.
+         */
+        private static Map<String, Long> byPool(Function<MediaPool<?>, Long> value) {
+            
+            Map<String, Long> values = new LinkedHashMap<>();
+            pools().forEach(pool -> values.merge(pool.getName(), value.apply(pool), Long::sum));
+            
+            return values;
+        }
+        
+        private static double percentileMicros(StageMetrics stage, double percentile) {
+            
+            return stage.getLatency().getValueAtPercentile(percentile) / 1e3;
+        }
+    }
+}
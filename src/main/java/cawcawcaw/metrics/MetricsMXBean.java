@@ -0,0 +1,80 @@
+package cawcawcaw.metrics;
+
+import java.util.Map;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.metrics
+ * File: MetricsMXBean.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 20, 2026 9:52:40 AM
+ */
+
+/**
+ * <p>
+ * The {@link Metrics} as seen from JConsole or VisualVM, under
+ * {@value Metrics#OBJECT_NAME}. Everything is cumulative since the start of
+ * the JVM, except the queue depths and the pool usage which are the current
+ * values. The maps are keyed by stage, counter or pool name.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.metrics.MetricsMXBean
+ *
+ */
+public interface MetricsMXBean {
+    
+    /**
+     * @return The counters, like packets read or bytes muxed
+     */
+    Map<String, Long> getCounters();
+    
+    /**
+     * @return The items taken from the input queues, by stage
+     */
+    Map<String, Long> getItemsIn();
+    
+    /**
+     * @return The items handed downstream, by stage
+     */
+    Map<String, Long> getItemsOut();
+    
+    /**
+     * @return The median busy time per item in microseconds, by stage
+     */
+    Map<String, Double> getLatencyP50Micros();
+    
+    /**
+     * @return The 99th percentile of the busy time per item in microseconds,
+     *         by stage
+     */
+    Map<String, Double> getLatencyP99Micros();
+    
+    /**
+     * @return The items waiting in the input queues, by stage
+     */
+    Map<String, Integer> getQueueDepths();
+    
+    /**
+     * @return The objects handed out and not released yet, by pool
+     */
+    Map<String, Long> getPoolInFlight();
+    
+    /**
+     * @return The objects made so far, by pool
+     */
+    Map<String, Long> getPoolAllocated();
+    
+    /**
+     * @return The estimated native bytes held by the objects in flight, by
+     *         pool
+     */
+    Map<String, Long> getPoolInFlightBytes();
+    
+    /**
+     * @return The same line as the periodic snapshot log, covering everything
+     *         since the start
+     */
+    String getSnapshot();
+}
@@ -0,0 +1,187 @@
+package cawcawcaw.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.metrics
+ * File: StageMetrics.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 20, 2026 9:31:18 AM
+ */
+
+/**
+ * <p>
+ * What the nodes of the same name did, across all the pipelines that ran or
+ * are running: items received and emitted, the busy time per item and how
+ * full the input queues are.
+ * 
+ * <p>
+ * The busy time of an item is the time spent processing it, minus the time
+ * spent blocked handing outputs to a full downstream queue. A stage close to
+ * 100% busy is the one limiting the throughput, the queues in front of it are
+ * full and the ones behind it are empty.
+ * 
+ * <p>
+ * Recording is lock free (a {@link Recorder} and {@link LongAdder}s), the
+ * histograms are only rolled over when read.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.metrics.StageMetrics
+ *
+ */
+public final class StageMetrics {
+    
+    private static final int SIGNIFICANT_DIGITS = 2;
+    
+    private final String name;
+    
+    private final LongAdder received = new LongAdder();
+    
+    private final LongAdder emitted = new LongAdder();
+    
+    private final LongAdder busyNanos = new LongAdder();
+    
+    private final Recorder latency = new Recorder(SIGNIFICANT_DIGITS);
+    
+    private final List<IntSupplier> queues = new CopyOnWriteArrayList<>();
+    
+    // # Guarded by this
+    private Histogram interval = null;
+    
+    private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+    
+    private final Histogram sinceReport = new Histogram(SIGNIFICANT_DIGITS);
+    // # Guarded by this
+    
+    StageMetrics(String name) {
+        
+        this.name = name;
+    }
+    
+    /**
+     * Counts an item taken from the input queue.
+     */
+    public void received() {
+        
+        this.received.increment();
+    }
+    
+    /**
+     * Counts an item handed downstream.
+     */
+    public void emitted() {
+        
+        this.emitted.increment();
+    }
+    
+    /**
+     * @param nanos
+     *            The busy time spent on one item
+     */
+    public void processed(long nanos) {
+        
+        this.busyNanos.add(nanos);
+        this.latency.recordValue(Math.max(nanos, 0));
+    }
+    
+    /**
+     * Counts the size of an input queue in {@link #getQueueDepth()} while the
+     * queue is in use.
+     * 
+     * @param size
+     *            The number of items in the queue
+     * @return Stops counting the queue, to be run once it's not used anymore
+     */
+    public Runnable watchQueue(IntSupplier size) {
+        
+        this.queues.add(size);
+        
+        return () -> this.queues.remove(size);
+    }
+    
+    /**
+     * @return The name of the nodes
+     */
+    public String getName() {
+        
+        return this.name;
+    }
+    
+    /**
+     * @return The number of items taken from the input queues
+     */
+    public long getReceived() {
+        
+        return this.received.sum();
+    }
+    
+    /**
+     * @return The number of items handed downstream
+     */
+    public long getEmitted() {
+        
+        return this.emitted.sum();
+    }
+    
+    /**
+     * @return The total busy time, in nanoseconds
+     */
+    public long getBusyNanos() {
+        
+        return this.busyNanos.sum();
+    }
+    
+    /**
+     * @return The number of items waiting in the input queues right now
+     */
+    public int getQueueDepth() {
+        
+        int depth = 0;
+        
+        for (IntSupplier queue : this.queues) {
+            
+            depth += queue.getAsInt();
+        }
+        
+        return depth;
+    }
+    
+    /**
+     * @return The busy time per item since the start, in nanoseconds
+     */
+    public synchronized Histogram getLatency() {
+        
+        roll();
+        
+        return this.total.copy();
+    }
+    
+    /**
+     * @return The busy time per item since the last call, in nanoseconds
+     */
+    synchronized Histogram takeLatencySinceReport() {
+        
+        roll();
+        
+        Histogram taken = this.sinceReport.copy();
+        this.sinceReport.reset();
+        
+        return taken;
+    }
+    
+    private void roll() {
+        
+        this.interval = this.latency.getIntervalHistogram(this.interval);
+        this.total.add(this.interval);
+        this.sinceReport.add(this.interval);
+    }
+}
@@ -0,0 +1,516 @@
+package cawcawcaw.pcm;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pcm
+ * File: PcmRing.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 7:12:40 PM
+ */
+
+/**
+ * <p>
+ * A single producer, multiple consumer ring of PCM bytes in off-heap memory.
+ * The decoder writes the samples once and every consumer (speech recognition,
+ * VAD, an encoder, ...) reads them at its own pace through its own
+ * {@link Reader}, without any per frame heap buffers.
+ * 
+ * <p>
+ * There are no locks: the producer publishes how far it has written, each
+ * reader publishes how far it has read, and whoever has to wait parks for a
+ * short while and checks again.
+ * 
+ * <p>
+ * Readers come in two kinds:
+ * 
+ * <ul>
+ * 
+ * <li>{@link #reader()} makes a <i>gating</i> reader, one that sees every
+ * byte. The producer never overwrites bytes a gating reader hasn't read yet,
+ * so the slowest gating reader is the backpressure on the decoder.</li>
+ * 
+ * <li>{@link #lossyReader(int)} makes a reader that never holds the producer
+ * back. When it falls a whole ring behind it skips ahead to the oldest bytes
+ * still in the ring, a ring's worth of the newest audio, and counts what it
+ * dropped. Good for monitoring and live previews.</li>
+ * 
+ * </ul>
+ * 
+ * <p>
+ * The producer can also use {@link #offer(ByteBuffer)} instead of
+ * {@link #write(ByteBuffer)} to never wait at all, and decide by itself what
+ * to do with what didn't fit.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pcm.PcmRing
+ *
+ */
+public final class PcmRing {
+    
+    /**
+     * How long a waiting producer or reader parks before it checks again.
+     */
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    
+    private final ByteBuffer memory;
+    
+    private final int capacity;
+    
+    private final int mask;
+    
+    /**
+     * The producer's own view of the memory, only touched by the producer
+     * thread.
+     */
+    private final ByteBuffer writeView;
+    
+    /**
+     * Total bytes written, published after the bytes are in the memory.
+     */
+    private final AtomicLong head = new AtomicLong();
+    
+    /**
+     * Total bytes written once the write in progress is done, published
+     * before the bytes are copied. The lossy readers check it to know whether
+     * the producer wrote over what they were copying.
+     */
+    private final AtomicLong claim = new AtomicLong();
+    
+    /**
+     * Held by the producer while it copies, the lossy readers read
+     * optimistically: a read that saw no write during its copy is consistent.
+     */
+    private final StampedLock writing = new StampedLock();
+    
+    private final CopyOnWriteArrayList<Reader> gating = new CopyOnWriteArrayList<>();
+    
+    private volatile boolean closed = false;
+    
+    /**
+     * @param capacity
+     *            The size of the ring in bytes, rounded up to a power of two
+     */
+    public PcmRing(int capacity) {
+        
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            
+            throw new IllegalArgumentException("Ring capacity must be between 1 byte and 1GB, got " + capacity);
+        }
+        
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.memory = ByteBuffer.allocateDirect(this.capacity);
+        this.writeView = this.memory.duplicate();
+    }
+    
+    /**
+     * @param sampleRate
+     *            The sample rate of the PCM
+     * @param bytesPerFrame
+     *            The bytes of one sample for all the channels
+     * @param seconds
+     *            How many seconds of PCM the ring must hold
+     * @return A ring big enough for the given duration of PCM
+     */
+    public static PcmRing forDuration(int sampleRate, int bytesPerFrame, double seconds) {
+        
+        return new PcmRing((int) Math.ceil(sampleRate * seconds) * bytesPerFrame);
+    }
+    
+    /**
+     * @return A reader that sees every byte written from now on and holds the
+     *         producer back when it falls behind
+     */
+    public Reader reader() {
+        
+        Reader reader = new Reader(0);
+        
+        this.gating.add(reader);
+        
+        // the producer may have moved on while we were registering, start
+        // from where it is now, it won't overwrite that anymore
+        reader.position.set(this.head.get());
+        
+        return reader;
+    }
+    
+    /**
+     * @param frameBytes
+     *            The bytes of one sample for all the channels, skipping ahead
+     *            keeps the reader on a sample boundary
+     * @return A reader that never holds the producer back and skips ahead when
+     *         it falls a whole ring behind
+     */
+    public Reader lossyReader(int frameBytes) {
+        
+        if (frameBytes <= 0) {
+            
+            throw new IllegalArgumentException("Frame size must be positive, got " + frameBytes);
+        }
+        
+        return new Reader(frameBytes);
+    }
+    
+    /**
+     * Writes all the remaining bytes of the source, waiting for the gating
+     * readers to make room when the ring is full.
+     * 
+     * @param src
+     *            The bytes to write, consumed
+     * @throws InterruptedException
+     *             When interrupted while waiting for room
+     */
+    public void write(ByteBuffer src) throws InterruptedException {
+        
+        while (src.hasRemaining()) {
+            
+            if (offer(src) == 0) {
+                
+                park();
+            }
+        }
+    }
+    
+    /**
+     * Writes as many of the remaining bytes of the source as fit right now,
+     * never waiting.
+     * 
+     * @param src
+     *            The bytes to write, consumed as far as written
+     * @return The number of bytes written
+     */
+    public int offer(ByteBuffer src) {
+        
+        if (this.closed) {
+            
+            throw new IllegalStateException("Ring is closed");
+        }
+        
+        long start = this.head.get();
+        int room = (int) (this.capacity - (start - minGatingPosition(start)));
+        int count = Math.min(room, src.remaining());
+        
+        if (count <= 0) {
+            
+            return 0;
+        }
+        
+        int index = (int) (start & this.mask);
+        int first = Math.min(count, this.capacity - index);
+        
+        // claim first, a lossy reader finding its copy overlapped by the claim
+        // knows it's torn
+        this.claim.set(start + count);
+        
+        long stamp = this.writing.writeLock();
+        
+        try {
+            
+            copy(src, this.writeView, index, first);
+            copy(src, this.writeView, 0, count - first);
+            
+            // publish, the readers see the bytes once they see the new head
+            this.head.set(start + count);
+        } finally {
+            
+            this.writing.unlockWrite(stamp);
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Marks the end of the PCM. The readers get the rest of the bytes and then
+     * the end of stream.
+     */
+    public void close() {
+        
+        this.closed = true;
+    }
+    
+    /**
+     * @return true when {@link #close()} was called
+     */
+    public boolean isClosed() {
+        
+        return this.closed;
+    }
+    
+    /**
+     * @return The size of the ring in bytes
+     */
+    public int getCapacity() {
+        
+        return this.capacity;
+    }
+    
+    /**
+     * @return The total number of bytes written so far
+     */
+    public long getWritten() {
+        
+        return this.head.get();
+    }
+    
+    /**
+     * @return The number of bytes the slowest gating reader hasn't read yet
+     */
+    public int getBacklog() {
+        
+        long head = this.head.get();
+        
+        return (int) (head - minGatingPosition(head));
+    }
+    
+    private long minGatingPosition(long head) {
+        
+        long min = head;
+        
+        for (Reader reader : this.gating) {
+            
+            min = Math.min(min, reader.position.get());
+        }
+        
+        return min;
+    }
+    
+    /**
+     * Copies count bytes from the source to the ring view at index, moving
+     * the source's position.
+     */
+    private static void copy(ByteBuffer src, ByteBuffer ring, int index, int count) {
+        
+        if (count == 0) {
+            
+            return;
+        }
+        
+        int limit = src.limit();
+        
+        src.limit(src.position() + count);
+        ring.limit(index + count).position(index);
+        ring.put(src);
+        src.limit(limit);
+    }
+    
+    /**
+     * Copies count bytes from the ring view at index to the destination,
+     * moving the destination's position.
+     */
+    private static void copyOut(ByteBuffer ring, int index, int count, ByteBuffer dst) {
+        
+        if (count == 0) {
+            
+            return;
+        }
+        
+        ring.limit(index + count).position(index);
+        dst.put(ring);
+    }
+    
+    private static void park() throws InterruptedException {
+        
+        LockSupport.parkNanos(PARK_NANOS);
+        
+        if (Thread.interrupted()) {
+            
+            throw new InterruptedException();
+        }
+    }
+    
+    /**
+     * <p>
+     * A consumer's cursor into the ring. A reader must only be used by one
+     * thread at a time, and should be closed when the consumer is done so that
+     * it stops holding the producer back.
+     * 
+     * @author sidmishraw
+     *
+     *         Qualified Name: cawcawcaw.pcm.PcmRing.Reader
+     *
+     */
+    public final class Reader implements AutoCloseable {
+        
+        private final boolean lossy;
+        
+        /**
+         * The bytes of a sample for all the channels, what a lossy reader
+         * skips in multiples of.
+         */
+        private final int frameBytes;
+        
+        /**
+         * Total bytes read, the producer reads it to know how much room
+         * there is.
+         */
+        private final AtomicLong position = new AtomicLong();
+        
+        /**
+         * This reader's own view of the memory.
+         */
+        private final ByteBuffer readView = PcmRing.this.memory.duplicate();
+        
+        private long dropped = 0;
+        
+        /**
+         * @param frameBytes
+         *            The frame size of a lossy reader, 0 for a gating one
+         */
+        private Reader(int frameBytes) {
+            
+            this.lossy = frameBytes > 0;
+            this.frameBytes = frameBytes;
+            this.position.set(PcmRing.this.head.get());
+        }
+        
+        /**
+         * Reads as many bytes as are available and fit in the destination,
+         * waiting until there is at least one.
+         * 
+         * @param dst
+         *            The buffer to read into
+         * @return The number of bytes read, -1 at the end of the PCM
+         * @throws InterruptedException
+         *             When interrupted while waiting for bytes
+         */
+        public int read(ByteBuffer dst) throws InterruptedException {
+            
+            while (true) {
+                
+                int count = poll(dst);
+                
+                if (count != 0 || !dst.hasRemaining()) {
+                    
+                    return count;
+                }
+                
+                park();
+            }
+        }
+        
+        /**
+         * Reads until the destination is full or the PCM ends.
+         * 
+         * @param dst
+         *            The buffer to fill
+         * @return The number of bytes read, -1 if the PCM had already ended
+         * @throws InterruptedException
+         *             When interrupted while waiting for bytes
+         */
+        public int readFully(ByteBuffer dst) throws InterruptedException {
+            
+            int total = 0;
+            
+            while (dst.hasRemaining()) {
+                
+                int count = read(dst);
+                
+                if (count < 0) {
+                    
+                    return total == 0 ? -1 : total;
+                }
+                
+                total += count;
+            }
+            
+            return total;
+        }
+        
+        /**
+         * Reads as many bytes as are available right now and fit in the
+         * destination, never waiting.
+         * 
+         * @param dst
+         *            The buffer to read into
+         * @return The number of bytes read, -1 at the end of the PCM
+         */
+        public int poll(ByteBuffer dst) {
+            
+            // read closed before head, so that a closed ring with nothing
+            // left really is the end
+            boolean ended = PcmRing.this.closed;
+            long stamp = this.lossy ? PcmRing.this.writing.tryOptimisticRead() : 0;
+            long head = PcmRing.this.head.get();
+            long start = this.position.get();
+            
+            if (this.lossy) {
+                
+                long overrun = PcmRing.this.claim.get() - PcmRing.this.capacity - start;
+                
+                if (overrun > 0) {
+                    
+                    // skip what was overwritten, or is being, rounded up to
+                    // whole frames, and carry on with what is left
+                    long skip = (overrun + this.frameBytes - 1) / this.frameBytes * this.frameBytes;
+                    
+                    this.dropped += skip;
+                    start += skip;
+                    this.position.set(start);
+                }
+            }
+            
+            int count = (int) Math.max(0, Math.min(head - start, dst.remaining()));
+            
+            if (count == 0) {
+                
+                return ended && head == start ? -1 : 0;
+            }
+            
+            int index = (int) (start & PcmRing.this.mask);
+            int first = Math.min(count, PcmRing.this.capacity - index);
+            int mark = dst.position();
+            
+            copyOut(this.readView, index, first, dst);
+            copyOut(this.readView, 0, count - first, dst);
+            
+            if (this.lossy && !PcmRing.this.writing.validate(stamp)
+                    && PcmRing.this.claim.get() - start > PcmRing.this.capacity) {
+                
+                // the producer wrote over what we were copying, what we got is
+                // torn
+                dst.position(mark);
+                
+                return poll(dst);
+            }
+            
+            this.position.set(start + count);
+            
+            return count;
+        }
+        
+        /**
+         * @return The number of bytes written but not read yet by this reader
+         */
+        public int available() {
+            
+            return (int) Math.min(PcmRing.this.head.get() - this.position.get(), PcmRing.this.capacity);
+        }
+        
+        /**
+         * @return The number of bytes skipped because this lossy reader fell
+         *         behind, always 0 for gating readers
+         */
+        public long getDropped() {
+            
+            return this.dropped;
+        }
+        
+        /**
+         * Stops this reader from holding the producer back.
+         */
+        @Override
+        public void close() {
+            
+            PcmRing.this.gating.remove(this);
+        }
+    }
+}
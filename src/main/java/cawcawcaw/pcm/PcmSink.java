@@ -0,0 +1,95 @@
+package cawcawcaw.pcm;
+
+import java.nio.ByteBuffer;
+
+import cawcawcaw.pipeline.Sink;
+import cawcawcaw.pool.Pooled;
+import io.humble.ferry.Buffer;
+import io.humble.video.MediaAudio;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pcm
+ * File: PcmSink.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 7:40:18 PM
+ */
+
+/**
+ * <p>
+ * Writes decoded {@link MediaAudio} frames into a {@link PcmRing}, straight
+ * from the frame's native memory into the ring's off-heap memory, and
+ * releases them back to their pool.
+ * 
+ * <p>
+ * The frames must be in a packed (interleaved) sample format, planar audio has
+ * to be resampled first: a {@link cawcawcaw.audio.ResampleStage} to
+ * {@link cawcawcaw.audio.AudioTarget#SPEECH} gives what the utterance chunking
+ * and the translation engines expect.
+ * 
+ * <p>
+ * The ring is closed when the pipeline ends, successfully or not, so the
+ * readers never wait forever.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pcm.PcmSink
+ *
+ */
+public class PcmSink implements Sink<Pooled<MediaAudio>> {
+    
+    private final PcmRing ring;
+    
+    /**
+     * @param ring
+     *            The ring to write to, this sink is its only producer
+     */
+    public PcmSink(PcmRing ring) {
+        
+        this.ring = ring;
+    }
+    
+    @Override
+    public void accept(Pooled<MediaAudio> pooled) throws Exception {
+        
+        try {
+            
+            MediaAudio audio = pooled.get();
+            
+            if (audio.isPlanar()) {
+                
+                throw new IllegalArgumentException(
+                        String.format("Can't write planar audio (%s) to a PCM ring", audio.getFormat()));
+            }
+            
+            int size = audio.getNumSamples() * audio.getChannels() * audio.getBytesPerSample();
+            
+            if (size == 0) {
+                
+                return;
+            }
+            
+            Buffer data = audio.getData(0);
+            
+            try {
+                
+                ByteBuffer samples = data.getByteBuffer(0, size);
+                
+                this.ring.write(samples);
+            } finally {
+                
+                data.delete();
+            }
+        } finally {
+            
+            pooled.release();
+        }
+    }
+    
+    @Override
+    public void close() {
+        
+        this.ring.close();
+    }
+}
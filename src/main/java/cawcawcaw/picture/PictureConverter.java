@@ -0,0 +1,221 @@
+package cawcawcaw.picture;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import cawcawcaw.pipeline.Emitter;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.pipeline.Stage;
+import cawcawcaw.pool.MediaPool;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.MediaPicture;
+import io.humble.video.MediaPictureResampler;
+import io.humble.video.PixelFormat;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.picture
+ * File: PictureConverter.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 2:41:15 PM
+ */
+
+/**
+ * <p>
+ * Converts pictures to another size or pixel format without allocating per
+ * frame: the converted pictures come from a {@link MediaPool}, and the
+ * {@link MediaPictureResampler} is made once and kept while the input doesn't
+ * change.
+ * 
+ * <p>
+ * {@link io.humble.video.awt.MediaPictureConverterFactory#HUMBLE_BGR_24} allocates a byte array
+ * the size of the frame for every {@link BufferedImage} it fills (6MB at
+ * 1080p). {@link #toImage(MediaPicture, BufferedImage)} converts into a
+ * pooled BGR picture and copies it straight into the image's own array
+ * instead.
+ * 
+ * <p>
+ * As a {@link Stage}, it converts every decoded picture of a pipeline. Not
+ * thread safe otherwise, one converter per thread.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.picture.PictureConverter
+ *
+ */
+public class PictureConverter implements Stage<Pooled<MediaPicture>, Pooled<MediaPicture>> {
+    
+    private final int width;
+    
+    private final int height;
+    
+    private final PixelFormat.Type format;
+    
+    private final MediaPool<MediaPicture> pictures;
+    
+    private MediaPictureResampler resampler = null;
+    
+    /**
+     * @param width
+     *            The width of the converted pictures
+     * @param height
+     *            The height of the converted pictures
+     * @param format
+     *            The pixel format of the converted pictures
+     */
+    public PictureConverter(int width, int height, PixelFormat.Type format) {
+        
+        this(width, height, format, Pipeline.DEFAULT_POOL_CAPACITY);
+    }
+    
+    /**
+     * @param width
+     *            The width of the converted pictures
+     * @param height
+     *            The height of the converted pictures
+     * @param format
+     *            The pixel format of the converted pictures
+     * @param capacity
+     *            The max number of converted pictures alive at any time
+     */
+    public PictureConverter(int width, int height, PixelFormat.Type format, int capacity) {
+        
+        this.width = width;
+        this.height = height;
+        this.format = format;
+        this.pictures = new MediaPool<>("convert", capacity, Pipeline.DEFAULT_POOL_BYTES,
+                () -> MediaPicture.make(width, height, format),
+                picture -> PixelFormat.getBufferSizeNeeded(width, height, format));
+    }
+    
+    /**
+     * @param width
+     *            The width of the pictures
+     * @param height
+     *            The height of the pictures
+     * @return A converter to the BGR pictures behind
+     *         {@link BufferedImage#TYPE_3BYTE_BGR} images
+     */
+    public static PictureConverter bgr(int width, int height) {
+        
+        return new PictureConverter(width, height, PixelFormat.Type.PIX_FMT_BGR24, 2);
+    }
+    
+    /**
+     * Converts a picture, blocking while all the converted pictures are in
+     * use.
+     * 
+     * @param picture
+     *            A complete picture
+     * @return The converted picture, to be released
+     */
+    public Pooled<MediaPicture> convert(MediaPicture picture) throws InterruptedException {
+        
+        Pooled<MediaPicture> converted = this.pictures.acquire();
+        
+        try {
+            
+            resamplerFor(picture).resample(converted.get(), picture);
+            converted.get().setTimeBase(picture.getTimeBase());
+            converted.get().setTimeStamp(picture.getTimeStamp());
+        } catch (RuntimeException e) {
+            
+            converted.release();
+            
+            throw e;
+        }
+        
+        return converted;
+    }
+    
+    /**
+     * Converts a picture into an image, for converters made by
+     * {@link #bgr(int, int)}.
+     * 
+     * @param picture
+     *            A complete picture
+     * @param image
+     *            The image to fill, reused when it has the right size and
+     *            type, or null
+     * @return The filled image
+     */
+    public BufferedImage toImage(MediaPicture picture, BufferedImage image) throws InterruptedException {
+        
+        if (this.format != PixelFormat.Type.PIX_FMT_BGR24) {
+            
+            throw new IllegalStateException(String.format("Images need BGR pictures, not %s", this.format));
+        }
+        
+        if (Objects.isNull(image) || image.getWidth() != this.width || image.getHeight() != this.height
+                || image.getType() != BufferedImage.TYPE_3BYTE_BGR) {
+            
+            image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_3BYTE_BGR);
+        }
+        
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int rowBytes = this.width * 3;
+        
+        Pooled<MediaPicture> bgr = convert(picture);
+        
+        try {
+            
+            int lineSize = bgr.get().getLineSize(0);
+            ByteBuffer plane = bgr.get().getData(0).getByteBuffer(0, bgr.get().getDataPlaneSize(0));
+            
+            if (lineSize == rowBytes) {
+                
+                plane.get(pixels, 0, rowBytes * this.height);
+            } else {
+                
+                // rows are padded for alignment
+                for (int y = 0; y < this.height; y++) {
+                    
+                    plane.position(y * lineSize);
+                    plane.get(pixels, y * rowBytes, rowBytes);
+                }
+            }
+        } finally {
+            
+            bgr.release();
+        }
+        
+        return image;
+    }
+    
+    @Override
+    public void process(Pooled<MediaPicture> input, Emitter<Pooled<MediaPicture>> output) throws Exception {
+        
+        Pooled<MediaPicture> converted;
+        
+        try {
+            
+            converted = convert(input.get());
+        } finally {
+            
+            input.release();
+        }
+        
+        output.emit(converted);
+    }
+    
+    /**
+     * @return The resampler for the picture's size and format, made again only
+     *         when the input changes mid stream
+     */
+    private MediaPictureResampler resamplerFor(MediaPicture picture) {
+        
+        if (Objects.isNull(this.resampler) || this.resampler.getInputWidth() != picture.getWidth()
+                || this.resampler.getInputHeight() != picture.getHeight()
+                || this.resampler.getInputFormat() != picture.getFormat()) {
+            
+            this.resampler = MediaPictureResampler.make(this.width, this.height, this.format, picture.getWidth(),
+                    picture.getHeight(), picture.getFormat(), 0);
+            this.resampler.open();
+        }
+        
+        return this.resampler;
+    }
+}
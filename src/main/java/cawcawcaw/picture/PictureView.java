@@ -0,0 +1,188 @@
+package cawcawcaw.picture;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import io.humble.video.MediaPicture;
+import io.humble.video.PixelFormat;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.picture
+ * File: PictureView.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 2:07:31 PM
+ */
+
+/**
+ * <p>
+ * Read only access to the planes of a decoded {@link MediaPicture}, straight
+ * over the decoder's native memory. Nothing is copied, so analysis stages
+ * (scene detection, burned in subtitle detection) that only look at the
+ * samples don't pay for a conversion to a {@link java.awt.image.BufferedImage}.
+ * 
+ * <p>
+ * A view is meant to be reused: {@link #wrap(MediaPicture)} it around every
+ * picture of a stream. The plane buffers are only valid until the picture is
+ * decoded into again or released, don't keep them around.
+ * 
+ * <p>
+ * Not thread safe, one view per stage.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.picture.PictureView
+ *
+ */
+public final class PictureView {
+    
+    private static final int MAX_PLANES = 4;
+    
+    private final ByteBuffer[] planes = new ByteBuffer[MAX_PLANES];
+    
+    private final int[] lineSizes = new int[MAX_PLANES];
+    
+    private int numPlanes = 0;
+    
+    private int width = 0;
+    
+    private int height = 0;
+    
+    private PixelFormat.Type format = null;
+    
+    /**
+     * Points the view at a picture.
+     * 
+     * @param picture
+     *            A complete picture
+     * @return this
+     */
+    public PictureView wrap(MediaPicture picture) {
+        
+        if (!picture.isComplete()) {
+            
+            throw new IllegalArgumentException("Can't view an incomplete picture");
+        }
+        
+        release();
+        
+        this.width = picture.getWidth();
+        this.height = picture.getHeight();
+        this.format = picture.getFormat();
+        this.numPlanes = Math.min(picture.getNumDataPlanes(), MAX_PLANES);
+        
+        for (int i = 0; i < this.numPlanes; i++) {
+            
+            this.planes[i] = picture.getData(i).getByteBuffer(0, picture.getDataPlaneSize(i)).asReadOnlyBuffer();
+            this.lineSizes[i] = picture.getLineSize(i);
+        }
+        
+        return this;
+    }
+    
+    /**
+     * Drops the references to the planes of the picture.
+     */
+    public void release() {
+        
+        Arrays.fill(this.planes, null);
+        this.numPlanes = 0;
+    }
+    
+    /**
+     * @return The width of the picture in pixels
+     */
+    public int getWidth() {
+        
+        return this.width;
+    }
+    
+    /**
+     * @return The height of the picture in pixels
+     */
+    public int getHeight() {
+        
+        return this.height;
+    }
+    
+    /**
+     * @return The pixel format of the picture
+     */
+    public PixelFormat.Type getFormat() {
+        
+        return this.format;
+    }
+    
+    /**
+     * @return The number of planes, 3 for YUV 4:2:0, 1 for packed RGB
+     */
+    public int getNumPlanes() {
+        
+        return this.numPlanes;
+    }
+    
+    /**
+     * @param plane
+     *            The plane
+     * @return The plane, read only and positioned at 0. Rows are
+     *         {@link #getLineSize(int)} bytes apart, which may be more than
+     *         the bytes of a row of pixels.
+     */
+    public ByteBuffer getPlane(int plane) {
+        
+        ByteBuffer buffer = this.planes[checkPlane(plane)];
+        buffer.clear();
+        
+        return buffer;
+    }
+    
+    /**
+     * @param plane
+     *            The plane
+     * @return The bytes from the start of a row to the start of the next
+     */
+    public int getLineSize(int plane) {
+        
+        return this.lineSizes[checkPlane(plane)];
+    }
+    
+    /**
+     * @param plane
+     *            The plane
+     * @param x
+     *            The column of the byte in the plane
+     * @param y
+     *            The row in the plane
+     * @return The byte, unsigned
+     */
+    public int get(int plane, int x, int y) {
+        
+        return this.planes[checkPlane(plane)].get(y * this.lineSizes[plane] + x) & 0xff;
+    }
+    
+    /**
+     * @param x
+     *            The column
+     * @param y
+     *            The row
+     * @return The brightness of the pixel, 0 to 255, for the planar YUV and
+     *         gray formats whose first plane is the luma
+     */
+    public int getLuma(int x, int y) {
+        
+        return get(0, x, y);
+    }
+    
+    private int checkPlane(int plane) {
+        
+        if (plane < 0 || plane >= this.numPlanes || Objects.isNull(this.planes[plane])) {
+            
+            throw new IndexOutOfBoundsException(
+                    String.format("No plane %d, the view has %d planes", plane, this.numPlanes));
+        }
+        
+        return plane;
+    }
+}
@@ -0,0 +1,81 @@
+package cawcawcaw.pipeline;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import cawcawcaw.audio.AudioTarget;
+import cawcawcaw.audio.ResampleStage;
+import io.humble.video.Codec;
+import io.humble.video.Coder;
+import io.humble.video.Decoder;
+import io.humble.video.Encoder;
+import io.humble.video.MuxerFormat;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: AudioEncoders.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 2:35:18 PM
+ */
+
+/**
+ * <p>
+ * Boiler plate for making audio {@link Encoder}s. Encoders are a pain in the
+ * arse, so it lives in one place.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.AudioEncoders
+ *
+ */
+public final class AudioEncoders {
+    
+    private AudioEncoders() {
+        
+    }
+    
+    /**
+     * Makes and opens an encoder that takes its audio parameters (sample rate,
+     * channels, sample format) from the decoder, as far as the codec accepts
+     * them. When it doesn't (the MP3 encoder and planar float audio, for
+     * instance), the frames must go through a {@link ResampleStage} to
+     * {@link AudioTarget#of(Coder)} the encoder first, which costs nothing when
+     * they already match.
+     * 
+     * @param codecId
+     *            The codec to encode with
+     * @param decoder
+     *            The decoder whose output will be fed to the encoder
+     * @param format
+     *            The format of the muxer the packets will be written to, null
+     *            if unknown
+     * @return The opened encoder
+     * @throws IOException
+     *             When there is no encoder for the codec
+     */
+    public static Encoder makeLike(Codec.ID codecId, Decoder decoder, MuxerFormat format) throws IOException {
+        
+        Codec codec = Codec.findEncodingCodec(codecId);
+        
+        if (Objects.isNull(codec)) {
+            
+            throw new IOException(String.format("No encoder found for %s", codecId));
+        }
+        
+        Encoder encoder = Encoder.make(codec);
+        
+        AudioTarget.forCodec(codec, decoder).configure(encoder);
+        
+        // some containers (mp4, mkv) need the codec headers up front
+        if (!Objects.isNull(format) && format.getFlag(MuxerFormat.Flag.GLOBAL_HEADER)) {
+            
+            encoder.setFlag(Coder.Flag.FLAG_GLOBAL_HEADER, true);
+        }
+        
+        encoder.open(null, null);
+        
+        return encoder;
+    }
+}
@@ -0,0 +1,211 @@
+package cawcawcaw.pipeline;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.audio.AudioTarget;
+import cawcawcaw.audio.ResampleStage;
+import cawcawcaw.io.MediaInput;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.Codec;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.Encoder;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.Muxer;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: AudioExtractor.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 11:48:26 AM
+ */
+
+/**
+ * <p>
+ * Step 1 of the grand plan -- splits the first audio stream out of a media
+ * file into an audio only file. This is the reusable form of the
+ * <code>Humble103</code> demo: demuxing, decoding, encoding and muxing each
+ * run on their own thread through a {@link Pipeline}.
+ * 
+ * <pre>
+ * new AudioExtractor("episode01.mkv", "episode01.mp3").extract();
+ * </pre>
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.AudioExtractor
+ *
+ */
+public class AudioExtractor {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(AudioExtractor.class);
+    // # Logging stuff
+    
+    private final String inputPath;
+    
+    private final String outputPath;
+    
+    private String outputFormat = null;
+    
+    private Codec.ID codecId = Codec.ID.CODEC_ID_MP3;
+    
+    private int queueCapacity = Pipeline.DEFAULT_QUEUE_CAPACITY;
+    
+    private MediaInput input = MediaInput.path();
+    
+    private TimeRange range = null;
+    
+    /**
+     * @param inputPath
+     *            The media file to read
+     * @param outputPath
+     *            The audio file to write
+     */
+    public AudioExtractor(String inputPath, String outputPath) {
+        
+        this.inputPath = inputPath;
+        this.outputPath = outputPath;
+    }
+    
+    /**
+     * @param outputFormat
+     *            The short name of the output container format, "mp3" for
+     *            example. When not set, it is guessed from the output path.
+     * @return this
+     */
+    public AudioExtractor withOutputFormat(String outputFormat) {
+        
+        this.outputFormat = outputFormat;
+        
+        return this;
+    }
+    
+    /**
+     * @param codecId
+     *            The codec to encode the audio with, MP3 by default
+     * @return this
+     */
+    public AudioExtractor withCodec(Codec.ID codecId) {
+        
+        this.codecId = codecId;
+        
+        return this;
+    }
+    
+    /**
+     * @param queueCapacity
+     *            The number of packets or frames buffered between 2 stages
+     * @return this
+     */
+    public AudioExtractor withQueueCapacity(int queueCapacity) {
+        
+        this.queueCapacity = queueCapacity;
+        
+        return this;
+    }
+    
+    /**
+     * @param input
+     *            How the input files are read, see {@link MediaInput}. Paths
+     *            are handed to FFmpeg by default.
+     * @return this
+     */
+    public AudioExtractor withInput(MediaInput input) {
+        
+        this.input = input;
+        
+        return this;
+    }
+    
+    /**
+     * @param range
+     *            The part of the input to extract, null for all of it. Decoding
+     *            starts at the keyframe before the start of the range, the
+     *            frames before the start are dropped, see {@link TrimStage}.
+     * @return this
+     */
+    public AudioExtractor withRange(TimeRange range) {
+        
+        this.range = range;
+        
+        return this;
+    }
+    
+    /**
+     * Runs the extraction, blocking until the output file is complete.
+     * 
+     * @throws IOException
+     *             When the input can't be read or has no audio stream, or the
+     *             output can't be written
+     * @throws PipelineException
+     *             When one of the pipeline stages failed
+     */
+    public void extract() throws IOException, InterruptedException, PipelineException {
+        
+        Demuxer demuxer = Demuxer.make();
+        Muxer muxer = null;
+        
+        try {
+            
+            this.input.open(demuxer, this.inputPath, true, null);
+            
+            DemuxerStream stream = MediaStreams.firstOfType(demuxer, MediaDescriptor.Type.MEDIA_AUDIO);
+            
+            if (Objects.isNull(stream)) {
+                
+                throw new IOException(
+                        String.format("Audio stream not found or couldn't be decoded in %s", this.inputPath));
+            }
+            
+            Decoder decoder = stream.getDecoder();
+            decoder.open(null, null);
+            
+            logger.info(String.format("Extracting audio stream #%d (%s) of %s into %s", stream.getIndex(),
+                    decoder.getCodec().getName(), this.inputPath, this.outputPath));
+            
+            muxer = Muxer.make(this.outputPath, null, this.outputFormat);
+            
+            Encoder encoder = AudioEncoders.makeLike(this.codecId, decoder, muxer.getFormat());
+            
+            muxer.addNewStream(encoder);
+            muxer.open(null, null);
+            
+            Pipeline<Pooled<MediaAudio>> decoded = Pipeline
+                    .from("demux", new DemuxSource(demuxer, stream.getIndex()).withRange(this.range))
+                    .withQueueCapacity(this.queueCapacity)
+                    .then("decode", DecodeStage.audio(decoder));
+            
+            if (!Objects.isNull(this.range)) {
+                
+                decoded = decoded.then("trim", new TrimStage<MediaAudio>(this.range));
+            }
+            
+            if (!AudioTarget.of(encoder).equals(AudioTarget.of(decoder))) {
+                
+                decoded = decoded.then("resample", new ResampleStage(AudioTarget.of(encoder)));
+            }
+            
+            decoded.then("encode", new EncodeStage<MediaAudio>(encoder))
+                    .to("mux", new MuxSink(muxer))
+                    .run();
+        } finally {
+            
+            // close resources
+            demuxer.close();
+            
+            if (!Objects.isNull(muxer)) {
+                
+                muxer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package cawcawcaw.pipeline;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: Channel.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 10:12:03 AM
+ */
+
+/**
+ * <p>
+ * A bounded, closeable queue linking two stages of a {@link Pipeline}. The
+ * producer blocks when the channel is full, which is what keeps a fast demuxer
+ * from running away from a slow encoder.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.Channel
+ *
+ */
+final class Channel<T> {
+    
+    /**
+     * Marks the end of the stream, never handed out to consumers.
+     */
+    private static final Object END = new Object();
+    
+    private final BlockingQueue<Object> queue;
+    
+    /**
+     * @param capacity
+     *            The max number of items buffered between the 2 stages
+     */
+    Channel(int capacity) {
+        
+        this.queue = new ArrayBlockingQueue<>(capacity + 1); // + 1 for END
+    }
+    
+    /**
+     * Blocks until there is room for the item.
+     */
+    void put(T item) throws InterruptedException {
+        
+        this.queue.put(item);
+    }
+    
+    /**
+     * Signals the consumer that nothing more is coming.
+     */
+    void close() throws InterruptedException {
+        
+        this.queue.put(END);
+    }
+    
+    /**
+     * Blocks until an item is available.
+     * 
+     * @return The next item or null when the channel has been closed and
+     *         drained
+     */
+    @SuppressWarnings("unchecked")
+    T take() throws InterruptedException {
+        
+        Object item = this.queue.take();
+        
+        if (item == END) {
+            
+            // leave the marker in place so that repeated takes keep seeing
+            // the end of the stream
+            this.queue.put(END);
+            
+            return null;
+        }
+        
+        return (T) item;
+    }
+    
+    /**
+     * @return The number of items currently buffered
+     */
+    int size() {
+        
+        return this.queue.size();
+    }
+}
@@ -0,0 +1,142 @@
+package cawcawcaw.pipeline;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import cawcawcaw.metrics.Metrics;
+import cawcawcaw.pool.MediaPool;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.Decoder;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaPacket;
+import io.humble.video.MediaPicture;
+import io.humble.video.MediaSampled;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: DecodeStage.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 11:02:33 AM
+ */
+
+/**
+ * <p>
+ * Decodes the {@link MediaPacket}s of a single stream into uncompressed
+ * {@link MediaAudio} or {@link MediaPicture} objects.
+ * 
+ * <p>
+ * The decoder must be opened and must not be used by anybody else while the
+ * pipeline runs. Frames are borrowed from a {@link MediaPool}, the packets
+ * are released as soon as they are decoded.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.DecodeStage
+ *
+ */
+public class DecodeStage<T extends MediaSampled> implements Stage<Pooled<MediaPacket>, Pooled<T>> {
+    
+    private static final LongAdder FRAMES_DECODED = Metrics.counter("decode.frames");
+    
+    private final Decoder decoder;
+    
+    private final MediaPool<T> frames;
+    
+    /**
+     * The frame being decoded into, it may hold a partially decoded frame
+     * between 2 packets.
+     */
+    private Pooled<T> current = null;
+    
+    /**
+     * @param decoder
+     *            The opened decoder
+     * @param frames
+     *            The pool to borrow the frames the decoder decodes into from,
+     *            they must match the decoder's output
+     */
+    public DecodeStage(Decoder decoder, MediaPool<T> frames) {
+        
+        this.decoder = decoder;
+        this.frames = frames;
+    }
+    
+    /**
+     * @param decoder
+     *            The opened audio decoder
+     * @return A stage decoding audio samples
+     */
+    public static DecodeStage<MediaAudio> audio(Decoder decoder) {
+        
+        return new DecodeStage<>(decoder,
+                MediaPool.audio("decode", Pipeline.DEFAULT_POOL_CAPACITY, Pipeline.DEFAULT_POOL_BYTES, decoder));
+    }
+    
+    /**
+     * @param decoder
+     *            The opened video decoder
+     * @return A stage decoding video pictures
+     */
+    public static DecodeStage<MediaPicture> video(Decoder decoder) {
+        
+        return new DecodeStage<>(decoder,
+                MediaPool.pictures("decode", Pipeline.DEFAULT_POOL_CAPACITY, Pipeline.DEFAULT_POOL_BYTES, decoder));
+    }
+    
+    @Override
+    public void process(Pooled<MediaPacket> input, Emitter<Pooled<T>> output) throws Exception {
+        
+        try {
+            
+            decode(input.get(), output);
+        } finally {
+            
+            input.release();
+        }
+    }
+    
+    @Override
+    public void flush(Emitter<Pooled<T>> output) throws Exception {
+        
+        decode(null, output);
+    }
+    
+    /**
+     * Gives the frame being decoded into back to the pool.
+     */
+    @Override
+    public void close() {
+        
+        if (!Objects.isNull(this.current)) {
+            
+            this.current.release();
+            this.current = null;
+        }
+    }
+    
+    /**
+     * Every completed frame is emitted, and the decoder moves on to a fresh
+     * one from the pool.
+     */
+    private void decode(MediaPacket packet, Emitter<Pooled<T>> output) throws InterruptedException {
+        
+        if (Objects.isNull(this.current)) {
+            
+            this.current = this.frames.acquire();
+        }
+        
+        Decoding.decodeAll(this.decoder, packet, this.current.get(), complete -> {
+            
+            Pooled<T> emitted = this.current;
+            this.current = null; // owned downstream from now on
+            
+            FRAMES_DECODED.increment();
+            output.emit(emitted);
+            this.current = this.frames.acquire();
+            
+            return this.current.get();
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package cawcawcaw.pipeline;
+
+import java.util.Objects;
+
+import io.humble.video.Decoder;
+import io.humble.video.MediaPacket;
+import io.humble.video.MediaSampled;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: Decoding.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 1:20:37 PM
+ */
+
+/**
+ * <p>
+ * The one decoding loop everybody uses.
+ * 
+ * <p>
+ * A packet can actually contain multiple sets of samples (or frames of samples
+ * in decoding speak), so the decoder has to be called at different offsets in
+ * the packet's data until all of it is consumed. The offset must advance by
+ * the bytes consumed by <i>each</i> call -- the demos used to add up the bytes
+ * read and then add that running total to the offset, which skips frames of
+ * packets holding more than one.
+ * 
+ * <pre>
+ * MediaAudio samples = ...;
+ * 
+ * while (demuxer.read(packet) &gt;= 0) {
+ *     
+ *     samples = Decoding.decodeAll(decoder, packet, samples, frame -&gt; {
+ *         
+ *         encoder.encodeAudio(wpacket, frame);
+ *         
+ *         return frame; // decode the next one into the same object
+ *     });
+ * }
+ * 
+ * Decoding.decodeAll(decoder, null, samples, callback); // flush
+ * </pre>
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.Decoding
+ *
+ */
+public final class Decoding {
+    
+    private Decoding() {
+        
+    }
+    
+    /**
+     * <p>
+     * Gets every completed frame out of the decoder.
+     * 
+     * @author sidmishraw
+     *
+     *         Qualified Name: cawcawcaw.pipeline.Decoding.FrameCallback
+     *
+     */
+    @FunctionalInterface
+    public interface FrameCallback<T, E extends Exception> {
+        
+        /**
+         * @param frame
+         *            A complete frame
+         * @return The object to decode the next frame into. Single threaded
+         *         loops return the same frame, loops handing frames to other
+         *         threads return a fresh one.
+         */
+        T onFrame(T frame) throws E;
+    }
+    
+    /**
+     * Walks the frames of a packet exactly once and hands every completed one
+     * to the callback. Allocates nothing.
+     * 
+     * @param decoder
+     *            The opened decoder
+     * @param packet
+     *            The packet to decode, or null to flush the decoder -- the
+     *            convention to flush decoders in Humble Video is to keep
+     *            passing in null until incomplete samples are returned
+     * @param frame
+     *            The object to decode into
+     * @param callback
+     *            Called with every completed frame
+     * @return The object the next call must decode into, it may hold a
+     *         partially decoded frame
+     */
+    public static <T extends MediaSampled, E extends Exception> T decodeAll(Decoder decoder, MediaPacket packet,
+            T frame, FrameCallback<T, E> callback) throws E {
+        
+        if (Objects.isNull(packet)) {
+            
+            do {
+                
+                decoder.decode(frame, null, 0);
+                
+                if (!frame.isComplete()) {
+                    
+                    break;
+                }
+                
+                frame = callback.onFrame(frame);
+            } while (true);
+            
+            return frame;
+        }
+        
+        int offset = 0;
+        
+        while (offset < packet.getSize()) {
+            
+            int bytesRead = decoder.decode(frame, packet, offset);
+            
+            if (frame.isComplete()) {
+                
+                frame = callback.onFrame(frame);
+            }
+            
+            if (bytesRead <= 0) {
+                
+                // nothing consumed, the rest of the packet is garbage
+                break;
+            }
+            
+            offset += bytesRead;
+        }
+        
+        return frame;
+    }
+}
@@ -0,0 +1,287 @@
+package cawcawcaw.pipeline;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.log.SampledLogger;
+import cawcawcaw.metrics.Metrics;
+import cawcawcaw.pool.MediaPool;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.Demuxer;
+import io.humble.video.Global;
+import io.humble.video.MediaPacket;
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: DemuxSource.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 2:47:19 PM
+ */
+
+/**
+ * <p>
+ * Reads the packets of the selected streams out of an opened {@link Demuxer}.
+ * Packets of all the other streams are dropped on the floor.
+ * 
+ * <p>
+ * Since the packets cross threads, we can't reuse a single
+ * {@link MediaPacket} like the single threaded decoding loops do. Every packet
+ * emitted is borrowed from a {@link MediaPool} instead, and goes back to it
+ * when the consumer releases it.
+ * 
+ * <p>
+ * The demuxer is owned by the caller, this source does not close it.
+ * 
+ * <p>
+ * With a {@link TimeRange}, the source seeks to the keyframe before the start
+ * of the range and stops reading once every selected stream is past its end,
+ * so the cost scales with the length of the range and not of the file. A
+ * selected stream that ends early or has nothing near the end, like subtitles,
+ * never gets past it, so the read also stops once any stream, selected or not,
+ * is past the end by more than the end slack, 10 seconds by default. The
+ * packets between the keyframe and the start are still emitted, decoders need
+ * them, see {@link TrimStage}.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.DemuxSource
+ *
+ */
+public class DemuxSource implements Source<Pooled<MediaPacket>> {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(DemuxSource.class);
+    
+    private static final SampledLogger packetLog = new SampledLogger(logger).withSampling(100);
+    // # Logging stuff
+    
+    private static final LongAdder PACKETS_READ = Metrics.counter("demux.packets");
+    
+    private static final LongAdder BYTES_READ = Metrics.counter("demux.bytes");
+    
+    private final Demuxer demuxer;
+    
+    private final MediaPool<MediaPacket> packets;
+    
+    private final int[] streamIndexes;
+    
+    private TimeRange range = null;
+    
+    private long endSlackMicros = TimeUnit.SECONDS.toMicros(10);
+    
+    /**
+     * @param demuxer
+     *            The opened demuxer to read from
+     * @param streamIndexes
+     *            The indexes of the streams whose packets are wanted
+     */
+    public DemuxSource(Demuxer demuxer, int... streamIndexes) {
+        
+        this(demuxer, MediaPool.packets("demux", Pipeline.DEFAULT_POOL_CAPACITY, Pipeline.DEFAULT_POOL_BYTES),
+                streamIndexes);
+    }
+    
+    /**
+     * @param demuxer
+     *            The opened demuxer to read from
+     * @param packets
+     *            The pool to borrow the packets from
+     * @param streamIndexes
+     *            The indexes of the streams whose packets are wanted
+     */
+    public DemuxSource(Demuxer demuxer, MediaPool<MediaPacket> packets, int... streamIndexes) {
+        
+        this.demuxer = demuxer;
+        this.packets = packets;
+        this.streamIndexes = Arrays.copyOf(streamIndexes, streamIndexes.length);
+    }
+    
+    /**
+     * @param range
+     *            The time range to read, in the media's own timestamps which
+     *            start at 0 for most files (see {@link Demuxer#getStartTime()}),
+     *            null for the whole file
+     * @return this
+     */
+    public DemuxSource withRange(TimeRange range) {
+        
+        this.range = range;
+        
+        return this;
+    }
+    
+    /**
+     * @param slack
+     *            How far past the end of the range any stream can get before
+     *            the read stops, even with selected streams not past it yet.
+     *            At least how far apart the streams are interleaved in the
+     *            file, 10 seconds by default
+     * @param unit
+     *            The unit of the slack
+     * @return this
+     */
+    public DemuxSource withEndSlack(long slack, TimeUnit unit) {
+        
+        if (slack < 0) {
+            
+            throw new IllegalArgumentException(String.format("The end slack can't be negative, got %d", slack));
+        }
+        
+        this.endSlackMicros = unit.toMicros(slack);
+        
+        return this;
+    }
+    
+    @Override
+    public void run(Emitter<Pooled<MediaPacket>> output) throws Exception {
+        
+        Rational[] timeBases = new Rational[this.streamIndexes.length];
+        boolean[] ended = new boolean[this.streamIndexes.length];
+        int ending = this.streamIndexes.length;
+        
+        // of every stream, to tell how far into the file the read is
+        Rational[] allTimeBases = new Rational[0];
+        
+        if (!Objects.isNull(this.range)) {
+            
+            for (int i = 0; i < this.streamIndexes.length; i++) {
+                
+                timeBases[i] = this.demuxer.getStream(this.streamIndexes[i]).getTimeBase();
+            }
+            
+            allTimeBases = new Rational[this.demuxer.getNumStreams()];
+            
+            for (int i = 0; i < allTimeBases.length; i++) {
+                
+                allTimeBases[i] = this.demuxer.getStream(i).getTimeBase();
+            }
+            
+            seek();
+        }
+        
+        Pooled<MediaPacket> packet = this.packets.acquire();
+        
+        try {
+            
+            /**
+             * read() returns 0 if successful else < 0
+             */
+            while (this.demuxer.read(packet.get()) >= 0) {
+                
+                PACKETS_READ.increment();
+                BYTES_READ.add(packet.get().getSize());
+                packetLog.trace("Read {}", packet.get());
+                
+                int streamIndex = packet.get().getStreamIndex();
+                
+                if (streamIndex >= 0 && streamIndex < allTimeBases.length
+                        && isPastSlack(packet.get(), allTimeBases[streamIndex])) {
+                    
+                    logger.debug(String.format("Stream %d of %s is past the end of %s by over the slack, stopping",
+                            streamIndex, this.demuxer.getURL(), this.range));
+                    
+                    break;
+                }
+                
+                int wanted = indexOf(streamIndex);
+                
+                if (wanted < 0 || ended[wanted]) {
+                    
+                    continue;
+                }
+                
+                if (!Objects.isNull(this.range) && isPastEnd(packet.get(), timeBases[wanted])) {
+                    
+                    ended[wanted] = true;
+                    
+                    if (--ending == 0) {
+                        
+                        break;
+                    }
+                    
+                    continue;
+                }
+                
+                Pooled<MediaPacket> emitted = packet;
+                packet = null; // owned downstream from now on
+                
+                output.emit(emitted);
+                packet = this.packets.acquire();
+            }
+        } finally {
+            
+            if (!Objects.isNull(packet)) {
+                
+                packet.release();
+            }
+        }
+    }
+    
+    /**
+     * Seeks to the keyframe at or before the start of the range. Inputs that
+     * can't seek are read from the start, the range still ends the read.
+     */
+    private void seek() throws Exception {
+        
+        long start = this.range.getStartMicros();
+        
+        if (start == 0) {
+            
+            return;
+        }
+        
+        // with no stream given, the timestamps are in microseconds
+        if (this.demuxer.seek(-1, Long.MIN_VALUE, start, start, 0) < 0) {
+            
+            logger.warn(String.format("Couldn't seek %s to %d microseconds, reading from the start",
+                    this.demuxer.getURL(), start));
+        }
+    }
+    
+    /**
+     * Packets come in decoding order, and presentation never comes before
+     * decoding, so once the decoding time is past the end no later packet of
+     * the stream is wanted.
+     */
+    private boolean isPastEnd(MediaPacket packet, Rational timeBase) {
+        
+        long timestamp = packet.getDts() != Global.NO_PTS ? packet.getDts() : packet.getPts();
+        
+        return timestamp != Global.NO_PTS && this.range.isAfter(TimeRange.toMicros(timestamp, timeBase));
+    }
+    
+    /**
+     * Streams are interleaved within a bounded distance of each other, so once
+     * any stream is past the end by more than that, the selected streams that
+     * aren't past it yet have nothing left in the range.
+     */
+    private boolean isPastSlack(MediaPacket packet, Rational timeBase) {
+        
+        long timestamp = packet.getDts() != Global.NO_PTS ? packet.getDts() : packet.getPts();
+        long end = this.range.getEndMicros();
+        
+        return timestamp != Global.NO_PTS && end != Long.MAX_VALUE
+                && TimeRange.toMicros(timestamp, timeBase) - this.endSlackMicros >= end;
+    }
+    
+    private int indexOf(int streamIndex) {
+        
+        for (int i = 0; i < this.streamIndexes.length; i++) {
+            
+            if (this.streamIndexes[i] == streamIndex) {
+                
+                return i;
+            }
+        }
+        
+        return -1;
+    }
+}
@@ -0,0 +1,35 @@
+package cawcawcaw.pipeline;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: Emitter.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 10:02:14 AM
+ */
+
+/**
+ * <p>
+ * Hands an item over to the next stage of a {@link Pipeline}. Once an item is
+ * emitted, the stage that emitted it must not touch it anymore -- the next
+ * stage owns it.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.Emitter
+ *
+ */
+@FunctionalInterface
+public interface Emitter<T> {
+    
+    /**
+     * Pushes the item downstream, blocking while the downstream queue is full.
+     * 
+     * @param item
+     *            The item to hand over
+     * @throws InterruptedException
+     *             When the pipeline is being torn down
+     */
+    void emit(T item) throws InterruptedException;
+}
@@ -0,0 +1,121 @@
+package cawcawcaw.pipeline;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import cawcawcaw.metrics.Metrics;
+import cawcawcaw.pool.MediaPool;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.Encoder;
+import io.humble.video.MediaPacket;
+import io.humble.video.MediaSampled;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: EncodeStage.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 11:15:09 AM
+ */
+
+/**
+ * <p>
+ * Encodes uncompressed {@link io.humble.video.MediaAudio} or
+ * {@link io.humble.video.MediaPicture} objects into {@link MediaPacket}s ready
+ * to be written to a {@link io.humble.video.Muxer}.
+ * 
+ * <p>
+ * The encoder must be opened and must not be used by anybody else while the
+ * pipeline runs. Packets are borrowed from a {@link MediaPool}, the frames
+ * are released as soon as they are encoded.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.EncodeStage
+ *
+ */
+public class EncodeStage<T extends MediaSampled> implements Stage<Pooled<T>, Pooled<MediaPacket>> {
+    
+    private static final LongAdder FRAMES_ENCODED = Metrics.counter("encode.frames");
+    
+    private static final LongAdder PACKETS_ENCODED = Metrics.counter("encode.packets");
+    
+    private final Encoder encoder;
+    
+    private final MediaPool<MediaPacket> packets;
+    
+    /**
+     * @param encoder
+     *            The opened encoder
+     */
+    public EncodeStage(Encoder encoder) {
+        
+        this(encoder, MediaPool.packets("encode", Pipeline.DEFAULT_POOL_CAPACITY, Pipeline.DEFAULT_POOL_BYTES));
+    }
+    
+    /**
+     * @param encoder
+     *            The opened encoder
+     * @param packets
+     *            The pool to borrow the packets to encode into from
+     */
+    public EncodeStage(Encoder encoder, MediaPool<MediaPacket> packets) {
+        
+        this.encoder = encoder;
+        this.packets = packets;
+    }
+    
+    @Override
+    public void process(Pooled<T> frame, Emitter<Pooled<MediaPacket>> output) throws Exception {
+        
+        try {
+            
+            encode(frame.get(), output);
+        } finally {
+            
+            frame.release();
+        }
+    }
+    
+    /**
+     * Encoders, like decoders, sometimes cache data so they can do the right
+     * key-frame optimizations, so they need to be flushed as well by passing
+     * in null until the output is not complete.
+     */
+    @Override
+    public void flush(Emitter<Pooled<MediaPacket>> output) throws Exception {
+        
+        while (encode(null, output)) {
+            
+            // keep flushing
+        }
+    }
+    
+    /**
+     * @return True when a packet came out
+     */
+    private boolean encode(T frame, Emitter<Pooled<MediaPacket>> output) throws InterruptedException {
+        
+        Pooled<MediaPacket> packet = this.packets.acquire();
+        
+        this.encoder.encode(packet.get(), frame);
+        
+        if (!Objects.isNull(frame)) {
+            
+            FRAMES_ENCODED.increment();
+        }
+        
+        if (packet.get().isComplete()) {
+            
+            PACKETS_ENCODED.increment();
+            output.emit(packet);
+            
+            return true;
+        }
+        
+        packet.release();
+        
+        return false;
+    }
+}
@@ -0,0 +1,307 @@
+package cawcawcaw.pipeline;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import cawcawcaw.audio.AudioTarget;
+import io.humble.video.AudioChannel;
+import io.humble.video.Codec;
+import io.humble.video.Coder;
+import io.humble.video.Encoder;
+import io.humble.video.KeyValueBag;
+import io.humble.video.MuxerFormat;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: EncoderPreset.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 21, 2026 9:12:40 AM
+ */
+
+/**
+ * <p>
+ * A named audio encoding: codec, bit rate, encoder options and the container
+ * it goes in. The presets of the renditions we ship are built in and can be
+ * looked up by name, so tools take <code>aac-128k</code> on the command line
+ * instead of codec ids and numbers.
+ * 
+ * <pre>
+ * Encoder encoder = EncoderPreset.named("opus-low").make(decoder, muxer.getFormat());
+ * </pre>
+ * 
+ * <p>
+ * The sample rate, layout and sample format are the decoder's, as far as the
+ * codec accepts them (see {@link AudioTarget#forCodec(Codec, Coder)}), unless
+ * the preset fixes them. Presets are immutable, the <code>withX()</code>
+ * methods make new ones.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.EncoderPreset
+ *
+ */
+public final class EncoderPreset {
+    
+    /**
+     * Speech grade Opus, 48 kbit/s in Ogg.
+     */
+    public static final EncoderPreset OPUS_LOW = of("opus-low", Codec.ID.CODEC_ID_OPUS, "ogg", "opus")
+            .withBitRate(48000).withOption("application", "voip");
+    
+    /**
+     * AAC, 128 kbit/s in MP4 audio.
+     */
+    public static final EncoderPreset AAC_128K = of("aac-128k", Codec.ID.CODEC_ID_AAC, "ipod", "m4a")
+            .withBitRate(128000).withOption("strict", "experimental"); // the native FFmpeg AAC encoder
+    
+    /**
+     * Lossless FLAC, for the archive.
+     */
+    public static final EncoderPreset FLAC = of("flac", Codec.ID.CODEC_ID_FLAC, "flac", "flac")
+            .withOption("compression_level", "8");
+    
+    /**
+     * MP3, 192 kbit/s, what {@link AudioExtractor} makes by default.
+     */
+    public static final EncoderPreset MP3 = of("mp3", Codec.ID.CODEC_ID_MP3, "mp3", "mp3").withBitRate(192000);
+    
+    private static final Map<String, EncoderPreset> PRESETS = new LinkedHashMap<>();
+    
+    static {
+        
+        for (EncoderPreset preset : new EncoderPreset[] { OPUS_LOW, AAC_128K, FLAC, MP3 }) {
+            
+            PRESETS.put(preset.name, preset);
+        }
+    }
+    
+    private final String name;
+    
+    private final Codec.ID codecId;
+    
+    private final String format;
+    
+    private final String extension;
+    
+    private final long bitRate;
+    
+    private final int sampleRate;
+    
+    private final AudioChannel.Layout layout;
+    
+    private final Map<String, String> options;
+    
+    private EncoderPreset(String name, Codec.ID codecId, String format, String extension, long bitRate,
+            int sampleRate, AudioChannel.Layout layout, Map<String, String> options) {
+        
+        this.name = name;
+        this.codecId = codecId;
+        this.format = format;
+        this.extension = extension;
+        this.bitRate = bitRate;
+        this.sampleRate = sampleRate;
+        this.layout = layout;
+        this.options = Collections.unmodifiableMap(options);
+    }
+    
+    /**
+     * @param name
+     *            The name of the preset
+     * @param codecId
+     *            The codec to encode with
+     * @param format
+     *            The short name of the muxer format
+     * @param extension
+     *            The file extension of the output, without the dot
+     * @return A preset using the codec's default bit rate and options
+     */
+    public static EncoderPreset of(String name, Codec.ID codecId, String format, String extension) {
+        
+        return new EncoderPreset(name, codecId, format, extension, 0, 0, null, new LinkedHashMap<>());
+    }
+    
+    /**
+     * @param name
+     *            The name of a built in preset
+     * @return The preset
+     */
+    public static EncoderPreset named(String name) {
+        
+        EncoderPreset preset = PRESETS.get(name);
+        
+        if (Objects.isNull(preset)) {
+            
+            throw new IllegalArgumentException(
+                    String.format("Unknown encoder preset %s, known presets are %s", name, PRESETS.keySet()));
+        }
+        
+        return preset;
+    }
+    
+    /**
+     * @return The names of the built in presets
+     */
+    public static Set<String> names() {
+        
+        return Collections.unmodifiableSet(PRESETS.keySet());
+    }
+    
+    /**
+     * @param bitRate
+     *            The target bit rate in bits per second, 0 for the codec's
+     *            default
+     * @return A copy of this preset with the bit rate
+     */
+    public EncoderPreset withBitRate(long bitRate) {
+        
+        if (bitRate < 0) {
+            
+            throw new IllegalArgumentException("Bit rate can't be negative, got " + bitRate);
+        }
+        
+        return new EncoderPreset(this.name, this.codecId, this.format, this.extension, bitRate, this.sampleRate,
+                this.layout, this.options);
+    }
+    
+    /**
+     * @param sampleRate
+     *            The sample rate to encode at, 0 for the decoder's
+     * @param layout
+     *            The channel layout to encode, null for the decoder's
+     * @return A copy of this preset with the audio shape
+     */
+    public EncoderPreset withAudio(int sampleRate, AudioChannel.Layout layout) {
+        
+        if (sampleRate < 0) {
+            
+            throw new IllegalArgumentException("Sample rate can't be negative, got " + sampleRate);
+        }
+        
+        return new EncoderPreset(this.name, this.codecId, this.format, this.extension, this.bitRate, sampleRate,
+                layout, this.options);
+    }
+    
+    /**
+     * @param key
+     *            The name of an encoder option, as in FFmpeg
+     * @param value
+     *            Its value
+     * @return A copy of this preset with the option
+     */
+    public EncoderPreset withOption(String key, String value) {
+        
+        Map<String, String> options = new LinkedHashMap<>(this.options);
+        options.put(key, value);
+        
+        return new EncoderPreset(this.name, this.codecId, this.format, this.extension, this.bitRate, this.sampleRate,
+                this.layout, options);
+    }
+    
+    /**
+     * Makes and opens an encoder for the audio of a decoder. When its audio
+     * shape differs from the decoder's, the frames must go through a
+     * {@link cawcawcaw.audio.ResampleStage} to {@link AudioTarget#of(Coder)}
+     * the encoder first.
+     * 
+     * @param source
+     *            The decoder whose output will be fed to the encoder
+     * @param muxerFormat
+     *            The format of the muxer the packets will be written to, null
+     *            if unknown
+     * @return The opened encoder
+     * @throws IOException
+     *             When there is no encoder for the codec
+     */
+    public Encoder make(Coder source, MuxerFormat muxerFormat) throws IOException {
+        
+        Codec codec = Codec.findEncodingCodec(this.codecId);
+        
+        if (Objects.isNull(codec)) {
+            
+            throw new IOException(String.format("No encoder found for %s (preset %s)", this.codecId, this.name));
+        }
+        
+        Encoder encoder = Encoder.make(codec);
+        
+        AudioTarget target = AudioTarget.forCodec(codec, source);
+        
+        if (this.sampleRate > 0 || !Objects.isNull(this.layout)) {
+            
+            target = AudioTarget.of(this.sampleRate > 0 ? this.sampleRate : target.getSampleRate(),
+                    Objects.isNull(this.layout) ? target.getLayout() : this.layout, target.getFormat());
+        }
+        
+        target.configure(encoder);
+        
+        if (this.bitRate > 0) {
+            
+            encoder.setProperty("b", this.bitRate);
+        }
+        
+        // some containers (mp4, mkv) need the codec headers up front
+        if (!Objects.isNull(muxerFormat) && muxerFormat.getFlag(MuxerFormat.Flag.GLOBAL_HEADER)) {
+            
+            encoder.setFlag(Coder.Flag.FLAG_GLOBAL_HEADER, true);
+        }
+        
+        KeyValueBag options = KeyValueBag.make();
+        this.options.forEach(options::setValue);
+        
+        encoder.open(options, null);
+        
+        return encoder;
+    }
+    
+    /**
+     * @return The name of the preset
+     */
+    public String getName() {
+        
+        return this.name;
+    }
+    
+    /**
+     * @return The codec encoded with
+     */
+    public Codec.ID getCodecId() {
+        
+        return this.codecId;
+    }
+    
+    /**
+     * @return The target bit rate in bits per second, 0 for the codec's
+     *         default
+     */
+    public long getBitRate() {
+        
+        return this.bitRate;
+    }
+    
+    /**
+     * @return The short name of the muxer format
+     */
+    public String getFormat() {
+        
+        return this.format;
+    }
+    
+    /**
+     * @return The file extension of the output, without the dot
+     */
+    public String getExtension() {
+        
+        return this.extension;
+    }
+    
+    @Override
+    public String toString() {
+        
+        return this.name;
+    }
+}
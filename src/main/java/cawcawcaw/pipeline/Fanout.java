@@ -0,0 +1,153 @@
+package cawcawcaw.pipeline;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+import cawcawcaw.pool.Pooled;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: Fanout.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 5:10:44 PM
+ */
+
+/**
+ * <p>
+ * Splits one {@link Pipeline} into several: the fanout is the sink of the
+ * upstream pipeline, and every {@link #branch(int)} is the source of a
+ * downstream one. Items are routed by a key (the stream index of a packet for
+ * example); several branches on the same key each get the same item, with a
+ * reference of their own. A shared item is read only: a stage changing it
+ * copies it first while its {@link Pooled#refCount()} is above 1, as the
+ * {@link cawcawcaw.remux.RemuxStage} does.
+ * 
+ * <pre>
+ * Fanout&lt;MediaPacket&gt; streams = new Fanout&lt;&gt;(MediaPacket::getStreamIndex);
+ * 
+ * Pipeline.runAll(Pipeline.from("demux", demuxSource).to("route", streams),
+ *         Pipeline.from("audio", streams.branch(1)).then(...).to(...),
+ *         Pipeline.from("video", streams.branch(0)).then(...).to(...));
+ * </pre>
+ * 
+ * <p>
+ * The pipelines must be run together with {@link Pipeline#runAll}, so that a
+ * failing branch tears the upstream down instead of leaving it blocked.
+ * Branches must all be made before running.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.Fanout
+ *
+ */
+public class Fanout<T> implements Sink<Pooled<T>> {
+    
+    private final ToIntFunction<T> key;
+    
+    private final Map<Integer, List<Channel<Pooled<T>>>> branches = new HashMap<>();
+    
+    private final List<Channel<Pooled<T>>> all = new ArrayList<>();
+    
+    /**
+     * @param key
+     *            Tells which branches an item goes to
+     */
+    public Fanout(ToIntFunction<T> key) {
+        
+        this.key = key;
+    }
+    
+    /**
+     * @return A fanout sending every item to every branch
+     */
+    public static <T> Fanout<T> broadcast() {
+        
+        return new Fanout<>(item -> 0);
+    }
+    
+    /**
+     * @param key
+     *            The key of the items wanted
+     * @return The source of a downstream pipeline
+     */
+    public Source<Pooled<T>> branch(int key) {
+        
+        return branch(key, Pipeline.DEFAULT_QUEUE_CAPACITY);
+    }
+    
+    /**
+     * @param key
+     *            The key of the items wanted
+     * @param capacity
+     *            The number of items buffered for the branch
+     * @return The source of a downstream pipeline
+     */
+    public Source<Pooled<T>> branch(int key, int capacity) {
+        
+        Channel<Pooled<T>> channel = new Channel<>(capacity);
+        
+        this.branches.computeIfAbsent(key, k -> new ArrayList<>()).add(channel);
+        this.all.add(channel);
+        
+        return output -> {
+            
+            Pooled<T> item;
+            
+            while (!Objects.isNull(item = channel.take())) {
+                
+                output.emit(item);
+            }
+        };
+    }
+    
+    /**
+     * @return A source getting every item, whatever its key. For use with
+     *         {@link #broadcast()}.
+     */
+    public Source<Pooled<T>> branch() {
+        
+        return branch(0);
+    }
+    
+    @Override
+    public void accept(Pooled<T> item) throws Exception {
+        
+        List<Channel<Pooled<T>>> targets = this.branches.get(this.key.applyAsInt(item.get()));
+        
+        if (Objects.isNull(targets)) {
+            
+            // nobody wants it
+            item.release();
+            
+            return;
+        }
+        
+        for (int i = 1; i < targets.size(); i++) {
+            
+            item.retain();
+        }
+        
+        for (Channel<Pooled<T>> target : targets) {
+            
+            target.put(item);
+        }
+    }
+    
+    /**
+     * Ends the stream of every branch.
+     */
+    @Override
+    public void finish() throws Exception {
+        
+        for (Channel<Pooled<T>> channel : this.all) {
+            
+            channel.close();
+        }
+    }
+}
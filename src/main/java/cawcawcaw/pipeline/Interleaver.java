@@ -0,0 +1,361 @@
+package cawcawcaw.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import cawcawcaw.pool.Pooled;
+import io.humble.video.Global;
+import io.humble.video.MediaPacket;
+import io.humble.video.Muxer;
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: Interleaver.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 4:02:37 PM
+ */
+
+/**
+ * <p>
+ * Writes the packets of several pipelines into one {@link Muxer}, interleaved
+ * by decode timestamp. Each pipeline ends in its own {@link #input(Rational)}
+ * sink.
+ * 
+ * <p>
+ * Every input has a small reorder queue. A packet is written once every input
+ * still running has a packet queued, so the earliest one is known; an input
+ * whose queue is full waits for the others to catch up. Memory stays bounded
+ * by the queues whatever the length of the file, and nothing ever waits on
+ * the muxer's own interleaving buffers.
+ * 
+ * <p>
+ * Inputs fed by the same source, like the streams of one {@link DemuxSource}
+ * split by a {@link Fanout}, can't always catch up: when a stream ends early
+ * or starts late, the source is stuck behind the full queue of another
+ * stream, and the empty one gets nothing more. Such inputs are made with
+ * {@link #input(Rational, String)}. Once an input's queue is full and every
+ * input waited on shares its source, the earliest packet queued is written
+ * anyway, the way FFmpeg gives up on a stream past its max interleave delta.
+ * The source must not run out of packets before a queue fills up, see
+ * {@link #getCapacity()}.
+ * 
+ * <p>
+ * The packets must already carry their output stream index and be in the
+ * time base of their output stream, see {@link cawcawcaw.remux.RemuxStage}.
+ * The muxer is owned by the caller.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.Interleaver
+ *
+ */
+public final class Interleaver {
+    
+    private final Muxer muxer;
+    
+    private int capacity = Pipeline.DEFAULT_QUEUE_CAPACITY;
+    
+    private final Object lock = new Object();
+    
+    // # Guarded by lock
+    private final List<Input> inputs = new ArrayList<>();
+    // # Guarded by lock
+    
+    /**
+     * @param muxer
+     *            The opened muxer
+     */
+    public Interleaver(Muxer muxer) {
+        
+        this.muxer = muxer;
+    }
+    
+    /**
+     * @param capacity
+     *            The max number of packets queued per input, 64 by default
+     * @return this
+     */
+    public Interleaver withCapacity(int capacity) {
+        
+        if (capacity <= 0) {
+            
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        
+        this.capacity = capacity;
+        
+        return this;
+    }
+    
+    /**
+     * @return The max number of packets queued per input
+     */
+    public int getCapacity() {
+        
+        return this.capacity;
+    }
+    
+    /**
+     * Adds an input fed by a source of its own, all the inputs must be added
+     * before the pipelines run.
+     * 
+     * @param timeBase
+     *            The time base of the input's packets
+     * @return The sink the input's pipeline ends in
+     */
+    public Sink<Pooled<MediaPacket>> input(Rational timeBase) {
+        
+        return input(timeBase, null);
+    }
+    
+    /**
+     * Adds an input, all the inputs must be added before the pipelines run.
+     * 
+     * @param timeBase
+     *            The time base of the input's packets
+     * @param source
+     *            Names the source feeding the input and others, null for a
+     *            source of its own
+     * @return The sink the input's pipeline ends in
+     */
+    public Sink<Pooled<MediaPacket>> input(Rational timeBase, String source) {
+        
+        Input input = new Input(timeBase.getDouble(), source);
+        
+        synchronized (this.lock) {
+            
+            this.inputs.add(input);
+        }
+        
+        return input;
+    }
+    
+    /**
+     * Writes packets while the earliest one is known, or while waiting for it
+     * would never end.
+     */
+    private void drain() throws Exception {
+        
+        while (true) {
+            
+            Input earliest = null;
+            boolean waiting = false;
+            
+            for (Input input : this.inputs) {
+                
+                if (input.isEmpty()) {
+                    
+                    // it may still come up with an earlier packet
+                    waiting |= !input.done;
+                } else if (earliest == null || input.head() < earliest.head()) {
+                    
+                    earliest = input;
+                }
+            }
+            
+            if (earliest == null || waiting && !isStuck()) {
+                
+                return;
+            }
+            
+            Pooled<MediaPacket> packet = earliest.poll();
+            
+            try {
+                
+                this.muxer.write(packet.get(), false);
+            } finally {
+                
+                packet.release();
+                this.lock.notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * @return true when an input is full with its pipeline waiting for room,
+     *         and every input waited on is fed by the same source: that source
+     *         is blocked behind the full input, none of them will get a packet
+     */
+    private boolean isStuck() {
+        
+        for (Input full : this.inputs) {
+            
+            if (!full.blocked || !full.isFull() || Objects.isNull(full.source)) {
+                
+                continue;
+            }
+            
+            boolean shared = true;
+            
+            for (Input input : this.inputs) {
+                
+                shared &= !input.isEmpty() || input.done || full.source.equals(input.source);
+            }
+            
+            if (shared) {
+                
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * <p>
+     * A pipeline feeding the interleaver, with its reorder queue.
+     * 
+     * @author sidmishraw
+     *
+     *         Qualified Name: cawcawcaw.pipeline.Interleaver.Input
+     *
+     */
+    private final class Input implements Sink<Pooled<MediaPacket>> {
+        
+        private final double secondsPerTick;
+        
+        private final String source;
+        
+        // # The queue, a ring of packets and their times
+        private final Object[] packets = new Object[Interleaver.this.capacity];
+        
+        private final double[] times = new double[Interleaver.this.capacity];
+        
+        private int first = 0;
+        
+        private int size = 0;
+        // # The queue, a ring of packets and their times
+        
+        private boolean finished = false;
+        
+        private boolean done = false;
+        
+        /**
+         * Whether the pipeline is waiting for room in the queue.
+         */
+        private boolean blocked = false;
+        
+        /**
+         * The time of the last packet queued, for packets without timestamps.
+         */
+        private double last = Double.NEGATIVE_INFINITY;
+        
+        Input(double secondsPerTick, String source) {
+            
+            this.secondsPerTick = secondsPerTick;
+            this.source = source;
+        }
+        
+        boolean isEmpty() {
+            
+            return this.size == 0;
+        }
+        
+        boolean isFull() {
+            
+            return this.size == this.packets.length;
+        }
+        
+        /**
+         * @return The time of the first packet queued, in seconds
+         */
+        double head() {
+            
+            return this.times[this.first];
+        }
+        
+        @SuppressWarnings("unchecked")
+        Pooled<MediaPacket> poll() {
+            
+            Pooled<MediaPacket> packet = (Pooled<MediaPacket>) this.packets[this.first];
+            
+            this.packets[this.first] = null;
+            this.first = (this.first + 1) % this.packets.length;
+            this.size--;
+            
+            return packet;
+        }
+        
+        @Override
+        public void accept(Pooled<MediaPacket> packet) throws Exception {
+            
+            MediaPacket media = packet.get();
+            long timestamp = media.getDts() != Global.NO_PTS ? media.getDts() : media.getPts();
+            double time = timestamp == Global.NO_PTS ? this.last : timestamp * this.secondsPerTick;
+            
+            synchronized (Interleaver.this.lock) {
+                
+                try {
+                    
+                    while (isFull()) {
+                        
+                        this.blocked = true;
+                        
+                        // the inputs waited on may be stuck behind this one
+                        drain();
+                        
+                        if (isFull()) {
+                            
+                            Interleaver.this.lock.wait();
+                        }
+                    }
+                } catch (Exception e) {
+                    
+                    packet.release();
+                    
+                    throw e;
+                } finally {
+                    
+                    this.blocked = false;
+                }
+                
+                int index = (this.first + this.size++) % this.packets.length;
+                
+                this.last = Math.max(this.last, time);
+                this.packets[index] = packet;
+                this.times[index] = time;
+                
+                drain();
+            }
+        }
+        
+        @Override
+        public void finish() throws Exception {
+            
+            synchronized (Interleaver.this.lock) {
+                
+                this.finished = true;
+                this.done = true;
+                
+                drain();
+            }
+        }
+        
+        @Override
+        public void close() {
+            
+            synchronized (Interleaver.this.lock) {
+                
+                if (this.finished) {
+                    
+                    // what's left is written as the other inputs catch up
+                    return;
+                }
+                
+                // failed, the queued packets will never be written
+                this.done = true;
+                
+                while (!isEmpty()) {
+                    
+                    poll().release();
+                }
+                
+                Interleaver.this.lock.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package cawcawcaw.pipeline;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.MediaDescriptor;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: MediaStreams.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 10:40:12 AM
+ */
+
+/**
+ * <p>
+ * Helpers for picking streams out of an opened {@link Demuxer}.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.MediaStreams
+ *
+ */
+public final class MediaStreams {
+    
+    private MediaStreams() {
+        
+    }
+    
+    /**
+     * Finds the first stream of the given type that we can decode.
+     * 
+     * <p>
+     * Beware, we work with stream indexes, {@link DemuxerStream#getId()} is not
+     * equal to the stream index.
+     * 
+     * @param demuxer
+     *            The opened demuxer
+     * @param type
+     *            The type of stream wanted, {@link MediaDescriptor.Type#MEDIA_AUDIO}
+     *            for example
+     * @return The first stream of that type or null if there is none
+     */
+    public static DemuxerStream firstOfType(Demuxer demuxer, MediaDescriptor.Type type)
+            throws InterruptedException, IOException {
+        
+        for (int i = 0; i < demuxer.getNumStreams(); i++) {
+            
+            DemuxerStream stream = demuxer.getStream(i);
+            
+            if (!Objects.isNull(stream) && !Objects.isNull(stream.getDecoder())
+                    && stream.getDecoder().getCodecType().equals(type)) {
+                
+                return stream;
+            }
+        }
+        
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+package cawcawcaw.pipeline;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import cawcawcaw.metrics.Metrics;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.MediaPacket;
+import io.humble.video.Muxer;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: MuxSink.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 11:21:40 AM
+ */
+
+/**
+ * <p>
+ * Writes encoded {@link MediaPacket}s into an opened {@link Muxer}, and
+ * releases them back to their pool.
+ * 
+ * <p>
+ * The muxer is owned by the caller, this sink does not close it -- closing the
+ * muxer writes the trailer of the container and has to happen after the
+ * pipeline is done.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.MuxSink
+ *
+ */
+public class MuxSink implements Sink<Pooled<MediaPacket>> {
+    
+    private static final LongAdder PACKETS_MUXED = Metrics.counter("mux.packets");
+    
+    private static final LongAdder BYTES_MUXED = Metrics.counter("mux.bytes");
+    
+    private final Muxer muxer;
+    
+    private final boolean forceInterleave;
+    
+    /**
+     * @param muxer
+     *            The opened muxer
+     */
+    public MuxSink(Muxer muxer) {
+        
+        this(muxer, false);
+    }
+    
+    /**
+     * @param muxer
+     *            The opened muxer
+     * @param forceInterleave
+     *            True to let the muxer interleave packets of several streams
+     */
+    public MuxSink(Muxer muxer, boolean forceInterleave) {
+        
+        this.muxer = muxer;
+        this.forceInterleave = forceInterleave;
+    }
+    
+    @Override
+    public void accept(Pooled<MediaPacket> packet) throws Exception {
+        
+        try {
+            
+            int size = packet.get().getSize(); // the muxer may take the payload
+            
+            this.muxer.write(packet.get(), this.forceInterleave);
+            
+            PACKETS_MUXED.increment();
+            BYTES_MUXED.add(size);
+        } finally {
+            
+            packet.release();
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package cawcawcaw.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.metrics.Metrics;
+import cawcawcaw.metrics.StageMetrics;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: Pipeline.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 10:31:47 AM
+ */
+
+/**
+ * <p>
+ * A streaming pipeline: one {@link Source}, any number of {@link Stage}s and
+ * one {@link Sink}. Every one of them runs on its own thread and they are
+ * linked by bounded queues, so demuxing, decoding, encoding and muxing of a
+ * file overlap instead of running one after another.
+ * 
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * Pipeline.from("demux", new DemuxSource(demuxer, audioStreamIndex))
+ *         .then("decode", DecodeStage.audio(decoder))
+ *         .then("encode", new EncodeStage&lt;&gt;(encoder))
+ *         .to("mux", new MuxSink(muxer))
+ *         .run();
+ * </pre>
+ * 
+ * <p>
+ * Every node records its item counts, busy time per item and input queue depth
+ * in the {@link Metrics} of its name.
+ * 
+ * <p>
+ * A pipeline is meant to be run once.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.Pipeline
+ *
+ */
+public final class Pipeline<T> {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(Pipeline.class);
+    // # Logging stuff
+    
+    /**
+     * The default number of items buffered between 2 stages.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    
+    /**
+     * The default capacity of the {@link cawcawcaw.pool.MediaPool}s feeding
+     * the stages: enough for a full queue plus the objects held by the stages
+     * on both of its ends.
+     */
+    public static final int DEFAULT_POOL_CAPACITY = DEFAULT_QUEUE_CAPACITY + 4;
+    
+    /**
+     * The default cap on the native bytes held by the objects in flight of
+     * each of those pools, 256 MB unless set with the
+     * <code>cawcawcaw.pool.bytes</code> system property. It only binds for big
+     * objects: a few dozen 4K pictures rather than 68 of them.
+     */
+    public static final long DEFAULT_POOL_BYTES = Long.getLong("cawcawcaw.pool.bytes", 256L << 20);
+    
+    private final List<Node> nodes;
+    
+    private final int queueCapacity;
+    
+    private Pipeline(List<Node> nodes, int queueCapacity) {
+        
+        this.nodes = nodes;
+        this.queueCapacity = queueCapacity;
+    }
+    
+    /**
+     * Starts a new pipeline.
+     * 
+     * @param name
+     *            The name of the source, used for the thread name and errors
+     * @param source
+     *            The source
+     * @return The pipeline producing the items of the source
+     */
+    public static <T> Pipeline<T> from(String name, Source<T> source) {
+        
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(new SourceNode<>(name, source));
+        
+        return new Pipeline<>(nodes, DEFAULT_QUEUE_CAPACITY);
+    }
+    
+    /**
+     * @param capacity
+     *            The number of items buffered between 2 stages, must be
+     *            positive
+     * @return This pipeline, with the new queue capacity
+     */
+    public Pipeline<T> withQueueCapacity(int capacity) {
+        
+        if (capacity <= 0) {
+            
+            throw new IllegalArgumentException("Queue capacity must be positive, got " + capacity);
+        }
+        
+        return new Pipeline<>(this.nodes, capacity);
+    }
+    
+    /**
+     * Appends a stage.
+     * 
+     * @param name
+     *            The name of the stage, used for the thread name and errors
+     * @param stage
+     *            The stage
+     * @return The pipeline producing the outputs of the stage
+     */
+    public <R> Pipeline<R> then(String name, Stage<T, R> stage) {
+        
+        List<Node> nodes = new ArrayList<>(this.nodes);
+        nodes.add(new StageNode<>(name, stage));
+        
+        return new Pipeline<>(nodes, this.queueCapacity);
+    }
+    
+    /**
+     * Terminates the pipeline with a sink.
+     * 
+     * @param name
+     *            The name of the sink, used for the thread name and errors
+     * @param sink
+     *            The sink
+     * @return The runnable pipeline
+     */
+    public Pipeline.Runner to(String name, Sink<T> sink) {
+        
+        List<Node> nodes = new ArrayList<>(this.nodes);
+        nodes.add(new SinkNode<>(name, sink));
+        
+        return new Runner(Collections.unmodifiableList(nodes), this.queueCapacity);
+    }
+    
+    /**
+     * <p>
+     * A complete pipeline, ready to run.
+     * 
+     * @author sidmishraw
+     *
+     *         Qualified Name: cawcawcaw.pipeline.Pipeline.Runner
+     *
+     */
+    public static final class Runner {
+        
+        private final List<Node> nodes;
+        
+        private final int queueCapacity;
+        
+        private Runner(List<Node> nodes, int queueCapacity) {
+            
+            this.nodes = nodes;
+            this.queueCapacity = queueCapacity;
+        }
+        
+        /**
+         * Runs every node on its own thread and blocks until all of them are
+         * done. When a node fails, all the other nodes are interrupted.
+         * 
+         * @throws PipelineException
+         *             When any of the nodes failed
+         * @throws InterruptedException
+         *             When the calling thread was interrupted, the pipeline
+         *             is torn down before this is thrown
+         */
+        public void run() throws PipelineException, InterruptedException {
+            
+            runAll(this);
+        }
+        
+        /**
+         * Makes the threads running the nodes of this pipeline, not started.
+         */
+        private List<Thread> threads(AtomicReference<PipelineException> failure, List<Thread> all) {
+            
+            List<Channel<Object>> channels = new ArrayList<>();
+            
+            for (int i = 1; i < this.nodes.size(); i++) {
+                
+                channels.add(new Channel<>(this.queueCapacity));
+            }
+            
+            List<Thread> threads = new ArrayList<>();
+            
+            for (int i = 0; i < this.nodes.size(); i++) {
+                
+                Node node = this.nodes.get(i);
+                Channel<Object> in = i > 0 ? channels.get(i - 1) : null;
+                Channel<Object> out = i < channels.size() ? channels.get(i) : null;
+                
+                threads.add(new Thread(() -> {
+                    
+                    Runnable unwatch = Objects.isNull(in) ? () -> {} : node.metrics.watchQueue(in::size);
+                    
+                    try {
+                        
+                        node.run(in, out);
+                    } catch (Throwable e) {
+                        
+                        onFailure(node.name, e, failure, all);
+                    } finally {
+                        
+                        unwatch.run();
+                    }
+                }, "pipeline-" + node.name));
+            }
+            
+            return threads;
+        }
+    }
+    
+    /**
+     * Runs several pipelines together, as a single unit: when a node of any of
+     * them fails, the nodes of all of them are interrupted. This is how
+     * pipelines linked by a {@link Fanout} are run.
+     * 
+     * @param runners
+     *            The pipelines
+     * @throws PipelineException
+     *             When any of the nodes failed
+     * @throws InterruptedException
+     *             When the calling thread was interrupted, the pipelines are
+     *             torn down before this is thrown
+     */
+    public static void runAll(Runner... runners) throws PipelineException, InterruptedException {
+        
+        AtomicReference<PipelineException> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        
+        for (Runner runner : runners) {
+            
+            threads.addAll(runner.threads(failure, threads));
+        }
+        
+        threads.forEach(Thread::start);
+        
+        try {
+            
+            for (Thread thread : threads) {
+                
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            
+            threads.forEach(Thread::interrupt);
+            
+            throw e;
+        }
+        
+        if (!Objects.isNull(failure.get())) {
+            
+            throw failure.get();
+        }
+    }
+    
+    /**
+     * Records the first failure and tears everything else down. Interruptions
+     * caused by the tear down itself are not failures.
+     */
+    private static void onFailure(String name, Throwable e, AtomicReference<PipelineException> failure,
+            List<Thread> threads) {
+        
+        PipelineException pe = new PipelineException(name, e);
+        
+        if (failure.compareAndSet(null, pe)) {
+            
+            logger.error(pe.getMessage(), e);
+            
+            threads.stream().filter(t -> t != Thread.currentThread()).forEach(Thread::interrupt);
+        } else if (!(e instanceof InterruptedException)) {
+            
+            failure.get().addSuppressed(e);
+        }
+    }
+    
+    // # Nodes
+    
+    /**
+     * A source, stage or sink together with the loop that drives it.
+     */
+    private abstract static class Node {
+        
+        final String name;
+        
+        final StageMetrics metrics;
+        
+        Node(String name) {
+            
+            this.name = name;
+            this.metrics = Metrics.stage(name);
+        }
+        
+        abstract void run(Channel<Object> in, Channel<Object> out) throws Exception;
+    }
+    
+    /**
+     * Hands items to the output channel, keeping track of the time spent
+     * blocked on a full channel so that it's not counted as busy time.
+     */
+    private static final class TimedEmitter<T> implements Emitter<T> {
+        
+        private final Channel<Object> out;
+        
+        private final StageMetrics metrics;
+        
+        private long blockedNanos = 0;
+        
+        TimedEmitter(Channel<Object> out, StageMetrics metrics) {
+            
+            this.out = out;
+            this.metrics = metrics;
+        }
+        
+        @Override
+        public void emit(T item) throws InterruptedException {
+            
+            long start = System.nanoTime();
+            
+            try {
+                
+                this.out.put(item);
+            } finally {
+                
+                this.blockedNanos += System.nanoTime() - start;
+            }
+            
+            this.metrics.emitted();
+        }
+        
+        /**
+         * @return The time blocked since the last call, in nanoseconds
+         */
+        long takeBlockedNanos() {
+            
+            long blocked = this.blockedNanos;
+            this.blockedNanos = 0;
+            
+            return blocked;
+        }
+    }
+    
+    private static final class SourceNode<T> extends Node {
+        
+        private final Source<T> source;
+        
+        SourceNode(String name, Source<T> source) {
+            
+            super(name);
+            this.source = source;
+        }
+        
+        @Override
+        void run(Channel<Object> in, Channel<Object> out) throws Exception {
+            
+            TimedEmitter<T> emitter = new TimedEmitter<>(out, this.metrics);
+            long[] last = { System.nanoTime() };
+            
+            try {
+                
+                // the busy time of a source item is the time since the previous one was handed over
+                this.source.run(item -> {
+                    
+                    long start = System.nanoTime();
+                    emitter.emit(item);
+                    this.metrics.processed(start - last[0]);
+                    last[0] = System.nanoTime();
+                });
+                out.close();
+            } finally {
+                
+                this.source.close();
+            }
+        }
+    }
+    
+    private static final class StageNode<I, O> extends Node {
+        
+        private final Stage<I, O> stage;
+        
+        StageNode(String name, Stage<I, O> stage) {
+            
+            super(name);
+            this.stage = stage;
+        }
+        
+        @SuppressWarnings("unchecked")
+        @Override
+        void run(Channel<Object> in, Channel<Object> out) throws Exception {
+            
+            TimedEmitter<O> emitter = new TimedEmitter<>(out, this.metrics);
+            
+            try {
+                
+                Object item;
+                
+                while (!Objects.isNull(item = in.take())) {
+                    
+                    this.metrics.received();
+                    
+                    long start = System.nanoTime();
+                    this.stage.process((I) item, emitter);
+                    this.metrics.processed(System.nanoTime() - start - emitter.takeBlockedNanos());
+                }
+                
+                this.stage.flush(emitter);
+                out.close();
+            } finally {
+                
+                this.stage.close();
+            }
+        }
+    }
+    
+    private static final class SinkNode<T> extends Node {
+        
+        private final Sink<T> sink;
+        
+        SinkNode(String name, Sink<T> sink) {
+            
+            super(name);
+            this.sink = sink;
+        }
+        
+        @SuppressWarnings("unchecked")
+        @Override
+        void run(Channel<Object> in, Channel<Object> out) throws Exception {
+            
+            try {
+                
+                Object item;
+                
+                while (!Objects.isNull(item = in.take())) {
+                    
+                    this.metrics.received();
+                    
+                    long start = System.nanoTime();
+                    this.sink.accept((T) item);
+                    this.metrics.processed(System.nanoTime() - start);
+                }
+                
+                this.sink.finish();
+            } finally {
+                
+                this.sink.close();
+            }
+        }
+    }
+    // # Nodes
+}
@@ -0,0 +1,37 @@
+package cawcawcaw.pipeline;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: PipelineException.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 10:09:45 AM
+ */
+
+/**
+ * <p>
+ * Thrown by {@link Pipeline#run()} when one of the stages failed. The cause is
+ * the first failure, failures of other stages are attached as suppressed
+ * exceptions.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.PipelineException
+ *
+ */
+public class PipelineException extends Exception {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * @param stageName
+     *            The name of the stage that failed first
+     * @param cause
+     *            The failure
+     */
+    public PipelineException(String stageName, Throwable cause) {
+        
+        super(String.format("Stage '%s' failed: %s", stageName, cause.getMessage()), cause);
+    }
+}
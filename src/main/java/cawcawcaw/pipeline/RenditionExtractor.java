@@ -0,0 +1,287 @@
+package cawcawcaw.pipeline;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.audio.AudioTarget;
+import cawcawcaw.audio.ResampleStage;
+import cawcawcaw.io.MediaInput;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.Encoder;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.Muxer;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: RenditionExtractor.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 21, 2026 10:03:55 AM
+ */
+
+/**
+ * <p>
+ * Extracts the first audio stream of a media file into several renditions at
+ * once, one per {@link EncoderPreset}: the file is demuxed and decoded once,
+ * and the decoded frames are broadcast by a {@link Fanout} to one
+ * encode/mux pipeline per rendition, each on its own threads. Three
+ * renditions cost one decode and three encodes instead of three
+ * {@link AudioExtractor} passes.
+ * 
+ * <pre>
+ * new RenditionExtractor("episode01.mkv")
+ *         .withRendition(EncoderPreset.OPUS_LOW, "episode01.opus")
+ *         .withRendition(EncoderPreset.AAC_128K, "episode01.m4a")
+ *         .withRendition(EncoderPreset.FLAC, "episode01.flac")
+ *         .extract();
+ * </pre>
+ * 
+ * <p>
+ * The renditions share the decoded frames, read only. The decoder runs ahead
+ * of the slowest encoder by at most the frames in its pool, so a slow
+ * rendition slows the others down rather than piling frames up.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.RenditionExtractor
+ *
+ */
+public class RenditionExtractor {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(RenditionExtractor.class);
+    // # Logging stuff
+    
+    /**
+     * The renditions we ship for every translated track.
+     */
+    public static final List<EncoderPreset> DEFAULT_PRESETS = Arrays.asList(EncoderPreset.OPUS_LOW,
+            EncoderPreset.AAC_128K, EncoderPreset.FLAC);
+    
+    private final String inputPath;
+    
+    private final List<EncoderPreset> presets = new ArrayList<>();
+    
+    private final List<String> outputPaths = new ArrayList<>();
+    
+    private int queueCapacity = Pipeline.DEFAULT_QUEUE_CAPACITY;
+    
+    private MediaInput input = MediaInput.path();
+    
+    private TimeRange range = null;
+    
+    /**
+     * @param inputPath
+     *            The media file to extract the audio of
+     */
+    public RenditionExtractor(String inputPath) {
+        
+        this.inputPath = inputPath;
+    }
+    
+    /**
+     * @param preset
+     *            How to encode the rendition
+     * @param outputPath
+     *            The file to write it to
+     * @return this
+     */
+    public RenditionExtractor withRendition(EncoderPreset preset, String outputPath) {
+        
+        this.presets.add(preset);
+        this.outputPaths.add(outputPath);
+        
+        return this;
+    }
+    
+    /**
+     * @param queueCapacity
+     *            The number of items buffered between 2 stages, and for every
+     *            rendition
+     * @return this
+     */
+    public RenditionExtractor withQueueCapacity(int queueCapacity) {
+        
+        this.queueCapacity = queueCapacity;
+        
+        return this;
+    }
+    
+    /**
+     * @param input
+     *            How the input file is read, see {@link MediaInput}
+     * @return this
+     */
+    public RenditionExtractor withInput(MediaInput input) {
+        
+        this.input = input;
+        
+        return this;
+    }
+    
+    /**
+     * @param range
+     *            The part of the input to extract, null for all of it, see
+     *            {@link AudioExtractor#withRange(TimeRange)}
+     * @return this
+     */
+    public RenditionExtractor withRange(TimeRange range) {
+        
+        this.range = range;
+        
+        return this;
+    }
+    
+    /**
+     * Runs the extraction, blocking until all the renditions are complete.
+     * 
+     * @throws IOException
+     *             When the input can't be read or has no audio stream, or an
+     *             output can't be written
+     * @throws PipelineException
+     *             When one of the pipeline stages failed, the other
+     *             renditions are stopped too
+     */
+    public void extract() throws IOException, InterruptedException, PipelineException {
+        
+        if (this.presets.isEmpty()) {
+            
+            throw new IllegalArgumentException("No renditions to extract");
+        }
+        
+        Demuxer demuxer = Demuxer.make();
+        List<Muxer> muxers = new ArrayList<>();
+        
+        try {
+            
+            this.input.open(demuxer, this.inputPath, true, null);
+            
+            DemuxerStream stream = MediaStreams.firstOfType(demuxer, MediaDescriptor.Type.MEDIA_AUDIO);
+            
+            if (Objects.isNull(stream)) {
+                
+                throw new IOException(
+                        String.format("Audio stream not found or couldn't be decoded in %s", this.inputPath));
+            }
+            
+            Decoder decoder = stream.getDecoder();
+            decoder.open(null, null);
+            
+            Fanout<MediaAudio> frames = Fanout.broadcast();
+            List<Pipeline.Runner> runners = new ArrayList<>();
+            
+            Pipeline<Pooled<MediaAudio>> decoded = Pipeline
+                    .from("demux", new DemuxSource(demuxer, stream.getIndex()).withRange(this.range))
+                    .withQueueCapacity(this.queueCapacity)
+                    .then("decode", DecodeStage.audio(decoder));
+            
+            if (!Objects.isNull(this.range)) {
+                
+                decoded = decoded.then("trim", new TrimStage<MediaAudio>(this.range));
+            }
+            
+            runners.add(decoded.to("fanout", frames));
+            
+            for (int i = 0; i < this.presets.size(); i++) {
+                
+                EncoderPreset preset = this.presets.get(i);
+                String name = preset.getName();
+                
+                Muxer muxer = Muxer.make(this.outputPaths.get(i), null, preset.getFormat());
+                muxers.add(muxer);
+                
+                Encoder encoder = preset.make(decoder, muxer.getFormat());
+                
+                muxer.addNewStream(encoder);
+                muxer.open(null, null);
+                
+                Pipeline<Pooled<MediaAudio>> rendition = Pipeline
+                        .from(name, frames.branch(0, this.queueCapacity))
+                        .withQueueCapacity(this.queueCapacity);
+                
+                if (!AudioTarget.of(encoder).equals(AudioTarget.of(decoder))) {
+                    
+                    rendition = rendition.then(name + "-resample", new ResampleStage(AudioTarget.of(encoder)));
+                }
+                
+                runners.add(rendition.then(name + "-encode", new EncodeStage<MediaAudio>(encoder))
+                        .to(name + "-mux", new MuxSink(muxer)));
+                
+                logger.info(String.format("Rendition %s of audio stream #%d (%s) of %s: %s (%s) into %s", name,
+                        stream.getIndex(), decoder.getCodec().getName(), this.inputPath,
+                        encoder.getCodec().getName(), AudioTarget.of(encoder), this.outputPaths.get(i)));
+            }
+            
+            Pipeline.runAll(runners.toArray(new Pipeline.Runner[runners.size()]));
+        } finally {
+            
+            // close resources
+            demuxer.close();
+            
+            for (Muxer muxer : muxers) {
+                
+                muxer.close();
+            }
+        }
+    }
+    
+    /**
+     * @param args
+     *            The input file, the output directory, and the names of the
+     *            presets to extract (opus-low, aac-128k and flac when none)
+     */
+    public static void main(String[] args) throws Exception {
+        
+        if (args.length < 2) {
+            
+            throw new Exception(
+                    String.format("Need the input file, the output directory and the presets among %s",
+                            EncoderPreset.names()));
+        }
+        
+        Path inputFile = Paths.get(args[0]);
+        Path outputDir = Files.createDirectories(Paths.get(args[1]));
+        
+        String fileName = inputFile.getFileName().toString();
+        String baseName = fileName.lastIndexOf('.') > 0 ? fileName.substring(0, fileName.lastIndexOf('.'))
+                : fileName;
+        
+        List<EncoderPreset> presets = new ArrayList<>(DEFAULT_PRESETS);
+        
+        if (args.length > 2) {
+            
+            presets.clear();
+            
+            for (int i = 2; i < args.length; i++) {
+                
+                presets.add(EncoderPreset.named(args[i]));
+            }
+        }
+        
+        RenditionExtractor extractor = new RenditionExtractor(inputFile.toString());
+        
+        for (EncoderPreset preset : presets) {
+            
+            extractor.withRendition(preset,
+                    outputDir.resolve(baseName + "." + preset.getExtension()).toString());
+        }
+        
+        extractor.extract();
+        
+        logger.info("Done!");
+    }
+}
@@ -0,0 +1,49 @@
+package cawcawcaw.pipeline;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: Sink.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 10:08:20 AM
+ */
+
+/**
+ * <p>
+ * The tail of a {@link Pipeline}, usually a {@link MuxSink}.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.Sink
+ *
+ */
+@FunctionalInterface
+public interface Sink<T> {
+    
+    /**
+     * Consumes a single item.
+     * 
+     * @param item
+     *            The item, owned by this sink from now on
+     * @throws Exception
+     *             When the sink fails, this aborts the whole pipeline
+     */
+    void accept(T item) throws Exception;
+    
+    /**
+     * Called once after the last item has been consumed, only when the whole
+     * pipeline succeeded.
+     */
+    default void finish() throws Exception {
+        
+    }
+    
+    /**
+     * Releases the resources held by this sink. Called once, on the sink's
+     * thread, whether the run succeeded or not.
+     */
+    default void close() throws Exception {
+        
+    }
+}
@@ -0,0 +1,43 @@
+package cawcawcaw.pipeline;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: Source.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 10:04:37 AM
+ */
+
+/**
+ * <p>
+ * The head of a {@link Pipeline}. A source produces items until it runs dry
+ * and then returns; the pipeline takes care of signalling the end of stream to
+ * the stages downstream.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.Source
+ *
+ */
+@FunctionalInterface
+public interface Source<T> {
+    
+    /**
+     * Produces all the items of this source.
+     * 
+     * @param output
+     *            The emitter to push items into
+     * @throws Exception
+     *             When the source fails, this aborts the whole pipeline
+     */
+    void run(Emitter<T> output) throws Exception;
+    
+    /**
+     * Releases the resources held by this source. Called once, on the source's
+     * thread, whether the run succeeded or not.
+     */
+    default void close() throws Exception {
+        
+    }
+}
@@ -0,0 +1,60 @@
+package cawcawcaw.pipeline;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: Stage.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 10:06:51 AM
+ */
+
+/**
+ * <p>
+ * An intermediate step of a {@link Pipeline} -- decoding, transforming,
+ * encoding etc. A stage may emit zero or more outputs for each input it is
+ * given.
+ * 
+ * <p>
+ * Each stage runs on its own thread, so a stage is free to keep unsynchronized
+ * state (like a {@link io.humble.video.Decoder}).
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.Stage
+ *
+ */
+@FunctionalInterface
+public interface Stage<I, O> {
+    
+    /**
+     * Processes a single input.
+     * 
+     * @param input
+     *            The input, owned by this stage from now on
+     * @param output
+     *            The emitter to push outputs into
+     * @throws Exception
+     *             When the stage fails, this aborts the whole pipeline
+     */
+    void process(I input, Emitter<O> output) throws Exception;
+    
+    /**
+     * Called once after the last input has been processed. Stages that cache
+     * data (decoders and encoders do) must drain it here.
+     * 
+     * @param output
+     *            The emitter to push outputs into
+     */
+    default void flush(Emitter<O> output) throws Exception {
+        
+    }
+    
+    /**
+     * Releases the resources held by this stage. Called once, on the stage's
+     * thread, whether the run succeeded or not.
+     */
+    default void close() throws Exception {
+        
+    }
+}
@@ -0,0 +1,148 @@
+package cawcawcaw.pipeline;
+
+import java.util.concurrent.TimeUnit;
+
+import io.humble.video.Global;
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: TimeRange.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 9:14:37 AM
+ */
+
+/**
+ * <p>
+ * A window of media time, start inclusive and end exclusive, in microseconds
+ * like FFmpeg's own timestamps (see {@link Global#DEFAULT_PTS_PER_SECOND}).
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.TimeRange
+ *
+ */
+public final class TimeRange {
+    
+    private final long startMicros;
+    
+    private final long endMicros;
+    
+    private TimeRange(long startMicros, long endMicros) {
+        
+        if (startMicros < 0 || endMicros <= startMicros) {
+            
+            throw new IllegalArgumentException(
+                    String.format("Invalid time range [%d, %d) microseconds", startMicros, endMicros));
+        }
+        
+        this.startMicros = startMicros;
+        this.endMicros = endMicros;
+    }
+    
+    /**
+     * @param start
+     *            The start, inclusive
+     * @param end
+     *            The end, exclusive
+     * @param unit
+     *            The unit of start and end
+     * @return The range
+     */
+    public static TimeRange of(long start, long end, TimeUnit unit) {
+        
+        return new TimeRange(unit.toMicros(start), unit.toMicros(end));
+    }
+    
+    /**
+     * @param start
+     *            The start, inclusive
+     * @param unit
+     *            The unit of start
+     * @return The range from start to the end of the media
+     */
+    public static TimeRange from(long start, TimeUnit unit) {
+        
+        return new TimeRange(unit.toMicros(start), Long.MAX_VALUE);
+    }
+    
+    /**
+     * @return The start in microseconds, inclusive
+     */
+    public long getStartMicros() {
+        
+        return this.startMicros;
+    }
+    
+    /**
+     * @return The end in microseconds, exclusive, {@link Long#MAX_VALUE} when
+     *         the range runs to the end of the media
+     */
+    public long getEndMicros() {
+        
+        return this.endMicros;
+    }
+    
+    /**
+     * @param micros
+     *            A time in microseconds
+     * @return True when the time is before the start
+     */
+    public boolean isBefore(long micros) {
+        
+        return micros < this.startMicros;
+    }
+    
+    /**
+     * @param micros
+     *            A time in microseconds
+     * @return True when the time is at or after the end
+     */
+    public boolean isAfter(long micros) {
+        
+        return micros >= this.endMicros;
+    }
+    
+    /**
+     * @param micros
+     *            A time in microseconds
+     * @return True when the time is in the range
+     */
+    public boolean contains(long micros) {
+        
+        return !isBefore(micros) && !isAfter(micros);
+    }
+    
+    /**
+     * @param timestamp
+     *            A timestamp, not {@link Global#NO_PTS}
+     * @param timeBase
+     *            The time base of the timestamp
+     * @return The timestamp in microseconds
+     */
+    public static long toMicros(long timestamp, Rational timeBase) {
+        
+        return Math.round(timestamp * 1e6 * timeBase.getNumerator() / timeBase.getDenominator());
+    }
+    
+    /**
+     * @param micros
+     *            A time in microseconds
+     * @param timeBase
+     *            The time base wanted
+     * @return The time in ticks of the time base
+     */
+    public static long toTicks(long micros, Rational timeBase) {
+        
+        return Math.round(micros / 1e6 * timeBase.getDenominator() / timeBase.getNumerator());
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("[%.3fs, %s)", this.startMicros / 1e6,
+                this.endMicros == Long.MAX_VALUE ? "end" : String.format("%.3fs", this.endMicros / 1e6));
+    }
+}
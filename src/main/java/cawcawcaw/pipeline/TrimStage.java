@@ -0,0 +1,88 @@
+package cawcawcaw.pipeline;
+
+import cawcawcaw.pool.Pooled;
+import io.humble.video.Global;
+import io.humble.video.MediaSampled;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: TrimStage.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 9:40:52 AM
+ */
+
+/**
+ * <p>
+ * Drops the decoded frames outside of a {@link TimeRange}. Decoding has to
+ * start at the keyframe before the start of the range (see
+ * {@link DemuxSource#withRange(TimeRange)}), this gets rid of the frames
+ * decoded only to get there.
+ * 
+ * <p>
+ * A frame is kept when it starts in the range, so the cut is exact for
+ * pictures and to the audio frame (20 to 30ms for most codecs) for samples.
+ * The timestamps of the kept frames are shifted so that the start of the
+ * range is 0, the encoders downstream then write a clip starting at 0.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.TrimStage
+ *
+ */
+public class TrimStage<T extends MediaSampled> implements Stage<Pooled<T>, Pooled<T>> {
+    
+    private final TimeRange range;
+    
+    private boolean rebase = true;
+    
+    /**
+     * @param range
+     *            The frames to keep
+     */
+    public TrimStage(TimeRange range) {
+        
+        this.range = range;
+    }
+    
+    /**
+     * @param rebase
+     *            Whether to shift the timestamps so that the range starts at
+     *            0, true by default
+     * @return this
+     */
+    public TrimStage<T> withRebase(boolean rebase) {
+        
+        this.rebase = rebase;
+        
+        return this;
+    }
+    
+    @Override
+    public void process(Pooled<T> input, Emitter<Pooled<T>> output) throws Exception {
+        
+        T frame = input.get();
+        
+        // frames without a timestamp can't be placed, they go with the flow
+        if (frame.getTimeStamp() != Global.NO_PTS) {
+            
+            long micros = TimeRange.toMicros(frame.getTimeStamp(), frame.getTimeBase());
+            
+            if (!this.range.contains(micros)) {
+                
+                input.release();
+                
+                return;
+            }
+            
+            if (this.rebase) {
+                
+                frame.setTimeStamp(frame.getTimeStamp()
+                        - TimeRange.toTicks(this.range.getStartMicros(), frame.getTimeBase()));
+            }
+        }
+        
+        output.emit(input);
+    }
+}
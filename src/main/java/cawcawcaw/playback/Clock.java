@@ -0,0 +1,69 @@
+package cawcawcaw.playback;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.playback
+ * File: Clock.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 4:12:26 PM
+ */
+
+/**
+ * <p>
+ * Decides when a decoded frame is due. Players want the frames at the speed
+ * of the media, batch analysis on a server wants them as fast as the CPU can
+ * decode.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.playback.Clock
+ *
+ */
+@FunctionalInterface
+public interface Clock {
+    
+    /**
+     * Never waits.
+     */
+    Clock UNLIMITED = micros -> {
+        
+    };
+    
+    /**
+     * Blocks until the frame at a media time is due.
+     * 
+     * @param micros
+     *            The media time of the frame, in microseconds
+     * @throws InterruptedException
+     *             When interrupted while waiting
+     */
+    void await(long micros) throws InterruptedException;
+    
+    /**
+     * @return A clock that never waits, to decode as fast as possible
+     */
+    static Clock unlimited() {
+        
+        return UNLIMITED;
+    }
+    
+    /**
+     * @return A clock running at the speed of the media, for playback
+     */
+    static Clock realTime() {
+        
+        return speed(1);
+    }
+    
+    /**
+     * @param factor
+     *            How much faster than the media the clock runs, 2 for twice
+     *            as fast
+     * @return A clock running at a multiple of the speed of the media
+     */
+    static Clock speed(double factor) {
+        
+        return new ScaledClock(factor, System::nanoTime);
+    }
+}
@@ -0,0 +1,240 @@
+package cawcawcaw.playback;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.io.MediaInput;
+import cawcawcaw.pipeline.DecodeStage;
+import cawcawcaw.pipeline.DemuxSource;
+import cawcawcaw.pipeline.MediaStreams;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.pipeline.PipelineException;
+import cawcawcaw.pipeline.Sink;
+import cawcawcaw.pipeline.TimeRange;
+import cawcawcaw.pipeline.TrimStage;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.MediaPicture;
+import io.humble.video.MediaSampled;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.playback
+ * File: DecodeDriver.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 5:20:44 PM
+ */
+
+/**
+ * <p>
+ * Decodes the first video (or audio) stream of a file into a {@link Sink},
+ * paced by a {@link Clock}. The decode loop of <code>LibraryTest</code>
+ * without the Swing window and the busy waiting: the same driver plays a file
+ * in real time into an {@link ImageFrameSink}, or feeds an analysis sink as
+ * fast as the CPU allows on a headless server.
+ * 
+ * <pre>
+ * new DecodeDriver("movie.mkv").withClock(Clock.unlimited()).video(sceneDetector);
+ * </pre>
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.playback.DecodeDriver
+ *
+ */
+public class DecodeDriver {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(DecodeDriver.class);
+    // # Logging stuff
+    
+    private final String inputPath;
+    
+    private Clock clock = Clock.unlimited();
+    
+    private TimeRange range = null;
+    
+    private MediaInput input = MediaInput.path();
+    
+    private int queueCapacity = Pipeline.DEFAULT_QUEUE_CAPACITY;
+    
+    /**
+     * @param inputPath
+     *            The media file to decode
+     */
+    public DecodeDriver(String inputPath) {
+        
+        this.inputPath = inputPath;
+    }
+    
+    /**
+     * @param clock
+     *            When the frames are due, {@link Clock#unlimited()} by default
+     * @return this
+     */
+    public DecodeDriver withClock(Clock clock) {
+        
+        this.clock = clock;
+        
+        return this;
+    }
+    
+    /**
+     * @param range
+     *            The part of the file to decode, null for all of it
+     * @return this
+     */
+    public DecodeDriver withRange(TimeRange range) {
+        
+        this.range = range;
+        
+        return this;
+    }
+    
+    /**
+     * @param input
+     *            How the file is read, see {@link MediaInput}
+     * @return this
+     */
+    public DecodeDriver withInput(MediaInput input) {
+        
+        this.input = input;
+        
+        return this;
+    }
+    
+    /**
+     * @param queueCapacity
+     *            The number of packets or frames buffered between 2 stages
+     * @return this
+     */
+    public DecodeDriver withQueueCapacity(int queueCapacity) {
+        
+        this.queueCapacity = queueCapacity;
+        
+        return this;
+    }
+    
+    /**
+     * Decodes the first video stream, blocking until the sink got every
+     * picture.
+     * 
+     * @param sink
+     *            Where the pictures go, it releases them
+     * @throws IOException
+     *             When the file can't be read or has no video stream
+     * @throws PipelineException
+     *             When decoding or the sink failed
+     */
+    public void video(Sink<Pooled<MediaPicture>> sink) throws IOException, InterruptedException, PipelineException {
+        
+        run(MediaDescriptor.Type.MEDIA_VIDEO, DecodeStage::video, sink);
+    }
+    
+    /**
+     * Decodes the first audio stream, blocking until the sink got every
+     * frame.
+     * 
+     * @param sink
+     *            Where the samples go, it releases them
+     * @throws IOException
+     *             When the file can't be read or has no audio stream
+     * @throws PipelineException
+     *             When decoding or the sink failed
+     */
+    public void audio(Sink<Pooled<MediaAudio>> sink) throws IOException, InterruptedException, PipelineException {
+        
+        run(MediaDescriptor.Type.MEDIA_AUDIO, DecodeStage::audio, sink);
+    }
+    
+    private <T extends MediaSampled> void run(MediaDescriptor.Type type, Function<Decoder, DecodeStage<T>> decoding,
+            Sink<Pooled<T>> sink) throws IOException, InterruptedException, PipelineException {
+        
+        Demuxer demuxer = Demuxer.make();
+        
+        try {
+            
+            this.input.open(demuxer, this.inputPath, true, null);
+            
+            DemuxerStream stream = MediaStreams.firstOfType(demuxer, type);
+            
+            if (Objects.isNull(stream)) {
+                
+                throw new IOException(String.format("No %s stream found in %s", type, this.inputPath));
+            }
+            
+            Decoder decoder = stream.getDecoder();
+            decoder.open(null, null);
+            
+            logger.info(String.format("Decoding stream #%d (%s) of %s at %s", stream.getIndex(),
+                    decoder.getCodec().getName(), this.inputPath,
+                    this.clock == Clock.UNLIMITED ? "full speed" : this.clock));
+            
+            Pipeline<Pooled<T>> frames = Pipeline
+                    .from("demux", new DemuxSource(demuxer, stream.getIndex()).withRange(this.range))
+                    .withQueueCapacity(this.queueCapacity)
+                    .then("decode", decoding.apply(decoder));
+            
+            if (!Objects.isNull(this.range)) {
+                
+                frames = frames.then("trim", new TrimStage<T>(this.range));
+            }
+            
+            // an unlimited clock never waits, no need for a thread to run it
+            if (this.clock != Clock.UNLIMITED) {
+                
+                frames = frames.then("pace", new PaceStage<T>(this.clock));
+            }
+            
+            frames.to("sink", sink).run();
+        } finally {
+            
+            // close resources
+            demuxer.close();
+        }
+    }
+    
+    /**
+     * Decodes the video of a file headless and logs the frames per second
+     * reached.
+     * 
+     * @param args
+     *            The media file, and optionally the speed: "max" (default),
+     *            "realtime" or a factor like "4"
+     */
+    public static void main(String[] args) throws Exception {
+        
+        if (args.length < 1) {
+            
+            throw new Exception("Need the file to decode");
+        }
+        
+        String speed = args.length > 1 ? args[1] : "max";
+        Clock clock = "max".equals(speed) ? Clock.unlimited()
+                : "realtime".equals(speed) ? Clock.realTime() : Clock.speed(Double.parseDouble(speed));
+        
+        AtomicLong pictures = new AtomicLong();
+        long start = System.nanoTime();
+        
+        new DecodeDriver(args[0]).withClock(clock).video(picture -> {
+            
+            pictures.incrementAndGet();
+            picture.release();
+        });
+        
+        double seconds = (System.nanoTime() - start) / 1e9;
+        
+        logger.info(String.format("Decoded %d pictures in %.2f s, %.1f fps", pictures.get(), seconds,
+                pictures.get() / seconds));
+    }
+}
@@ -0,0 +1,81 @@
+package cawcawcaw.playback;
+
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+import cawcawcaw.picture.PictureConverter;
+import cawcawcaw.pipeline.Sink;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.MediaPicture;
+import io.humble.video.awt.ImageFrame;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.playback
+ * File: ImageFrameSink.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 4:51:37 PM
+ */
+
+/**
+ * <p>
+ * Shows the pictures in a Swing {@link ImageFrame}, the way
+ * <code>LibraryTest</code> plays a video. Needs a display, use any other
+ * {@link Sink} on headless servers.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.playback.ImageFrameSink
+ *
+ */
+public class ImageFrameSink implements Sink<Pooled<MediaPicture>> {
+    
+    private final ImageFrame window;
+    
+    private PictureConverter converter = null;
+    
+    private BufferedImage image = null;
+    
+    /**
+     * Opens the window, blocking until it is displayed.
+     * 
+     * @throws IllegalStateException
+     *             On headless machines
+     */
+    public ImageFrameSink() {
+        
+        this.window = ImageFrame.make();
+        
+        if (Objects.isNull(this.window)) {
+            
+            throw new IllegalStateException("No display to show the pictures on, this machine is headless");
+        }
+    }
+    
+    @Override
+    public void accept(Pooled<MediaPicture> picture) throws Exception {
+        
+        try {
+            
+            if (Objects.isNull(this.converter)) {
+                
+                this.converter = PictureConverter.bgr(picture.get().getWidth(), picture.get().getHeight());
+            }
+            
+            this.image = this.converter.toImage(picture.get(), this.image);
+        } finally {
+            
+            picture.release();
+        }
+        
+        // And ask the UI thread to repaint with the new image.
+        this.window.setImage(this.image);
+    }
+    
+    @Override
+    public void close() {
+        
+        this.window.dispose();
+    }
+}
@@ -0,0 +1,62 @@
+package cawcawcaw.playback;
+
+import cawcawcaw.pipeline.Emitter;
+import cawcawcaw.pipeline.Stage;
+import cawcawcaw.pipeline.TimeRange;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.Global;
+import io.humble.video.MediaSampled;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.playback
+ * File: PaceStage.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 4:38:02 PM
+ */
+
+/**
+ * <p>
+ * Holds every decoded frame back until its {@link Clock} says it is due.
+ * Frames without a timestamp go right through.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.playback.PaceStage
+ *
+ */
+public class PaceStage<T extends MediaSampled> implements Stage<Pooled<T>, Pooled<T>> {
+    
+    private final Clock clock;
+    
+    /**
+     * @param clock
+     *            When the frames are due
+     */
+    public PaceStage(Clock clock) {
+        
+        this.clock = clock;
+    }
+    
+    @Override
+    public void process(Pooled<T> input, Emitter<Pooled<T>> output) throws Exception {
+        
+        T frame = input.get();
+        
+        if (frame.getTimeStamp() != Global.NO_PTS) {
+            
+            try {
+                
+                this.clock.await(TimeRange.toMicros(frame.getTimeStamp(), frame.getTimeBase()));
+            } catch (InterruptedException e) {
+                
+                input.release();
+                
+                throw e;
+            }
+        }
+        
+        output.emit(input);
+    }
+}
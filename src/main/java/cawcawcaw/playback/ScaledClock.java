@@ -0,0 +1,94 @@
+package cawcawcaw.playback;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.playback
+ * File: ScaledClock.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 4:25:50 PM
+ */
+
+/**
+ * <p>
+ * Runs at a multiple of the speed of the media. The first frame is due right
+ * away and sets the origin, every later frame is due when as much (scaled)
+ * wall time has passed as media time.
+ * 
+ * <p>
+ * The thread parks until the frame is due instead of polling with
+ * <code>Thread.sleep(1)</code> like <code>LibraryTest</code> used to. Frames
+ * that are already late are due right away, nothing is dropped.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.playback.ScaledClock
+ *
+ */
+final class ScaledClock implements Clock {
+    
+    private final double factor;
+    
+    private final LongSupplier nanoTime;
+    
+    private boolean started = false;
+    
+    private long originNanos;
+    
+    private long originMicros;
+    
+    /**
+     * @param factor
+     *            How much faster than the media the clock runs
+     * @param nanoTime
+     *            The wall clock
+     */
+    ScaledClock(double factor, LongSupplier nanoTime) {
+        
+        if (!(factor > 0) || Double.isInfinite(factor)) {
+            
+            throw new IllegalArgumentException(String.format("Clock speed must be positive, was %f", factor));
+        }
+        
+        this.factor = factor;
+        this.nanoTime = nanoTime;
+    }
+    
+    @Override
+    public void await(long micros) throws InterruptedException {
+        
+        long now = this.nanoTime.getAsLong();
+        
+        if (!this.started) {
+            
+            this.started = true;
+            this.originNanos = now;
+            this.originMicros = micros;
+            
+            return;
+        }
+        
+        long due = this.originNanos + (long) ((micros - this.originMicros) * 1000 / this.factor);
+        
+        while (due - now > 0) {
+            
+            LockSupport.parkNanos(due - now);
+            
+            if (Thread.interrupted()) {
+                
+                throw new InterruptedException();
+            }
+            
+            now = this.nanoTime.getAsLong();
+        }
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("%.2fx", this.factor);
+    }
+}
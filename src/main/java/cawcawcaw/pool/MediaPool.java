@@ -0,0 +1,365 @@
+package cawcawcaw.pool;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import cawcawcaw.metrics.Metrics;
+import io.humble.video.AudioFormat;
+import io.humble.video.Coder;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaPacket;
+import io.humble.video.MediaPicture;
+import io.humble.video.PixelFormat;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pool
+ * File: MediaPool.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 1:46:02 PM
+ */
+
+/**
+ * <p>
+ * A bounded pool of Humble objects ({@link MediaPacket}, {@link MediaAudio},
+ * {@link MediaPicture}) handed out as reference counted {@link Pooled}
+ * handles.
+ * 
+ * <p>
+ * The single threaded decoding loops get away with reusing one packet and one
+ * frame, but as soon as work crosses threads every hand-off needs its own
+ * native object. The pool gives us that without allocating: objects are made
+ * lazily up to the capacity and then recycled forever, so the native heap stays
+ * flat no matter how long the file is.
+ * 
+ * <p>
+ * The pool is also the backpressure: {@link #acquire()} blocks while the
+ * capacity (or the byte budget) is used up, until a consumer releases
+ * something.
+ * 
+ * <p>
+ * Every pool reports its usage in the {@link Metrics} for as long as it's
+ * alive.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pool.MediaPool
+ *
+ */
+public final class MediaPool<T> {
+    
+    private final String name;
+    
+    private final int capacity;
+    
+    private final long maxBytes;
+    
+    private final Supplier<T> factory;
+    
+    private final ToLongFunction<T> sizer;
+    
+    private final Deque<Pooled<T>> free = new ArrayDeque<>();
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    private final Condition released = this.lock.newCondition();
+    
+    // # Guarded by lock
+    private int allocated = 0;
+    
+    private int inFlight = 0;
+    
+    private long inFlightBytes = 0;
+    
+    /**
+     * The size of the object made or recycled last, what a new object is
+     * expected to weigh.
+     */
+    private long typicalSize = 0;
+    // # Guarded by lock
+    
+    /**
+     * @param name
+     *            The name of the pool, for metrics and logs
+     * @param capacity
+     *            The max number of objects alive at any time
+     * @param maxBytes
+     *            The max estimated native bytes held by the objects in
+     *            flight, 0 for no byte limit
+     * @param factory
+     *            Makes a new object when the pool needs to grow
+     * @param sizer
+     *            Estimates the native size of an object in bytes
+     */
+    public MediaPool(String name, int capacity, long maxBytes, Supplier<T> factory, ToLongFunction<T> sizer) {
+        
+        if (capacity <= 0) {
+            
+            throw new IllegalArgumentException("Pool capacity must be positive, got " + capacity);
+        }
+        
+        this.name = name;
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        this.factory = factory;
+        this.sizer = sizer;
+        
+        Metrics.pool(this);
+    }
+    
+    /**
+     * @param name
+     *            The name of the pool
+     * @param capacity
+     *            The max number of packets alive at any time
+     * @param maxBytes
+     *            The max payload bytes held by the packets in flight, 0 for
+     *            no byte limit
+     * @return A pool of empty packets
+     */
+    public static MediaPool<MediaPacket> packets(String name, int capacity, long maxBytes) {
+        
+        return new MediaPool<>(name, capacity, maxBytes, MediaPacket::make, MediaPacket::getSize);
+    }
+    
+    /**
+     * @param name
+     *            The name of the pool
+     * @param capacity
+     *            The max number of frames alive at any time
+     * @param maxBytes
+     *            The max sample bytes held by the frames in flight, 0 for no
+     *            byte limit
+     * @param coder
+     *            The audio coder whose frame size, sample rate, channels and
+     *            sample format the frames must have
+     * @return A pool of audio frames
+     */
+    public static MediaPool<MediaAudio> audio(String name, int capacity, long maxBytes, Coder coder) {
+        
+        return new MediaPool<>(name, capacity, maxBytes,
+                () -> MediaAudio.make(coder.getFrameSize(), coder.getSampleRate(), coder.getChannels(),
+                        coder.getChannelLayout(), coder.getSampleFormat()),
+                audio -> AudioFormat.getBufferSizeNeeded(audio.getMaxNumSamples(), audio.getChannels(),
+                        audio.getFormat()));
+    }
+    
+    /**
+     * @param name
+     *            The name of the pool
+     * @param capacity
+     *            The max number of pictures alive at any time
+     * @param maxBytes
+     *            The max pixel bytes held by the pictures in flight, 0 for no
+     *            byte limit
+     * @param coder
+     *            The video coder whose dimensions and pixel format the
+     *            pictures must have
+     * @return A pool of video pictures
+     */
+    public static MediaPool<MediaPicture> pictures(String name, int capacity, long maxBytes, Coder coder) {
+        
+        return new MediaPool<>(name, capacity, maxBytes,
+                () -> MediaPicture.make(coder.getWidth(), coder.getHeight(), coder.getPixelFormat()),
+                picture -> PixelFormat.getBufferSizeNeeded(picture.getWidth(), picture.getHeight(),
+                        picture.getFormat()));
+    }
+    
+    /**
+     * Borrows an object, blocking while the pool is exhausted.
+     * 
+     * @return The handle, holding 1 reference
+     * @throws InterruptedException
+     *             When interrupted while waiting for an object
+     */
+    public Pooled<T> acquire() throws InterruptedException {
+        
+        Pooled<T> pooled;
+        
+        this.lock.lockInterruptibly();
+        
+        try {
+            
+            while (isExhausted()) {
+                
+                this.released.await();
+            }
+            
+            pooled = this.free.pollFirst();
+            
+            if (pooled == null) {
+                
+                // grow, the allocation itself happens outside the lock
+                this.allocated++;
+            } else {
+                
+                this.inFlightBytes += pooled.size;
+            }
+            
+            this.inFlight++;
+        } finally {
+            
+            this.lock.unlock();
+        }
+        
+        if (pooled == null) {
+            
+            try {
+                
+                pooled = new Pooled<>(this, this.factory.get());
+                sized(pooled);
+            } catch (RuntimeException e) {
+                
+                this.lock.lock();
+                
+                try {
+                    
+                    this.allocated--;
+                    this.inFlight--;
+                    this.released.signal();
+                } finally {
+                    
+                    this.lock.unlock();
+                }
+                
+                throw e;
+            }
+        }
+        
+        pooled.reset();
+        
+        return pooled;
+    }
+    
+    /**
+     * Counts a new object in the bytes in flight from the start, rather than
+     * from its first trip back to the pool.
+     */
+    private void sized(Pooled<T> pooled) {
+        
+        long size = this.sizer.applyAsLong(pooled.get());
+        
+        this.lock.lock();
+        
+        try {
+            
+            pooled.size = size;
+            this.inFlightBytes += size;
+            this.typicalSize = size;
+        } finally {
+            
+            this.lock.unlock();
+        }
+    }
+    
+    /**
+     * Takes an object back when its last reference is released.
+     */
+    void recycle(Pooled<T> pooled) {
+        
+        long size = this.sizer.applyAsLong(pooled.get());
+        
+        this.lock.lock();
+        
+        try {
+            
+            this.inFlight--;
+            this.inFlightBytes = Math.max(0, this.inFlightBytes - pooled.size);
+            pooled.size = size;
+            this.typicalSize = size;
+            
+            this.free.addFirst(pooled); // LIFO, the most recently used is the warmest
+            this.released.signal();
+        } finally {
+            
+            this.lock.unlock();
+        }
+    }
+    
+    /**
+     * The count limit always applies; the byte limit only once something is in
+     * flight, so that a single huge object can't wedge the pool. An object
+     * still to be made is expected to weigh as much as the last one seen.
+     */
+    private boolean isExhausted() {
+        
+        if (this.inFlight >= this.capacity) {
+            
+            return true;
+        }
+        
+        long next = this.free.isEmpty() ? this.typicalSize : this.free.peekFirst().size;
+        
+        return this.maxBytes > 0 && this.inFlight > 0 && this.inFlightBytes + next > this.maxBytes;
+    }
+    
+    /**
+     * @return The name of the pool
+     */
+    public String getName() {
+        
+        return this.name;
+    }
+    
+    /**
+     * @return The max number of objects alive at any time
+     */
+    public int getCapacity() {
+        
+        return this.capacity;
+    }
+    
+    /**
+     * @return The number of objects made so far, never more than the capacity
+     */
+    public int getAllocated() {
+        
+        this.lock.lock();
+        
+        try {
+            
+            return this.allocated;
+        } finally {
+            
+            this.lock.unlock();
+        }
+    }
+    
+    /**
+     * @return The number of objects currently borrowed
+     */
+    public int getInFlight() {
+        
+        this.lock.lock();
+        
+        try {
+            
+            return this.inFlight;
+        } finally {
+            
+            this.lock.unlock();
+        }
+    }
+    
+    /**
+     * @return The estimated native bytes held by the objects currently
+     *         borrowed
+     */
+    public long getInFlightBytes() {
+        
+        this.lock.lock();
+        
+        try {
+            
+            return this.inFlightBytes;
+        } finally {
+            
+            this.lock.unlock();
+        }
+    }
+}
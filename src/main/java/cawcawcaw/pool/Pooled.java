@@ -0,0 +1,121 @@
+package cawcawcaw.pool;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pool
+ * File: Pooled.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 1:12:40 PM
+ */
+
+/**
+ * <p>
+ * A reference counted handle on an object borrowed from a {@link MediaPool}.
+ * The handle starts with 1 reference when acquired; every holder that keeps
+ * it must {@link #retain()} it, and every holder must {@link #release()} it
+ * when done. The object goes back to the pool when the last reference is
+ * released.
+ * 
+ * <p>
+ * Once released, the object must not be touched anymore, it will be handed
+ * out to somebody else.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pool.Pooled
+ *
+ */
+public final class Pooled<T> {
+    
+    private final MediaPool<T> pool;
+    
+    private final T object;
+    
+    private final AtomicInteger refCount = new AtomicInteger();
+    
+    /**
+     * The estimated native size of the object in bytes, as measured when it
+     * was made and then every time it came back to the pool. Only touched
+     * under the pool's lock.
+     */
+    long size = 0;
+    
+    Pooled(MediaPool<T> pool, T object) {
+        
+        this.pool = pool;
+        this.object = object;
+    }
+    
+    /**
+     * @return The pooled object
+     */
+    public T get() {
+        
+        return this.object;
+    }
+    
+    /**
+     * Adds a reference, for handing the same object to several consumers.
+     * 
+     * @return this
+     */
+    public Pooled<T> retain() {
+        
+        int count;
+        
+        do {
+            
+            count = this.refCount.get();
+            
+            // never brings a released object back to life, the count stays 0
+            if (count <= 0) {
+                
+                throw new IllegalStateException("Retained an object that was already back in the pool");
+            }
+        } while (!this.refCount.compareAndSet(count, count + 1));
+        
+        return this;
+    }
+    
+    /**
+     * Drops a reference, the object goes back to the pool with the last one.
+     */
+    public void release() {
+        
+        int count;
+        
+        do {
+            
+            count = this.refCount.get();
+            
+            if (count <= 0) {
+                
+                throw new IllegalStateException("Released an object that was already back in the pool");
+            }
+        } while (!this.refCount.compareAndSet(count, count - 1));
+        
+        if (count == 1) {
+            
+            this.pool.recycle(this);
+        }
+    }
+    
+    /**
+     * @return The current number of references
+     */
+    public int refCount() {
+        
+        return this.refCount.get();
+    }
+    
+    /**
+     * Called by the pool when handing out the object.
+     */
+    void reset() {
+        
+        this.refCount.set(1);
+    }
+}
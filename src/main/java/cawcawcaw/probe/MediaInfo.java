@@ -0,0 +1,211 @@
+package cawcawcaw.probe;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import io.humble.video.Global;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.probe
+ * File: MediaInfo.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 7:34:02 PM
+ */
+
+/**
+ * <p>
+ * What a probe found out about a media file: the container's format,
+ * duration, bit rate and metadata, and its streams -- what Humble101 logs --
+ * along with the size and modification time of the file when probed.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.probe.MediaInfo
+ *
+ */
+public final class MediaInfo {
+    
+    private final String path;
+    
+    private final long size;
+    
+    private final long lastModified;
+    
+    private final String format;
+    
+    private final String formatLongName;
+    
+    private final long duration;
+    
+    private final long startTime;
+    
+    private final int bitRate;
+    
+    private final Map<String, String> metadata;
+    
+    private final List<StreamInfo> streams;
+    
+    /**
+     * @param path
+     *            The absolute path of the file
+     * @param size
+     *            The size of the file in bytes when probed
+     * @param lastModified
+     *            The modification time of the file when probed, in
+     *            milliseconds since the epoch
+     * @param format
+     *            The short name of the container format
+     * @param formatLongName
+     *            The long name of the container format
+     * @param duration
+     *            The duration in microseconds, {@link Global#NO_PTS} when
+     *            unknown
+     * @param startTime
+     *            The start time in microseconds, {@link Global#NO_PTS} when
+     *            unknown
+     * @param bitRate
+     *            The bit rate in bits per second
+     * @param metadata
+     *            The container's metadata
+     * @param streams
+     *            The streams, empty when not probed
+     */
+    public MediaInfo(String path, long size, long lastModified, String format, String formatLongName, long duration,
+            long startTime, int bitRate, Map<String, String> metadata, List<StreamInfo> streams) {
+        
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.format = format;
+        this.formatLongName = formatLongName;
+        this.duration = duration;
+        this.startTime = startTime;
+        this.bitRate = bitRate;
+        this.metadata = Collections.unmodifiableMap(metadata);
+        this.streams = Collections.unmodifiableList(streams);
+    }
+    
+    /**
+     * @return The absolute path of the file
+     */
+    public String getPath() {
+        
+        return this.path;
+    }
+    
+    /**
+     * @return The size of the file in bytes when probed
+     */
+    public long getSize() {
+        
+        return this.size;
+    }
+    
+    /**
+     * @return The modification time of the file when probed, in milliseconds
+     *         since the epoch
+     */
+    public long getLastModified() {
+        
+        return this.lastModified;
+    }
+    
+    /**
+     * @return The short name of the container format
+     */
+    public String getFormat() {
+        
+        return this.format;
+    }
+    
+    /**
+     * @return The long name of the container format
+     */
+    public String getFormatLongName() {
+        
+        return this.formatLongName;
+    }
+    
+    /**
+     * @return The duration in microseconds, {@link Global#NO_PTS} when unknown
+     */
+    public long getDuration() {
+        
+        return this.duration;
+    }
+    
+    /**
+     * @return The duration in seconds, 0 when unknown
+     */
+    public double getDurationSeconds() {
+        
+        return this.duration == Global.NO_PTS ? 0 : this.duration / 1e6;
+    }
+    
+    /**
+     * @return The start time in microseconds, {@link Global#NO_PTS} when
+     *         unknown
+     */
+    public long getStartTime() {
+        
+        return this.startTime;
+    }
+    
+    /**
+     * @return The bit rate in bits per second
+     */
+    public int getBitRate() {
+        
+        return this.bitRate;
+    }
+    
+    /**
+     * @return The container's metadata
+     */
+    public Map<String, String> getMetadata() {
+        
+        return this.metadata;
+    }
+    
+    /**
+     * @return The streams, empty when not probed
+     */
+    public List<StreamInfo> getStreams() {
+        
+        return this.streams;
+    }
+    
+    /**
+     * @param type
+     *            The name of a {@link io.humble.video.MediaDescriptor.Type}
+     * @return The first stream of the type, null if there is none
+     */
+    public StreamInfo firstOfType(String type) {
+        
+        return this.streams.stream().filter(stream -> Objects.equals(stream.getType(), type)).findFirst()
+                .orElse(null);
+    }
+    
+    /**
+     * @param size
+     *            The size of the file now
+     * @param lastModified
+     *            The modification time of the file now
+     * @return true when the file is the one that was probed
+     */
+    public boolean isCurrent(long size, long lastModified) {
+        
+        return this.size == size && this.lastModified == lastModified;
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("%s (%s): %.2fs, %d kb/s, %d streams", this.path, this.format, getDurationSeconds(),
+                this.bitRate / 1000, this.streams.size());
+    }
+}
@@ -0,0 +1,829 @@
+package cawcawcaw.probe;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.batch.BatchRunner;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.probe
+ * File: ProbeIndex.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 2:18:33 PM
+ */
+
+/**
+ * <p>
+ * A persistent index of {@link MediaInfo}, so that batch schedulers can pick
+ * streams and estimate work without opening thousands of containers. An entry
+ * is only good as long as the file has the size and modification time it had
+ * when probed, so re-probing a library only opens the files that changed. It
+ * also remembers the {@link Prober.Mode} it was probed in, and only answers
+ * lookups asking for as much or less: a {@link Prober.Mode#HEADER} entry is
+ * probed again for a {@link Prober.Mode#FULL} lookup.
+ * 
+ * <p>
+ * The index is a single file, memory mapped: a header, then records appended
+ * one after the other. A record is its length, a CRC32 and the serialized
+ * entry (or a tombstone), and the latest record of a path wins. Opening the
+ * index scans the records once into an in-memory map of path to record
+ * offset; lookups then read the record straight from the mapping. A torn
+ * record at the end, from a crash, fails its CRC and is dropped with what
+ * follows. The file is compacted when the dead records outnumber the live
+ * ones.
+ * 
+ * <p>
+ * One process at a time: a lock file next to the index, the index's name with
+ * ".lock", is locked while open, also while compacting swaps the index file.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.probe.ProbeIndex
+ *
+ */
+public final class ProbeIndex implements AutoCloseable {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(ProbeIndex.class);
+    // # Logging stuff
+    
+    /**
+     * "CAWIDX01"
+     */
+    private static final long MAGIC = 0x4341574944583031L;
+    
+    private static final int HEADER_BYTES = 16;
+    
+    /**
+     * The length and the CRC32 of a record.
+     */
+    private static final int RECORD_HEADER_BYTES = 8;
+    
+    /**
+     * An entry from before the probe modes were recorded, taken as
+     * {@link Prober.Mode#LAZY}.
+     */
+    private static final byte ENTRY = 1;
+    
+    private static final byte TOMBSTONE = 2;
+    
+    /**
+     * An entry followed by the ordinal of its probe mode.
+     */
+    private static final byte PROBED = 3;
+    
+    private static final int MIN_MAP_BYTES = 1 << 20;
+    
+    private final Path file;
+    
+    private Prober prober = new Prober();
+    
+    private FileChannel channel;
+    
+    private FileChannel lockChannel;
+    
+    private FileLock lock;
+    
+    private MappedByteBuffer map;
+    
+    /**
+     * Where the next record goes.
+     */
+    private int end;
+    
+    private final Map<String, Integer> offsets = new HashMap<>();
+    
+    private int deadRecords;
+    
+    /**
+     * Opens the index, making it if needed.
+     * 
+     * @param file
+     *            The index file
+     * @throws IOException
+     *             When the file can't be opened, is not an index, or is in use
+     *             by another process
+     */
+    public ProbeIndex(Path file) throws IOException {
+        
+        this.file = file;
+        
+        lock();
+        
+        try {
+            
+            open();
+        } catch (IOException e) {
+            
+            unlock();
+            
+            throw e;
+        }
+    }
+    
+    /**
+     * @param prober
+     *            The prober for the files not in the index
+     * @return this
+     */
+    public ProbeIndex withProber(Prober prober) {
+        
+        this.prober = prober;
+        
+        return this;
+    }
+    
+    /**
+     * @param path
+     *            The media file
+     * @return The entry of the file, null when it isn't in the index, has
+     *         changed since it was probed, or was probed in a weaker mode than
+     *         the prober's
+     * @throws IOException
+     *             When the file can't be read
+     */
+    public MediaInfo get(Path path) throws IOException {
+        
+        return get(path, this.prober.getMode());
+    }
+    
+    /**
+     * @param path
+     *            The media file
+     * @param mode
+     *            How much of the file the entry must have read
+     * @return The entry of the file, null when it isn't in the index, has
+     *         changed since it was probed, or was probed in a weaker mode
+     * @throws IOException
+     *             When the file can't be read
+     */
+    public MediaInfo get(Path path, Prober.Mode mode) throws IOException {
+        
+        Path absolute = path.toAbsolutePath();
+        BasicFileAttributes attributes;
+        
+        try {
+            
+            attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            
+            return null;
+        }
+        
+        MediaInfo info = stored(absolute.toString(), mode);
+        
+        return !Objects.isNull(info) && info.isCurrent(attributes.size(), attributes.lastModifiedTime().toMillis())
+                ? info : null;
+    }
+    
+    /**
+     * @param path
+     *            The media file
+     * @return The entry of the file, probed now if it isn't in the index or
+     *         has changed
+     * @throws IOException
+     *             When the file can't be read or probed
+     */
+    public MediaInfo probe(Path path) throws IOException, InterruptedException {
+        
+        MediaInfo info = get(path);
+        
+        if (Objects.isNull(info)) {
+            
+            info = this.prober.probe(path);
+            
+            put(info, this.prober.getMode());
+        }
+        
+        return info;
+    }
+    
+    /**
+     * Probes the files that are not in the index or have changed, in
+     * parallel. Files that fail to probe are logged and skipped.
+     * 
+     * @param paths
+     *            The media files
+     * @param workers
+     *            The number of files probed at once
+     * @return The number of files probed
+     * @throws IOException
+     *             When the index can't be written
+     */
+    public int refresh(List<Path> paths, int workers) throws IOException, InterruptedException {
+        
+        List<Path> stale = new ArrayList<>();
+        
+        for (Path path : paths) {
+            
+            if (Objects.isNull(get(path))) {
+                
+                stale.add(path);
+            }
+        }
+        
+        logger.info(String.format("%d of %d files to probe", stale.size(), paths.size()));
+        
+        if (stale.isEmpty()) {
+            
+            return 0;
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, stale.size())));
+        List<Future<MediaInfo>> probes = new ArrayList<>();
+        int probed = 0;
+        
+        try {
+            
+            stale.forEach(path -> probes.add(executor.submit(() -> this.prober.probe(path))));
+            
+            for (int i = 0; i < stale.size(); i++) {
+                
+                try {
+                    
+                    put(probes.get(i).get(), this.prober.getMode());
+                    probed++;
+                } catch (ExecutionException e) {
+                    
+                    logger.warn(String.format("Couldn't probe %s: %s", stale.get(i), e.getCause().getMessage()));
+                }
+            }
+        } finally {
+            
+            executor.shutdownNow();
+        }
+        
+        force();
+        
+        return probed;
+    }
+    
+    /**
+     * Stores an entry of a {@link Prober.Mode#FULL} probe, replacing the entry
+     * of the same path.
+     * 
+     * @param info
+     *            The entry
+     * @throws IOException
+     *             When the index can't be written
+     */
+    public void put(MediaInfo info) throws IOException {
+        
+        put(info, Prober.Mode.FULL);
+    }
+    
+    /**
+     * Stores an entry, replacing the entry of the same path.
+     * 
+     * @param info
+     *            The entry
+     * @param mode
+     *            The mode the entry was probed in
+     * @throws IOException
+     *             When the index can't be written
+     */
+    public synchronized void put(MediaInfo info, Prober.Mode mode) throws IOException {
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(bytes);
+        
+        out.writeByte(PROBED);
+        writeInfo(out, info);
+        out.writeByte(mode.ordinal());
+        
+        append(info.getPath(), bytes.toByteArray());
+    }
+    
+    /**
+     * @param path
+     *            The media file
+     * @return true when the file was in the index
+     * @throws IOException
+     *             When the index can't be written
+     */
+    public synchronized boolean remove(Path path) throws IOException {
+        
+        String key = path.toAbsolutePath().toString();
+        
+        if (!this.offsets.containsKey(key)) {
+            
+            return false;
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        
+        out.writeByte(TOMBSTONE);
+        writeString(out, key);
+        
+        append(key, bytes.toByteArray());
+        
+        return true;
+    }
+    
+    /**
+     * Removes the entries of files that don't exist anymore.
+     * 
+     * @return The number of entries removed
+     * @throws IOException
+     *             When the index can't be written
+     */
+    public synchronized int prune() throws IOException {
+        
+        int pruned = 0;
+        
+        for (String key : new ArrayList<>(this.offsets.keySet())) {
+            
+            Path path = Paths.get(key);
+            
+            if (!Files.exists(path) && remove(path)) {
+                
+                pruned++;
+            }
+        }
+        
+        return pruned;
+    }
+    
+    /**
+     * @return All the entries, current or not
+     * @throws IOException
+     *             When the index is corrupt
+     */
+    public synchronized List<MediaInfo> entries() throws IOException {
+        
+        List<MediaInfo> entries = new ArrayList<>(this.offsets.size());
+        
+        for (String key : this.offsets.keySet()) {
+            
+            entries.add(stored(key, Prober.Mode.LAZY));
+        }
+        
+        return entries;
+    }
+    
+    /**
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        
+        return this.offsets.size();
+    }
+    
+    /**
+     * Rewrites the index with only the live records.
+     * 
+     * @throws IOException
+     *             When the index can't be written
+     */
+    public synchronized void compact() throws IOException {
+        
+        Path compacted = Files.createTempFile(this.file.toAbsolutePath().getParent(),
+                this.file.getFileName().toString(), ".tmp");
+        
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.WRITE)) {
+            
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putLong(MAGIC);
+            
+            header.clear();
+            out.write(header);
+            
+            for (int offset : this.offsets.values()) {
+                
+                ByteBuffer record = this.map.duplicate();
+                
+                record.limit(offset + RECORD_HEADER_BYTES + this.map.getInt(offset)).position(offset);
+                out.write(record);
+            }
+            
+            out.force(true);
+        }
+        
+        int live = this.offsets.size();
+        
+        // the lock file stays locked, nobody can open the index in between
+        this.map.force();
+        this.channel.close();
+        
+        Files.move(compacted, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        open();
+        
+        logger.info(String.format("Compacted %s to %d entries, %d bytes", this.file, live, this.end));
+    }
+    
+    /**
+     * Writes the index to disk.
+     */
+    public synchronized void force() {
+        
+        this.map.force();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        
+        this.map.force();
+        this.offsets.clear();
+        
+        try {
+            
+            this.channel.close();
+        } finally {
+            
+            // close resources
+            unlock();
+        }
+    }
+    
+    private void lock() throws IOException {
+        
+        Path lockFile = this.file.resolveSibling(this.file.getFileName() + ".lock");
+        
+        this.lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        
+        try {
+            
+            this.lock = this.lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            
+            this.lock = null;
+        }
+        
+        if (Objects.isNull(this.lock)) {
+            
+            this.lockChannel.close();
+            
+            throw new IOException(String.format("%s is in use by another index", this.file));
+        }
+    }
+    
+    private void unlock() throws IOException {
+        
+        try {
+            
+            this.lock.release();
+        } finally {
+            
+            // close resources
+            this.lockChannel.close();
+        }
+    }
+    
+    private void open() throws IOException {
+        
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        
+        long size = this.channel.size();
+        
+        if (size > Integer.MAX_VALUE) {
+            
+            this.channel.close();
+            
+            throw new IOException(String.format("%s is too big for an index (%d bytes)", this.file, size));
+        }
+        
+        this.map = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, MIN_MAP_BYTES));
+        this.offsets.clear();
+        this.deadRecords = 0;
+        
+        if (size == 0) {
+            
+            this.map.putLong(0, MAGIC);
+            this.end = HEADER_BYTES;
+        } else if (this.map.getLong(0) != MAGIC) {
+            
+            this.channel.close();
+            
+            throw new IOException(String.format("%s is not a probe index", this.file));
+        } else {
+            
+            scan();
+        }
+    }
+    
+    /**
+     * Reads the records into the offsets, up to the first bad one.
+     */
+    private void scan() throws IOException {
+        
+        int offset = HEADER_BYTES;
+        
+        while (offset + RECORD_HEADER_BYTES <= this.map.capacity()) {
+            
+            int length = this.map.getInt(offset);
+            
+            if (length == 0) {
+                
+                break;
+            }
+            
+            byte[] body = body(offset);
+            
+            if (Objects.isNull(body)) {
+                
+                logger.warn(String.format("Dropped a torn record at %d of %s", offset, this.file));
+                
+                break;
+            }
+            
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+            byte kind = in.readByte();
+            String key = readString(in);
+            
+            if (kind != TOMBSTONE ? !Objects.isNull(this.offsets.put(key, offset))
+                    : !Objects.isNull(this.offsets.remove(key))) {
+                
+                this.deadRecords++;
+            }
+            
+            if (kind == TOMBSTONE) {
+                
+                this.deadRecords++;
+            }
+            
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        
+        this.end = offset;
+    }
+    
+    /**
+     * @return The body of the record at the offset, null if it's not a whole
+     *         record
+     */
+    private byte[] body(int offset) {
+        
+        int length = this.map.getInt(offset);
+        
+        if (length <= 0 || (long) offset + RECORD_HEADER_BYTES + length > this.map.capacity()) {
+            
+            return null;
+        }
+        
+        byte[] body = new byte[length];
+        ByteBuffer record = this.map.duplicate();
+        
+        record.position(offset + RECORD_HEADER_BYTES);
+        record.get(body);
+        
+        CRC32 crc = new CRC32();
+        
+        crc.update(body);
+        
+        return (int) crc.getValue() == this.map.getInt(offset + 4) ? body : null;
+    }
+    
+    /**
+     * @return The stored entry, null when there's none or it was probed in a
+     *         weaker mode than asked for
+     */
+    private synchronized MediaInfo stored(String key, Prober.Mode mode) throws IOException {
+        
+        Integer offset = this.offsets.get(key);
+        
+        if (Objects.isNull(offset)) {
+            
+            return null;
+        }
+        
+        byte[] body = body(offset);
+        
+        if (Objects.isNull(body)) {
+            
+            throw new IOException(String.format("Corrupt record at %d of %s", offset, this.file));
+        }
+        
+        Prober.Mode probed = body[0] == PROBED ? Prober.Mode.values()[body[body.length - 1]] : Prober.Mode.LAZY;
+        
+        // the modes go from reading the most to the least
+        if (probed.compareTo(mode) > 0) {
+            
+            return null;
+        }
+        
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        
+        in.readByte();
+        
+        return readInfo(in);
+    }
+    
+    private void append(String key, byte[] body) throws IOException {
+        
+        int size = RECORD_HEADER_BYTES + body.length;
+        
+        // room for the record and the 0 length after it, that ends the scan
+        if ((long) this.end + size + 4 > this.map.capacity()) {
+            
+            long capacity = Math.max(2L * this.map.capacity(), (long) this.end + size + 4);
+            
+            if (capacity > Integer.MAX_VALUE) {
+                
+                throw new IOException(String.format("%s is full", this.file));
+            }
+            
+            this.map.force();
+            this.map = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        
+        CRC32 crc = new CRC32();
+        ByteBuffer record = this.map.duplicate();
+        
+        crc.update(body);
+        record.position(this.end + RECORD_HEADER_BYTES);
+        record.put(body);
+        record.putInt(0);
+        this.map.putInt(this.end + 4, (int) crc.getValue());
+        this.map.putInt(this.end, body.length);
+        
+        boolean tombstone = body[0] == TOMBSTONE;
+        Integer replaced = tombstone ? this.offsets.remove(key) : this.offsets.put(key, this.end);
+        
+        this.deadRecords += (Objects.isNull(replaced) ? 0 : 1) + (tombstone ? 1 : 0);
+        this.end += size;
+        
+        if (this.deadRecords > 1024 && this.deadRecords > this.offsets.size()) {
+            
+            compact();
+        }
+    }
+    
+    private static void writeInfo(DataOutput out, MediaInfo info) throws IOException {
+        
+        writeString(out, info.getPath());
+        out.writeLong(info.getSize());
+        out.writeLong(info.getLastModified());
+        writeString(out, info.getFormat());
+        writeString(out, info.getFormatLongName());
+        out.writeLong(info.getDuration());
+        out.writeLong(info.getStartTime());
+        out.writeInt(info.getBitRate());
+        writeMap(out, info.getMetadata());
+        out.writeInt(info.getStreams().size());
+        
+        for (StreamInfo stream : info.getStreams()) {
+            
+            out.writeInt(stream.getIndex());
+            writeString(out, stream.getType());
+            writeString(out, stream.getCodec());
+            writeString(out, stream.getLanguage());
+            out.writeInt(stream.getTimeBaseNumerator());
+            out.writeInt(stream.getTimeBaseDenominator());
+            out.writeLong(stream.getDuration());
+            out.writeLong(stream.getNumFrames());
+            out.writeInt(stream.getSampleRate());
+            out.writeInt(stream.getChannels());
+            out.writeInt(stream.getWidth());
+            out.writeInt(stream.getHeight());
+            writeMap(out, stream.getMetadata());
+        }
+    }
+    
+    private static MediaInfo readInfo(DataInput in) throws IOException {
+        
+        String path = readString(in);
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        String format = readString(in);
+        String formatLongName = readString(in);
+        long duration = in.readLong();
+        long startTime = in.readLong();
+        int bitRate = in.readInt();
+        Map<String, String> metadata = readMap(in);
+        int count = in.readInt();
+        List<StreamInfo> streams = new ArrayList<>(count);
+        
+        for (int i = 0; i < count; i++) {
+            
+            streams.add(new StreamInfo(in.readInt(), readString(in), readString(in), readString(in), in.readInt(),
+                    in.readInt(), in.readLong(), in.readLong(), in.readInt(), in.readInt(), in.readInt(),
+                    in.readInt(), readMap(in)));
+        }
+        
+        return new MediaInfo(path, size, lastModified, format, formatLongName, duration, startTime, bitRate,
+                metadata, streams);
+    }
+    
+    private static void writeMap(DataOutput out, Map<String, String> map) throws IOException {
+        
+        out.writeInt(map.size());
+        
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+    
+    private static Map<String, String> readMap(DataInput in) throws IOException {
+        
+        int size = in.readInt();
+        Map<String, String> map = new LinkedHashMap<>();
+        
+        for (int i = 0; i < size; i++) {
+            
+            map.put(readString(in), readString(in));
+        }
+        
+        return map;
+    }
+    
+    /**
+     * Writes a string of any length, unlike {@link DataOutput#writeUTF}, or
+     * null.
+     */
+    private static void writeString(DataOutput out, String string) throws IOException {
+        
+        if (Objects.isNull(string)) {
+            
+            out.writeInt(-1);
+            
+            return;
+        }
+        
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInput in) throws IOException {
+        
+        int length = in.readInt();
+        
+        if (length < 0) {
+            
+            return null;
+        }
+        
+        byte[] bytes = new byte[length];
+        
+        in.readFully(bytes);
+        
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Brings an index up to date with a library.
+     * 
+     * @param args
+     *            The index file, the library directory or a manifest listing
+     *            the files, and optionally the number of files probed at once
+     */
+    public static void main(String[] args) throws Exception {
+        
+        if (args.length < 2) {
+            
+            throw new Exception("Need the index file and the library directory or manifest");
+        }
+        
+        List<Path> files = BatchRunner.listInputs(Paths.get(args[1]));
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        
+        try (ProbeIndex index = new ProbeIndex(Paths.get(args[0]))) {
+            
+            long start = System.nanoTime();
+            int probed = index.refresh(files, workers);
+            int pruned = index.prune();
+            
+            logger.info(String.format("Probed %d files, pruned %d, %d entries, in %d ms", probed, pruned,
+                    index.size(), (System.nanoTime() - start) / 1000000));
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package cawcawcaw.probe;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import cawcawcaw.io.MediaInput;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerFormat;
+import io.humble.video.DemuxerStream;
+import io.humble.video.KeyValueBag;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.probe
+ * File: Prober.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 2:11:05 PM
+ */
+
+/**
+ * <p>
+ * Opens a media file the way Humble101 does and collects what it finds into a
+ * {@link MediaInfo}. Thread safe, every probe opens its own demuxer.
+ * 
+ * <p>
+ * Finding out the details of the streams makes FFmpeg read ahead and decode a
+ * bit of every stream, up to the probe size and the analyze duration. That
+ * read ahead is most of the probe time, especially on network mounts, so it
+ * can be bounded or skipped, see {@link Mode}.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.probe.Prober
+ *
+ */
+public class Prober {
+    
+    /**
+     * <p>
+     * How much of the file a probe reads.
+     * 
+     * @author sidmishraw
+     *
+     *         Qualified Name: cawcawcaw.probe.Prober.Mode
+     *
+     */
+    public enum Mode {
+        
+        /**
+         * Reads ahead to find out everything about the streams, like Humble101.
+         */
+        FULL,
+        
+        /**
+         * Reads only the container's headers. The streams are what the headers
+         * say, which is plenty for Matroska and MP4, but formats without
+         * headers (MPEG-TS, raw streams) may show fewer streams or fewer
+         * details.
+         */
+        HEADER,
+        
+        /**
+         * Reads only the container's headers, and the streams only when asked
+         * for, see {@link Probe#getMediaInfo()}. {@link Prober#probe(Path)}
+         * returns no streams at all.
+         */
+        LAZY
+    }
+    
+    private Mode mode = Mode.FULL;
+    
+    private int probeSize = 0;
+    
+    private long analyzeDurationMicros = 0;
+    
+    private MediaInput input = MediaInput.path();
+    
+    /**
+     * @param mode
+     *            How much of the file to read, {@link Mode#FULL} by default
+     * @return this
+     */
+    public Prober withMode(Mode mode) {
+        
+        this.mode = mode;
+        
+        return this;
+    }
+    
+    /**
+     * @return How much of the file a probe reads
+     */
+    public Mode getMode() {
+        
+        return this.mode;
+    }
+    
+    /**
+     * @param bytes
+     *            The max bytes read ahead to find out about the streams, 0
+     *            for FFmpeg's default (5MB)
+     * @return this
+     */
+    public Prober withProbeSize(int bytes) {
+        
+        this.probeSize = bytes;
+        
+        return this;
+    }
+    
+    /**
+     * @param duration
+     *            The max media time read ahead to find out about the streams,
+     *            0 for FFmpeg's default (5 seconds)
+     * @param unit
+     *            The unit of the duration
+     * @return this
+     */
+    public Prober withAnalyzeDuration(long duration, TimeUnit unit) {
+        
+        this.analyzeDurationMicros = unit.toMicros(duration);
+        
+        return this;
+    }
+    
+    /**
+     * @param input
+     *            How the files are read, see {@link MediaInput}
+     * @return this
+     */
+    public Prober withInput(MediaInput input) {
+        
+        this.input = input;
+        
+        return this;
+    }
+    
+    /**
+     * @param path
+     *            The media file
+     * @return What the file holds, as far as the mode reads
+     * @throws IOException
+     *             When the file can't be opened as media
+     */
+    public MediaInfo probe(Path path) throws IOException, InterruptedException {
+        
+        try (Probe probe = open(path)) {
+            
+            return this.mode == Mode.LAZY ? probe.getContainer() : probe.getMediaInfo();
+        }
+    }
+    
+    /**
+     * Opens a media file, to look at the container first and maybe at the
+     * streams later.
+     * 
+     * @param path
+     *            The media file
+     * @return The opened probe, to be closed
+     * @throws IOException
+     *             When the file can't be opened as media
+     */
+    public Probe open(Path path) throws IOException, InterruptedException {
+        
+        Path absolute = path.toAbsolutePath();
+        BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+        KeyValueBag options = KeyValueBag.make();
+        
+        if (this.probeSize > 0) {
+            
+            options.setValue("probesize", Integer.toString(this.probeSize));
+        }
+        
+        if (this.analyzeDurationMicros > 0) {
+            
+            options.setValue("analyzeduration", Long.toString(this.analyzeDurationMicros));
+        }
+        
+        Demuxer demuxer = Demuxer.make();
+        
+        try {
+            
+            this.input.open(demuxer, absolute.toString(), this.mode == Mode.FULL, options);
+        } catch (IOException | RuntimeException e) {
+            
+            demuxer.close();
+            
+            throw e;
+        }
+        
+        return new Probe(absolute, attributes, demuxer, this.mode != Mode.LAZY);
+    }
+    
+    /**
+     * <p>
+     * An opened media file.
+     * 
+     * @author sidmishraw
+     *
+     *         Qualified Name: cawcawcaw.probe.Prober.Probe
+     *
+     */
+    public static final class Probe implements AutoCloseable {
+        
+        private final Path path;
+        
+        private final BasicFileAttributes attributes;
+        
+        private final Demuxer demuxer;
+        
+        private boolean analyzed;
+        
+        private Probe(Path path, BasicFileAttributes attributes, Demuxer demuxer, boolean analyzed) {
+            
+            this.path = path;
+            this.attributes = attributes;
+            this.demuxer = demuxer;
+            this.analyzed = analyzed;
+        }
+        
+        /**
+         * @return The container's format, duration, bit rate and metadata,
+         *         without streams
+         */
+        public MediaInfo getContainer() {
+            
+            return mediaInfo(Collections.emptyList());
+        }
+        
+        /**
+         * @return The container and its streams, reading ahead to find out
+         *         about the streams in {@link Mode#LAZY} mode
+         * @throws IOException
+         *             When the streams can't be read
+         */
+        public MediaInfo getMediaInfo() throws IOException, InterruptedException {
+            
+            if (!this.analyzed) {
+                
+                this.demuxer.queryStreamMetaData();
+                this.analyzed = true;
+            }
+            
+            List<StreamInfo> streams = new ArrayList<>();
+            
+            for (int i = 0; i < this.demuxer.getNumStreams(); i++) {
+                
+                streams.add(streamInfo(this.demuxer.getStream(i)));
+            }
+            
+            return mediaInfo(streams);
+        }
+        
+        private MediaInfo mediaInfo(List<StreamInfo> streams) {
+            
+            DemuxerFormat format = this.demuxer.getFormat();
+            
+            return new MediaInfo(this.path.toString(), this.attributes.size(),
+                    this.attributes.lastModifiedTime().toMillis(), format.getName(), format.getLongName(),
+                    this.demuxer.getDuration(), this.demuxer.getStartTime(), this.demuxer.getBitRate(),
+                    toMap(this.demuxer.getMetaData()), streams);
+        }
+        
+        /**
+         * Closes the file. An interrupt while closing is left on the thread
+         * for the caller to notice.
+         */
+        @Override
+        public void close() throws IOException {
+            
+            try {
+                
+                this.demuxer.close();
+            } catch (InterruptedException e) {
+                
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    static StreamInfo streamInfo(DemuxerStream stream) {
+        
+        Map<String, String> metadata = toMap(stream.getMetaData());
+        Decoder decoder = stream.getDecoder();
+        Rational timeBase = stream.getTimeBase();
+        String language = metadata.getOrDefault("language", "");
+        
+        if (Objects.isNull(decoder)) {
+            
+            return new StreamInfo(stream.getIndex(), MediaDescriptor.Type.MEDIA_UNKNOWN.name(), "unknown", language,
+                    timeBase.getNumerator(), timeBase.getDenominator(), stream.getDuration(),
+                    stream.getNumFrames(), 0, 0, 0, 0, metadata);
+        }
+        
+        MediaDescriptor.Type type = decoder.getCodecType();
+        boolean audio = type == MediaDescriptor.Type.MEDIA_AUDIO;
+        boolean video = type == MediaDescriptor.Type.MEDIA_VIDEO;
+        
+        return new StreamInfo(stream.getIndex(), type.name(),
+                Objects.isNull(decoder.getCodec()) ? decoder.getCodecID().name() : decoder.getCodec().getName(),
+                language, timeBase.getNumerator(), timeBase.getDenominator(), stream.getDuration(),
+                stream.getNumFrames(), audio ? decoder.getSampleRate() : 0, audio ? decoder.getChannels() : 0,
+                video ? decoder.getWidth() : 0, video ? decoder.getHeight() : 0, metadata);
+    }
+    
+    static Map<String, String> toMap(KeyValueBag bag) {
+        
+        Map<String, String> map = new LinkedHashMap<>();
+        
+        if (!Objects.isNull(bag)) {
+            
+            bag.getKeys().forEach(key -> map.put(key, bag.getValue(key)));
+        }
+        
+        return map;
+    }
+}
@@ -0,0 +1,225 @@
+package cawcawcaw.probe;
+
+import java.util.Collections;
+import java.util.Map;
+
+import io.humble.video.Global;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.probe
+ * File: StreamInfo.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 7:20:31 PM
+ */
+
+/**
+ * <p>
+ * What a probe found out about a stream of a media file. The audio fields are
+ * 0 for other streams, and so are the video fields.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.probe.StreamInfo
+ *
+ */
+public final class StreamInfo {
+    
+    private final int index;
+    
+    private final String type;
+    
+    private final String codec;
+    
+    private final String language;
+    
+    private final int timeBaseNumerator;
+    
+    private final int timeBaseDenominator;
+    
+    private final long duration;
+    
+    private final long numFrames;
+    
+    private final int sampleRate;
+    
+    private final int channels;
+    
+    private final int width;
+    
+    private final int height;
+    
+    private final Map<String, String> metadata;
+    
+    /**
+     * @param index
+     *            The index of the stream in the container
+     * @param type
+     *            The type of the stream, the name of a
+     *            {@link io.humble.video.MediaDescriptor.Type}
+     * @param codec
+     *            The name of the codec, "unknown" when it can't be decoded
+     * @param language
+     *            The language of the stream, empty when unknown
+     * @param timeBaseNumerator
+     *            The numerator of the stream's time base
+     * @param timeBaseDenominator
+     *            The denominator of the stream's time base
+     * @param duration
+     *            The duration in time base units, {@link Global#NO_PTS} when
+     *            unknown
+     * @param numFrames
+     *            The number of frames, 0 when unknown
+     * @param sampleRate
+     *            The audio sample rate
+     * @param channels
+     *            The number of audio channels
+     * @param width
+     *            The width of the video
+     * @param height
+     *            The height of the video
+     * @param metadata
+     *            The stream's metadata
+     */
+    public StreamInfo(int index, String type, String codec, String language, int timeBaseNumerator,
+            int timeBaseDenominator, long duration, long numFrames, int sampleRate, int channels, int width,
+            int height, Map<String, String> metadata) {
+        
+        this.index = index;
+        this.type = type;
+        this.codec = codec;
+        this.language = language;
+        this.timeBaseNumerator = timeBaseNumerator;
+        this.timeBaseDenominator = timeBaseDenominator;
+        this.duration = duration;
+        this.numFrames = numFrames;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.width = width;
+        this.height = height;
+        this.metadata = Collections.unmodifiableMap(metadata);
+    }
+    
+    /**
+     * @return The index of the stream in the container
+     */
+    public int getIndex() {
+        
+        return this.index;
+    }
+    
+    /**
+     * @return The type of the stream, the name of a
+     *         {@link io.humble.video.MediaDescriptor.Type}
+     */
+    public String getType() {
+        
+        return this.type;
+    }
+    
+    /**
+     * @return The name of the codec, "unknown" when it can't be decoded
+     */
+    public String getCodec() {
+        
+        return this.codec;
+    }
+    
+    /**
+     * @return The language of the stream, empty when unknown
+     */
+    public String getLanguage() {
+        
+        return this.language;
+    }
+    
+    /**
+     * @return The numerator of the stream's time base
+     */
+    public int getTimeBaseNumerator() {
+        
+        return this.timeBaseNumerator;
+    }
+    
+    /**
+     * @return The denominator of the stream's time base
+     */
+    public int getTimeBaseDenominator() {
+        
+        return this.timeBaseDenominator;
+    }
+    
+    /**
+     * @return The duration in time base units, {@link Global#NO_PTS} when
+     *         unknown
+     */
+    public long getDuration() {
+        
+        return this.duration;
+    }
+    
+    /**
+     * @return The duration in seconds, 0 when unknown
+     */
+    public double getDurationSeconds() {
+        
+        return this.duration == Global.NO_PTS || this.timeBaseDenominator == 0 ? 0
+                : (double) this.duration * this.timeBaseNumerator / this.timeBaseDenominator;
+    }
+    
+    /**
+     * @return The number of frames, 0 when unknown
+     */
+    public long getNumFrames() {
+        
+        return this.numFrames;
+    }
+    
+    /**
+     * @return The audio sample rate
+     */
+    public int getSampleRate() {
+        
+        return this.sampleRate;
+    }
+    
+    /**
+     * @return The number of audio channels
+     */
+    public int getChannels() {
+        
+        return this.channels;
+    }
+    
+    /**
+     * @return The width of the video
+     */
+    public int getWidth() {
+        
+        return this.width;
+    }
+    
+    /**
+     * @return The height of the video
+     */
+    public int getHeight() {
+        
+        return this.height;
+    }
+    
+    /**
+     * @return The stream's metadata
+     */
+    public Map<String, String> getMetadata() {
+        
+        return this.metadata;
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("Stream #%d (%s) %s %s", this.index, this.language.isEmpty() ? "und" : this.language,
+                this.type, this.codec);
+    }
+}
@@ -0,0 +1,267 @@
+package cawcawcaw.remux;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.io.MediaInput;
+import cawcawcaw.pipeline.DemuxSource;
+import cawcawcaw.pipeline.Interleaver;
+import cawcawcaw.pipeline.MediaStreams;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.pipeline.PipelineException;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.Muxer;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.remux
+ * File: Merger.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 5:52:09 PM
+ */
+
+/**
+ * <p>
+ * Merges streams of several media files into a new one without re-encoding
+ * anything: the original video, the translated audio, and subtitles if any.
+ * 
+ * <pre>
+ * new Merger("episode01.en.mkv")
+ *         .withStream("episode01.mkv", MediaDescriptor.Type.MEDIA_VIDEO)
+ *         .withStream("episode01.en.mp3", MediaDescriptor.Type.MEDIA_AUDIO)
+ *         .withStream("episode01.en.srt", MediaDescriptor.Type.MEDIA_SUBTITLE)
+ *         .merge();
+ * </pre>
+ * 
+ * <p>
+ * Every stream is read by its own pipeline, and the packets are interleaved
+ * by an {@link Interleaver}, so the merge runs at disk speed with bounded
+ * memory. The output format has to hold all the codecs as they are,
+ * Matroska holds nearly anything (MP4 wants its subtitles as mov_text).
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.remux.Merger
+ *
+ */
+public class Merger {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(Merger.class);
+    // # Logging stuff
+    
+    private final String outputPath;
+    
+    private String outputFormat = null;
+    
+    private int reorderCapacity = Pipeline.DEFAULT_QUEUE_CAPACITY;
+    
+    private MediaInput mediaInput = MediaInput.path();
+    
+    private final List<Input> inputs = new ArrayList<>();
+    
+    /**
+     * @param outputPath
+     *            The media file to write
+     */
+    public Merger(String outputPath) {
+        
+        this.outputPath = outputPath;
+    }
+    
+    /**
+     * @param outputFormat
+     *            The short name of the output container format, guessed from
+     *            the output path by default
+     * @return this
+     */
+    public Merger withOutputFormat(String outputFormat) {
+        
+        this.outputFormat = outputFormat;
+        
+        return this;
+    }
+    
+    /**
+     * @param reorderCapacity
+     *            The max number of packets held per stream while
+     *            interleaving, 64 by default
+     * @return this
+     */
+    public Merger withReorderCapacity(int reorderCapacity) {
+        
+        this.reorderCapacity = reorderCapacity;
+        
+        return this;
+    }
+    
+    /**
+     * @param input
+     *            How the input files are read, see {@link MediaInput}. Paths
+     *            are handed to FFmpeg by default.
+     * @return this
+     */
+    public Merger withInput(MediaInput input) {
+        
+        this.mediaInput = input;
+        
+        return this;
+    }
+    
+    /**
+     * Adds the first stream of a type in a media file, the streams are written
+     * in the order they are added.
+     * 
+     * @param inputPath
+     *            The media file to read
+     * @param type
+     *            The type of the stream
+     * @return this
+     */
+    public Merger withStream(String inputPath, MediaDescriptor.Type type) {
+        
+        this.inputs.add(new Input(inputPath, type, -1));
+        
+        return this;
+    }
+    
+    /**
+     * Adds a stream of a media file, the streams are written in the order they
+     * are added.
+     * 
+     * @param inputPath
+     *            The media file to read
+     * @param streamIndex
+     *            The index of the stream
+     * @return this
+     */
+    public Merger withStream(String inputPath, int streamIndex) {
+        
+        this.inputs.add(new Input(inputPath, null, streamIndex));
+        
+        return this;
+    }
+    
+    /**
+     * Runs the merge, blocking until the output file is complete.
+     * 
+     * @throws IOException
+     *             When an input can't be read or doesn't have the stream, or
+     *             the output can't be written
+     * @throws PipelineException
+     *             When the merge failed
+     */
+    public void merge() throws IOException, InterruptedException, PipelineException {
+        
+        if (this.inputs.isEmpty()) {
+            
+            throw new IllegalStateException("Nothing to merge, add streams first");
+        }
+        
+        List<Demuxer> demuxers = new ArrayList<>();
+        List<DemuxerStream> streams = new ArrayList<>();
+        Muxer muxer = Muxer.make(this.outputPath, null, this.outputFormat);
+        boolean opened = false;
+        
+        try {
+            
+            for (Input input : this.inputs) {
+                
+                Demuxer demuxer = Demuxer.make();
+                demuxers.add(demuxer);
+                
+                DemuxerStream stream = input.open(demuxer, this.mediaInput);
+                streams.add(stream);
+                
+                // the decoder is never fed, it only describes the stream to
+                // the muxer
+                Decoder decoder = stream.getDecoder();
+                decoder.open(null, null);
+                muxer.addNewStream(decoder);
+                
+                logger.info(String.format("Stream #%d (%s) of %s -> stream #%d of %s", stream.getIndex(),
+                        decoder.getCodec().getName(), input.path, streams.size() - 1, this.outputPath));
+            }
+            
+            muxer.open(null, null);
+            opened = true;
+            
+            Interleaver interleaver = new Interleaver(muxer).withCapacity(this.reorderCapacity);
+            Pipeline.Runner[] runners = new Pipeline.Runner[streams.size()];
+            
+            for (int i = 0; i < streams.size(); i++) {
+                
+                DemuxerStream stream = streams.get(i);
+                
+                runners[i] = Pipeline.from("demux-" + i, new DemuxSource(demuxers.get(i), stream.getIndex()))
+                        .then("remux-" + i, new RemuxStage(stream.getTimeBase(), muxer.getStream(i).getTimeBase(), i))
+                        .to("interleave-" + i, interleaver.input(muxer.getStream(i).getTimeBase()));
+            }
+            
+            Pipeline.runAll(runners);
+        } finally {
+            
+            // close resources
+            for (Demuxer demuxer : demuxers) {
+                
+                demuxer.close();
+            }
+            
+            if (opened) {
+                
+                muxer.close();
+            }
+        }
+    }
+    
+    /**
+     * A stream to merge.
+     */
+    private static final class Input {
+        
+        final String path;
+        
+        final MediaDescriptor.Type type;
+        
+        final int streamIndex;
+        
+        Input(String path, MediaDescriptor.Type type, int streamIndex) {
+            
+            this.path = path;
+            this.type = type;
+            this.streamIndex = streamIndex;
+        }
+        
+        DemuxerStream open(Demuxer demuxer, MediaInput mediaInput) throws InterruptedException, IOException {
+            
+            mediaInput.open(demuxer, this.path, true, null);
+            
+            DemuxerStream stream;
+            
+            if (Objects.isNull(this.type)) {
+                
+                stream = this.streamIndex < demuxer.getNumStreams() ? demuxer.getStream(this.streamIndex) : null;
+            } else {
+                
+                stream = MediaStreams.firstOfType(demuxer, this.type);
+            }
+            
+            if (Objects.isNull(stream) || Objects.isNull(stream.getDecoder())) {
+                
+                throw new IOException(String.format("No usable %s stream in %s",
+                        Objects.isNull(this.type) ? "#" + this.streamIndex : this.type, this.path));
+            }
+            
+            return stream;
+        }
+    }
+}
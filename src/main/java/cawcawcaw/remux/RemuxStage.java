@@ -0,0 +1,209 @@
+package cawcawcaw.remux;
+
+import java.nio.ByteBuffer;
+
+import cawcawcaw.pipeline.Emitter;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.pipeline.Stage;
+import cawcawcaw.pipeline.TimeRange;
+import cawcawcaw.pool.MediaPool;
+import cawcawcaw.pool.Pooled;
+import io.humble.ferry.Buffer;
+import io.humble.video.Global;
+import io.humble.video.MediaPacket;
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.remux
+ * File: RemuxStage.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 3:36:20 PM
+ */
+
+/**
+ * <p>
+ * Readies compressed packets of an input stream for an output stream without
+ * touching their payload: the timestamps are rescaled from the input stream's
+ * time base to the output stream's, and the packets are moved to the output
+ * stream's index.
+ * 
+ * <p>
+ * A packet shared with other consumers (several {@link cawcawcaw.pipeline.Fanout}
+ * branches on the same stream) is copied first, the others must keep seeing
+ * the packet as it was demuxed.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.remux.RemuxStage
+ *
+ */
+public class RemuxStage implements Stage<Pooled<MediaPacket>, Pooled<MediaPacket>> {
+    
+    private final Rational from;
+    
+    private final Rational to;
+    
+    private final int outputIndex;
+    
+    private long shift = 0;
+    
+    /**
+     * The copies of shared packets, only allocated if a packet is ever
+     * shared.
+     */
+    private final MediaPool<MediaPacket> copies = MediaPool.packets("remux", Pipeline.DEFAULT_POOL_CAPACITY,
+            Pipeline.DEFAULT_POOL_BYTES);
+    
+    /**
+     * @param from
+     *            The time base of the input stream
+     * @param to
+     *            The time base of the output stream, as set by the muxer once
+     *            opened
+     * @param outputIndex
+     *            The index of the stream in the output
+     */
+    public RemuxStage(Rational from, Rational to, int outputIndex) {
+        
+        this.from = from;
+        this.to = to;
+        this.outputIndex = outputIndex;
+    }
+    
+    /**
+     * Shifts the timestamps so that a clip starts at 0 in the output. Copied
+     * packets start at the keyframe before the start, so the first ones may
+     * end up with negative timestamps, which the muxer shifts back if the
+     * format can't hold them.
+     * 
+     * @param micros
+     *            The time of the input that becomes 0 in the output
+     * @return this
+     */
+    public RemuxStage withStartTime(long micros) {
+        
+        this.shift = TimeRange.toTicks(micros, this.from);
+        
+        return this;
+    }
+    
+    @Override
+    public void process(Pooled<MediaPacket> input, Emitter<Pooled<MediaPacket>> output) throws Exception {
+        
+        if (input.refCount() > 1) {
+            
+            // the only owner can't become shared, a shared one at worst gets
+            // copied when the others just let go of it
+            Pooled<MediaPacket> copy = this.copies.acquire();
+            
+            try {
+                
+                copy(input.get(), copy.get());
+            } catch (RuntimeException e) {
+                
+                copy.release();
+                
+                throw e;
+            } finally {
+                
+                input.release();
+            }
+            
+            input = copy;
+        }
+        
+        MediaPacket packet = input.get();
+        
+        if (this.shift != 0) {
+            
+            if (packet.getPts() != Global.NO_PTS) {
+                
+                packet.setPts(packet.getPts() - this.shift);
+            }
+            
+            if (packet.getDts() != Global.NO_PTS) {
+                
+                packet.setDts(packet.getDts() - this.shift);
+            }
+        }
+        
+        rescale(input.get(), this.from, this.to);
+        input.get().setStreamIndex(this.outputIndex);
+        
+        output.emit(input);
+    }
+    
+    /**
+     * Copies a packet, its payload and the timing and flags the muxer needs.
+     * 
+     * @param from
+     *            The packet to copy
+     * @param to
+     *            The packet to overwrite
+     */
+    public static void copy(MediaPacket from, MediaPacket to) {
+        
+        int size = from.getSize();
+        
+        to.reset(size);
+        
+        if (size > 0) {
+            
+            Buffer source = from.getData();
+            Buffer target = to.getData();
+            
+            try {
+                
+                ByteBuffer payload = source.getByteBuffer(0, size);
+                
+                target.getByteBuffer(0, size).put(payload);
+            } finally {
+                
+                source.delete();
+                target.delete();
+            }
+        }
+        
+        to.setPts(from.getPts());
+        to.setDts(from.getDts());
+        to.setDuration(from.getDuration());
+        to.setPosition(from.getPosition());
+        to.setStreamIndex(from.getStreamIndex());
+        to.setFlags(from.getFlags());
+        to.setKeyPacket(from.isKeyPacket());
+        to.setTimeBase(from.getTimeBase());
+    }
+    
+    /**
+     * Rescales the timestamps and duration of a packet in place.
+     * 
+     * @param packet
+     *            The packet
+     * @param from
+     *            The time base the packet is in
+     * @param to
+     *            The time base wanted
+     */
+    public static void rescale(MediaPacket packet, Rational from, Rational to) {
+        
+        if (packet.getPts() != Global.NO_PTS) {
+            
+            packet.setPts(to.rescale(packet.getPts(), from));
+        }
+        
+        if (packet.getDts() != Global.NO_PTS) {
+            
+            packet.setDts(to.rescale(packet.getDts(), from));
+        }
+        
+        if (packet.getDuration() > 0) {
+            
+            packet.setDuration(to.rescale(packet.getDuration(), from));
+        }
+        
+        packet.setPosition(-1); // the byte position in the input means nothing in the output
+        packet.setTimeBase(to);
+    }
+}
@@ -0,0 +1,235 @@
+package cawcawcaw.remux;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.io.MediaInput;
+import cawcawcaw.pipeline.DemuxSource;
+import cawcawcaw.pipeline.MediaStreams;
+import cawcawcaw.pipeline.MuxSink;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.pipeline.PipelineException;
+import cawcawcaw.pipeline.TimeRange;
+import io.humble.video.Codec;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.Muxer;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.remux
+ * File: StreamCopier.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 4:02:57 PM
+ */
+
+/**
+ * <p>
+ * Step 1 of the grand plan without any codec work: copies the compressed
+ * packets of one stream straight into a new container, only the timestamps are
+ * rescaled. No decoding and no encoding, so separating the audio of a file is
+ * bound by the disk rather than by the CPU.
+ * 
+ * <pre>
+ * new StreamCopier("episode01.mkv", "episode01.aac").copy(); // the first audio stream, as is
+ * </pre>
+ * 
+ * <p>
+ * When no output format is given, one that can hold the codec is picked (see
+ * {@link #formatFor(Codec.ID)}), whatever the extension of the output path.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.remux.StreamCopier
+ *
+ */
+public class StreamCopier {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(StreamCopier.class);
+    // # Logging stuff
+    
+    private final String inputPath;
+    
+    private final String outputPath;
+    
+    private String outputFormat = null;
+    
+    private MediaDescriptor.Type type = MediaDescriptor.Type.MEDIA_AUDIO;
+    
+    private MediaInput input = MediaInput.path();
+    
+    private TimeRange range = null;
+    
+    /**
+     * @param inputPath
+     *            The media file to read
+     * @param outputPath
+     *            The file to write the stream to
+     */
+    public StreamCopier(String inputPath, String outputPath) {
+        
+        this.inputPath = inputPath;
+        this.outputPath = outputPath;
+    }
+    
+    /**
+     * @param outputFormat
+     *            The short name of the output container format, it must be
+     *            able to hold the codec of the stream
+     * @return this
+     */
+    public StreamCopier withOutputFormat(String outputFormat) {
+        
+        this.outputFormat = outputFormat;
+        
+        return this;
+    }
+    
+    /**
+     * @param type
+     *            The type of the stream to copy, the first stream of that type
+     *            is copied. Audio by default.
+     * @return this
+     */
+    public StreamCopier withStreamType(MediaDescriptor.Type type) {
+        
+        this.type = type;
+        
+        return this;
+    }
+    
+    /**
+     * @param input
+     *            How the input files are read, see {@link MediaInput}. Paths
+     *            are handed to FFmpeg by default.
+     * @return this
+     */
+    public StreamCopier withInput(MediaInput input) {
+        
+        this.input = input;
+        
+        return this;
+    }
+    
+    /**
+     * @param range
+     *            The part of the input to copy, null for all of it. Packets
+     *            are copied as is, so the clip starts at the keyframe before
+     *            the start of the range.
+     * @return this
+     */
+    public StreamCopier withRange(TimeRange range) {
+        
+        this.range = range;
+        
+        return this;
+    }
+    
+    /**
+     * @param codecId
+     *            The codec of the stream
+     * @return The short name of a container format that can hold the codec as
+     *         is, Matroska when there is no better fit
+     */
+    public static String formatFor(Codec.ID codecId) {
+        
+        switch (codecId) {
+            
+            case CODEC_ID_MP3:
+                return "mp3";
+            
+            case CODEC_ID_AAC:
+                return "adts";
+            
+            case CODEC_ID_AC3:
+                return "ac3";
+            
+            case CODEC_ID_FLAC:
+                return "flac";
+            
+            case CODEC_ID_VORBIS:
+            case CODEC_ID_OPUS:
+                return "ogg";
+            
+            case CODEC_ID_SUBRIP:
+            case CODEC_ID_SRT:
+                return "srt";
+            
+            case CODEC_ID_ASS:
+            case CODEC_ID_SSA:
+                return "ass";
+            
+            default:
+                return "matroska";
+        }
+    }
+    
+    /**
+     * Runs the copy, blocking until the output file is complete.
+     * 
+     * @throws IOException
+     *             When the input can't be read or has no stream of the type,
+     *             or the output can't be written
+     * @throws PipelineException
+     *             When the copy failed
+     */
+    public void copy() throws IOException, InterruptedException, PipelineException {
+        
+        Demuxer demuxer = Demuxer.make();
+        Muxer muxer = null;
+        
+        try {
+            
+            this.input.open(demuxer, this.inputPath, true, null);
+            
+            DemuxerStream stream = MediaStreams.firstOfType(demuxer, this.type);
+            
+            if (Objects.isNull(stream)) {
+                
+                throw new IOException(String.format("No %s stream found in %s", this.type, this.inputPath));
+            }
+            
+            // the decoder is never fed, it only describes the stream to the
+            // muxer
+            Decoder decoder = stream.getDecoder();
+            decoder.open(null, null);
+            
+            String format = Objects.isNull(this.outputFormat) ? formatFor(decoder.getCodecID()) : this.outputFormat;
+            
+            logger.info(String.format("Copying stream #%d (%s) of %s into %s (%s)", stream.getIndex(),
+                    decoder.getCodec().getName(), this.inputPath, this.outputPath, format));
+            
+            muxer = Muxer.make(this.outputPath, null, format);
+            muxer.addNewStream(decoder);
+            muxer.open(null, null);
+            
+            RemuxStage remux = new RemuxStage(stream.getTimeBase(), muxer.getStream(0).getTimeBase(), 0);
+            
+            if (!Objects.isNull(this.range)) {
+                
+                remux.withStartTime(this.range.getStartMicros());
+            }
+            
+            Pipeline.from("demux", new DemuxSource(demuxer, stream.getIndex()).withRange(this.range))
+                    .then("remux", remux)
+                    .to("mux", new MuxSink(muxer))
+                    .run();
+        } finally {
+            
+            // close resources
+            demuxer.close();
+            
+            if (!Objects.isNull(muxer)) {
+                
+                muxer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package cawcawcaw.remux;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.audio.AudioTarget;
+import cawcawcaw.audio.ResampleStage;
+import cawcawcaw.io.MediaInput;
+import cawcawcaw.pipeline.AudioEncoders;
+import cawcawcaw.pipeline.DecodeStage;
+import cawcawcaw.pipeline.DemuxSource;
+import cawcawcaw.pipeline.EncodeStage;
+import cawcawcaw.pipeline.Fanout;
+import cawcawcaw.pipeline.MuxSink;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.pipeline.PipelineException;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.Codec;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.Encoder;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.MediaPacket;
+import io.humble.video.Muxer;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.remux
+ * File: StreamSplitter.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 5:48:30 PM
+ */
+
+/**
+ * <p>
+ * Splits a media file into several outputs in a single read of the container:
+ * every packet is routed by its stream index to the outputs that want it. An
+ * output either copies its stream as is (see {@link StreamCopier}) or
+ * transcodes it (audio only).
+ * 
+ * <pre>
+ * new StreamSplitter("episode01.mkv")
+ *         .copy(0, "episode01.video.mkv")
+ *         .copy(1, "episode01.jpn.aac")
+ *         .transcode(2, "episode01.eng.mp3", Codec.ID.CODEC_ID_MP3)
+ *         .copy(3, "episode01.eng.ass")
+ *         .split();
+ * </pre>
+ * 
+ * <p>
+ * The same stream can go to several outputs. The demuxed packets are shared
+ * by all the outputs, so the slowest output sets the pace; an output copying
+ * a stream someone else also reads retimes its own copy of each packet.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.remux.StreamSplitter
+ *
+ */
+public class StreamSplitter {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(StreamSplitter.class);
+    // # Logging stuff
+    
+    private final String inputPath;
+    
+    private final List<Output> outputs = new ArrayList<>();
+    
+    private MediaInput input = MediaInput.path();
+    
+    /**
+     * @param inputPath
+     *            The media file to read
+     */
+    public StreamSplitter(String inputPath) {
+        
+        this.inputPath = inputPath;
+    }
+    
+    /**
+     * @param input
+     *            How the input files are read, see {@link MediaInput}. Paths
+     *            are handed to FFmpeg by default.
+     * @return this
+     */
+    public StreamSplitter withInput(MediaInput input) {
+        
+        this.input = input;
+        
+        return this;
+    }
+    
+    /**
+     * Adds an output copying a stream as is, into a container format picked by
+     * {@link StreamCopier#formatFor(Codec.ID)}.
+     * 
+     * @param streamIndex
+     *            The index of the stream
+     * @param outputPath
+     *            The file to write the stream to
+     * @return this
+     */
+    public StreamSplitter copy(int streamIndex, String outputPath) {
+        
+        return copy(streamIndex, outputPath, null);
+    }
+    
+    /**
+     * Adds an output copying a stream as is.
+     * 
+     * @param streamIndex
+     *            The index of the stream
+     * @param outputPath
+     *            The file to write the stream to
+     * @param outputFormat
+     *            The short name of the output container format, null to pick
+     *            one that fits the codec
+     * @return this
+     */
+    public StreamSplitter copy(int streamIndex, String outputPath, String outputFormat) {
+        
+        this.outputs.add(new Output(streamIndex, outputPath, outputFormat, null));
+        
+        return this;
+    }
+    
+    /**
+     * Adds an output transcoding an audio stream, into a container format
+     * guessed from the output path.
+     * 
+     * @param streamIndex
+     *            The index of the audio stream
+     * @param outputPath
+     *            The file to write the stream to
+     * @param codecId
+     *            The codec to encode with
+     * @return this
+     */
+    public StreamSplitter transcode(int streamIndex, String outputPath, Codec.ID codecId) {
+        
+        return transcode(streamIndex, outputPath, null, codecId);
+    }
+    
+    /**
+     * Adds an output transcoding an audio stream.
+     * 
+     * @param streamIndex
+     *            The index of the audio stream
+     * @param outputPath
+     *            The file to write the stream to
+     * @param outputFormat
+     *            The short name of the output container format, null to
+     *            guess it from the output path
+     * @param codecId
+     *            The codec to encode with
+     * @return this
+     */
+    public StreamSplitter transcode(int streamIndex, String outputPath, String outputFormat, Codec.ID codecId) {
+        
+        this.outputs.add(new Output(streamIndex, outputPath, outputFormat, codecId));
+        
+        return this;
+    }
+    
+    /**
+     * Runs the split, blocking until all the outputs are complete.
+     * 
+     * @throws IOException
+     *             When the input can't be read, a stream doesn't exist or
+     *             can't be handled, or an output can't be written
+     * @throws PipelineException
+     *             When any of the outputs failed
+     */
+    public void split() throws IOException, InterruptedException, PipelineException {
+        
+        if (this.outputs.isEmpty()) {
+            
+            throw new IllegalStateException("Nothing to split, add outputs first");
+        }
+        
+        Demuxer demuxer = Demuxer.make();
+        List<Muxer> muxers = new ArrayList<>();
+        
+        try {
+            
+            this.input.open(demuxer, this.inputPath, true, null);
+            
+            Fanout<MediaPacket> streams = new Fanout<>(MediaPacket::getStreamIndex);
+            List<Pipeline.Runner> runners = new ArrayList<>();
+            int[] streamIndexes = new int[this.outputs.size()];
+            
+            for (int i = 0; i < this.outputs.size(); i++) {
+                
+                Output output = this.outputs.get(i);
+                Muxer muxer = output.open(demuxer);
+                muxers.add(muxer);
+                
+                runners.add(output.pipeline(demuxer, muxer, streams, i));
+                streamIndexes[i] = output.streamIndex;
+            }
+            
+            runners.add(0, Pipeline.from("demux", new DemuxSource(demuxer, streamIndexes)).to("route", streams));
+            
+            Pipeline.runAll(runners.toArray(new Pipeline.Runner[runners.size()]));
+        } finally {
+            
+            // close resources
+            demuxer.close();
+            muxers.forEach(Muxer::close);
+        }
+    }
+    
+    /**
+     * An output file holding a single stream of the input.
+     */
+    private static final class Output {
+        
+        final int streamIndex;
+        
+        final String path;
+        
+        final String format;
+        
+        /**
+         * null to copy the stream as is.
+         */
+        final Codec.ID codecId;
+        
+        Decoder decoder;
+        
+        Encoder encoder;
+        
+        Output(int streamIndex, String path, String format, Codec.ID codecId) {
+            
+            this.streamIndex = streamIndex;
+            this.path = path;
+            this.format = format;
+            this.codecId = codecId;
+        }
+        
+        /**
+         * Makes, sets up and opens the muxer of this output.
+         */
+        Muxer open(Demuxer demuxer) throws InterruptedException, IOException {
+            
+            if (this.streamIndex < 0 || this.streamIndex >= demuxer.getNumStreams()) {
+                
+                throw new IOException(String.format("No stream #%d in %s", this.streamIndex, demuxer.getURL()));
+            }
+            
+            DemuxerStream stream = demuxer.getStream(this.streamIndex);
+            
+            if (Objects.isNull(stream.getDecoder())) {
+                
+                throw new IOException(String.format("Stream #%d of %s has an unknown codec, can't handle it",
+                        this.streamIndex, demuxer.getURL()));
+            }
+            
+            // a decoder of our own, other outputs may be using the same stream
+            this.decoder = Decoder.make(stream.getDecoder());
+            this.decoder.open(null, null);
+            
+            Muxer muxer;
+            
+            if (Objects.isNull(this.codecId)) {
+                
+                muxer = Muxer.make(this.path, null,
+                        Objects.isNull(this.format) ? StreamCopier.formatFor(this.decoder.getCodecID()) : this.format);
+                muxer.addNewStream(this.decoder);
+            } else {
+                
+                if (this.decoder.getCodecType() != MediaDescriptor.Type.MEDIA_AUDIO) {
+                    
+                    throw new IOException(String.format("Stream #%d of %s is not audio, only audio is transcoded",
+                            this.streamIndex, demuxer.getURL()));
+                }
+                
+                muxer = Muxer.make(this.path, null, this.format);
+                this.encoder = AudioEncoders.makeLike(this.codecId, this.decoder, muxer.getFormat());
+                muxer.addNewStream(this.encoder);
+            }
+            
+            muxer.open(null, null);
+            
+            logger.info(String.format("Stream #%d (%s) -> %s (%s)", this.streamIndex,
+                    this.decoder.getCodec().getName(), this.path,
+                    Objects.isNull(this.codecId) ? "copy" : this.encoder.getCodec().getName()));
+            
+            return muxer;
+        }
+        
+        /**
+         * Makes the pipeline of this output, fed by the fanout.
+         */
+        Pipeline.Runner pipeline(Demuxer demuxer, Muxer muxer, Fanout<MediaPacket> streams, int number)
+                throws InterruptedException, IOException {
+            
+            String name = String.format("output-%d", number);
+            
+            if (Objects.isNull(this.codecId)) {
+                
+                return Pipeline.from(name, streams.branch(this.streamIndex))
+                        .then(name + "-remux", new RemuxStage(demuxer.getStream(this.streamIndex).getTimeBase(),
+                                muxer.getStream(0).getTimeBase(), 0))
+                        .to(name + "-mux", new MuxSink(muxer));
+            }
+            
+            Pipeline<Pooled<MediaAudio>> decoded = Pipeline.from(name, streams.branch(this.streamIndex))
+                    .then(name + "-decode", DecodeStage.audio(this.decoder));
+            
+            if (!AudioTarget.of(this.encoder).equals(AudioTarget.of(this.decoder))) {
+                
+                decoded = decoded.then(name + "-resample", new ResampleStage(AudioTarget.of(this.encoder)));
+            }
+            
+            return decoded.then(name + "-encode", new EncodeStage<MediaAudio>(this.encoder))
+                    .to(name + "-mux", new MuxSink(muxer));
+        }
+    }
+}
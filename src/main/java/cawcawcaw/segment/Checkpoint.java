@@ -0,0 +1,365 @@
+package cawcawcaw.segment;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.humble.video.MediaPacket;
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.segment
+ * File: Checkpoint.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 11:36:48 AM
+ */
+
+/**
+ * <p>
+ * The progress of a {@link SegmentedTranscoder} job on disk: the timeline it
+ * was cut into, and the encoded packets of every segment done. A restarted
+ * job with the same input and settings picks the timeline and the finished
+ * segments up, and only encodes the rest.
+ * 
+ * <p>
+ * The manifest is a properties file, segments are files of packets. Both are
+ * written to a temporary file and moved in place, so a crash leaves either the
+ * old or the new version, never half of one.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.segment.Checkpoint
+ *
+ */
+final class Checkpoint {
+    
+    private static final String MANIFEST = "checkpoint.properties";
+    
+    private static final String JOB = "job.";
+    
+    private static final int MAGIC = 0x43415753; // CAWS
+    
+    private final Path dir;
+    
+    private final Properties manifest = new Properties();
+    
+    private Checkpoint(Path dir) {
+        
+        this.dir = dir;
+    }
+    
+    /**
+     * Opens the checkpoint of a job. The checkpoint of another job, another
+     * input or other settings, is thrown away.
+     * 
+     * @param dir
+     *            The directory holding the checkpoint
+     * @param job
+     *            What identifies the job
+     * @return The checkpoint
+     * @throws IOException
+     *             When the checkpoint can't be read or written
+     */
+    static Checkpoint open(Path dir, Properties job) throws IOException {
+        
+        Files.createDirectories(dir);
+        
+        Checkpoint checkpoint = new Checkpoint(dir);
+        Path file = dir.resolve(MANIFEST);
+        
+        if (Files.exists(file)) {
+            
+            try (InputStream in = Files.newInputStream(file)) {
+                
+                checkpoint.manifest.load(in);
+            }
+        }
+        
+        if (!job.equals(checkpoint.job())) {
+            
+            checkpoint.clear();
+            
+            for (String key : job.stringPropertyNames()) {
+                
+                checkpoint.manifest.setProperty(JOB + key, job.getProperty(key));
+            }
+            
+            checkpoint.writeManifest();
+        }
+        
+        return checkpoint;
+    }
+    
+    /**
+     * @return The index of the stream transcoded, -1 before the timeline was
+     *         saved
+     */
+    synchronized int getStreamIndex() {
+        
+        return Integer.parseInt(this.manifest.getProperty("stream.index", "-1"));
+    }
+    
+    /**
+     * @return The saved timeline, empty before it was saved
+     */
+    synchronized List<Segment> getTimeline() {
+        
+        int count = Integer.parseInt(this.manifest.getProperty("segment.count", "0"));
+        List<Segment> timeline = new ArrayList<>();
+        
+        for (int i = 0; i < count; i++) {
+            
+            timeline.add(new Segment(i, Long.parseLong(this.manifest.getProperty("segment." + i + ".start")),
+                    Long.parseLong(this.manifest.getProperty("segment." + i + ".end"))));
+        }
+        
+        return timeline;
+    }
+    
+    /**
+     * @param streamIndex
+     *            The index of the stream transcoded
+     * @param timeline
+     *            The segments the stream was cut into
+     * @throws IOException
+     *             When the manifest can't be written
+     */
+    synchronized void saveTimeline(int streamIndex, List<Segment> timeline) throws IOException {
+        
+        this.manifest.setProperty("stream.index", Integer.toString(streamIndex));
+        this.manifest.setProperty("segment.count", Integer.toString(timeline.size()));
+        
+        for (Segment segment : timeline) {
+            
+            this.manifest.setProperty("segment." + segment.getNumber() + ".start",
+                    Long.toString(segment.getStart()));
+            this.manifest.setProperty("segment." + segment.getNumber() + ".end", Long.toString(segment.getEnd()));
+        }
+        
+        writeManifest();
+    }
+    
+    /**
+     * @param segment
+     *            A segment of the timeline
+     * @return True when the segment's packets are on disk
+     */
+    boolean isDone(Segment segment) {
+        
+        return Files.exists(segmentFile(segment));
+    }
+    
+    /**
+     * @return The number of segments on disk
+     */
+    synchronized int getDoneCount() {
+        
+        return (int) getTimeline().stream().filter(this::isDone).count();
+    }
+    
+    /**
+     * Writes the encoded packets of a finished segment. Called from the pool
+     * workers.
+     * 
+     * @param segment
+     *            The segment
+     * @param timeBase
+     *            The time base of the packets
+     * @param packets
+     *            The encoded packets
+     * @throws IOException
+     *             When the packets can't be written
+     */
+    void save(Segment segment, Rational timeBase, List<MediaPacket> packets) throws IOException {
+        
+        Path file = segmentFile(segment);
+        Path temporary = Files.createTempFile(this.dir, file.getFileName().toString(), ".tmp");
+        
+        try {
+            
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                
+                out.writeInt(MAGIC);
+                out.writeInt(timeBase.getNumerator());
+                out.writeInt(timeBase.getDenominator());
+                out.writeInt(packets.size());
+                
+                byte[] data = new byte[0];
+                
+                for (MediaPacket packet : packets) {
+                    
+                    int size = packet.getSize();
+                    
+                    if (data.length < size) {
+                        
+                        data = new byte[size];
+                    }
+                    
+                    packet.getData().getByteBuffer(0, size).get(data, 0, size);
+                    
+                    out.writeLong(packet.getPts());
+                    out.writeLong(packet.getDts());
+                    out.writeLong(packet.getDuration());
+                    out.writeBoolean(packet.isKeyPacket());
+                    out.writeInt(size);
+                    out.write(data, 0, size);
+                }
+            }
+            
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            
+            // close resources
+            Files.deleteIfExists(temporary);
+        }
+    }
+    
+    /**
+     * @param segment
+     *            A finished segment
+     * @return The encoded packets of the segment
+     * @throws IOException
+     *             When the packets can't be read
+     */
+    List<MediaPacket> load(Segment segment) throws IOException {
+        
+        Path file = segmentFile(segment);
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            
+            if (in.readInt() != MAGIC) {
+                
+                throw new IOException(String.format("%s is not a segment checkpoint", file));
+            }
+            
+            Rational timeBase = Rational.make(in.readInt(), in.readInt());
+            int count = in.readInt();
+            List<MediaPacket> packets = new ArrayList<>(count);
+            byte[] data = new byte[0];
+            
+            for (int i = 0; i < count; i++) {
+                
+                long pts = in.readLong();
+                long dts = in.readLong();
+                long duration = in.readLong();
+                boolean key = in.readBoolean();
+                int size = in.readInt();
+                
+                if (data.length < size) {
+                    
+                    data = new byte[size];
+                }
+                
+                in.readFully(data, 0, size);
+                
+                MediaPacket packet = MediaPacket.make(size);
+                ByteBuffer payload = packet.getData().getByteBuffer(0, size);
+                payload.put(data, 0, size);
+                
+                packet.setPts(pts);
+                packet.setDts(dts);
+                packet.setDuration(duration);
+                packet.setKeyPacket(key);
+                packet.setTimeBase(timeBase);
+                
+                packets.add(packet);
+            }
+            
+            return packets;
+        }
+    }
+    
+    /**
+     * Deletes the manifest and the segments, once the job is done or when
+     * it is another job.
+     * 
+     * @throws IOException
+     *             When a file can't be deleted
+     */
+    synchronized void clear() throws IOException {
+        
+        List<Path> files;
+        
+        try (Stream<Path> listing = Files.list(this.dir)) {
+            
+            files = listing.filter(file -> {
+                
+                String name = file.getFileName().toString();
+                
+                return name.equals(MANIFEST) || name.startsWith("segment-");
+            }).collect(Collectors.toList());
+        }
+        
+        for (Path file : files) {
+            
+            Files.deleteIfExists(file);
+        }
+        
+        this.manifest.clear();
+    }
+    
+    /**
+     * @return The job the manifest was written for
+     */
+    private Properties job() {
+        
+        Properties job = new Properties();
+        
+        for (String key : this.manifest.stringPropertyNames()) {
+            
+            if (key.startsWith(JOB)) {
+                
+                job.setProperty(key.substring(JOB.length()), this.manifest.getProperty(key));
+            }
+        }
+        
+        return job;
+    }
+    
+    private Path segmentFile(Segment segment) {
+        
+        return this.dir.resolve(String.format("segment-%05d.packets", segment.getNumber()));
+    }
+    
+    private void writeManifest() throws IOException {
+        
+        Path temporary = Files.createTempFile(this.dir, MANIFEST, ".tmp");
+        
+        try {
+            
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                
+                this.manifest.store(out, "Segmented transcode checkpoint");
+            }
+            
+            Files.move(temporary, this.dir.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            
+            // close resources
+            Files.deleteIfExists(temporary);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("Checkpoint %s", this.dir);
+    }
+}
@@ -0,0 +1,90 @@
+package cawcawcaw.segment;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import io.humble.video.Demuxer;
+import io.humble.video.Global;
+import io.humble.video.MediaPacket;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.segment
+ * File: KeyframeScanner.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 3:10:27 PM
+ */
+
+/**
+ * <p>
+ * Finds the places where a stream can be cut: one pass over the packets of
+ * the container, without decoding anything, collecting the timestamps of the
+ * key packets of the stream. For audio nearly every packet is a key packet, so
+ * this gives us audio frame boundaries.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.segment.KeyframeScanner
+ *
+ */
+final class KeyframeScanner {
+    
+    private KeyframeScanner() {
+        
+    }
+    
+    /**
+     * Reads the demuxer to the end.
+     * 
+     * @param demuxer
+     *            The opened demuxer, positioned at the start
+     * @param streamIndex
+     *            The index of the stream to scan
+     * @return The sorted timestamps of the key packets, in the stream's time
+     *         base
+     */
+    static long[] scan(Demuxer demuxer, int streamIndex) throws InterruptedException, IOException {
+        
+        long[] timestamps = new long[1024];
+        int count = 0;
+        
+        MediaPacket packet = MediaPacket.make();
+        
+        while (demuxer.read(packet) >= 0) {
+            
+            if (packet.getStreamIndex() != streamIndex || !packet.isKeyPacket()) {
+                
+                continue;
+            }
+            
+            long timestamp = timestampOf(packet);
+            
+            if (timestamp == Global.NO_PTS) {
+                
+                continue;
+            }
+            
+            if (count == timestamps.length) {
+                
+                timestamps = Arrays.copyOf(timestamps, count * 2);
+            }
+            
+            timestamps[count++] = timestamp;
+        }
+        
+        long[] sorted = Arrays.copyOf(timestamps, count);
+        Arrays.sort(sorted);
+        
+        return sorted;
+    }
+    
+    /**
+     * @return The presentation timestamp of the packet, or its decoding
+     *         timestamp when the container doesn't have one
+     */
+    static long timestampOf(MediaPacket packet) {
+        
+        return packet.getPts() != Global.NO_PTS ? packet.getPts() : packet.getDts();
+    }
+}
@@ -0,0 +1,156 @@
+package cawcawcaw.segment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.segment
+ * File: Segment.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 16, 2026 2:58:03 PM
+ */
+
+/**
+ * <p>
+ * A slice [start, end) of a stream's timeline, in the stream's time base. The
+ * start of every segment but the first is a key packet, so a decoder can pick
+ * up from there on its own.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.segment.Segment
+ *
+ */
+public final class Segment {
+    
+    /**
+     * Start of the first segment and end of the last one: unbounded.
+     */
+    public static final long OPEN = Long.MIN_VALUE;
+    
+    private final int number;
+    
+    private final long start;
+    
+    private final long end;
+    
+    Segment(int number, long start, long end) {
+        
+        this.number = number;
+        this.start = start;
+        this.end = end;
+    }
+    
+    /**
+     * Splits a timeline into at most n segments of roughly the same duration,
+     * cutting only at key packets.
+     * 
+     * @param keyTimestamps
+     *            The sorted timestamps of the key packets of the stream
+     * @param n
+     *            The number of segments wanted
+     * @return The segments, in order. There are fewer than n when there
+     *         aren't enough key packets to cut at.
+     */
+    static List<Segment> split(long[] keyTimestamps, int n) {
+        
+        if (keyTimestamps.length < 2 || n <= 1) {
+            
+            return Collections.singletonList(new Segment(0, OPEN, OPEN));
+        }
+        
+        long first = keyTimestamps[0];
+        long duration = keyTimestamps[keyTimestamps.length - 1] - first;
+        
+        List<Long> cuts = new ArrayList<>();
+        
+        for (int i = 1; i < n; i++) {
+            
+            long target = first + duration / n * i;
+            
+            // the first key packet at or after the target
+            int at = Arrays.binarySearch(keyTimestamps, target);
+            long cut = keyTimestamps[at >= 0 ? at : Math.min(-at - 1, keyTimestamps.length - 1)];
+            
+            if (cut > first && (cuts.isEmpty() || cut > cuts.get(cuts.size() - 1))) {
+                
+                cuts.add(cut);
+            }
+        }
+        
+        List<Segment> segments = new ArrayList<>();
+        long start = OPEN;
+        
+        for (long cut : cuts) {
+            
+            segments.add(new Segment(segments.size(), start, cut));
+            start = cut;
+        }
+        
+        segments.add(new Segment(segments.size(), start, OPEN));
+        
+        return segments;
+    }
+    
+    /**
+     * @return The position of this segment in the timeline, from 0
+     */
+    public int getNumber() {
+        
+        return this.number;
+    }
+    
+    /**
+     * @return The first timestamp in the segment, {@link #OPEN} for the first
+     *         segment
+     */
+    public long getStart() {
+        
+        return this.start;
+    }
+    
+    /**
+     * @return The timestamp right after the segment, {@link #OPEN} for the last
+     *         segment
+     */
+    public long getEnd() {
+        
+        return this.end;
+    }
+    
+    /**
+     * @param timestamp
+     *            A timestamp in the stream's time base
+     * @return True when the timestamp falls in this segment
+     */
+    public boolean contains(long timestamp) {
+        
+        return (this.start == OPEN || timestamp >= this.start) && (this.end == OPEN || timestamp < this.end);
+    }
+    
+    /**
+     * @param to
+     *            The time base wanted
+     * @param from
+     *            The time base of this segment, the stream's
+     * @return The same segment in another time base, like the encoder's
+     */
+    Segment rescale(Rational to, Rational from) {
+        
+        return new Segment(this.number, this.start == OPEN ? OPEN : to.rescale(this.start, from),
+                this.end == OPEN ? OPEN : to.rescale(this.end, from));
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("Segment #%d [%s, %s)", this.number, this.start == OPEN ? "-" : this.start,
+                this.end == OPEN ? "-" : this.end);
+    }
+}
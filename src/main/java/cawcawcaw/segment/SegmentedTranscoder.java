@@ -0,0 +1,614 @@
+package cawcawcaw.segment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.audio.AudioTarget;
+import cawcawcaw.audio.ResampleStage;
+import cawcawcaw.audio.ResamplerCache;
+import cawcawcaw.io.MediaInput;
+import cawcawcaw.pipeline.AudioEncoders;
+import cawcawcaw.pipeline.DecodeStage;
+import cawcawcaw.pipeline.Emitter;
+import cawcawcaw.pipeline.MediaStreams;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.pipeline.PipelineException;
+import cawcawcaw.pool.MediaPool;
+import cawcawcaw.pool.Pooled;
+import io.humble.video.Codec;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.Encoder;
+import io.humble.video.Global;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.MediaPacket;
+import io.humble.video.Muxer;
+import io.humble.video.MuxerFormat;
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.segment
+ * File: SegmentedTranscoder.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 3:05:41 PM
+ */
+
+/**
+ * <p>
+ * Transcodes the first audio stream of a file using all the cores: the
+ * timeline is cut at key packets into segments, every segment is decoded and
+ * encoded on its own {@link ForkJoinPool} worker (with its own demuxer,
+ * decoder and encoder), and the encoded packets are stitched back together
+ * into one output {@link Muxer}.
+ * 
+ * <p>
+ * Costs worth knowing about:
+ * 
+ * <ul>
+ * 
+ * <li>Finding the cut points is one extra read of the container (no
+ * decoding).</li>
+ * 
+ * <li>The encoded packets of a segment are held in memory until the segment
+ * is stitched. That's tiny for audio (a 24 minute episode in mp3 is about 25
+ * MB) but this is not meant for video.</li>
+ * 
+ * <li>Every segment but the first starts with a cold encoder, so there may be
+ * a few milliseconds of encoder priming at each cut.</li>
+ 
+ * <li>With checkpoints (see {@link #withCheckpoints(Path)}), every finished
+ * segment is also written to disk, and a restarted job only encodes the
+ * segments it hasn't got yet. The restarted job keeps the timeline it was cut
+ * into the first time, whatever the number of segments and the checkpoint
+ * interval are now, so it can resume on a machine with another number of
+ * cores.</li>
+ * 
+ * </ul>
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.segment.SegmentedTranscoder
+ *
+ */
+public class SegmentedTranscoder {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedTranscoder.class);
+    // # Logging stuff
+    
+    /**
+     * How much of the stream before a segment is decoded, to warm the decoder
+     * up for the first frame of the segment.
+     */
+    private static final long PREROLL_MILLIS = 500;
+    
+    private final String inputPath;
+    
+    private final String outputPath;
+    
+    private String outputFormat = null;
+    
+    private Codec.ID codecId = Codec.ID.CODEC_ID_MP3;
+    
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    
+    private int segments = ForkJoinPool.getCommonPoolParallelism();
+    
+    private MediaInput input = MediaInput.path();
+    
+    private Path checkpointDir = null;
+    
+    private long checkpointIntervalMillis = TimeUnit.MINUTES.toMillis(5);
+    
+    /**
+     * @param inputPath
+     *            The media file to read
+     * @param outputPath
+     *            The audio file to write
+     */
+    public SegmentedTranscoder(String inputPath, String outputPath) {
+        
+        this.inputPath = inputPath;
+        this.outputPath = outputPath;
+    }
+    
+    /**
+     * @param outputFormat
+     *            The short name of the output container format, "mp3" for
+     *            example. When not set, it is guessed from the output path.
+     * @return this
+     */
+    public SegmentedTranscoder withOutputFormat(String outputFormat) {
+        
+        this.outputFormat = outputFormat;
+        
+        return this;
+    }
+    
+    /**
+     * @param codecId
+     *            The codec to encode the audio with, MP3 by default
+     * @return this
+     */
+    public SegmentedTranscoder withCodec(Codec.ID codecId) {
+        
+        this.codecId = codecId;
+        
+        return this;
+    }
+    
+    /**
+     * @param pool
+     *            The pool to run the segments on, the common pool by default.
+     *            The number of segments is set to its parallelism.
+     * @return this
+     */
+    public SegmentedTranscoder withPool(ForkJoinPool pool) {
+        
+        this.pool = pool;
+        this.segments = pool.getParallelism();
+        
+        return this;
+    }
+    
+    /**
+     * @param input
+     *            How the input files are read, see {@link MediaInput}. Paths
+     *            are handed to FFmpeg by default.
+     * @return this
+     */
+    public SegmentedTranscoder withInput(MediaInput input) {
+        
+        this.input = input;
+        
+        return this;
+    }
+    
+    /**
+     * @param segments
+     *            The number of segments to cut the timeline into, the pool's
+     *            parallelism by default
+     * @return this
+     */
+    public SegmentedTranscoder withSegments(int segments) {
+        
+        this.segments = segments;
+        
+        return this;
+    }
+    
+    /**
+     * Saves the progress to a directory as the segments get done, so that a
+     * crashed or preempted job resumes where it stopped when run again with
+     * the same input, output and codec. The directory is emptied once the
+     * output is complete.
+     * 
+     * @param checkpointDir
+     *            The directory to keep the progress in, null to keep none
+     * @return this
+     */
+    public SegmentedTranscoder withCheckpoints(Path checkpointDir) {
+        
+        this.checkpointDir = checkpointDir;
+        
+        return this;
+    }
+    
+    /**
+     * @param interval
+     *            The max media time encoded between 2 checkpoints, the
+     *            timeline is cut into more segments than asked for when
+     *            needed. 5 minutes by default.
+     * @param unit
+     *            The unit of the interval
+     * @return this
+     */
+    public SegmentedTranscoder withCheckpointInterval(long interval, TimeUnit unit) {
+        
+        this.checkpointIntervalMillis = unit.toMillis(interval);
+        
+        return this;
+    }
+    
+    /**
+     * Runs the transcoding, blocking until the output file is complete.
+     * 
+     * @throws IOException
+     *             When the input can't be read or has no audio stream, or the
+     *             output can't be written
+     * @throws PipelineException
+     *             When one of the segments failed
+     */
+    public void transcode() throws IOException, InterruptedException, PipelineException {
+        
+        // # Find the cut points
+        Checkpoint checkpoint = Objects.isNull(this.checkpointDir) ? null : Checkpoint.open(this.checkpointDir, job());
+        int streamIndex;
+        List<Segment> timeline;
+        
+        if (!Objects.isNull(checkpoint) && checkpoint.getStreamIndex() >= 0) {
+            
+            streamIndex = checkpoint.getStreamIndex();
+            timeline = checkpoint.getTimeline();
+            
+            logger.info(String.format("Resuming %s from %s, %d of %d segments done", this.inputPath, checkpoint,
+                    checkpoint.getDoneCount(), timeline.size()));
+        } else {
+            
+            long[] keyTimestamps;
+            Rational timeBase;
+            
+            Demuxer demuxer = Demuxer.make();
+            
+            try {
+                
+                this.input.open(demuxer, this.inputPath, true, null);
+                
+                DemuxerStream stream = MediaStreams.firstOfType(demuxer, MediaDescriptor.Type.MEDIA_AUDIO);
+                
+                if (Objects.isNull(stream)) {
+                    
+                    throw new IOException(
+                            String.format("Audio stream not found or couldn't be decoded in %s", this.inputPath));
+                }
+                
+                streamIndex = stream.getIndex();
+                timeBase = stream.getTimeBase();
+                keyTimestamps = KeyframeScanner.scan(demuxer, streamIndex);
+            } finally {
+                
+                demuxer.close();
+            }
+            
+            timeline = Segment.split(keyTimestamps, segmentsFor(keyTimestamps, timeBase));
+            
+            if (!Objects.isNull(checkpoint)) {
+                
+                checkpoint.saveTimeline(streamIndex, timeline);
+            }
+        }
+        
+        logger.info(String.format("Transcoding %s in %d segments on %d workers", this.inputPath, timeline.size(),
+                this.pool.getParallelism()));
+        // # Find the cut points
+        
+        // # Encode the segments
+        MuxerFormat format = MuxerFormat.guessFormat(this.outputFormat, this.outputPath, null);
+        List<ForkJoinTask<EncodedSegment>> tasks = new ArrayList<>();
+        
+        // cancelling a ForkJoinTask doesn't interrupt it, the segments check this
+        AtomicBoolean cancelled = new AtomicBoolean();
+        
+        for (Segment segment : timeline) {
+            
+            if (!Objects.isNull(checkpoint) && checkpoint.isDone(segment)) {
+                
+                tasks.add(this.pool.submit(() -> new EncodedSegment(null, null, checkpoint.load(segment))));
+            } else {
+                
+                tasks.add(this.pool.submit(() -> encodeSegment(segment, streamIndex, format, checkpoint,
+                        cancelled)));
+            }
+        }
+        
+        List<EncodedSegment> encoded = new ArrayList<>();
+        
+        try {
+            
+            for (int i = 0; i < tasks.size(); i++) {
+                
+                try {
+                    
+                    encoded.add(tasks.get(i).get());
+                } catch (ExecutionException e) {
+                    
+                    throw new PipelineException(timeline.get(i).toString(), e.getCause());
+                }
+            }
+        } finally {
+            
+            cancelled.set(true);
+            tasks.forEach(task -> task.cancel(false));
+        }
+        // # Encode the segments
+        
+        stitch(encoded, streamIndex, format);
+        
+        if (!Objects.isNull(checkpoint)) {
+            
+            checkpoint.clear();
+        }
+    }
+    
+    /**
+     * @return What identifies this job in a checkpoint: a checkpoint made for
+     *         another input, another version of the input, another output or
+     *         codec is not resumed. The number of segments and the interval
+     *         only shape the timeline, which the checkpoint keeps.
+     */
+    private Properties job() throws IOException {
+        
+        Path input = Paths.get(this.inputPath).toAbsolutePath();
+        Properties job = new Properties();
+        
+        job.setProperty("input", input.toString());
+        job.setProperty("input.size", Long.toString(Files.size(input)));
+        job.setProperty("input.modified", Long.toString(Files.getLastModifiedTime(input).toMillis()));
+        job.setProperty("output", Paths.get(this.outputPath).toAbsolutePath().toString());
+        job.setProperty("output.format", Objects.toString(this.outputFormat));
+        job.setProperty("codec", this.codecId.name());
+        
+        return job;
+    }
+    
+    /**
+     * @return The number of segments to cut the timeline into, more than asked
+     *         for when checkpoints would be too far apart
+     */
+    private int segmentsFor(long[] keyTimestamps, Rational timeBase) {
+        
+        if (Objects.isNull(this.checkpointDir) || keyTimestamps.length < 2) {
+            
+            return this.segments;
+        }
+        
+        double seconds = (keyTimestamps[keyTimestamps.length - 1] - keyTimestamps[0]) * timeBase.getDouble();
+        
+        return Math.max(this.segments, (int) Math.ceil(seconds * 1000 / this.checkpointIntervalMillis));
+    }
+    
+    /**
+     * Decodes and encodes a single segment, runs on a pool worker.
+     * 
+     * @throws CancellationException
+     *             When the job was cancelled, like when another segment failed
+     */
+    private EncodedSegment encodeSegment(Segment segment, int streamIndex, MuxerFormat format,
+            Checkpoint checkpoint, AtomicBoolean cancelled) throws Exception {
+        
+        Demuxer demuxer = Demuxer.make();
+        ResampleStage resample = null;
+        
+        try {
+            
+            this.input.open(demuxer, this.inputPath, true, null);
+            
+            DemuxerStream stream = demuxer.getStream(streamIndex);
+            Rational streamTimeBase = stream.getTimeBase();
+            
+            Decoder decoder = stream.getDecoder();
+            decoder.open(null, null);
+            
+            Encoder encoder = AudioEncoders.makeLike(this.codecId, decoder, format);
+            
+            if (segment.getStart() != Segment.OPEN) {
+                
+                // lands a little before the start, on a key packet at the latest on the start
+                long preroll = streamTimeBase.rescale(PREROLL_MILLIS, Rational.make(1, 1000));
+                demuxer.seek(streamIndex, Long.MIN_VALUE, segment.getStart() - preroll, segment.getStart(), 0);
+            }
+            
+            EncodedSegment result = new EncodedSegment(encoder,
+                    segment.rescale(encoder.getTimeBase(), streamTimeBase), new ArrayList<>());
+            MediaPacket wpacket = MediaPacket.make(); // write packet
+            
+            /*
+             * Frames decoded from the packets before the start only warm the
+             * decoder up (bit reservoirs, overlapping windows), the encoder
+             * only sees the frames of the segment.
+             */
+            Emitter<Pooled<MediaAudio>> encode = frame -> {
+                
+                try {
+                    
+                    MediaAudio samples = frame.get();
+                    long timestamp = samples.getTimeStamp() == Global.NO_PTS ? Global.NO_PTS
+                            : streamTimeBase.rescale(samples.getTimeStamp(), samples.getTimeBase());
+                    
+                    if (timestamp == Global.NO_PTS || segment.contains(timestamp)) {
+                        
+                        encoder.encodeAudio(wpacket, samples);
+                        result.keep(wpacket);
+                    }
+                } finally {
+                    
+                    frame.release();
+                }
+            };
+            
+            // passes the frames through when the encoder takes the decoder's format
+            ResampleStage resampler = new ResampleStage(AudioTarget.of(encoder), ResamplerCache.shared(), 2);
+            resample = resampler;
+            DecodeStage<MediaAudio> decode = new DecodeStage<>(decoder,
+                    MediaPool.audio("segment", 2, Pipeline.DEFAULT_POOL_BYTES, decoder));
+            MediaPool<MediaPacket> packets = MediaPool.packets("segment", 1, Pipeline.DEFAULT_POOL_BYTES);
+            
+            while (true) {
+                
+                if (cancelled.get()) {
+                    
+                    throw new CancellationException(String.format("%s cancelled", segment));
+                }
+                
+                Pooled<MediaPacket> packet = packets.acquire();
+                
+                if (demuxer.read(packet.get()) < 0) {
+                    
+                    packet.release();
+                    
+                    break;
+                }
+                
+                if (packet.get().getStreamIndex() != streamIndex) {
+                    
+                    packet.release();
+                    
+                    continue;
+                }
+                
+                long timestamp = KeyframeScanner.timestampOf(packet.get());
+                
+                if (segment.getEnd() != Segment.OPEN && timestamp != Global.NO_PTS
+                        && timestamp >= segment.getEnd()) {
+                    
+                    packet.release();
+                    
+                    break;
+                }
+                
+                decode.process(packet, frame -> resampler.process(frame, encode));
+            }
+            
+            decode.flush(frame -> resampler.process(frame, encode));
+            decode.close();
+            resampler.flush(encode);
+            
+            do {
+                
+                encoder.encode(wpacket, null);
+                result.keep(wpacket);
+            } while (wpacket.isComplete());
+            
+            logger.debug("{} done, {} packets", segment, result.packets.size());
+            
+            if (!Objects.isNull(checkpoint)) {
+                
+                checkpoint.save(segment, encoder.getTimeBase(), result.packets);
+            }
+            
+            return result;
+        } finally {
+            
+            // close resources
+            if (!Objects.isNull(resample)) {
+                
+                resample.close();
+            }
+            
+            demuxer.close();
+        }
+    }
+    
+    /**
+     * Writes the segments one after the other into the output. Each packet
+     * keeps the timestamps it was encoded with (they come from the source
+     * timeline). The segments were trimmed to their boundaries when encoded,
+     * so they don't overlap at the cuts.
+     */
+    private void stitch(List<EncodedSegment> encoded, int streamIndex, MuxerFormat format)
+            throws InterruptedException, IOException {
+        
+        Muxer muxer = Muxer.make(this.outputPath, null, this.outputFormat);
+        
+        try {
+            
+            // all segments' encoders are configured alike, any of them
+            // describes the stream. Segments read back from a checkpoint have
+            // none, a fresh one configured the same way does.
+            Encoder encoder = encoded.stream()
+                    .map(segment -> segment.encoder)
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .orElse(null);
+            
+            if (Objects.isNull(encoder)) {
+                
+                encoder = describe(streamIndex, format);
+            }
+            
+            muxer.addNewStream(encoder);
+            muxer.open(null, null);
+            
+            for (EncodedSegment segment : encoded) {
+                
+                for (MediaPacket packet : segment.packets) {
+                    
+                    muxer.write(packet, false);
+                }
+            }
+        } finally {
+            
+            muxer.close();
+        }
+    }
+    
+    /**
+     * @return An opened encoder configured like the segments' encoders
+     */
+    private Encoder describe(int streamIndex, MuxerFormat format) throws InterruptedException, IOException {
+        
+        Demuxer demuxer = Demuxer.make();
+        
+        try {
+            
+            this.input.open(demuxer, this.inputPath, true, null);
+            
+            Decoder decoder = demuxer.getStream(streamIndex).getDecoder();
+            decoder.open(null, null);
+            
+            return AudioEncoders.makeLike(this.codecId, decoder, format);
+        } finally {
+            
+            demuxer.close();
+        }
+    }
+    
+    /**
+     * The encoded packets of a segment, and the encoder that made them, null
+     * when they were read back from a checkpoint.
+     */
+    private static final class EncodedSegment {
+        
+        final Encoder encoder;
+        
+        /**
+         * The segment in the encoder's time base, null when read back from a
+         * checkpoint.
+         */
+        final Segment bounds;
+        
+        final List<MediaPacket> packets;
+        
+        EncodedSegment(Encoder encoder, Segment bounds, List<MediaPacket> packets) {
+            
+            this.encoder = encoder;
+            this.bounds = bounds;
+            this.packets = packets;
+        }
+        
+        /**
+         * Keeps a copy of the packet if the encoder completed one in the
+         * segment. The encoder's delay and flush spill over the cuts, into
+         * the neighbouring segments which have packets of their own there:
+         * at most a frame of audio is lost at a cut, instead of timestamps
+         * going backwards.
+         */
+        void keep(MediaPacket packet) {
+            
+            if (packet.isComplete()
+                    && (packet.getPts() == Global.NO_PTS || this.bounds.contains(packet.getPts()))) {
+                
+                this.packets.add(MediaPacket.make(packet, true));
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package cawcawcaw.subtitle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import cawcawcaw.translate.Transcript;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.subtitle
+ * File: Cue.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 21, 2026 1:17:03 PM
+ */
+
+/**
+ * <p>
+ * A subtitle: a text shown between 2 times of the episode.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.subtitle.Cue
+ *
+ */
+public final class Cue {
+    
+    private final long startMillis;
+    
+    private final long endMillis;
+    
+    private final String text;
+    
+    /**
+     * @param startMillis
+     *            When the text shows, in milliseconds
+     * @param endMillis
+     *            When it goes away, in milliseconds
+     * @param text
+     *            The text, lines separated by '\n'
+     */
+    public Cue(long startMillis, long endMillis, String text) {
+        
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.text = text;
+    }
+    
+    /**
+     * Lays the transcripts out as a subtitle track: in order of time,
+     * transcripts starting at the same time share a cue, a cue ends at the
+     * latest when the next one starts, and empty texts are dropped. Text
+     * tracks in MP4 can't overlap at all, and players show overlapping SRT
+     * cues stacked in unpredictable ways.
+     * 
+     * @param transcripts
+     *            The transcripts, in any order
+     * @param text
+     *            What to show of a transcript, usually
+     *            {@link Transcript#getTranslation()}
+     * @return The cues, in order
+     */
+    public static List<Cue> timeline(Collection<Transcript> transcripts, Function<Transcript, String> text) {
+        
+        List<Transcript> sorted = new ArrayList<>(transcripts);
+        sorted.sort(Comparator.comparingLong(Transcript::getStartMillis).thenComparingInt(Transcript::getIndex));
+        
+        List<Cue> merged = new ArrayList<>();
+        
+        for (Transcript transcript : sorted) {
+            
+            String raw = text.apply(transcript);
+            String line = Objects.isNull(raw) ? "" : clean(raw);
+            
+            if (line.isEmpty() || transcript.getEndMillis() <= transcript.getStartMillis()) {
+                
+                continue;
+            }
+            
+            Cue last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            
+            if (!Objects.isNull(last) && last.startMillis == transcript.getStartMillis()) {
+                
+                merged.set(merged.size() - 1, new Cue(last.startMillis,
+                        Math.max(last.endMillis, transcript.getEndMillis()), last.text + "\n" + line));
+            } else {
+                
+                merged.add(new Cue(transcript.getStartMillis(), transcript.getEndMillis(), line));
+            }
+        }
+        
+        List<Cue> cues = new ArrayList<>(merged.size());
+        
+        for (int i = 0; i < merged.size(); i++) {
+            
+            Cue cue = merged.get(i);
+            long end = i + 1 < merged.size() ? Math.min(cue.endMillis, merged.get(i + 1).startMillis) : cue.endMillis;
+            
+            cues.add(new Cue(cue.startMillis, end, cue.text));
+        }
+        
+        return cues;
+    }
+    
+    /**
+     * Normalizes the line breaks and drops the blank lines, which end a cue in
+     * SRT.
+     */
+    private static String clean(String text) {
+        
+        StringBuilder cleaned = new StringBuilder();
+        
+        for (String line : text.split("\r\n|\r|\n")) {
+            
+            if (!line.trim().isEmpty()) {
+                
+                cleaned.append(cleaned.length() > 0 ? "\n" : "").append(line.trim());
+            }
+        }
+        
+        return cleaned.toString();
+    }
+    
+    /**
+     * @return When the text shows, in milliseconds
+     */
+    public long getStartMillis() {
+        
+        return this.startMillis;
+    }
+    
+    /**
+     * @return When it goes away, in milliseconds
+     */
+    public long getEndMillis() {
+        
+        return this.endMillis;
+    }
+    
+    /**
+     * @return How long it shows, in milliseconds
+     */
+    public long getDurationMillis() {
+        
+        return this.endMillis - this.startMillis;
+    }
+    
+    /**
+     * @return The text, lines separated by '\n'
+     */
+    public String getText() {
+        
+        return this.text;
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("[%d ms - %d ms] %s", this.startMillis, this.endMillis, this.text);
+    }
+}
@@ -0,0 +1,120 @@
+package cawcawcaw.subtitle;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import io.humble.video.Codec;
+import io.humble.video.Decoder;
+import io.humble.video.MuxerFormat;
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.subtitle
+ * File: SubtitleCodec.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 3:41:26 PM
+ */
+
+/**
+ * <p>
+ * The text codecs a subtitle stream is muxed with: SubRip, into Matroska only.
+ * 
+ * <p>
+ * SubRip in Matroska needs no codec extradata, which Humble has no way to
+ * set, so it is written straight from the cue text. The other text codecs do:
+ * mov_text, the only one MP4 and its relatives take, needs its tx3g sample
+ * entry there, and ASS its header. An ASS track is written to a file with
+ * {@link SubtitleWriter} and merged from there with
+ * {@link cawcawcaw.remux.Merger}.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.subtitle.SubtitleCodec
+ *
+ */
+public enum SubtitleCodec {
+    
+    /**
+     * The plain UTF-8 text of the cue.
+     */
+    SUBRIP(Codec.ID.CODEC_ID_SUBRIP) {
+        
+        @Override
+        byte[] payload(String text) {
+            
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+    };
+    
+    private final Codec.ID id;
+    
+    private SubtitleCodec(Codec.ID id) {
+        
+        this.id = id;
+    }
+    
+    /**
+     * @param format
+     *            The format of the output
+     * @return The codec the format takes subtitles in
+     * @throws IOException
+     *             When the format is not Matroska
+     */
+    public static SubtitleCodec forFormat(MuxerFormat format) throws IOException {
+        
+        for (String name : format.getName().split(",")) {
+            
+            if (name.equals("matroska")) {
+                
+                return SUBRIP;
+            }
+        }
+        
+        throw new IOException(String.format("Can't mux subtitles into %s, only into Matroska (.mkv); write them to "
+                + "a file with SubtitleWriter instead", format.getName()));
+    }
+    
+    /**
+     * @return The id of the codec
+     */
+    public Codec.ID getId() {
+        
+        return this.id;
+    }
+    
+    /**
+     * @param text
+     *            The text of a cue
+     * @return The data of the packet carrying it
+     */
+    abstract byte[] payload(String text);
+    
+    /**
+     * Makes the coder describing a stream of this codec to a muxer, it is
+     * never fed.
+     * 
+     * @param timeBase
+     *            The time base of the stream
+     * @return The opened decoder
+     * @throws IOException
+     *             When FFmpeg was built without this codec
+     */
+    Decoder describe(Rational timeBase) throws IOException {
+        
+        Codec codec = Codec.findDecodingCodec(this.id);
+        
+        if (Objects.isNull(codec)) {
+            
+            throw new IOException(String.format("No %s codec in this build of FFmpeg", this.id));
+        }
+        
+        Decoder decoder = Decoder.make(codec);
+        decoder.setTimeBase(timeBase);
+        decoder.open(null, null);
+        
+        return decoder;
+    }
+}
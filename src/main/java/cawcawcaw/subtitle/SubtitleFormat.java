@@ -0,0 +1,126 @@
+package cawcawcaw.subtitle;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.subtitle
+ * File: SubtitleFormat.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 21, 2026 1:42:26 PM
+ */
+
+/**
+ * <p>
+ * The subtitle file formats we write. SRT is what every player and every
+ * container takes, ASS is for when the subtitles need styling, and is muxed
+ * into Matroska through {@link cawcawcaw.remux.Merger}.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.subtitle.SubtitleFormat
+ *
+ */
+public enum SubtitleFormat {
+    
+    /**
+     * SubRip: numbered cues, <code>00:01:02,345 --&gt; 00:01:04,000</code>
+     * times.
+     */
+    SRT("srt") {
+        
+        @Override
+        void write(List<Cue> cues, Appendable out) throws IOException {
+            
+            for (int i = 0; i < cues.size(); i++) {
+                
+                Cue cue = cues.get(i);
+                
+                out.append(String.format("%d\n%s --> %s\n%s\n\n", i + 1, time(cue.getStartMillis(), ','),
+                        time(cue.getEndMillis(), ','), cue.getText()));
+            }
+        }
+    },
+    
+    /**
+     * Advanced SubStation Alpha, with the default style FFmpeg uses when it
+     * converts SRT to ASS.
+     */
+    ASS("ass") {
+        
+        @Override
+        void write(List<Cue> cues, Appendable out) throws IOException {
+            
+            out.append("[Script Info]\n");
+            out.append("ScriptType: v4.00+\n");
+            out.append("PlayResX: 384\n");
+            out.append("PlayResY: 288\n");
+            out.append("ScaledBorderAndShadow: yes\n");
+            out.append("\n");
+            out.append("[V4+ Styles]\n");
+            out.append("Format: Name, Fontname, Fontsize, PrimaryColour, SecondaryColour, OutlineColour, BackColour, "
+                    + "Bold, Italic, Underline, StrikeOut, ScaleX, ScaleY, Spacing, Angle, BorderStyle, Outline, "
+                    + "Shadow, Alignment, MarginL, MarginR, MarginV, Encoding\n");
+            out.append("Style: Default,Arial,16,&Hffffff,&Hffffff,&H0,&H0,0,0,0,0,100,100,0,0,1,1,0,2,10,10,10,0\n");
+            out.append("\n");
+            out.append("[Events]\n");
+            out.append("Format: Layer, Start, End, Style, Name, MarginL, MarginR, MarginV, Effect, Text\n");
+            
+            for (Cue cue : cues) {
+                
+                // braces open override blocks, and line breaks are \N
+                String text = cue.getText().replace('{', '(').replace('}', ')').replace("\n", "\\N");
+                
+                out.append(String.format("Dialogue: 0,%s,%s,Default,,0,0,0,,%s\n", assTime(cue.getStartMillis()),
+                        assTime(cue.getEndMillis()), text));
+            }
+        }
+    };
+    
+    private final String extension;
+    
+    private SubtitleFormat(String extension) {
+        
+        this.extension = extension;
+    }
+    
+    /**
+     * @return The file extension, without the dot
+     */
+    public String getExtension() {
+        
+        return this.extension;
+    }
+    
+    /**
+     * Writes a whole subtitle file.
+     * 
+     * @param cues
+     *            The cues, in order and not overlapping, see
+     *            {@link Cue#timeline}
+     * @param out
+     *            Where to write
+     */
+    abstract void write(List<Cue> cues, Appendable out) throws IOException;
+    
+    /**
+     * @return <code>hh:mm:ss,mmm</code>, with the given separator before the
+     *         milliseconds
+     */
+    static String time(long millis, char separator) {
+        
+        return String.format("%02d:%02d:%02d%c%03d", millis / 3600000, millis / 60000 % 60, millis / 1000 % 60,
+                separator, millis % 1000);
+    }
+    
+    /**
+     * @return <code>h:mm:ss.cc</code>, ASS times are in centiseconds
+     */
+    static String assTime(long millis) {
+        
+        return String.format("%d:%02d:%02d.%02d", millis / 3600000, millis / 60000 % 60, millis / 1000 % 60,
+                millis % 1000 / 10);
+    }
+}
@@ -0,0 +1,310 @@
+package cawcawcaw.subtitle;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.io.MediaInput;
+import cawcawcaw.pipeline.DemuxSource;
+import cawcawcaw.pipeline.Fanout;
+import cawcawcaw.pipeline.Interleaver;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.pipeline.PipelineException;
+import cawcawcaw.pool.MediaPool;
+import cawcawcaw.remux.RemuxStage;
+import cawcawcaw.translate.Transcript;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.MediaPacket;
+import io.humble.video.Muxer;
+import io.humble.video.MuxerStream;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.subtitle
+ * File: SubtitleMuxer.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 3:44:02 PM
+ */
+
+/**
+ * <p>
+ * Writes a copy of a media file with the translations as a subtitle stream,
+ * next to its video and audio streams, which are copied as they are: nothing
+ * is decoded or encoded.
+ * 
+ * <pre>
+ * new SubtitleMuxer("episode01.mkv", "episode01.en.mkv").withTranscripts(transcripts).mux();
+ * </pre>
+ * 
+ * <p>
+ * The output must be Matroska, the subtitles are SubRip, see
+ * {@link SubtitleCodec}. The input is read once, by a single
+ * {@link DemuxSource} routing the packets to a pipeline per stream, and the
+ * subtitle packets join them in an {@link Interleaver}. The streams share
+ * their source there, so that one ending early or starting late doesn't hold
+ * the others up, and the source's pool has room for every packet the stream
+ * pipelines can hold.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.subtitle.SubtitleMuxer
+ *
+ */
+public class SubtitleMuxer {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(SubtitleMuxer.class);
+    // # Logging stuff
+    
+    private final String inputPath;
+    
+    private final String outputPath;
+    
+    private String outputFormat = null;
+    
+    private String language = null;
+    
+    private Function<Transcript, String> text = Transcript::getTranslation;
+    
+    private int reorderCapacity = Pipeline.DEFAULT_QUEUE_CAPACITY;
+    
+    private MediaInput mediaInput = MediaInput.path();
+    
+    private final List<Transcript> transcripts = new ArrayList<>();
+    
+    /**
+     * @param inputPath
+     *            The media file whose video and audio streams are copied
+     * @param outputPath
+     *            The media file to write
+     */
+    public SubtitleMuxer(String inputPath, String outputPath) {
+        
+        this.inputPath = inputPath;
+        this.outputPath = outputPath;
+    }
+    
+    /**
+     * @param transcripts
+     *            The transcripts to show, in any order
+     * @return this
+     */
+    public SubtitleMuxer withTranscripts(Collection<Transcript> transcripts) {
+        
+        this.transcripts.addAll(transcripts);
+        
+        return this;
+    }
+    
+    /**
+     * @param text
+     *            The text of a transcript to show, the translation by default
+     * @return this
+     */
+    public SubtitleMuxer withText(Function<Transcript, String> text) {
+        
+        this.text = text;
+        
+        return this;
+    }
+    
+    /**
+     * @param language
+     *            The language of the subtitles, as an ISO 639 code, the target
+     *            language of the transcripts by default
+     * @return this
+     */
+    public SubtitleMuxer withLanguage(String language) {
+        
+        this.language = language;
+        
+        return this;
+    }
+    
+    /**
+     * @param outputFormat
+     *            The short name of the output container format, guessed from
+     *            the output path by default
+     * @return this
+     */
+    public SubtitleMuxer withOutputFormat(String outputFormat) {
+        
+        this.outputFormat = outputFormat;
+        
+        return this;
+    }
+    
+    /**
+     * @param reorderCapacity
+     *            The max number of packets held per stream while
+     *            interleaving, 64 by default
+     * @return this
+     */
+    public SubtitleMuxer withReorderCapacity(int reorderCapacity) {
+        
+        this.reorderCapacity = reorderCapacity;
+        
+        return this;
+    }
+    
+    /**
+     * @param input
+     *            How the input file is read, see {@link MediaInput}. Paths are
+     *            handed to FFmpeg by default.
+     * @return this
+     */
+    public SubtitleMuxer withInput(MediaInput input) {
+        
+        this.mediaInput = input;
+        
+        return this;
+    }
+    
+    /**
+     * Writes the output file, blocking until it is complete.
+     * 
+     * @throws IOException
+     *             When the input can't be read, or the output can't be written
+     *             or is not Matroska
+     * @throws PipelineException
+     *             When the muxing failed
+     */
+    public void mux() throws IOException, InterruptedException, PipelineException {
+        
+        List<Cue> cues = Cue.timeline(this.transcripts, this.text);
+        
+        if (cues.isEmpty()) {
+            
+            throw new IllegalStateException("No subtitles to mux, add transcripts with some text first");
+        }
+        
+        Demuxer demuxer = Demuxer.make();
+        Muxer muxer = Muxer.make(this.outputPath, null, this.outputFormat);
+        boolean opened = false;
+        
+        try {
+            
+            SubtitleCodec codec = SubtitleCodec.forFormat(muxer.getFormat());
+            
+            this.mediaInput.open(demuxer, this.inputPath, true, null);
+            
+            List<DemuxerStream> streams = new ArrayList<>();
+            
+            for (int i = 0; i < demuxer.getNumStreams(); i++) {
+                
+                DemuxerStream stream = demuxer.getStream(i);
+                Decoder decoder = stream.getDecoder();
+                
+                if (Objects.isNull(decoder) || (decoder.getCodecType() != MediaDescriptor.Type.MEDIA_VIDEO
+                        && decoder.getCodecType() != MediaDescriptor.Type.MEDIA_AUDIO)) {
+                    
+                    continue;
+                }
+                
+                // the decoder is never fed, it only describes the stream to
+                // the muxer
+                decoder.open(null, null);
+                muxer.addNewStream(decoder);
+                streams.add(stream);
+                
+                logger.info(String.format("Stream #%d (%s) of %s -> stream #%d of %s", stream.getIndex(),
+                        decoder.getCodec().getName(), this.inputPath, streams.size() - 1, this.outputPath));
+            }
+            
+            int subtitleIndex = streams.size();
+            MuxerStream subtitles = muxer.addNewStream(codec.describe(SubtitleSource.TIME_BASE));
+            String language = language();
+            
+            if (!Objects.isNull(language)) {
+                
+                subtitles.getMetaData().setValue("language", language);
+            }
+            
+            logger.info(String.format("%d cues (%s, %s) -> stream #%d of %s", cues.size(), codec, language,
+                    subtitleIndex, this.outputPath));
+            
+            muxer.open(null, null);
+            opened = true;
+            
+            Interleaver interleaver = new Interleaver(muxer).withCapacity(this.reorderCapacity);
+            Fanout<MediaPacket> routes = new Fanout<>(MediaPacket::getStreamIndex);
+            
+            // every packet the pipelines can hold: per stream its branch, 2
+            // queues, 3 stages and its reorder queue, then the demux
+            // pipeline's queue and 2 stages. No byte cap, the count bounds
+            // these compressed packets well enough.
+            int perStream = 3 * Pipeline.DEFAULT_QUEUE_CAPACITY + 3 + interleaver.getCapacity();
+            MediaPool<MediaPacket> packets = MediaPool.packets("subtitle-mux",
+                    streams.size() * perStream + Pipeline.DEFAULT_QUEUE_CAPACITY + 2, 0);
+            List<Pipeline.Runner> runners = new ArrayList<>();
+            int[] streamIndexes = new int[streams.size()];
+            
+            for (int i = 0; i < streams.size(); i++) {
+                
+                DemuxerStream stream = streams.get(i);
+                streamIndexes[i] = stream.getIndex();
+                
+                runners.add(Pipeline.from("stream-" + i, routes.branch(stream.getIndex()))
+                        .then("remux-" + i, new RemuxStage(stream.getTimeBase(), muxer.getStream(i).getTimeBase(), i))
+                        .to("interleave-" + i, interleaver.input(muxer.getStream(i).getTimeBase(), "demux")));
+            }
+            
+            runners.add(0,
+                    Pipeline.from("demux", new DemuxSource(demuxer, packets, streamIndexes)).to("route", routes));
+            runners.add(Pipeline.from("subtitles", new SubtitleSource(cues, codec))
+                    .then("remux-subtitles", new RemuxStage(SubtitleSource.TIME_BASE,
+                            muxer.getStream(subtitleIndex).getTimeBase(), subtitleIndex))
+                    .to("interleave-subtitles", interleaver.input(muxer.getStream(subtitleIndex).getTimeBase())));
+            
+            Pipeline.runAll(runners.toArray(new Pipeline.Runner[runners.size()]));
+        } finally {
+            
+            // close resources
+            demuxer.close();
+            
+            if (opened) {
+                
+                muxer.close();
+            }
+        }
+    }
+    
+    /**
+     * @return The ISO 639-2 code of the subtitle language, which is what
+     *         Matroska and MP4 take, null when unknown
+     */
+    private String language() {
+        
+        String code = this.language;
+        
+        if (Objects.isNull(code) && !this.transcripts.isEmpty()) {
+            
+            code = this.transcripts.get(0).getTargetLanguage();
+        }
+        
+        if (Objects.isNull(code) || code.isEmpty()) {
+            
+            return null;
+        }
+        
+        try {
+            
+            return new Locale(code).getISO3Language();
+        } catch (MissingResourceException e) {
+            
+            return code;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package cawcawcaw.subtitle;
+
+import java.util.List;
+
+import cawcawcaw.pipeline.Emitter;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.pipeline.Source;
+import cawcawcaw.pool.MediaPool;
+import cawcawcaw.pool.Pooled;
+import io.humble.ferry.Buffer;
+import io.humble.video.MediaPacket;
+import io.humble.video.Rational;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.subtitle
+ * File: SubtitleSource.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 21, 2026 2:48:37 PM
+ */
+
+/**
+ * <p>
+ * Emits a packet per cue, encoded with a {@link SubtitleCodec}, timed in
+ * milliseconds ({@link #TIME_BASE}). A subtitle packet is a key packet
+ * lasting as long as its cue.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.subtitle.SubtitleSource
+ *
+ */
+public class SubtitleSource implements Source<Pooled<MediaPacket>> {
+    
+    /**
+     * The time base of the packets, milliseconds.
+     */
+    public static final Rational TIME_BASE = Rational.make(1, 1000);
+    
+    private final List<Cue> cues;
+    
+    private final SubtitleCodec codec;
+    
+    private final MediaPool<MediaPacket> packets = MediaPool.packets("subtitle", 4, Pipeline.DEFAULT_POOL_BYTES);
+    
+    /**
+     * @param cues
+     *            The cues, in order, see {@link Cue#timeline}
+     * @param codec
+     *            The codec of the packets
+     */
+    public SubtitleSource(List<Cue> cues, SubtitleCodec codec) {
+        
+        this.cues = cues;
+        this.codec = codec;
+    }
+    
+    @Override
+    public void run(Emitter<Pooled<MediaPacket>> output) throws Exception {
+        
+        for (Cue cue : this.cues) {
+            
+            Pooled<MediaPacket> packet = this.packets.acquire();
+            
+            try {
+                
+                fill(packet.get(), cue);
+            } catch (RuntimeException e) {
+                
+                packet.release();
+                
+                throw e;
+            }
+            
+            output.emit(packet);
+        }
+    }
+    
+    /**
+     * Writes a cue into a packet.
+     */
+    private void fill(MediaPacket packet, Cue cue) {
+        
+        byte[] payload = this.codec.payload(cue.getText());
+        
+        packet.reset(payload.length);
+        
+        Buffer data = packet.getData();
+        
+        try {
+            
+            data.getByteBuffer(0, payload.length).put(payload);
+        } finally {
+            
+            data.delete();
+        }
+        
+        packet.setPts(cue.getStartMillis());
+        packet.setDts(cue.getStartMillis());
+        packet.setDuration(cue.getDurationMillis());
+        packet.setTimeBase(TIME_BASE);
+        packet.setKeyPacket(true);
+    }
+}
@@ -0,0 +1,144 @@
+package cawcawcaw.subtitle;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.pipeline.Sink;
+import cawcawcaw.translate.Transcript;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.subtitle
+ * File: SubtitleWriter.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 21, 2026 2:05:48 PM
+ */
+
+/**
+ * <p>
+ * Writes the transcripts coming out of a {@link cawcawcaw.translate.TranslateStage}
+ * as a subtitle file.
+ * 
+ * <pre>
+ * Pipeline.from("chunk", new UtteranceSource(ring.reader(), 16000, 1))
+ *         .then("translate", new TranslateStage(engine))
+ *         .to("subtitles", new SubtitleWriter(Paths.get("episode01.en.srt"), SubtitleFormat.SRT))
+ *         .run();
+ * </pre>
+ * 
+ * <p>
+ * The translations come in whatever order the engine finishes them, so they
+ * are kept until the pipeline finishes, laid out with {@link Cue#timeline}
+ * and written at once. The file is written next to its final path and moved
+ * there, a failed run never leaves half a subtitle file behind.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.subtitle.SubtitleWriter
+ *
+ */
+public class SubtitleWriter implements Sink<Transcript> {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(SubtitleWriter.class);
+    // # Logging stuff
+    
+    private final Path file;
+    
+    private final SubtitleFormat format;
+    
+    private Function<Transcript, String> text = Transcript::getTranslation;
+    
+    private final List<Transcript> transcripts = new ArrayList<>();
+    
+    /**
+     * @param file
+     *            The subtitle file to write
+     * @param format
+     *            The format to write it in
+     */
+    public SubtitleWriter(Path file, SubtitleFormat format) {
+        
+        this.file = file;
+        this.format = format;
+    }
+    
+    /**
+     * @param text
+     *            The text of a transcript to show, the translation by default
+     *            ({@link Transcript#getText} gives same-language captions)
+     * @return this
+     */
+    public SubtitleWriter withText(Function<Transcript, String> text) {
+        
+        this.text = text;
+        
+        return this;
+    }
+    
+    @Override
+    public void accept(Transcript transcript) {
+        
+        this.transcripts.add(transcript);
+    }
+    
+    @Override
+    public void finish() throws IOException {
+        
+        write(this.transcripts);
+    }
+    
+    /**
+     * Writes the subtitle file, replacing it if it exists.
+     * 
+     * @param transcripts
+     *            The transcripts, in any order
+     * @return The cues written
+     * @throws IOException
+     *             When the file can't be written
+     */
+    public List<Cue> write(Collection<Transcript> transcripts) throws IOException {
+        
+        List<Cue> cues = Cue.timeline(transcripts, this.text);
+        Path directory = this.file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(Files.createDirectories(directory),
+                this.file.getFileName().toString(), ".tmp");
+        
+        try {
+            
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                
+                this.format.write(cues, writer);
+            }
+            
+            try {
+                
+                Files.move(temporary, this.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                
+                Files.move(temporary, this.file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            
+            Files.deleteIfExists(temporary);
+        }
+        
+        logger.info(String.format("Wrote %d cues of %d transcripts to %s", cues.size(), transcripts.size(),
+                this.file));
+        
+        return cues;
+    }
+}
@@ -0,0 +1,327 @@
+package cawcawcaw.translate;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.Base64;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: AudioFingerprint.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 1:24:51 PM
+ */
+
+/**
+ * <p>
+ * A fingerprint of an utterance that survives what happens to the same audio
+ * between 2 episodes or 2 releases: lossy re-encodes, small level changes and
+ * cuts a few milliseconds apart.
+ * 
+ * <p>
+ * The audio is looked at in 64 ms frames every 16 ms, and split in 17 bands
+ * between 300 Hz and 3 kHz, where speech is. Every frame gives 16 bits, each
+ * telling whether the energy difference of 2 neighbouring bands grew or
+ * shrank since the previous frame. Codecs change the energies, rarely which
+ * way they move.
+ * 
+ * <p>
+ * 2 fingerprints match when, at the best alignment within a quarter of a
+ * second, few enough of their bits differ.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.AudioFingerprint
+ *
+ */
+final class AudioFingerprint {
+    
+    static final int HOP_MILLIS = 16;
+    
+    private static final int FRAME_MILLIS = 64;
+    
+    private static final int BANDS = 17;
+    
+    private static final double LOW_HZ = 300;
+    
+    private static final double HIGH_HZ = 3000;
+    
+    /**
+     * How far apart 2 fingerprints can be aligned, in frames.
+     */
+    private static final int MAX_SHIFT = 16;
+    
+    /**
+     * The share of differing bits up to which 2 fingerprints match. Unrelated
+     * audio differs in about half of them.
+     */
+    private static final double MAX_BIT_ERROR_RATE = 0.25;
+    
+    /**
+     * The fewest frames worth matching, half a second; shorter audio only hits
+     * the exact key.
+     */
+    private static final int MIN_FRAMES = 500 / HOP_MILLIS;
+    
+    private final short[] frames;
+    
+    private AudioFingerprint(short[] frames) {
+        
+        this.frames = frames;
+    }
+    
+    /**
+     * @param utterance
+     *            The utterance
+     * @return Its fingerprint, empty when it's shorter than 2 frames
+     */
+    static AudioFingerprint of(Utterance utterance) {
+        
+        int rate = utterance.getSampleRate();
+        int channels = utterance.getChannels();
+        ShortBuffer samples = utterance.getPcm().asShortBuffer();
+        float[] mono = new float[samples.remaining() / channels];
+        
+        for (int i = 0; i < mono.length; i++) {
+            
+            float sum = 0;
+            
+            for (int c = 0; c < channels; c++) {
+                
+                sum += samples.get(i * channels + c);
+            }
+            
+            mono[i] = sum / channels;
+        }
+        
+        int size = Integer.highestOneBit(rate * FRAME_MILLIS / 1000 - 1) << 1;
+        int hop = rate * HOP_MILLIS / 1000;
+        int count = mono.length < size ? 0 : (mono.length - size) / hop + 1;
+        int[] edges = bandEdges(rate, size);
+        float[] window = new float[size];
+        
+        for (int i = 0; i < size; i++) {
+            
+            window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / size));
+        }
+        
+        short[] frames = new short[Math.max(0, count - 1)];
+        double[] re = new double[size];
+        double[] im = new double[size];
+        double[] energies = new double[BANDS];
+        double[] previous = new double[BANDS];
+        
+        for (int frame = 0; frame < count; frame++) {
+            
+            for (int i = 0; i < size; i++) {
+                
+                re[i] = mono[frame * hop + i] * window[i];
+                im[i] = 0;
+            }
+            
+            fft(re, im);
+            
+            for (int band = 0; band < BANDS; band++) {
+                
+                double energy = 0;
+                
+                for (int bin = edges[band]; bin < edges[band + 1]; bin++) {
+                    
+                    energy += re[bin] * re[bin] + im[bin] * im[bin];
+                }
+                
+                energies[band] = energy;
+            }
+            
+            if (frame > 0) {
+                
+                int bits = 0;
+                
+                for (int band = 0; band < BANDS - 1; band++) {
+                    
+                    double change = energies[band] - energies[band + 1] - (previous[band] - previous[band + 1]);
+                    
+                    bits = bits << 1 | (change > 0 ? 1 : 0);
+                }
+                
+                frames[frame - 1] = (short) bits;
+            }
+            
+            double[] swap = previous;
+            previous = energies;
+            energies = swap;
+        }
+        
+        return new AudioFingerprint(frames);
+    }
+    
+    /**
+     * @param encoded
+     *            A fingerprint as given by {@link #encode()}
+     * @return The fingerprint
+     * @throws IllegalArgumentException
+     *             When it's not a fingerprint
+     */
+    static AudioFingerprint decode(String encoded) {
+        
+        ShortBuffer shorts = ByteBuffer.wrap(Base64.getDecoder().decode(encoded)).asShortBuffer();
+        short[] frames = new short[shorts.remaining()];
+        
+        shorts.get(frames);
+        
+        return new AudioFingerprint(frames);
+    }
+    
+    /**
+     * @return The fingerprint as text, for storing
+     */
+    String encode() {
+        
+        ByteBuffer bytes = ByteBuffer.allocate(2 * this.frames.length);
+        
+        bytes.asShortBuffer().put(this.frames);
+        
+        return Base64.getEncoder().encodeToString(bytes.array());
+    }
+    
+    /**
+     * @return true when the fingerprint is long enough to be matched
+     */
+    boolean isMatchable() {
+        
+        return this.frames.length >= MIN_FRAMES;
+    }
+    
+    /**
+     * @param other
+     *            Another fingerprint
+     * @return true when both are long enough, about as long as each other,
+     *         and the same audio
+     */
+    boolean matches(AudioFingerprint other) {
+        
+        int longest = Math.max(this.frames.length, other.frames.length);
+        int shortest = Math.min(this.frames.length, other.frames.length);
+        
+        return isMatchable() && other.isMatchable() && longest - shortest <= longest / 10
+                && bitErrorRate(other) <= MAX_BIT_ERROR_RATE;
+    }
+    
+    /**
+     * @return The share of differing bits at the best alignment, 1 when they
+     *         never overlap by 3 quarters of the shorter one
+     */
+    double bitErrorRate(AudioFingerprint other) {
+        
+        int minOverlap = Math.max(1, Math.min(this.frames.length, other.frames.length) * 3 / 4);
+        double best = 1;
+        
+        for (int shift = -MAX_SHIFT; shift <= MAX_SHIFT; shift++) {
+            
+            int from = Math.max(0, -shift);
+            int to = Math.min(this.frames.length, other.frames.length - shift);
+            
+            if (to - from < minOverlap) {
+                
+                continue;
+            }
+            
+            int errors = 0;
+            
+            for (int i = from; i < to; i++) {
+                
+                errors += Integer.bitCount((this.frames[i] ^ other.frames[i + shift]) & 0xFFFF);
+            }
+            
+            best = Math.min(best, errors / (16.0 * (to - from)));
+        }
+        
+        return best;
+    }
+    
+    /**
+     * @return The first FFT bin of every band, and the end of the last
+     */
+    private static int[] bandEdges(int rate, int size) {
+        
+        double high = Math.min(HIGH_HZ, rate / 2.0);
+        int[] edges = new int[BANDS + 1];
+        
+        for (int band = 0; band <= BANDS; band++) {
+            
+            double hz = LOW_HZ * Math.pow(high / LOW_HZ, (double) band / BANDS);
+            
+            edges[band] = (int) Math.round(hz * size / rate);
+            
+            if (band > 0) {
+                
+                edges[band] = Math.max(edges[band], edges[band - 1] + 1);
+            }
+        }
+        
+        edges[BANDS] = Math.min(edges[BANDS], size / 2);
+        
+        return edges;
+    }
+    
+    /**
+     * In place radix 2 FFT, the length must be a power of two.
+     */
+    private static void fft(double[] re, double[] im) {
+        
+        int n = re.length;
+        
+        for (int i = 1, j = 0; i < n; i++) {
+            
+            int bit = n >> 1;
+            
+            for (; (j & bit) != 0; bit >>= 1) {
+                
+                j ^= bit;
+            }
+            
+            j ^= bit;
+            
+            if (i < j) {
+                
+                double t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        
+        for (int length = 2; length <= n; length <<= 1) {
+            
+            double angle = -2 * Math.PI / length;
+            double stepRe = Math.cos(angle);
+            double stepIm = Math.sin(angle);
+            
+            for (int start = 0; start < n; start += length) {
+                
+                double wRe = 1;
+                double wIm = 0;
+                
+                for (int k = 0; k < length / 2; k++) {
+                    
+                    int a = start + k;
+                    int b = a + length / 2;
+                    double tRe = re[b] * wRe - im[b] * wIm;
+                    double tIm = re[b] * wIm + im[b] * wRe;
+                    
+                    re[b] = re[a] - tRe;
+                    im[b] = im[a] - tIm;
+                    re[a] += tRe;
+                    im[a] += tIm;
+                    
+                    double next = wRe * stepRe - wIm * stepIm;
+                    wIm = wRe * stepIm + wIm * stepRe;
+                    wRe = next;
+                }
+            }
+        }
+    }
+}
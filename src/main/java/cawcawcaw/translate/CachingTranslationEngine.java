@@ -0,0 +1,120 @@
+package cawcawcaw.translate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: CachingTranslationEngine.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 3:02:26 PM
+ */
+
+/**
+ * <p>
+ * Puts a {@link TranslationCache} in front of an engine: the utterances of a
+ * batch found in the cache, by key or by fingerprint, are answered right away,
+ * and only the rest are sent to the engine, in a single batch.
+ * 
+ * <pre>
+ * TranslationCache cache = new TranslationCache(Paths.get(".cawcawcaw/translations"));
+ * TranslationEngine engine = new CachingTranslationEngine(TranslationEngines.create("stub", config), cache,
+ *         "stub ja-en");
+ * </pre>
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.CachingTranslationEngine
+ *
+ */
+public class CachingTranslationEngine implements TranslationEngine {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(CachingTranslationEngine.class);
+    // # Logging stuff
+    
+    private final TranslationEngine engine;
+    
+    private final TranslationCache cache;
+    
+    private final String context;
+    
+    /**
+     * @param engine
+     *            The engine translating the misses, closed with this engine
+     * @param cache
+     *            The cache
+     * @param context
+     *            Whatever else changes the translation, like the languages,
+     *            it is part of the cache keys
+     */
+    public CachingTranslationEngine(TranslationEngine engine, TranslationCache cache, String context) {
+        
+        this.engine = engine;
+        this.cache = cache;
+        this.context = context;
+    }
+    
+    @Override
+    public String getName() {
+        
+        return this.engine.getName();
+    }
+    
+    @Override
+    public List<Transcript> translate(List<Utterance> batch) throws IOException {
+        
+        Transcript[] transcripts = new Transcript[batch.size()];
+        List<Utterance> misses = new ArrayList<>();
+        
+        for (int i = 0; i < batch.size(); i++) {
+            
+            transcripts[i] = this.cache.get(batch.get(i), this.context);
+            
+            if (Objects.isNull(transcripts[i])) {
+                
+                misses.add(batch.get(i));
+            }
+        }
+        
+        if (misses.isEmpty()) {
+            
+            return Arrays.asList(transcripts);
+        }
+        
+        List<Transcript> translated = this.engine.translate(misses);
+        
+        if (translated.size() != misses.size()) {
+            
+            throw new IOException(String.format("%s returned %d transcripts for %d utterances", this.engine.getName(),
+                    translated.size(), misses.size()));
+        }
+        
+        for (int i = 0, miss = 0; i < transcripts.length; i++) {
+            
+            if (Objects.isNull(transcripts[i])) {
+                
+                transcripts[i] = translated.get(miss++);
+                this.cache.put(batch.get(i), this.context, transcripts[i]);
+            }
+        }
+        
+        return Arrays.asList(transcripts);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        
+        logger.info(this.cache.toString());
+        
+        this.engine.close();
+    }
+}
@@ -0,0 +1,166 @@
+package cawcawcaw.translate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: StubTranslationEngine.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 9:31:56 PM
+ */
+
+/**
+ * <p>
+ * An in-process engine, named <code>stub</code>, for running the pipeline
+ * offline. The text it returns is made up from a checksum of the samples, so
+ * the same audio always gives the same transcript.
+ * 
+ * <p>
+ * It can pretend to be a real service to load test the pipeline:
+ * 
+ * <ul>
+ * 
+ * <li><code>stub.latency.millis</code>: the fixed cost of a request, 0 by
+ * default</li>
+ * 
+ * <li><code>stub.realtime.factor</code>: the cost per millisecond of audio,
+ * 0.1 makes a 10 second utterance take a second, 0 by default</li>
+ * 
+ * </ul>
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.StubTranslationEngine
+ *
+ */
+public class StubTranslationEngine implements TranslationEngine {
+    
+    private static final String[] SOURCE_WORDS = { "ohayou", "arigatou", "sumimasen", "daijoubu", "sugoi", "nani",
+            "itadakimasu", "ganbatte", "wakatta", "hontou" };
+    
+    private static final String[] TARGET_WORDS = { "good morning", "thank you", "excuse me", "it's fine",
+            "amazing", "what", "let's eat", "do your best", "got it", "really" };
+    
+    private final String sourceLanguage;
+    
+    private final String targetLanguage;
+    
+    private final long latencyMillis;
+    
+    private final double realtimeFactor;
+    
+    /**
+     * @param config
+     *            The settings, see the class documentation
+     */
+    public StubTranslationEngine(Properties config) {
+        
+        this.sourceLanguage = config.getProperty(TranslationEngines.SOURCE_LANGUAGE, "ja");
+        this.targetLanguage = config.getProperty(TranslationEngines.TARGET_LANGUAGE, "en");
+        this.latencyMillis = Long.parseLong(config.getProperty("stub.latency.millis", "0"));
+        this.realtimeFactor = Double.parseDouble(config.getProperty("stub.realtime.factor", "0"));
+    }
+    
+    @Override
+    public String getName() {
+        
+        return "stub";
+    }
+    
+    @Override
+    public List<Transcript> translate(List<Utterance> batch) throws IOException {
+        
+        List<Transcript> transcripts = new ArrayList<>(batch.size());
+        long audioMillis = 0;
+        
+        for (Utterance utterance : batch) {
+            
+            transcripts.add(transcribe(utterance));
+            audioMillis += utterance.getDurationMillis();
+        }
+        
+        pretendToWork(this.latencyMillis + (long) (audioMillis * this.realtimeFactor));
+        
+        return transcripts;
+    }
+    
+    private Transcript transcribe(Utterance utterance) {
+        
+        CRC32 crc = new CRC32();
+        ByteBuffer pcm = utterance.getPcm();
+        
+        while (pcm.hasRemaining()) {
+            
+            crc.update(pcm.get());
+        }
+        
+        long checksum = crc.getValue();
+        
+        // about two words a second, at least one
+        int words = (int) Math.max(1, utterance.getDurationMillis() / 500);
+        StringBuilder text = new StringBuilder();
+        StringBuilder translation = new StringBuilder();
+        
+        for (int i = 0; i < words; i++) {
+            
+            int word = (int) (((checksum >>> (i % 8 * 4)) + i) % SOURCE_WORDS.length);
+            
+            text.append(i == 0 ? "" : " ").append(SOURCE_WORDS[word]);
+            translation.append(i == 0 ? "" : ", ").append(TARGET_WORDS[word]);
+        }
+        
+        return new Transcript(utterance, this.sourceLanguage, text.toString(), this.targetLanguage,
+                translation.toString());
+    }
+    
+    private static void pretendToWork(long millis) throws IOException {
+        
+        if (millis <= 0) {
+            
+            return;
+        }
+        
+        try {
+            
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            
+            Thread.currentThread().interrupt();
+            
+            throw new InterruptedIOException("Interrupted while translating");
+        }
+    }
+    
+    /**
+     * <p>
+     * Registers the stub engine under the name <code>stub</code>.
+     * 
+     * @author sidmishraw
+     *
+     *         Qualified Name: cawcawcaw.translate.StubTranslationEngine.Provider
+     *
+     */
+    public static final class Provider implements TranslationEngineProvider {
+        
+        @Override
+        public String getName() {
+            
+            return "stub";
+        }
+        
+        @Override
+        public TranslationEngine create(Properties config) {
+            
+            return new StubTranslationEngine(config);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package cawcawcaw.translate;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: Transcript.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 9:11:37 PM
+ */
+
+/**
+ * <p>
+ * What was said in an {@link Utterance} and its translation, with the
+ * utterance's timing so it can become a subtitle.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.Transcript
+ *
+ */
+public final class Transcript {
+    
+    private final int index;
+    
+    private final long startMillis;
+    
+    private final long endMillis;
+    
+    private final String sourceLanguage;
+    
+    private final String text;
+    
+    private final String targetLanguage;
+    
+    private final String translation;
+    
+    /**
+     * @param utterance
+     *            The utterance transcribed
+     * @param sourceLanguage
+     *            The language spoken, as an ISO 639-1 code
+     * @param text
+     *            What was said
+     * @param targetLanguage
+     *            The language translated to, as an ISO 639-1 code
+     * @param translation
+     *            The translation of what was said
+     */
+    public Transcript(Utterance utterance, String sourceLanguage, String text, String targetLanguage,
+            String translation) {
+        
+        this(utterance.getIndex(), utterance.getStartMillis(), utterance.getEndMillis(), sourceLanguage, text,
+                targetLanguage, translation);
+    }
+    
+    /**
+     * @param index
+     *            The position of the utterance in the episode
+     * @param startMillis
+     *            When the utterance starts, in milliseconds
+     * @param endMillis
+     *            When the utterance ends, in milliseconds
+     * @param sourceLanguage
+     *            The language spoken, as an ISO 639-1 code
+     * @param text
+     *            What was said
+     * @param targetLanguage
+     *            The language translated to, as an ISO 639-1 code
+     * @param translation
+     *            The translation of what was said
+     */
+    public Transcript(int index, long startMillis, long endMillis, String sourceLanguage, String text,
+            String targetLanguage, String translation) {
+        
+        this.index = index;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.sourceLanguage = sourceLanguage;
+        this.text = text;
+        this.targetLanguage = targetLanguage;
+        this.translation = translation;
+    }
+    
+    /**
+     * @return The position of the utterance in the episode
+     */
+    public int getIndex() {
+        
+        return this.index;
+    }
+    
+    /**
+     * @return When the utterance starts, in milliseconds
+     */
+    public long getStartMillis() {
+        
+        return this.startMillis;
+    }
+    
+    /**
+     * @return When the utterance ends, in milliseconds
+     */
+    public long getEndMillis() {
+        
+        return this.endMillis;
+    }
+    
+    /**
+     * @return The language spoken, as an ISO 639-1 code
+     */
+    public String getSourceLanguage() {
+        
+        return this.sourceLanguage;
+    }
+    
+    /**
+     * @return What was said
+     */
+    public String getText() {
+        
+        return this.text;
+    }
+    
+    /**
+     * @return The language translated to, as an ISO 639-1 code
+     */
+    public String getTargetLanguage() {
+        
+        return this.targetLanguage;
+    }
+    
+    /**
+     * @return The translation of what was said
+     */
+    public String getTranslation() {
+        
+        return this.translation;
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("#%d [%d ms - %d ms] (%s) %s -> (%s) %s", this.index, this.startMillis, this.endMillis,
+                this.sourceLanguage, this.text, this.targetLanguage, this.translation);
+    }
+}
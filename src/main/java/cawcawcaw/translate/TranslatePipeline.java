@@ -0,0 +1,261 @@
+package cawcawcaw.translate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.audio.AudioTarget;
+import cawcawcaw.audio.ResampleStage;
+import cawcawcaw.io.MediaInput;
+import cawcawcaw.pcm.PcmRing;
+import cawcawcaw.pcm.PcmSink;
+import cawcawcaw.pipeline.DecodeStage;
+import cawcawcaw.pipeline.DemuxSource;
+import cawcawcaw.pipeline.MediaStreams;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.pipeline.PipelineException;
+import cawcawcaw.pool.Pooled;
+import cawcawcaw.subtitle.SubtitleFormat;
+import cawcawcaw.subtitle.SubtitleWriter;
+import cawcawcaw.vad.VoiceActivityDetector;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaDescriptor;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: TranslatePipeline.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 11:06:33 AM
+ */
+
+/**
+ * <p>
+ * Translates the first audio stream of a media file, end to end: the audio
+ * is demuxed and decoded like in the <code>Humble102</code> and
+ * <code>Humble103</code> loops, resampled to {@link AudioTarget#SPEECH},
+ * written to a {@link PcmRing}, cut into {@link Utterance}s and sent to a
+ * {@link TranslationEngine}.
+ * 
+ * <pre>
+ * List&lt;Transcript&gt; transcripts = new TranslatePipeline("episode01.mkv", engine).translate();
+ * </pre>
+ * 
+ * <p>
+ * Decoding and translating are 2 pipelines run together, the ring between
+ * them holds the audio the translation hasn't caught up with yet. With the
+ * <code>stub</code> engine set up like a slow service this load tests the
+ * whole chain, see {@link #main(String[])}.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.TranslatePipeline
+ *
+ */
+public class TranslatePipeline {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(TranslatePipeline.class);
+    // # Logging stuff
+    
+    private final String inputPath;
+    
+    private final TranslationEngine engine;
+    
+    private int batchSize = 4;
+    
+    private int concurrency = 2;
+    
+    private double ringSeconds = 30;
+    
+    private boolean voiceActivity = true;
+    
+    private MediaInput input = MediaInput.path();
+    
+    /**
+     * @param inputPath
+     *            The media file to translate
+     * @param engine
+     *            The engine to translate with, owned by the caller
+     */
+    public TranslatePipeline(String inputPath, TranslationEngine engine) {
+        
+        this.inputPath = inputPath;
+        this.engine = engine;
+    }
+    
+    /**
+     * @param batchSize
+     *            The number of utterances per request, 4 by default
+     * @param concurrency
+     *            The max number of requests in flight, 2 by default
+     * @return this
+     */
+    public TranslatePipeline withRequests(int batchSize, int concurrency) {
+        
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        
+        return this;
+    }
+    
+    /**
+     * @param ringSeconds
+     *            How much decoded audio can wait for the translation, 30
+     *            seconds by default. Decoding waits once it is full.
+     * @return this
+     */
+    public TranslatePipeline withRingSeconds(double ringSeconds) {
+        
+        if (ringSeconds <= 0) {
+            
+            throw new IllegalArgumentException("Ring duration must be positive, got " + ringSeconds);
+        }
+        
+        this.ringSeconds = ringSeconds;
+        
+        return this;
+    }
+    
+    /**
+     * @param voiceActivity
+     *            true to only translate speech, see
+     *            {@link UtteranceSource#withVoiceActivity}, the default; false
+     *            to translate all the audio
+     * @return this
+     */
+    public TranslatePipeline withVoiceActivity(boolean voiceActivity) {
+        
+        this.voiceActivity = voiceActivity;
+        
+        return this;
+    }
+    
+    /**
+     * @param input
+     *            How the input file is read, see {@link MediaInput}. Paths are
+     *            handed to FFmpeg by default.
+     * @return this
+     */
+    public TranslatePipeline withInput(MediaInput input) {
+        
+        this.input = input;
+        
+        return this;
+    }
+    
+    /**
+     * Runs the translation, blocking until all the audio is translated.
+     * 
+     * @return The transcripts, in order
+     * @throws IOException
+     *             When the input can't be read or has no audio stream
+     * @throws PipelineException
+     *             When decoding or translating failed
+     */
+    public List<Transcript> translate() throws IOException, InterruptedException, PipelineException {
+        
+        Demuxer demuxer = Demuxer.make();
+        
+        try {
+            
+            this.input.open(demuxer, this.inputPath, true, null);
+            
+            DemuxerStream stream = MediaStreams.firstOfType(demuxer, MediaDescriptor.Type.MEDIA_AUDIO);
+            
+            if (Objects.isNull(stream)) {
+                
+                throw new IOException(
+                        String.format("Audio stream not found or couldn't be decoded in %s", this.inputPath));
+            }
+            
+            Decoder decoder = stream.getDecoder();
+            decoder.open(null, null);
+            
+            AudioTarget speech = AudioTarget.SPEECH;
+            PcmRing ring = PcmRing.forDuration(speech.getSampleRate(), 2 * speech.getChannels(), this.ringSeconds);
+            
+            // registered before decoding starts, so that it sees every byte
+            UtteranceSource utterances = new UtteranceSource(ring.reader(), speech.getSampleRate(),
+                    speech.getChannels());
+            
+            if (this.voiceActivity) {
+                
+                utterances.withVoiceActivity(new VoiceActivityDetector(speech.getSampleRate(),
+                        (start, end) -> logger.debug("Speech from {} to {} ms", start, end)));
+            }
+            
+            logger.info(String.format("Translating audio stream #%d (%s) of %s with %s", stream.getIndex(),
+                    decoder.getCodec().getName(), this.inputPath, this.engine.getName()));
+            
+            Pipeline<Pooled<MediaAudio>> decoded = Pipeline.from("demux", new DemuxSource(demuxer, stream.getIndex()))
+                    .then("decode", DecodeStage.audio(decoder));
+            
+            if (!speech.equals(AudioTarget.of(decoder))) {
+                
+                decoded = decoded.then("resample", new ResampleStage(speech));
+            }
+            
+            List<Transcript> transcripts = Collections.synchronizedList(new ArrayList<>());
+            
+            Pipeline.runAll(decoded.to("pcm", new PcmSink(ring)),
+                    Pipeline.from("chunk", utterances)
+                            .then("translate", new TranslateStage(this.engine).withBatchSize(this.batchSize)
+                                    .withConcurrency(this.concurrency))
+                            .to("collect", transcripts::add));
+            
+            return new ArrayList<>(transcripts);
+        } finally {
+            
+            // close resources
+            demuxer.close();
+        }
+    }
+    
+    /**
+     * Translates a media file and logs how fast it went compared to real time.
+     * The engine is <code>stub</code> unless named, and is set up from the
+     * system properties, <code>-Dstub.realtime.factor=0.1</code> for example.
+     * 
+     * @param args
+     *            The input file, then optionally the engine name and a
+     *            subtitle file (.srt or .ass) to write the translations to
+     */
+    public static void main(String[] args) throws Exception {
+        
+        if (args.length < 1 || args.length > 3) {
+            
+            throw new Exception("Need the file to translate, and optionally the engine and the subtitle file");
+        }
+        
+        String name = args.length > 1 ? args[1] : "stub";
+        
+        try (TranslationEngine engine = TranslationEngines.create(name, System.getProperties())) {
+            
+            long started = System.nanoTime();
+            List<Transcript> transcripts = new TranslatePipeline(args[0], engine).translate();
+            double seconds = (System.nanoTime() - started) / 1e9;
+            long audioMillis = transcripts.stream().mapToLong(t -> t.getEndMillis() - t.getStartMillis()).sum();
+            
+            logger.info(String.format("%d transcripts, %.1fs of speech translated in %.1fs (%.1fx real time)",
+                    transcripts.size(), audioMillis / 1000.0, seconds, audioMillis / 1000.0 / seconds));
+            
+            if (args.length > 2) {
+                
+                SubtitleFormat format = args[2].endsWith(".ass") ? SubtitleFormat.ASS : SubtitleFormat.SRT;
+                
+                new SubtitleWriter(Paths.get(args[2]), format).write(transcripts);
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package cawcawcaw.translate;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cawcawcaw.pipeline.Emitter;
+import cawcawcaw.pipeline.Stage;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: TranslateStage.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 10:06:44 PM
+ */
+
+/**
+ * <p>
+ * Sends {@link Utterance}s to a {@link TranslationEngine} in batches, with
+ * several batches in flight at once, and emits the {@link Transcript}s in the
+ * order of the utterances.
+ * 
+ * <p>
+ * Translation services are slow per request but happy to take many requests
+ * at once, so the stage keeps up to <i>concurrency</i> batches going while it
+ * collects the next one. When all of them are busy it waits for the oldest
+ * one, which is the backpressure on the rest of the pipeline.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.TranslateStage
+ *
+ */
+public class TranslateStage implements Stage<Utterance, Transcript> {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(TranslateStage.class);
+    // # Logging stuff
+    
+    private final TranslationEngine engine;
+    
+    private int batchSize = 4;
+    
+    private int concurrency = 2;
+    
+    private ExecutorService executor;
+    
+    private final Deque<Future<List<Transcript>>> inFlight = new ArrayDeque<>();
+    
+    private List<Utterance> batch = new ArrayList<>();
+    
+    /**
+     * @param engine
+     *            The engine to translate with, owned by the caller
+     */
+    public TranslateStage(TranslationEngine engine) {
+        
+        this.engine = engine;
+    }
+    
+    /**
+     * @param batchSize
+     *            The number of utterances per request, 4 by default
+     * @return this
+     */
+    public TranslateStage withBatchSize(int batchSize) {
+        
+        if (batchSize <= 0) {
+            
+            throw new IllegalArgumentException("Batch size must be positive, got " + batchSize);
+        }
+        
+        this.batchSize = batchSize;
+        
+        return this;
+    }
+    
+    /**
+     * @param concurrency
+     *            The max number of requests in flight, 2 by default
+     * @return this
+     */
+    public TranslateStage withConcurrency(int concurrency) {
+        
+        if (concurrency <= 0) {
+            
+            throw new IllegalArgumentException("Concurrency must be positive, got " + concurrency);
+        }
+        
+        this.concurrency = concurrency;
+        
+        return this;
+    }
+    
+    @Override
+    public void process(Utterance utterance, Emitter<Transcript> output) throws Exception {
+        
+        this.batch.add(utterance);
+        
+        if (this.batch.size() >= this.batchSize) {
+            
+            submit(output);
+        }
+        
+        // pass on whatever is done already, in order
+        while (!this.inFlight.isEmpty() && this.inFlight.peek().isDone()) {
+            
+            emit(this.inFlight.poll(), output);
+        }
+    }
+    
+    @Override
+    public void flush(Emitter<Transcript> output) throws Exception {
+        
+        if (!this.batch.isEmpty()) {
+            
+            submit(output);
+        }
+        
+        while (!this.inFlight.isEmpty()) {
+            
+            emit(this.inFlight.poll(), output);
+        }
+    }
+    
+    @Override
+    public void close() {
+        
+        if (!Objects.isNull(this.executor)) {
+            
+            this.executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Sends the current batch, after waiting for the oldest batch if all the
+     * requests are in flight.
+     */
+    private void submit(Emitter<Transcript> output) throws Exception {
+        
+        while (this.inFlight.size() >= this.concurrency) {
+            
+            emit(this.inFlight.poll(), output);
+        }
+        
+        if (Objects.isNull(this.executor)) {
+            
+            AtomicInteger threads = new AtomicInteger();
+            
+            this.executor = Executors.newFixedThreadPool(this.concurrency, task -> {
+                
+                Thread thread = new Thread(task, String.format("translate-%s-%d", this.engine.getName(),
+                        threads.incrementAndGet()));
+                
+                thread.setDaemon(true);
+                
+                return thread;
+            });
+        }
+        
+        List<Utterance> requested = this.batch;
+        
+        this.batch = new ArrayList<>(this.batchSize);
+        this.inFlight.add(this.executor.submit(() -> translate(requested)));
+    }
+    
+    private List<Transcript> translate(List<Utterance> requested) throws IOException {
+        
+        long start = System.nanoTime();
+        List<Transcript> transcripts = this.engine.translate(requested);
+        
+        if (transcripts.size() != requested.size()) {
+            
+            throw new IOException(String.format("%s returned %d transcripts for %d utterances", this.engine.getName(),
+                    transcripts.size(), requested.size()));
+        }
+        
+        if (logger.isDebugEnabled()) {
+            
+            logger.debug("Translated utterances #{}-#{} in {} ms", requested.get(0).getIndex(),
+                    requested.get(requested.size() - 1).getIndex(), (System.nanoTime() - start) / 1000000);
+        }
+        
+        return transcripts;
+    }
+    
+    private static void emit(Future<List<Transcript>> result, Emitter<Transcript> output) throws Exception {
+        
+        List<Transcript> transcripts;
+        
+        try {
+            
+            transcripts = result.get();
+        } catch (ExecutionException e) {
+            
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        
+        for (Transcript transcript : transcripts) {
+            
+            output.emit(transcript);
+        }
+    }
+}
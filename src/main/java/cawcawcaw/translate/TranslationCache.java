@@ -0,0 +1,858 @@
+package cawcawcaw.translate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: TranslationCache.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 1:40:07 PM
+ */
+
+/**
+ * <p>
+ * Remembers translations on disk, so that audio heard before -- the opening
+ * and ending of every episode, a re-run of the same source -- is never paid
+ * for twice. The recently used entries are also kept in memory.
+ * 
+ * <p>
+ * Entries are keyed by a SHA-256 of the samples, their format and a context
+ * string (the engine and languages), which only hits on the exact same
+ * samples. Utterances looked up with {@link #get(Utterance, String)} fall back
+ * to an {@link AudioFingerprint}, which also finds the same audio after a lossy
+ * re-encode or cut a few milliseconds apart. The fingerprints of the most
+ * recently used entries are searched, 4096 by default.
+ * 
+ * <p>
+ * Each entry is a small properties file under the cache directory. Entries
+ * unused for longer than the max age are evicted, and the least recently used
+ * entries go first when the cache outgrows its max size. It is safe to use
+ * from several threads, and from several processes sharing the directory.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.TranslationCache
+ *
+ */
+public final class TranslationCache {
+    
+    // # Logging stuff
+    private static final Logger logger = LoggerFactory.getLogger(TranslationCache.class);
+    // # Logging stuff
+    
+    private static final String SUFFIX = ".properties";
+    
+    private final Path directory;
+    
+    /**
+     * How often a memory hit marks its file as used, so that eviction doesn't
+     * take the hottest entries first.
+     */
+    long touchMillis = TimeUnit.MINUTES.toMillis(1);
+    
+    private int memoryEntries = 1024;
+    
+    private int fuzzyEntries = 4096;
+    
+    private long maxBytes = 256L << 20;
+    
+    private long maxAgeMillis = TimeUnit.DAYS.toMillis(90);
+    
+    private final Map<String, Cached> memory = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+        
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            
+            return size() > TranslationCache.this.memoryEntries;
+        }
+    };
+    
+    /**
+     * The entries with a fingerprint, by key, loaded from disk on the first
+     * fuzzy lookup.
+     */
+    private final Map<String, Cached> fingerprints = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+        
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            
+            return size() > TranslationCache.this.fuzzyEntries;
+        }
+    };
+    
+    private boolean fingerprintsLoaded;
+    
+    private final AtomicLong diskBytes = new AtomicLong();
+    
+    // # Metrics
+    private final AtomicLong memoryHits = new AtomicLong();
+    
+    private final AtomicLong diskHits = new AtomicLong();
+    
+    private final AtomicLong fuzzyHits = new AtomicLong();
+    
+    private final AtomicLong misses = new AtomicLong();
+    
+    private final AtomicLong puts = new AtomicLong();
+    
+    private final AtomicLong evictions = new AtomicLong();
+    // # Metrics
+    
+    /**
+     * Opens the cache in a directory, making it if needed, and evicts the
+     * entries over age.
+     * 
+     * @param directory
+     *            The directory of the cache
+     * @throws IOException
+     *             When the directory can't be made or read
+     */
+    public TranslationCache(Path directory) throws IOException {
+        
+        this.directory = Files.createDirectories(directory);
+        
+        evict();
+    }
+    
+    /**
+     * @param memoryEntries
+     *            The number of entries kept in memory, 1024 by default
+     * @return this
+     */
+    public TranslationCache withMemoryEntries(int memoryEntries) {
+        
+        synchronized (this.memory) {
+            
+            this.memoryEntries = memoryEntries;
+        }
+        
+        return this;
+    }
+    
+    /**
+     * @param fuzzyEntries
+     *            The number of most recently used entries whose fingerprints
+     *            are searched, 4096 by default, 0 for exact hits only
+     * @return this
+     */
+    public TranslationCache withFuzzyEntries(int fuzzyEntries) {
+        
+        synchronized (this.fingerprints) {
+            
+            this.fuzzyEntries = fuzzyEntries;
+        }
+        
+        return this;
+    }
+    
+    /**
+     * @param maxBytes
+     *            The max size of the cache on disk, 256MB by default
+     * @return this
+     */
+    public TranslationCache withMaxBytes(long maxBytes) {
+        
+        this.maxBytes = maxBytes;
+        
+        return this;
+    }
+    
+    /**
+     * @param maxAge
+     *            How long an entry can go unused before it's evicted, 90 days
+     *            by default
+     * @param unit
+     *            The unit of the max age
+     * @return this
+     */
+    public TranslationCache withMaxAge(long maxAge, TimeUnit unit) {
+        
+        this.maxAgeMillis = unit.toMillis(maxAge);
+        
+        return this;
+    }
+    
+    /**
+     * @param utterance
+     *            The utterance
+     * @param context
+     *            Whatever else changes the translation, like the engine and
+     *            the languages
+     * @return The key of the utterance's translation
+     */
+    public static String key(Utterance utterance, String context) {
+        
+        MessageDigest digest;
+        
+        try {
+            
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            
+            // every JVM has SHA-256
+            throw new IllegalStateException(e);
+        }
+        
+        digest.update(context.getBytes(StandardCharsets.UTF_8));
+        digest.update(ByteBuffer.allocate(8).putInt(utterance.getSampleRate()).putInt(utterance.getChannels())
+                .array());
+        digest.update(utterance.getPcm());
+        
+        StringBuilder key = new StringBuilder();
+        
+        for (byte b : digest.digest()) {
+            
+            key.append(String.format("%02x", b));
+        }
+        
+        return key.toString();
+    }
+    
+    /**
+     * @param key
+     *            The key of the translation
+     * @param utterance
+     *            The utterance, for the timing of the transcript
+     * @return The cached transcript of the utterance, null when missing
+     * @throws IOException
+     *             When the entry can't be read
+     */
+    public Transcript get(String key, Utterance utterance) throws IOException {
+        
+        Cached entry = load(key, true);
+        
+        if (Objects.isNull(entry)) {
+            
+            this.misses.incrementAndGet();
+            
+            return null;
+        }
+        
+        return entry.toTranscript(utterance);
+    }
+    
+    /**
+     * Looks the utterance up by its key, then by its fingerprint.
+     * 
+     * @param utterance
+     *            The utterance
+     * @param context
+     *            Whatever else changes the translation, like the engine and
+     *            the languages
+     * @return The cached transcript of the utterance, null when missing
+     * @throws IOException
+     *             When an entry can't be read
+     */
+    public Transcript get(Utterance utterance, String context) throws IOException {
+        
+        Cached entry = load(key(utterance, context), true);
+        
+        if (Objects.isNull(entry)) {
+            
+            entry = find(AudioFingerprint.of(utterance), context);
+        }
+        
+        if (Objects.isNull(entry)) {
+            
+            this.misses.incrementAndGet();
+            
+            return null;
+        }
+        
+        return entry.toTranscript(utterance);
+    }
+    
+    /**
+     * @param key
+     *            The key of the translation
+     * @param transcript
+     *            The transcript to remember
+     * @throws IOException
+     *             When the entry can't be written
+     */
+    public void put(String key, Transcript transcript) throws IOException {
+        
+        store(key, new Cached(transcript, null, null));
+    }
+    
+    /**
+     * Remembers the transcript with the fingerprint of its utterance, to be
+     * found by {@link #get(Utterance, String)}.
+     * 
+     * @param utterance
+     *            The utterance
+     * @param context
+     *            Whatever else changes the translation, like the engine and
+     *            the languages
+     * @param transcript
+     *            The transcript to remember
+     * @throws IOException
+     *             When the entry can't be written
+     */
+    public void put(Utterance utterance, String context, Transcript transcript) throws IOException {
+        
+        AudioFingerprint fingerprint = AudioFingerprint.of(utterance);
+        String key = key(utterance, context);
+        Cached entry = new Cached(transcript, context, fingerprint.isMatchable() ? fingerprint : null);
+        
+        store(key, entry);
+        index(key, entry);
+    }
+    
+    private void store(String key, Cached entry) throws IOException {
+        
+        synchronized (this.memory) {
+            
+            this.memory.put(key, entry);
+        }
+        
+        Path file = fileOf(key);
+        Path temporary = Files.createTempFile(Files.createDirectories(file.getParent()), key, ".tmp");
+        
+        try {
+            
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                
+                entry.toProperties().store(writer, null);
+            }
+            
+            long size = Files.size(temporary);
+            
+            try {
+                
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            
+            this.puts.incrementAndGet();
+            
+            if (this.diskBytes.addAndGet(size) > this.maxBytes) {
+                
+                evict();
+            }
+        } finally {
+            
+            Files.deleteIfExists(temporary);
+        }
+    }
+    
+    /**
+     * @param key
+     *            The key of the entry
+     * @param counted
+     *            true to count the hit as a memory or disk hit
+     * @return The entry from memory or disk, null when missing or corrupt
+     * @throws IOException
+     *             When the entry can't be read
+     */
+    private Cached load(String key, boolean counted) throws IOException {
+        
+        Path file = fileOf(key);
+        long now = System.currentTimeMillis();
+        Cached entry;
+        
+        synchronized (this.memory) {
+            
+            entry = this.memory.get(key);
+        }
+        
+        if (!Objects.isNull(entry)) {
+            
+            if (now - entry.touched >= this.touchMillis) {
+                
+                entry.touched = now;
+                
+                touch(file, now);
+            }
+            
+            if (counted) {
+                
+                this.memoryHits.incrementAndGet();
+            }
+            
+            return entry;
+        }
+        
+        Properties properties = new Properties();
+        
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            
+            properties.load(reader);
+            
+            entry = new Cached(properties);
+        } catch (NoSuchFileException e) {
+            
+            return null;
+        } catch (IllegalArgumentException e) {
+            
+            // a torn write or a hand edit, translate it again
+            logger.warn(String.format("Deleting corrupt translation cache entry %s: %s", file, e.getMessage()));
+            
+            delete(file);
+            
+            return null;
+        }
+        
+        // keep the entry young, it's still in use
+        entry.touched = now;
+        
+        touch(file, now);
+        
+        synchronized (this.memory) {
+            
+            this.memory.put(key, entry);
+        }
+        
+        if (counted) {
+            
+            this.diskHits.incrementAndGet();
+        }
+        
+        return entry;
+    }
+    
+    private static void touch(Path file, long now) throws IOException {
+        
+        try {
+            
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+        } catch (NoSuchFileException e) {
+            
+            // evicted by someone else, it's stored again on the next miss
+        }
+    }
+    
+    /**
+     * @return The entry whose fingerprint matches best, null when none does
+     */
+    private Cached find(AudioFingerprint fingerprint, String context) throws IOException {
+        
+        if (!fingerprint.isMatchable()) {
+            
+            return null;
+        }
+        
+        String found = null;
+        double best = 1;
+        
+        synchronized (this.fingerprints) {
+            
+            if (!this.fingerprintsLoaded) {
+                
+                loadFingerprints();
+            }
+            
+            for (Map.Entry<String, Cached> candidate : this.fingerprints.entrySet()) {
+                
+                Cached entry = candidate.getValue();
+                
+                if (entry.context.equals(context) && entry.fingerprint.matches(fingerprint)) {
+                    
+                    double rate = entry.fingerprint.bitErrorRate(fingerprint);
+                    
+                    if (rate < best) {
+                        
+                        found = candidate.getKey();
+                        best = rate;
+                    }
+                }
+            }
+            
+            if (Objects.isNull(found)) {
+                
+                return null;
+            }
+            
+            // mark it as recently used
+            this.fingerprints.get(found);
+        }
+        
+        Cached entry = load(found, false);
+        
+        if (!Objects.isNull(entry)) {
+            
+            this.fuzzyHits.incrementAndGet();
+        }
+        
+        return entry;
+    }
+    
+    private void index(String key, Cached entry) {
+        
+        if (Objects.isNull(entry.fingerprint)) {
+            
+            return;
+        }
+        
+        synchronized (this.fingerprints) {
+            
+            this.fingerprints.put(key, entry);
+        }
+    }
+    
+    /**
+     * Reads the fingerprints of the most recently used entries on disk, under
+     * the lock of the fingerprints.
+     */
+    private void loadFingerprints() throws IOException {
+        
+        List<FileEntry> entries = new ArrayList<>();
+        
+        try (Stream<Path> walk = Files.walk(this.directory)) {
+            
+            for (Path file : walk.filter(path -> path.toString().endsWith(SUFFIX)).collect(Collectors.toList())) {
+                
+                try {
+                    
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    
+                    entries.add(new FileEntry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                } catch (NoSuchFileException e) {
+                    
+                    // evicted by someone else
+                }
+            }
+        }
+        
+        // oldest first, so that the newest end up most recently used
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        
+        for (FileEntry entry : entries.subList(Math.max(0, entries.size() - this.fuzzyEntries), entries.size())) {
+            
+            Properties properties = new Properties();
+            
+            try (Reader reader = Files.newBufferedReader(entry.file, StandardCharsets.UTF_8)) {
+                
+                properties.load(reader);
+                
+                Cached cached = new Cached(properties);
+                
+                if (!Objects.isNull(cached.fingerprint) && !this.fingerprints.containsKey(keyOf(entry.file))) {
+                    
+                    this.fingerprints.put(keyOf(entry.file), cached);
+                }
+            } catch (NoSuchFileException | IllegalArgumentException e) {
+                
+                // evicted by someone else, or corrupt and deleted when looked up
+            }
+        }
+        
+        this.fingerprintsLoaded = true;
+        
+        logger.debug(String.format("Loaded %d fingerprints from %s", this.fingerprints.size(), this.directory));
+    }
+    
+    /**
+     * Deletes the entries over age, then the least recently used entries until
+     * the cache is down to 90% of its max size.
+     * 
+     * @throws IOException
+     *             When the directory can't be read
+     */
+    public synchronized void evict() throws IOException {
+        
+        List<Path> files;
+        
+        try (Stream<Path> walk = Files.walk(this.directory)) {
+            
+            files = walk.filter(path -> path.toString().endsWith(SUFFIX)).collect(Collectors.toList());
+        }
+        
+        List<FileEntry> entries = new ArrayList<>(files.size());
+        long total = 0;
+        long oldest = System.currentTimeMillis() - this.maxAgeMillis;
+        int evicted = 0;
+        
+        for (Path file : files) {
+            
+            try {
+                
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                
+                if (attributes.lastModifiedTime().toMillis() < oldest) {
+                    
+                    evicted += delete(file) ? 1 : 0;
+                } else {
+                    
+                    entries.add(new FileEntry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                    total += attributes.size();
+                }
+            } catch (NoSuchFileException e) {
+                
+                // evicted by someone else
+            }
+        }
+        
+        if (total > this.maxBytes) {
+            
+            entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+            
+            for (FileEntry entry : entries) {
+                
+                if (total <= this.maxBytes * 9 / 10) {
+                    
+                    break;
+                }
+                
+                evicted += delete(entry.file) ? 1 : 0;
+                total -= entry.size;
+            }
+        }
+        
+        this.diskBytes.set(total);
+        this.evictions.addAndGet(evicted);
+        
+        if (evicted > 0) {
+            
+            logger.info(String.format("Evicted %d translations from %s, %d bytes left", evicted, this.directory,
+                    total));
+        }
+    }
+    
+    private boolean delete(Path file) throws IOException {
+        
+        String key = keyOf(file);
+        
+        synchronized (this.memory) {
+            
+            this.memory.remove(key);
+        }
+        
+        synchronized (this.fingerprints) {
+            
+            this.fingerprints.remove(key);
+        }
+        
+        return Files.deleteIfExists(file);
+    }
+    
+    private static String keyOf(Path file) {
+        
+        String name = file.getFileName().toString();
+        
+        return name.substring(0, name.length() - SUFFIX.length());
+    }
+    
+    private Path fileOf(String key) {
+        
+        // fan out, so that no directory gets huge
+        return this.directory.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+    
+    /**
+     * @return The number of lookups answered from memory
+     */
+    public long getMemoryHits() {
+        
+        return this.memoryHits.get();
+    }
+    
+    /**
+     * @return The number of lookups answered from disk
+     */
+    public long getDiskHits() {
+        
+        return this.diskHits.get();
+    }
+    
+    /**
+     * @return The number of lookups answered by a matching fingerprint
+     */
+    public long getFuzzyHits() {
+        
+        return this.fuzzyHits.get();
+    }
+    
+    /**
+     * @return The number of lookups that found nothing
+     */
+    public long getMisses() {
+        
+        return this.misses.get();
+    }
+    
+    /**
+     * @return The number of translations stored
+     */
+    public long getPuts() {
+        
+        return this.puts.get();
+    }
+    
+    /**
+     * @return The number of entries evicted
+     */
+    public long getEvictions() {
+        
+        return this.evictions.get();
+    }
+    
+    /**
+     * @return The fraction of lookups that hit, 0 when there were none
+     */
+    public double getHitRate() {
+        
+        long hits = getMemoryHits() + getDiskHits() + getFuzzyHits();
+        long lookups = hits + getMisses();
+        
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+    
+    /**
+     * @return The size of the cache on disk in bytes, as of the last eviction
+     *         plus what was stored since
+     */
+    public long getDiskBytes() {
+        
+        return this.diskBytes.get();
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("TranslationCache %s: %d memory hits, %d disk hits, %d fuzzy hits, %d misses "
+                + "(%.1f%% hit rate), %d puts, %d evictions, %d bytes", this.directory, getMemoryHits(), getDiskHits(),
+                getFuzzyHits(), getMisses(), getHitRate() * 100, getPuts(), getEvictions(), getDiskBytes());
+    }
+    
+    /**
+     * A transcript without its timing, with the fingerprint of its audio when
+     * it was stored with one.
+     */
+    private static final class Cached {
+        
+        final String sourceLanguage;
+        
+        final String text;
+        
+        final String targetLanguage;
+        
+        final String translation;
+        
+        final String context;
+        
+        final AudioFingerprint fingerprint;
+        
+        /**
+         * When the file was last marked as used.
+         */
+        volatile long touched;
+        
+        Cached(Transcript transcript, String context, AudioFingerprint fingerprint) {
+            
+            this.sourceLanguage = transcript.getSourceLanguage();
+            this.text = transcript.getText();
+            this.targetLanguage = transcript.getTargetLanguage();
+            this.translation = transcript.getTranslation();
+            this.context = Objects.isNull(fingerprint) ? null : context;
+            this.fingerprint = fingerprint;
+            this.touched = System.currentTimeMillis();
+        }
+        
+        /**
+         * @throws IllegalArgumentException
+         *             When the entry is corrupt
+         */
+        Cached(Properties properties) {
+            
+            this.sourceLanguage = required(properties, "source.language");
+            this.text = required(properties, "text");
+            this.targetLanguage = required(properties, "target.language");
+            this.translation = required(properties, "translation");
+            
+            String fingerprint = properties.getProperty("fingerprint");
+            
+            this.fingerprint = Objects.isNull(fingerprint) ? null : AudioFingerprint.decode(fingerprint);
+            this.context = Objects.isNull(fingerprint) ? null : required(properties, "context");
+        }
+        
+        Properties toProperties() {
+            
+            Properties properties = new Properties();
+            
+            properties.setProperty("source.language", this.sourceLanguage);
+            properties.setProperty("text", this.text);
+            properties.setProperty("target.language", this.targetLanguage);
+            properties.setProperty("translation", this.translation);
+            
+            if (!Objects.isNull(this.fingerprint)) {
+                
+                properties.setProperty("context", this.context);
+                properties.setProperty("fingerprint", this.fingerprint.encode());
+            }
+            
+            return properties;
+        }
+        
+        Transcript toTranscript(Utterance utterance) {
+            
+            return new Transcript(utterance, this.sourceLanguage, this.text, this.targetLanguage, this.translation);
+        }
+        
+        private static String required(Properties properties, String key) {
+            
+            String value = properties.getProperty(key);
+            
+            if (Objects.isNull(value)) {
+                
+                throw new IllegalArgumentException("no " + key);
+            }
+            
+            return value;
+        }
+    }
+    
+    /**
+     * An entry on disk, for eviction.
+     */
+    private static final class FileEntry {
+        
+        final Path file;
+        
+        final long size;
+        
+        final long lastUsed;
+        
+        FileEntry(Path file, long size, long lastUsed) {
+            
+            this.file = file;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package cawcawcaw.translate;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: TranslationEngine.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 9:18:02 PM
+ */
+
+/**
+ * <p>
+ * A speech to text and translation service. Engines are made by a
+ * {@link TranslationEngineProvider}, looked up by name with
+ * {@link TranslationEngines#create(String, java.util.Properties)}.
+ * 
+ * <p>
+ * {@link TranslateStage} calls {@link #translate(List)} from several threads
+ * at once, engines must be thread safe.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.TranslationEngine
+ *
+ */
+public interface TranslationEngine extends AutoCloseable {
+    
+    /**
+     * @return The name of the engine, for logs
+     */
+    String getName();
+    
+    /**
+     * Transcribes and translates a batch of utterances.
+     * 
+     * @param batch
+     *            The utterances, in order
+     * @return One transcript per utterance, in the same order
+     * @throws IOException
+     *             When the service fails
+     */
+    List<Transcript> translate(List<Utterance> batch) throws IOException;
+    
+    /**
+     * Releases the resources held by the engine, connections and the like.
+     */
+    @Override
+    default void close() throws IOException {
+        
+    }
+}
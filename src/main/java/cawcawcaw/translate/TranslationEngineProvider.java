@@ -0,0 +1,40 @@
+package cawcawcaw.translate;
+
+import java.util.Properties;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: TranslationEngineProvider.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 9:20:45 PM
+ */
+
+/**
+ * <p>
+ * Makes {@link TranslationEngine}s. Providers are found with a
+ * {@link java.util.ServiceLoader}: list the provider class in
+ * <code>META-INF/services/cawcawcaw.translate.TranslationEngineProvider</code>
+ * of the jar shipping the engine.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.TranslationEngineProvider
+ *
+ */
+public interface TranslationEngineProvider {
+    
+    /**
+     * @return The name engines are looked up by
+     */
+    String getName();
+    
+    /**
+     * @param config
+     *            The engine's settings: languages, credentials, endpoints,
+     *            ... each engine documents the keys it reads
+     * @return A new engine
+     */
+    TranslationEngine create(Properties config);
+}
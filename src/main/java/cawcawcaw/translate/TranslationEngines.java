@@ -0,0 +1,73 @@
+package cawcawcaw.translate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.ServiceLoader;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: TranslationEngines.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 9:24:19 PM
+ */
+
+/**
+ * <p>
+ * Looks up the {@link TranslationEngineProvider}s on the classpath.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.TranslationEngines
+ *
+ */
+public final class TranslationEngines {
+    
+    /**
+     * The standard keys of the engine settings.
+     */
+    public static final String SOURCE_LANGUAGE = "source.language";
+    
+    public static final String TARGET_LANGUAGE = "target.language";
+    
+    private TranslationEngines() {
+        
+    }
+    
+    /**
+     * @param name
+     *            The name of the engine
+     * @param config
+     *            The engine's settings
+     * @return A new engine
+     * @throws IllegalArgumentException
+     *             When there is no engine by that name
+     */
+    public static TranslationEngine create(String name, Properties config) {
+        
+        for (TranslationEngineProvider provider : ServiceLoader.load(TranslationEngineProvider.class)) {
+            
+            if (provider.getName().equals(name)) {
+                
+                return provider.create(config);
+            }
+        }
+        
+        throw new IllegalArgumentException(
+                String.format("No translation engine named %s, the engines are %s", name, names()));
+    }
+    
+    /**
+     * @return The names of the engines on the classpath
+     */
+    public static List<String> names() {
+        
+        List<String> names = new ArrayList<>();
+        
+        ServiceLoader.load(TranslationEngineProvider.class).forEach(provider -> names.add(provider.getName()));
+        
+        return names;
+    }
+}
@@ -0,0 +1,131 @@
+package cawcawcaw.translate;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: Utterance.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 9:05:12 PM
+ */
+
+/**
+ * <p>
+ * A chunk of speech sized for a single translation request: signed 16 bit PCM
+ * in native byte order, interleaved when there are several channels, and
+ * where it sits on the timeline of the episode.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.Utterance
+ *
+ */
+public final class Utterance {
+    
+    private final int index;
+    
+    private final long startMillis;
+    
+    private final long endMillis;
+    
+    private final int sampleRate;
+    
+    private final int channels;
+    
+    private final byte[] pcm;
+    
+    /**
+     * @param index
+     *            The position of the utterance in the episode, from 0
+     * @param startMillis
+     *            When the utterance starts, in milliseconds
+     * @param sampleRate
+     *            The sample rate of the PCM
+     * @param channels
+     *            The number of interleaved channels of the PCM
+     * @param pcm
+     *            The samples, owned by the utterance from now on
+     */
+    public Utterance(int index, long startMillis, int sampleRate, int channels, byte[] pcm) {
+        
+        this.index = index;
+        this.startMillis = startMillis;
+        this.endMillis = startMillis + pcm.length / (2L * channels) * 1000 / sampleRate;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.pcm = pcm;
+    }
+    
+    /**
+     * @return The position of the utterance in the episode, from 0
+     */
+    public int getIndex() {
+        
+        return this.index;
+    }
+    
+    /**
+     * @return When the utterance starts, in milliseconds
+     */
+    public long getStartMillis() {
+        
+        return this.startMillis;
+    }
+    
+    /**
+     * @return When the utterance ends, in milliseconds
+     */
+    public long getEndMillis() {
+        
+        return this.endMillis;
+    }
+    
+    /**
+     * @return The length of the utterance in milliseconds
+     */
+    public long getDurationMillis() {
+        
+        return this.endMillis - this.startMillis;
+    }
+    
+    /**
+     * @return The sample rate of the PCM
+     */
+    public int getSampleRate() {
+        
+        return this.sampleRate;
+    }
+    
+    /**
+     * @return The number of interleaved channels of the PCM
+     */
+    public int getChannels() {
+        
+        return this.channels;
+    }
+    
+    /**
+     * @return The number of samples per channel
+     */
+    public int getNumSamples() {
+        
+        return this.pcm.length / (2 * this.channels);
+    }
+    
+    /**
+     * @return A read only view of the samples
+     */
+    public ByteBuffer getPcm() {
+        
+        return ByteBuffer.wrap(this.pcm).asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("Utterance #%d [%d ms - %d ms]", this.index, this.startMillis, this.endMillis);
+    }
+}
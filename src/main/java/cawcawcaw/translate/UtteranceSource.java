@@ -0,0 +1,284 @@
+package cawcawcaw.translate;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+import cawcawcaw.pcm.PcmRing;
+import cawcawcaw.pipeline.Emitter;
+import cawcawcaw.pipeline.Source;
+import cawcawcaw.vad.VoiceActivityDetector;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: UtteranceSource.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 9:47:30 PM
+ */
+
+/**
+ * <p>
+ * Cuts the decoded audio read from a {@link PcmRing} into {@link Utterance}s
+ * sized for translation requests.
+ * 
+ * <p>
+ * The audio is looked at in 20 ms windows. Once an utterance is longer than
+ * the target duration it is cut at the next quiet window, so that cuts fall
+ * in pauses rather than in the middle of words, and it is cut anyway at the
+ * max duration.
+ * 
+ * <p>
+ * The PCM must be signed 16 bit in native byte order, which is what
+ * {@link cawcawcaw.pcm.PcmSink} writes for {@code SAMPLE_FMT_S16} audio.
+ * 
+ * <p>
+ * With {@link #withVoiceActivity(VoiceActivityDetector)} the silence and
+ * music between the lines is skipped instead, so the translation only pays
+ * for speech. Bursts shorter than the detector's min speech are dropped too,
+ * like the detector doesn't report them.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.UtteranceSource
+ *
+ */
+public class UtteranceSource implements Source<Utterance> {
+    
+    private static final int WINDOWS_PER_SECOND = 50;
+    
+    private final PcmRing.Reader reader;
+    
+    private final int sampleRate;
+    
+    private final int channels;
+    
+    private double targetSeconds = 8;
+    
+    private double maxSeconds = 15;
+    
+    private double silenceLevel = 0.02;
+    
+    private VoiceActivityDetector detector;
+    
+    /**
+     * @param reader
+     *            The reader of the decoded audio, closed when done
+     * @param sampleRate
+     *            The sample rate of the PCM
+     * @param channels
+     *            The number of interleaved channels of the PCM
+     */
+    public UtteranceSource(PcmRing.Reader reader, int sampleRate, int channels) {
+        
+        this.reader = reader;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+    }
+    
+    /**
+     * @param targetSeconds
+     *            How long utterances should be, 8 seconds by default
+     * @param maxSeconds
+     *            How long utterances can be at most, 15 seconds by default
+     * @return this
+     */
+    public UtteranceSource withDuration(double targetSeconds, double maxSeconds) {
+        
+        if (targetSeconds <= 0 || maxSeconds < targetSeconds) {
+            
+            throw new IllegalArgumentException(
+                    String.format("Bad utterance durations, target %.2fs and max %.2fs", targetSeconds, maxSeconds));
+        }
+        
+        this.targetSeconds = targetSeconds;
+        this.maxSeconds = maxSeconds;
+        
+        return this;
+    }
+    
+    /**
+     * @param silenceLevel
+     *            The RMS level below which a window is quiet enough to cut
+     *            at, as a fraction of full scale, 0.02 by default
+     * @return this
+     */
+    public UtteranceSource withSilenceLevel(double silenceLevel) {
+        
+        this.silenceLevel = silenceLevel;
+        
+        return this;
+    }
+    
+    /**
+     * Only lets speech through: the utterances are the speech segments found
+     * by the detector, cut further at the max duration, and everything else
+     * is skipped.
+     * 
+     * @param detector
+     *            The detector to listen with, at the sample rate of the PCM
+     * @return this
+     */
+    public UtteranceSource withVoiceActivity(VoiceActivityDetector detector) {
+        
+        if (detector.getSampleRate() != this.sampleRate) {
+            
+            throw new IllegalArgumentException(String.format("The detector listens at %d Hz, the PCM is %d Hz",
+                    detector.getSampleRate(), this.sampleRate));
+        }
+        
+        this.detector = detector;
+        
+        return this;
+    }
+    
+    @Override
+    public void run(Emitter<Utterance> output) throws Exception {
+        
+        int frameBytes = 2 * this.channels;
+        int windowFrames = this.sampleRate / WINDOWS_PER_SECOND;
+        int windowBytes = windowFrames * frameBytes;
+        int targetBytes = (int) (this.targetSeconds * this.sampleRate) * frameBytes;
+        int maxBytes = (int) (this.maxSeconds * this.sampleRate) * frameBytes;
+        
+        // squared, so that the windows can be compared without a sqrt
+        double silence = this.silenceLevel * Short.MAX_VALUE;
+        double silenceSquared = silence * silence;
+        
+        // the windows the detector listened to before it was sure it heard
+        // speech, they belong to the utterance too
+        int preRollWindows = Objects.isNull(this.detector) ? 0
+                : (int) (this.detector.getOnsetMillis() / VoiceActivityDetector.WINDOW_MILLIS) + 1;
+        byte[] preRoll = new byte[preRollWindows * windowBytes];
+        int preRolled = 0;
+        
+        ByteBuffer window = ByteBuffer.allocate(windowBytes).order(ByteOrder.nativeOrder());
+        byte[] utterance = new byte[maxBytes + (preRollWindows + 1) * windowBytes];
+        int length = 0;
+        int index = 0;
+        
+        // the utterance goes on with speech that was cut at the max duration,
+        // which is long enough whatever is left of it
+        boolean continued = false;
+        long position = 0;
+        long startFrame = 0;
+        
+        while (this.reader.readFully(window) > 0) {
+            
+            window.flip();
+            
+            int size = window.remaining();
+            boolean keep;
+            boolean cut;
+            
+            if (Objects.isNull(this.detector)) {
+                
+                keep = true;
+                cut = length + size >= maxBytes || length + size >= targetBytes && meanSquare(window) < silenceSquared;
+            } else {
+                
+                for (int i = 0; i < size / frameBytes; i++) {
+                    
+                    this.detector.sample(window.getShort(i * frameBytes) / 32768f);
+                }
+                
+                if (this.detector.isSpeech() && length == 0) {
+                    
+                    // speech just started
+                    int windows = Math.min(preRolled, preRollWindows);
+                    
+                    for (int i = preRolled - windows; i < preRolled; i++) {
+                        
+                        System.arraycopy(preRoll, i % preRollWindows * windowBytes, utterance, length, windowBytes);
+                        length += windowBytes;
+                    }
+                    
+                    startFrame = position - windows * windowFrames;
+                }
+                
+                // the window that ended the speech still goes with it
+                keep = length > 0;
+                cut = keep && (!this.detector.isSpeech() || length + size >= maxBytes);
+            }
+            
+            if (keep) {
+                
+                window.get(utterance, length, size);
+                length += size;
+                preRolled = 0;
+            } else if (preRollWindows > 0) {
+                
+                window.get(preRoll, preRolled++ % preRollWindows * windowBytes, size);
+            }
+            
+            position += size / frameBytes;
+            
+            if (cut) {
+                
+                if (!isTooShort(continued)) {
+                    
+                    output.emit(new Utterance(index++, startFrame * 1000 / this.sampleRate, this.sampleRate,
+                            this.channels, Arrays.copyOf(utterance, length)));
+                }
+                
+                continued = !Objects.isNull(this.detector) && this.detector.isSpeech();
+                startFrame = position;
+                length = 0;
+            }
+            
+            window.clear();
+        }
+        
+        if (!Objects.isNull(this.detector)) {
+            
+            this.detector.finish();
+        }
+        
+        if (length > 0 && !isTooShort(continued)) {
+            
+            output.emit(new Utterance(index, startFrame * 1000 / this.sampleRate, this.sampleRate, this.channels,
+                    Arrays.copyOf(utterance, length)));
+        }
+    }
+    
+    /**
+     * @param continued
+     *            true when the utterance goes on with speech cut at the max
+     *            duration
+     * @return true when the utterance just cut is a burst of speech shorter
+     *         than the detector's min speech, a cough or a door rather than a
+     *         line worth a translation request
+     */
+    private boolean isTooShort(boolean continued) {
+        
+        return !Objects.isNull(this.detector) && !continued && !this.detector.isSpeech()
+                && !this.detector.wasLastSpeechReported();
+    }
+    
+    /**
+     * @return The mean of the squared samples in the window, leaves the
+     *         window's position alone
+     */
+    private static double meanSquare(ByteBuffer window) {
+        
+        double sum = 0;
+        int count = window.remaining() / 2;
+        
+        for (int i = 0; i < count; i++) {
+            
+            double sample = window.getShort(window.position() + 2 * i);
+            
+            sum += sample * sample;
+        }
+        
+        return count == 0 ? 0 : sum / count;
+    }
+    
+    @Override
+    public void close() {
+        
+        this.reader.close();
+    }
+}
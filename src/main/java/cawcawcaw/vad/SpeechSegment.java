@@ -0,0 +1,68 @@
+package cawcawcaw.vad;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.vad
+ * File: SpeechSegment.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 10:12:05 AM
+ */
+
+/**
+ * <p>
+ * A stretch of the audio that a {@link VoiceActivityDetector} found speech in.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.vad.SpeechSegment
+ *
+ */
+public final class SpeechSegment {
+    
+    private final long startMillis;
+    
+    private final long endMillis;
+    
+    /**
+     * @param startMillis
+     *            When the speech starts, in milliseconds
+     * @param endMillis
+     *            When the speech ends, in milliseconds
+     */
+    public SpeechSegment(long startMillis, long endMillis) {
+        
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+    }
+    
+    /**
+     * @return When the speech starts, in milliseconds
+     */
+    public long getStartMillis() {
+        
+        return this.startMillis;
+    }
+    
+    /**
+     * @return When the speech ends, in milliseconds
+     */
+    public long getEndMillis() {
+        
+        return this.endMillis;
+    }
+    
+    /**
+     * @return The length of the speech in milliseconds
+     */
+    public long getDurationMillis() {
+        
+        return this.endMillis - this.startMillis;
+    }
+    
+    @Override
+    public String toString() {
+        
+        return String.format("Speech [%d ms - %d ms]", this.startMillis, this.endMillis);
+    }
+}
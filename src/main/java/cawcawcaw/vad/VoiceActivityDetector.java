@@ -0,0 +1,367 @@
+package cawcawcaw.vad;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.vad
+ * File: VoiceActivityDetector.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 10:31:48 AM
+ */
+
+/**
+ * <p>
+ * Finds speech in a stream of samples from their energy and zero crossing
+ * rate, one {@value #WINDOW_MILLIS} ms window at a time. It keeps no samples
+ * and allocates nothing while running, so it can sit on the decode path of a
+ * whole episode.
+ * 
+ * <p>
+ * A window is speech like when it is louder than the noise floor by the
+ * speech ratio and its zero crossing rate is in the range of voiced speech --
+ * hiss and cymbals cross zero far more often, hum far less. The noise floor
+ * follows the quiet windows, dropping fast and rising slowly.
+ * 
+ * <p>
+ * Speech starts after {@link #withOnset(long) onset} ms of speech like windows
+ * (dated back to the first of them), and ends after
+ * {@link #withHangover(long) hangover} ms without, so that short pauses
+ * between words don't split sentences. Segments shorter than the
+ * {@link #withMinSpeech(long) min speech} are dropped.
+ * 
+ * <p>
+ * Energy and zero crossings can't tell singing from speaking, songs go through
+ * as speech.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.vad.VoiceActivityDetector
+ *
+ */
+public final class VoiceActivityDetector {
+    
+    /**
+     * The length of the windows the audio is judged in.
+     */
+    public static final int WINDOW_MILLIS = 20;
+    
+    /**
+     * <p>
+     * Told about every speech segment found, on the thread feeding the
+     * samples.
+     * 
+     * @author sidmishraw
+     *
+     *         Qualified Name: cawcawcaw.vad.VoiceActivityDetector.Listener
+     *
+     */
+    @FunctionalInterface
+    public interface Listener {
+        
+        /**
+         * @param startMillis
+         *            When the speech starts, in milliseconds
+         * @param endMillis
+         *            When the speech ends, in milliseconds
+         */
+        void onSpeech(long startMillis, long endMillis);
+    }
+    
+    private final int sampleRate;
+    
+    private final int windowSamples;
+    
+    private final Listener listener;
+    
+    // # Settings
+    private double speechRatio = 4;
+    
+    private double minEnergy = 1e-5;
+    
+    private double minCrossingRate = 0.005;
+    
+    private double maxCrossingRate = 0.3;
+    
+    private int onsetWindows = 3;
+    
+    private int hangoverWindows = 15;
+    
+    private long minSpeechSamples;
+    // # Settings
+    
+    // # The current window
+    private int count = 0;
+    
+    private double sumSquares = 0;
+    
+    private int crossings = 0;
+    
+    private boolean negative = false;
+    // # The current window
+    
+    private double noiseFloor = -1;
+    
+    /**
+     * The number of samples before the current window.
+     */
+    private long position = 0;
+    
+    private boolean speech = false;
+    
+    /**
+     * Consecutive windows disagreeing with the current state.
+     */
+    private int run = 0;
+    
+    private long runStart = 0;
+    
+    private long speechStart = 0;
+    
+    private boolean reported = false;
+    
+    /**
+     * @param sampleRate
+     *            The sample rate of the audio
+     * @param listener
+     *            Told about the speech segments
+     */
+    public VoiceActivityDetector(int sampleRate, Listener listener) {
+        
+        this.sampleRate = sampleRate;
+        this.windowSamples = sampleRate * WINDOW_MILLIS / 1000;
+        this.listener = listener;
+        this.minSpeechSamples = millisToSamples(250);
+    }
+    
+    /**
+     * @param speechRatio
+     *            How many times the noise floor's energy a window needs to be
+     *            speech like, 4 (6 dB) by default
+     * @param minEnergy
+     *            The mean square below which a window is never speech,
+     *            1e-5 (-50 dBFS) by default
+     * @return this
+     */
+    public VoiceActivityDetector withEnergy(double speechRatio, double minEnergy) {
+        
+        this.speechRatio = speechRatio;
+        this.minEnergy = minEnergy;
+        
+        return this;
+    }
+    
+    /**
+     * @param min
+     *            The zero crossings per sample below which a window is not
+     *            speech, 0.005 by default
+     * @param max
+     *            The zero crossings per sample above which a window is not
+     *            speech, 0.3 by default
+     * @return this
+     */
+    public VoiceActivityDetector withCrossingRate(double min, double max) {
+        
+        this.minCrossingRate = min;
+        this.maxCrossingRate = max;
+        
+        return this;
+    }
+    
+    /**
+     * @param millis
+     *            How long the audio has to be speech like for speech to
+     *            start, 60 ms by default
+     * @return this
+     */
+    public VoiceActivityDetector withOnset(long millis) {
+        
+        this.onsetWindows = (int) Math.max(1, millis / WINDOW_MILLIS);
+        
+        return this;
+    }
+    
+    /**
+     * @param millis
+     *            How long the audio has to be quiet for speech to end, 300 ms
+     *            by default
+     * @return this
+     */
+    public VoiceActivityDetector withHangover(long millis) {
+        
+        this.hangoverWindows = (int) Math.max(1, millis / WINDOW_MILLIS);
+        
+        return this;
+    }
+    
+    /**
+     * @param millis
+     *            The shortest speech reported, 250 ms by default
+     * @return this
+     */
+    public VoiceActivityDetector withMinSpeech(long millis) {
+        
+        this.minSpeechSamples = millisToSamples(millis);
+        
+        return this;
+    }
+    
+    /**
+     * Moves the detector to a position on the timeline, for audio that doesn't
+     * start at 0. Only call this between windows.
+     * 
+     * @param millis
+     *            The time of the next sample, in milliseconds
+     */
+    public void seek(long millis) {
+        
+        this.position = millisToSamples(millis);
+    }
+    
+    /**
+     * Feeds the next sample.
+     * 
+     * @param sample
+     *            The sample, from -1 to 1
+     */
+    public void sample(float sample) {
+        
+        this.sumSquares += sample * sample;
+        
+        boolean negative = sample < 0;
+        
+        if (negative != this.negative) {
+            
+            this.crossings++;
+            this.negative = negative;
+        }
+        
+        if (++this.count == this.windowSamples) {
+            
+            endWindow();
+        }
+    }
+    
+    /**
+     * Ends the audio, reporting the speech still going on.
+     */
+    public void finish() {
+        
+        if (this.speech) {
+            
+            // a pending run of quiet windows is the hangover, not speech
+            report(this.run > 0 ? this.runStart : this.position + this.count);
+        }
+        
+        this.speech = false;
+        this.run = 0;
+    }
+    
+    /**
+     * @return true while in speech, including the hangover
+     */
+    public boolean isSpeech() {
+        
+        return this.speech;
+    }
+    
+    /**
+     * @return true when the last speech that ended was long enough to be
+     *         reported, false when it was shorter than the min speech or no
+     *         speech ended yet
+     */
+    public boolean wasLastSpeechReported() {
+        
+        return this.reported;
+    }
+    
+    /**
+     * @return The sample rate of the audio
+     */
+    public int getSampleRate() {
+        
+        return this.sampleRate;
+    }
+    
+    /**
+     * @return The number of samples in a window
+     */
+    public int getWindowSamples() {
+        
+        return this.windowSamples;
+    }
+    
+    /**
+     * @return How long speech like audio lasts before speech starts, in
+     *         milliseconds
+     */
+    public long getOnsetMillis() {
+        
+        return (long) this.onsetWindows * WINDOW_MILLIS;
+    }
+    
+    private void endWindow() {
+        
+        double energy = this.sumSquares / this.count;
+        double crossingRate = (double) this.crossings / this.count;
+        
+        if (this.noiseFloor < 0) {
+            
+            this.noiseFloor = Math.max(energy, this.minEnergy / this.speechRatio);
+        }
+        
+        boolean speechLike = energy > this.minEnergy && energy > this.noiseFloor * this.speechRatio
+                && crossingRate >= this.minCrossingRate && crossingRate <= this.maxCrossingRate;
+        
+        if (!speechLike) {
+            
+            // drop fast, rise slowly, so that long speech doesn't become the
+            // floor
+            this.noiseFloor = energy < this.noiseFloor ? 0.8 * this.noiseFloor + 0.2 * energy
+                    : 0.995 * this.noiseFloor + 0.005 * energy;
+        }
+        
+        if (speechLike == this.speech) {
+            
+            this.run = 0;
+        } else {
+            
+            if (this.run++ == 0) {
+                
+                this.runStart = this.position;
+            }
+            
+            if (!this.speech && this.run >= this.onsetWindows) {
+                
+                this.speech = true;
+                this.speechStart = this.runStart;
+                this.run = 0;
+            } else if (this.speech && this.run >= this.hangoverWindows) {
+                
+                this.speech = false;
+                this.run = 0;
+                
+                report(this.runStart);
+            }
+        }
+        
+        this.position += this.count;
+        this.count = 0;
+        this.sumSquares = 0;
+        this.crossings = 0;
+    }
+    
+    private void report(long end) {
+        
+        this.reported = end - this.speechStart >= this.minSpeechSamples;
+        
+        if (this.reported) {
+            
+            this.listener.onSpeech(this.speechStart * 1000 / this.sampleRate, end * 1000 / this.sampleRate);
+        }
+    }
+    
+    private long millisToSamples(long millis) {
+        
+        return millis * this.sampleRate / 1000;
+    }
+}
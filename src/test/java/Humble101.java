@@ -97,8 +97,7 @@ public class Humble101 {
             // extract that metadata and print it.
             KeyValueBag metadata = demuxer.getMetaData();
             
-            metadata.getKeys()
-                    .forEach(key -> logger.info(String.format("Metadata:: (%s, %s)", key, metadata.getValue(key))));
+            metadata.getKeys().forEach(key -> logger.info("Metadata:: ({}, {})", key, metadata.getValue(key)));
             
             // There are a few other key pieces of information that are
             // interesting for most containers; The duration, the starting time,
@@ -141,7 +140,7 @@ public class Humble101 {
                 logger.info("Stream's Metadata:");
                 
                 streamMetadata.getKeys().forEach(
-                        key -> logger.info(String.format("Stream Metadata :: (%s: %s)", key, metadata.getValue(key))));
+                        key -> logger.info("Stream Metadata :: ({}: {})", key, streamMetadata.getValue(key)));
             }
             
         } catch (Exception e) {
@@ -4,6 +4,8 @@ import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import cawcawcaw.log.SampledLogger;
+import cawcawcaw.pipeline.Decoding;
 import io.humble.video.Decoder;
 import io.humble.video.Demuxer;
 import io.humble.video.DemuxerStream;
@@ -68,6 +70,12 @@ public class Humble102 {
     
     // # Logging stuff
     private static final Logger logger = LoggerFactory.getLogger(Humble102.class);
+    
+    /**
+     * The packet loop runs thousands of times per second, only a sample of it
+     * gets logged, at DEBUG.
+     */
+    private static final SampledLogger packetLog = new SampledLogger(logger).withSampling(100);
     // # Logging stuff
     
     /**
@@ -179,9 +187,21 @@ public class Humble102 {
         
         /*
          * We will use this to cache the raw-audio we pass to and from
-         * the java sound system.
+         * the java sound system. (an array so that the callback below can
+         * update it)
+         */
+        ByteBuffer[] rawAudio = { null };
+        
+        /*
+         * Every complete set of samples gets converted and played.
          */
-        ByteBuffer rawAudio = null;
+        Decoding.FrameCallback<MediaAudio, RuntimeException> play = complete -> {
+            
+            rawAudio[0] = converter.toJavaAudio(rawAudio[0], complete);
+            audioFrame.play(rawAudio[0]);
+            
+            return complete; // decode the next samples into the same object
+        };
         
         /*
          * Now, we start walking through the container looking at each packet.
@@ -199,7 +219,7 @@ public class Humble102 {
          */
         while (demuxer.read(packet) >= 0) {
             
-            logger.info(String.format("Packet's stream index = %d", packet.getStreamIndex()));
+            packetLog.debug("Packet's stream index = {}", packet.getStreamIndex());
             
             /*
              * Now we have a packet, let's see if it belongs to our audio stream
@@ -210,23 +230,9 @@ public class Humble102 {
                  * A packet can actually contain multiple sets of samples (or
                  * frames of samples in audio-decoding speak). So, we may need
                  * to call decode audio multiple times at different offsets in
-                 * the packet's data. We capture that here.
+                 * the packet's data. Decoding.decodeAll does that for us.
                  */
-                int offset = 0;
-                int bytesRead = 0;
-                
-                do {
-                    
-                    bytesRead += audioDecoder.decode(samples, packet, offset);
-                    
-                    if (samples.isComplete()) {
-                        
-                        rawAudio = converter.toJavaAudio(rawAudio, samples);
-                        audioFrame.play(rawAudio);
-                    }
-                    
-                    offset += bytesRead;
-                } while (offset < packet.getSize());
+                samples = Decoding.decodeAll(audioDecoder, packet, samples, play);
             }
         }
         
@@ -236,13 +242,7 @@ public class Humble102 {
         // Video
         // is to keep passing in null until incomplete samples or packets are
         // returned.
-        do {
-            audioDecoder.decode(samples, null, 0);
-            if (samples.isComplete()) {
-                rawAudio = converter.toJavaAudio(rawAudio, samples);
-                audioFrame.play(rawAudio);
-            }
-        } while (samples.isComplete());
+        Decoding.decodeAll(audioDecoder, null, samples, play);
         
         // It is good practice to close demuxers when you're done to free
         // up file handles. Humble will EVENTUALLY detect if nothing else
@@ -4,13 +4,18 @@ import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.humble.video.Codec;
-import io.humble.video.Codec.ID;
-import io.humble.video.Coder.Flag;
+import cawcawcaw.audio.AudioTarget;
+import cawcawcaw.audio.ResampleStage;
+import cawcawcaw.log.SampledLogger;
+import cawcawcaw.pipeline.Decoding;
+import cawcawcaw.pipeline.Emitter;
+import cawcawcaw.pipeline.EncoderPreset;
+import cawcawcaw.pool.Pooled;
 import io.humble.video.Decoder;
 import io.humble.video.Demuxer;
 import io.humble.video.DemuxerStream;
 import io.humble.video.Encoder;
+import io.humble.video.KeyValueBag;
 import io.humble.video.MediaAudio;
 import io.humble.video.MediaDescriptor;
 import io.humble.video.MediaPacket;
@@ -59,6 +64,8 @@ public class Humble103 {
     
     // # Logging stuff
     private static final Logger logger = LoggerFactory.getLogger(Humble103.class);
+    
+    private static final SampledLogger packetLog = new SampledLogger(logger).withSampling(100);
     // # Logging stuff
     
     /**
@@ -97,14 +104,13 @@ public class Humble103 {
         try {
             
             demux = Demuxer.make();
-            Demuxer ddemux = demux; // reference for using in closures
             
             demux.open(filePath, null, false, true, null, null);
             
             // # Log input media file's metadata
             logger.info(":: Metadata for input media file ::");
-            demux.getMetaData().getKeys().forEach(
-                    metaKey -> logger.info(String.format("(%s, %s)", metaKey, ddemux.getMetaData().getValue(metaKey))));
+            KeyValueBag metadata = demux.getMetaData();
+            metadata.getKeys().forEach(metaKey -> logger.info("({}, {})", metaKey, metadata.getValue(metaKey)));
             // # Log input media file's metadata
             
             // # log encoding formats supported by system
@@ -144,22 +150,14 @@ public class Humble103 {
             
             /**
              * Now that we know what codec, we need to create an encoder
-             * 
-             * Forcing to use mp4
              */
-            Encoder encoder = Encoder.make(Codec.findEncodingCodec(ID.CODEC_ID_MP3));
-            
             // all stuff that needs to be set in the encoder for making a MP3
-            // # MP3 format needs all this stuff
-            encoder.setSampleRate(audioDecoder.getSampleRate());
-            encoder.setChannels(audioDecoder.getChannels());
-            encoder.setChannelLayout(audioDecoder.getChannelLayout());
-            encoder.setSampleFormat(audioDecoder.getSampleFormat());
-            encoder.setFlag(Flag.FLAG_GLOBAL_HEADER, true);
-            // # MP3 format needs all this stuff
-            
-            /** Open the encoder. */
-            encoder.open(null, null);
+            // lives in the preset: the decoder's parameters, as far as MP3
+            // takes them (no planar float for instance, which is what AAC
+            // decodes to), the bit rate, and the flags the container needs.
+            // The preset opens the encoder.
+            Encoder encoder = EncoderPreset.MP3.make(audioDecoder, mux.getFormat());
+            AudioTarget target = AudioTarget.of(encoder);
             
             /** Add this stream to the muxer. */
             mux.addNewStream(encoder);
@@ -167,6 +165,7 @@ public class Humble103 {
             
             // # Muxer open
             mux.open(null, null);
+            Muxer mmux = mux; // reference for using in closures
             // # Muxer open
             
             /*
@@ -190,13 +189,58 @@ public class Humble103 {
             MediaPacket rpacket = MediaPacket.make(); // read packet
             MediaPacket wpacket = MediaPacket.make(); // write packet
             
+            /*
+             * Converts the samples to what the encoder takes, none when the
+             * decoder already gives that and the samples go straight to the
+             * encoder.
+             */
+            ResampleStage resampler = target.equals(AudioTarget.of(audioDecoder)) ? null
+                    : new ResampleStage(target);
+            
+            /*
+             * Every complete set of samples goes to the encoder, and every
+             * complete packet out of the encoder goes to the muxer.
+             */
+            Emitter<Pooled<MediaAudio>> encodeAndWrite = converted -> {
+                
+                try {
+                    
+                    encoder.encodeAudio(wpacket, converted.get());
+                    
+                    if (wpacket.isComplete()) {
+                        
+                        mmux.write(wpacket, false);
+                    }
+                } finally {
+                    
+                    converted.release();
+                }
+            };
+            
+            Decoding.FrameCallback<MediaAudio, InterruptedException> resampleAndEncode = complete -> {
+                
+                if (Objects.isNull(resampler)) {
+                    
+                    encoder.encodeAudio(wpacket, complete);
+                    
+                    if (wpacket.isComplete()) {
+                        
+                        mmux.write(wpacket, false);
+                    }
+                } else {
+                    
+                    resampler.convert(complete, encodeAndWrite);
+                }
+                
+                return complete; // decode the next samples into the same object
+            };
+            
             /**
              * read() returns 0 if successful else < 0
              */
             while (demux.read(rpacket) >= 0) {
                 
-                // logger.info(String.format("Packet's stream index = %d",
-                // rpacket.getStreamIndex()));
+                packetLog.debug("Packet's stream index = {}", rpacket.getStreamIndex());
                 
                 /*
                  * Now we have a packet, let's see if it belongs to our audio
@@ -208,27 +252,10 @@ public class Humble103 {
                      * A packet can actually contain multiple sets of samples
                      * (or frames of samples in audio-decoding speak). So, we
                      * may need to call decode audio multiple times at different
-                     * offsets in the packet's data. We capture that here.
+                     * offsets in the packet's data. Decoding.decodeAll does
+                     * that for us.
                      */
-                    int offset = 0;
-                    int bytesRead = 0;
-                    
-                    do {
-                        
-                        bytesRead += audioDecoder.decode(samples, rpacket, offset);
-                        
-                        if (samples.isComplete()) {
-                            
-                            encoder.encodeAudio(wpacket, samples);
-                        }
-                        
-                        if (wpacket.isComplete()) {
-                            
-                            mux.write(wpacket, false);
-                        }
-                        
-                        offset += bytesRead;
-                    } while (offset < rpacket.getSize());
+                    samples = Decoding.decodeAll(audioDecoder, rpacket, samples, resampleAndEncode);
                 }
             }
             
@@ -237,20 +264,13 @@ public class Humble103 {
             // need to flush them. The convention to flush Encoders or Decoders
             // in Humble Video is to keep passing in null until incomplete
             // samples or packets are returned.
-            do {
-                
-                audioDecoder.decode(samples, null, 0);
-                
-                if (samples.isComplete()) {
-                    
-                    encoder.encodeAudio(wpacket, samples);
-                }
+            Decoding.decodeAll(audioDecoder, null, samples, resampleAndEncode);
+            
+            if (!Objects.isNull(resampler)) {
                 
-                if (wpacket.isComplete()) {
-                    
-                    mux.write(wpacket, false);
-                }
-            } while (samples.isComplete());
+                resampler.flush(encodeAndWrite);
+                resampler.close();
+            }
             
             /**
              * Encoders, like decoders, sometimes cache pictures so it can do
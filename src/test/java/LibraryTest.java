@@ -5,6 +5,10 @@ import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import cawcawcaw.picture.PictureConverter;
+import cawcawcaw.pipeline.Decoding;
+import cawcawcaw.pipeline.TimeRange;
+import cawcawcaw.playback.Clock;
 import io.humble.video.Decoder;
 import io.humble.video.Demuxer;
 import io.humble.video.DemuxerStream;
@@ -14,8 +18,6 @@ import io.humble.video.MediaPacket;
 import io.humble.video.MediaPicture;
 import io.humble.video.Rational;
 import io.humble.video.awt.ImageFrame;
-import io.humble.video.awt.MediaPictureConverter;
-import io.humble.video.awt.MediaPictureConverterFactory;
 
 /*
  * This Java source file was generated by the Gradle 'init' task.
@@ -96,15 +98,14 @@ public class LibraryTest {
          * A converter object we'll use to convert the picture in the video to a
          * BGR_24 format that Java Swing
          * can work with. You can still access the data directly in the
-         * MediaPicture if you prefer, but this
-         * abstracts away from this demo most of that byte-conversion work. Go
-         * read the source code for the
-         * converters if you're a glutton for punishment.
+         * MediaPicture if you prefer (see PictureView), but this
+         * abstracts away from this demo most of that byte-conversion work.
+         * Unlike MediaPictureConverterFactory.HUMBLE_BGR_24, it fills the same
+         * image every frame without allocating.
          */
-        final MediaPictureConverter converter = MediaPictureConverterFactory
-                .createConverter(MediaPictureConverterFactory.HUMBLE_BGR_24, picture);
+        final PictureConverter converter = PictureConverter.bgr(picture.getWidth(), picture.getHeight());
         
-        BufferedImage image = null;
+        BufferedImage[] image = { null }; // an array so that the callback below can update it
         
         /**
          * This is the Window we will display in. See the code for this if
@@ -118,7 +119,7 @@ public class LibraryTest {
         if (window == null) {
             
             throw new RuntimeException(
-                    "Attempting this demo on a headless machine, and that will not work. Sad day for you.");
+                    "Attempting this demo on a headless machine, and that will not work. Use DecodeDriver instead.");
         }
         
         /**
@@ -148,12 +149,10 @@ public class LibraryTest {
          * demo to make a full fledged video player.
          */
         
-        // Calculate the time BEFORE we start playing.
-        long systemStartTime = System.nanoTime();
-        
-        // Set units for the system time, which because we used System.nanoTime
-        // will be in nanoseconds.
-        final Rational systemTimeBase = Rational.make(1, 1000000000);
+        // The player clock: runs at the speed of the stream, starting with the
+        // first picture. It parks the thread until a picture is due rather
+        // than polling. Clock.unlimited() decodes as fast as possible instead.
+        final Clock clock = Clock.realTime();
         
         // All the MediaPicture objects decoded from the videoDecoder will share
         // this timebase.
@@ -171,6 +170,18 @@ public class LibraryTest {
          */
         final MediaPacket packet = MediaPacket.make();
         
+        /**
+         * Every complete picture gets displayed at its time.
+         */
+        final long startTime = streamStartTime;
+        final Decoding.FrameCallback<MediaPicture, InterruptedException> display = complete -> {
+            
+            image[0] = displayVideoAtCorrectTime(startTime, complete, converter, image[0], window, clock,
+                    streamTimebase);
+            
+            return complete; // decode the next picture into the same object
+        };
+        
         while (demuxer.read(packet) >= 0) {
             
             /**
@@ -182,23 +193,10 @@ public class LibraryTest {
                  * A packet can actually contain multiple sets of samples (or
                  * frames of samples
                  * in decoding speak). So, we may need to call decode multiple
-                 * times at different offsets in the packet's data. We capture
-                 * that here.
+                 * times at different offsets in the packet's data.
+                 * Decoding.decodeAll does that for us.
                  */
-                int offset = 0;
-                int bytesRead = 0;
-                do {
-                    
-                    bytesRead += videoDecoder.decode(picture, packet, offset);
-                    
-                    if (picture.isComplete()) {
-                        
-                        image = displayVideoAtCorrectTime(streamStartTime, picture, converter, image, window,
-                                systemStartTime, systemTimeBase, streamTimebase);
-                    }
-                    
-                    offset += bytesRead;
-                } while (offset < packet.getSize());
+                Decoding.decodeAll(videoDecoder, packet, picture, display);
             }
         }
         
@@ -208,13 +206,7 @@ public class LibraryTest {
         // Video
         // is to keep passing in null until incomplete samples or packets are
         // returned.
-        do {
-            videoDecoder.decode(picture, null, 0);
-            if (picture.isComplete()) {
-                image = displayVideoAtCorrectTime(streamStartTime, picture, converter, image, window, systemStartTime,
-                        systemTimeBase, streamTimebase);
-            }
-        } while (picture.isComplete());
+        Decoding.decodeAll(videoDecoder, null, picture, display);
         
         // It is good practice to close demuxers when you're done to free
         // up file handles. Humble will EVENTUALLY detect if nothing else
@@ -232,28 +224,14 @@ public class LibraryTest {
      * Takes the video picture and displays it at the right time.
      */
     private static BufferedImage displayVideoAtCorrectTime(long streamStartTime, final MediaPicture picture,
-            final MediaPictureConverter converter, BufferedImage image, final ImageFrame window, long systemStartTime,
-            final Rational systemTimeBase, final Rational streamTimebase) throws InterruptedException {
-        
-        long streamTimestamp = picture.getTimeStamp();
-        
-        // convert streamTimestamp into system units (i.e. nano-seconds)
-        streamTimestamp = systemTimeBase.rescale(streamTimestamp - streamStartTime, streamTimebase);
+            final PictureConverter converter, BufferedImage image, final ImageFrame window, final Clock clock,
+            final Rational streamTimebase) throws InterruptedException {
         
-        // get the current clock time, with our most accurate clock
-        long systemTimestamp = System.nanoTime();
-        
-        // loop in a sleeping loop until we're within 1 ms of the time for that
-        // video frame.
-        // a real video player needs to be much more sophisticated than this.
-        while (streamTimestamp > (systemTimestamp - systemStartTime + 1000000)) {
-            
-            Thread.sleep(1);
-            systemTimestamp = System.nanoTime();
-        }
+        // wait until the picture is due on the player clock
+        clock.await(TimeRange.toMicros(picture.getTimeStamp() - streamStartTime, streamTimebase));
         
         // finally, convert the image from Humble format into Java images.
-        image = converter.toImage(image, picture);
+        image = converter.toImage(picture, image);
         
         // And ask the UI thread to repaint with the new image.
         window.setImage(image);
@@ -0,0 +1,53 @@
+package cawcawcaw.batch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.batch
+ * File: BatchRunnerTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 9:52:08 AM
+ */
+
+/**
+ * <p>
+ * Checks that every input of a batch gets an output of its own.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.batch.BatchRunnerTest
+ *
+ */
+public class BatchRunnerTest {
+    
+    @Test
+    public void mirrorsTheInputDirectory() throws IOException {
+        
+        Path in = Paths.get("shows");
+        Path out = Paths.get("out");
+        Map<Path, Path> outputs = BatchRunner.outputPaths(
+                Arrays.asList(in.resolve("S1/01.mkv"), in.resolve("S2/01.mkv"), in.resolve("extra.mp4")), in, out,
+                "mp3");
+        
+        assertEquals(out.resolve("S1/01.mp3"), outputs.get(in.resolve("S1/01.mkv")));
+        assertEquals(out.resolve("S2/01.mp3"), outputs.get(in.resolve("S2/01.mkv")));
+        assertEquals(out.resolve("extra.mp3"), outputs.get(in.resolve("extra.mp4")));
+    }
+    
+    @Test(expected = IOException.class)
+    public void rejectsManifestInputsWithTheSameName() throws IOException {
+        
+        BatchRunner.outputPaths(Arrays.asList(Paths.get("S1/01.mkv"), Paths.get("S2/01.mkv")), null,
+                Paths.get("out"), "mp3");
+    }
+}
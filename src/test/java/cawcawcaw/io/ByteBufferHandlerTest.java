@@ -0,0 +1,150 @@
+package cawcawcaw.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.humble.video.customio.IURLProtocolHandler;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.io
+ * File: ByteBufferHandlerTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 7:05:52 PM
+ */
+
+/**
+ * <p>
+ * Drives the handlers the way FFmpeg does: reads across the windows of a
+ * {@link MappedFileHandler}, seeks from every origin, and reads past the end.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.io.ByteBufferHandlerTest
+ *
+ */
+public class ByteBufferHandlerTest {
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    private final byte[] media = new byte[1000];
+    
+    {
+        
+        new Random(42).nextBytes(this.media);
+    }
+    
+    private IURLProtocolHandler mapped(int windowSize) throws Exception {
+        
+        Path file = this.folder.newFile("media.bin").toPath();
+        Files.write(file, this.media);
+        
+        return new MappedFileHandler(file, windowSize);
+    }
+    
+    private static byte[] readAll(IURLProtocolHandler handler, int readSize) {
+        
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        byte[] buf = new byte[readSize];
+        int read;
+        
+        while ((read = handler.read(buf, readSize)) > 0) {
+            
+            all.write(buf, 0, read);
+        }
+        
+        assertEquals(-1, read);
+        
+        return all.toByteArray();
+    }
+    
+    @Test
+    public void readsAcrossWindows() throws Exception {
+        
+        IURLProtocolHandler handler = mapped(64);
+        
+        assertEquals(0, handler.open("media.bin", IURLProtocolHandler.URL_RDONLY_MODE));
+        assertArrayEquals(this.media, readAll(handler, 100));
+        assertEquals(0, handler.close());
+    }
+    
+    @Test
+    public void seeks() throws Exception {
+        
+        IURLProtocolHandler handler = mapped(128);
+        byte[] buf = new byte[10];
+        
+        handler.open("media.bin", IURLProtocolHandler.URL_RDONLY_MODE);
+        
+        assertEquals(1000, handler.seek(0, IURLProtocolHandler.SEEK_SIZE));
+        assertEquals(500, handler.seek(500, IURLProtocolHandler.SEEK_SET));
+        assertEquals(10, handler.read(buf, 10));
+        assertEquals(this.media[505], buf[5]);
+        assertEquals(490, handler.seek(-20, IURLProtocolHandler.SEEK_CUR));
+        assertEquals(10, handler.read(buf, 10));
+        assertEquals(this.media[490], buf[0]);
+        assertEquals(996, handler.seek(-4, IURLProtocolHandler.SEEK_END));
+        assertEquals(4, handler.read(buf, 10));
+        assertEquals(this.media[999], buf[3]);
+        assertEquals(-1, handler.read(buf, 10));
+        assertEquals(-1, handler.seek(1001, IURLProtocolHandler.SEEK_SET));
+        assertEquals(-1, handler.seek(-1, IURLProtocolHandler.SEEK_SET));
+        
+        handler.close();
+    }
+    
+    @Test
+    public void reopensFromTheStart() throws Exception {
+        
+        IURLProtocolHandler handler = mapped(256);
+        byte[] buf = new byte[300];
+        
+        handler.open("media.bin", IURLProtocolHandler.URL_RDONLY_MODE);
+        handler.read(buf, 300);
+        handler.close();
+        
+        handler.open("media.bin", IURLProtocolHandler.URL_RDONLY_MODE);
+        assertArrayEquals(this.media, readAll(handler, 333));
+        handler.close();
+    }
+    
+    @Test
+    public void refusesWrites() throws Exception {
+        
+        IURLProtocolHandler handler = mapped(64);
+        
+        assertEquals(-1, handler.open("media.bin", IURLProtocolHandler.URL_WRONLY_MODE));
+        assertEquals(-1, handler.write(this.media, 10));
+    }
+    
+    @Test
+    public void servesMemory() {
+        
+        ByteBuffer buffer = ByteBuffer.allocateDirect(this.media.length + 10);
+        buffer.position(10);
+        buffer.put(this.media);
+        buffer.position(10);
+        
+        IURLProtocolHandler handler = new MemoryHandler(buffer);
+        
+        handler.open("media.bin", IURLProtocolHandler.URL_RDONLY_MODE);
+        
+        assertArrayEquals(this.media, readAll(handler, 128));
+        assertEquals(1000, handler.seek(0, IURLProtocolHandler.SEEK_SIZE));
+        assertEquals(10, buffer.position());
+        
+        handler.close();
+    }
+}
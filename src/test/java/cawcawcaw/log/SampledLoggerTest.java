@@ -0,0 +1,77 @@
+package cawcawcaw.log;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.log
+ * File: SampledLoggerTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 20, 2026 2:48:09 PM
+ */
+
+/**
+ * <p>
+ * Checks which messages a {@link SampledLogger} lets through.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.log.SampledLoggerTest
+ *
+ */
+public class SampledLoggerTest {
+    
+    private static SampledLogger sampledLogger() {
+        
+        return new SampledLogger(LoggerFactory.getLogger(SampledLoggerTest.class));
+    }
+    
+    private static int admitted(SampledLogger log, int messages) {
+        
+        int admitted = 0;
+        
+        for (int i = 0; i < messages; i++) {
+            
+            if (log.admit()) {
+                
+                admitted++;
+            }
+        }
+        
+        return admitted;
+    }
+    
+    @Test
+    public void admitsOneMessageOutOfEverySample() {
+        
+        SampledLogger log = sampledLogger().withSampling(10).withRateLimit(1000);
+        
+        assertEquals(10, admitted(log, 100));
+        assertEquals(90, log.getSkipped());
+    }
+    
+    @Test
+    public void admitsTheFirstMessage() {
+        
+        assertEquals(1, admitted(sampledLogger().withSampling(1000), 1));
+    }
+    
+    @Test
+    public void admitsNoMoreThanTheRateLimitPerSecond() {
+        
+        SampledLogger log = sampledLogger().withRateLimit(3);
+        
+        assertEquals(3, admitted(log, 50));
+        assertEquals(47, log.getSkipped());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroSampling() {
+        
+        sampledLogger().withSampling(0);
+    }
+}
@@ -0,0 +1,107 @@
+package cawcawcaw.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.Test;
+
+import cawcawcaw.pipeline.Pipeline;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.metrics
+ * File: MetricsTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 20, 2026 11:02:37 AM
+ */
+
+/**
+ * <p>
+ * Runs small pipelines and checks what their nodes record in the
+ * {@link Metrics}.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.metrics.MetricsTest
+ *
+ */
+public class MetricsTest {
+    
+    /**
+     * Emits the numbers up to count, each stage emits every number twice.
+     */
+    private static void run(String prefix, int count) throws Exception {
+        
+        Pipeline.<Integer> from(prefix + "-count", output -> {
+            
+            for (int i = 0; i < count; i++) {
+                
+                output.emit(i);
+            }
+        }).withQueueCapacity(2).<Integer> then(prefix + "-twice", (item, output) -> {
+            
+            output.emit(item);
+            output.emit(item);
+        }).to(prefix + "-drop", item -> {
+            
+        }).run();
+    }
+    
+    @Test
+    public void countsItemsInAndOutOfEveryNode() throws Exception {
+        
+        run("counts", 100);
+        
+        assertEquals(0, Metrics.stage("counts-count").getReceived());
+        assertEquals(100, Metrics.stage("counts-count").getEmitted());
+        assertEquals(100, Metrics.stage("counts-twice").getReceived());
+        assertEquals(200, Metrics.stage("counts-twice").getEmitted());
+        assertEquals(200, Metrics.stage("counts-drop").getReceived());
+        assertEquals(0, Metrics.stage("counts-drop").getEmitted());
+    }
+    
+    @Test
+    public void addsUpNodesWithTheSameName() throws Exception {
+        
+        run("sum", 10);
+        run("sum", 20);
+        
+        assertEquals(30, Metrics.stage("sum-twice").getReceived());
+        assertEquals(60, Metrics.stage("sum-drop").getReceived());
+    }
+    
+    @Test
+    public void stopsWatchingTheQueuesOfFinishedPipelines() throws Exception {
+        
+        run("queues", 50);
+        
+        assertEquals(0, Metrics.stage("queues-twice").getQueueDepth());
+        assertEquals(0, Metrics.stage("queues-drop").getQueueDepth());
+    }
+    
+    @Test
+    public void sharesCountersByName() {
+        
+        LongAdder counter = Metrics.counter("test.shared");
+        counter.add(3);
+        Metrics.counter("test.shared").add(4);
+        
+        assertEquals(7, counter.sum());
+        assertEquals(Long.valueOf(7), Metrics.counters().get("test.shared"));
+    }
+    
+    @Test
+    public void snapshotNamesEveryStageAndCounter() throws Exception {
+        
+        run("snapshot", 5);
+        Metrics.counter("test.snapshot").increment();
+        
+        String snapshot = Metrics.snapshot();
+        
+        assertTrue(snapshot, snapshot.contains("| snapshot-twice in="));
+        assertTrue(snapshot, snapshot.contains(" test.snapshot="));
+    }
+}
@@ -0,0 +1,256 @@
+package cawcawcaw.pcm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pcm
+ * File: PcmRingTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 8:02:51 PM
+ */
+
+/**
+ * <p>
+ * Pushes a known byte pattern through a small {@link PcmRing} so that it wraps
+ * around many times, and checks every reader gets exactly the pattern back.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pcm.PcmRingTest
+ *
+ */
+public class PcmRingTest {
+    
+    private static final int TOTAL = 1 << 20;
+    
+    private static byte expected(long position) {
+        
+        return (byte) (position * 31 + (position >>> 8));
+    }
+    
+    @Test
+    public void roundsCapacityUpToPowerOfTwo() {
+        
+        assertEquals(1, new PcmRing(1).getCapacity());
+        assertEquals(4096, new PcmRing(4096).getCapacity());
+        assertEquals(8192, new PcmRing(4097).getCapacity());
+    }
+    
+    @Test(timeout = 30000)
+    public void gatingReadersSeeEveryByte() throws Exception {
+        
+        PcmRing ring = new PcmRing(4096);
+        List<PcmRing.Reader> readers = new ArrayList<>();
+        
+        for (int i = 0; i < 3; i++) {
+            
+            readers.add(ring.reader());
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(readers.size());
+        List<Future<Long>> results = new ArrayList<>();
+        
+        try {
+            
+            for (int i = 0; i < readers.size(); i++) {
+                
+                PcmRing.Reader reader = readers.get(i);
+                int chunk = 100 + 313 * i; // odd sizes so reads straddle the wrap
+                
+                results.add(executor.submit(() -> {
+                    
+                    ByteBuffer dst = ByteBuffer.allocate(chunk);
+                    long position = 0;
+                    
+                    while (reader.read(dst) >= 0) {
+                        
+                        dst.flip();
+                        
+                        while (dst.hasRemaining()) {
+                            
+                            assertEquals("byte " + position, expected(position), dst.get());
+                            position++;
+                        }
+                        
+                        dst.clear();
+                    }
+                    
+                    return position;
+                }));
+            }
+            
+            ByteBuffer src = ByteBuffer.allocate(777);
+            long position = 0;
+            
+            while (position < TOTAL) {
+                
+                src.clear();
+                
+                while (src.hasRemaining() && position + src.position() < TOTAL) {
+                    
+                    src.put(expected(position + src.position()));
+                }
+                
+                src.flip();
+                position += src.remaining();
+                ring.write(src);
+                
+                assertTrue(ring.getBacklog() <= ring.getCapacity());
+            }
+            
+            ring.close();
+            
+            for (Future<Long> result : results) {
+                
+                assertEquals(TOTAL, (long) result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void offerNeverOverwritesUnreadBytes() throws Exception {
+        
+        PcmRing ring = new PcmRing(16);
+        PcmRing.Reader reader = ring.reader();
+        
+        assertEquals(16, ring.offer(ByteBuffer.wrap(new byte[24])));
+        assertEquals(0, ring.offer(ByteBuffer.wrap(new byte[1])));
+        
+        assertEquals(10, reader.poll(ByteBuffer.allocate(10)));
+        assertEquals(10, ring.offer(ByteBuffer.wrap(new byte[24])));
+        
+        // a closed reader doesn't hold the producer back anymore
+        reader.close();
+        
+        assertEquals(16, ring.offer(ByteBuffer.wrap(new byte[24])));
+    }
+    
+    @Test
+    public void lossyReaderSkipsToNewestBytes() throws Exception {
+        
+        PcmRing ring = new PcmRing(8);
+        PcmRing.Reader reader = ring.lossyReader(1);
+        PcmRing.Reader stereo = ring.lossyReader(4);
+        byte[] bytes = new byte[22];
+        
+        for (int i = 0; i < bytes.length; i++) {
+            
+            bytes[i] = (byte) i;
+        }
+        
+        ring.write(ByteBuffer.wrap(bytes, 0, 8));
+        ring.write(ByteBuffer.wrap(bytes, 8, 14));
+        ring.close();
+        
+        // the last ring's worth is still there
+        ByteBuffer dst = ByteBuffer.allocate(16);
+        
+        assertEquals(8, reader.readFully(dst));
+        assertArrayEquals(Arrays.copyOfRange(bytes, 14, 22), Arrays.copyOf(dst.array(), 8));
+        assertEquals(14, reader.getDropped());
+        assertEquals(-1, reader.read(dst));
+        
+        // and what is skipped is whole frames
+        dst.clear();
+        
+        assertEquals(6, stereo.readFully(dst));
+        assertArrayEquals(Arrays.copyOfRange(bytes, 16, 22), Arrays.copyOf(dst.array(), 6));
+        assertEquals(16, stereo.getDropped());
+        
+        PcmRing.Reader late = new PcmRing(8).lossyReader(1);
+        
+        assertEquals(0, late.poll(dst));
+    }
+    
+    @Test
+    public void lossyReaderNeverReturnsTornBytes() throws Exception {
+        
+        PcmRing ring = new PcmRing(32);
+        PcmRing.Reader reader = ring.lossyReader(4);
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        
+        try {
+            
+            // the producer laps the reader all the time, every frame holds its
+            // own number
+            Future<?> writing = producer.submit(() -> {
+                
+                ByteBuffer frames = ByteBuffer.allocate(8);
+                
+                for (int i = 0; i < 400000; i += 2) {
+                    
+                    frames.clear();
+                    
+                    for (int k = i; k < i + 2; k++) {
+                        
+                        frames.putInt(k);
+                    }
+                    
+                    frames.flip();
+                    ring.write(frames);
+                }
+                
+                ring.close();
+                
+                return null;
+            });
+            
+            ByteBuffer dst = ByteBuffer.allocate(32);
+            
+            while (reader.read(dst) >= 0) {
+                
+                dst.flip();
+                
+                // a read is consecutive frames, whatever was skipped before
+                for (int previous = dst.getInt(); dst.hasRemaining();) {
+                    
+                    int next = dst.getInt();
+                    
+                    assertEquals(previous + 1, next);
+                    previous = next;
+                }
+                
+                dst.clear();
+            }
+            
+            writing.get(10, TimeUnit.SECONDS);
+        } finally {
+            
+            producer.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void readersGetTheRestAfterClose() throws Exception {
+        
+        PcmRing ring = new PcmRing(8);
+        PcmRing.Reader reader = ring.reader();
+        
+        ring.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+        ring.close();
+        
+        ByteBuffer dst = ByteBuffer.allocate(8);
+        
+        assertEquals(3, reader.readFully(dst));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, Arrays.copyOf(dst.array(), 3));
+        assertEquals(-1, reader.read(dst));
+    }
+}
@@ -0,0 +1,226 @@
+package cawcawcaw.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.humble.video.AudioChannel;
+import io.humble.video.AudioFormat;
+import io.humble.video.Codec;
+import io.humble.video.Decoder;
+import io.humble.video.Demuxer;
+import io.humble.video.DemuxerStream;
+import io.humble.video.Encoder;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaDescriptor;
+import io.humble.video.MediaPacket;
+import io.humble.video.Muxer;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: DecodingTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 2:41:18 PM
+ */
+
+/**
+ * <p>
+ * Counts the frames {@link Decoding#decodeAll} gets out of a reference mp3
+ * made up front: a tone of exactly {@value #FRAMES} mp3 frames.
+ * 
+ * <p>
+ * An mp3 packet holds exactly one frame, so the reference count is the number
+ * of packets in the file. Gluing all the packets into one big packet must
+ * give the same count -- that's what the old cumulative offset loop got
+ * wrong.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.DecodingTest
+ *
+ */
+public class DecodingTest {
+    
+    private static final int SAMPLE_RATE = 44100;
+    
+    private static final int FRAME_SIZE = 1152;
+    
+    private static final int FRAMES = 100;
+    
+    @ClassRule
+    public static final TemporaryFolder folder = new TemporaryFolder();
+    
+    private static File reference;
+    
+    @BeforeClass
+    public static void makeReference() throws Exception {
+        
+        reference = folder.newFile("tone.mp3");
+        
+        Muxer muxer = Muxer.make(reference.getPath(), null, "mp3");
+        Encoder encoder = Encoder.make(Codec.findEncodingCodec(Codec.ID.CODEC_ID_MP3));
+        
+        encoder.setSampleRate(SAMPLE_RATE);
+        encoder.setChannels(1);
+        encoder.setChannelLayout(AudioChannel.Layout.CH_LAYOUT_MONO);
+        encoder.setSampleFormat(AudioFormat.Type.SAMPLE_FMT_S16P);
+        encoder.open(null, null);
+        
+        muxer.addNewStream(encoder);
+        muxer.open(null, null);
+        
+        MediaAudio samples = MediaAudio.make(FRAME_SIZE, SAMPLE_RATE, 1, AudioChannel.Layout.CH_LAYOUT_MONO,
+                AudioFormat.Type.SAMPLE_FMT_S16P);
+        MediaPacket packet = MediaPacket.make();
+        
+        for (int frame = 0; frame < FRAMES; frame++) {
+            
+            ByteBuffer data = samples.getData(0).getByteBuffer(0, samples.getDataPlaneSize(0))
+                    .order(ByteOrder.nativeOrder());
+            
+            for (int i = 0; i < FRAME_SIZE; i++) {
+                
+                data.putShort((short) (Math.sin(2 * Math.PI * 440 * (frame * FRAME_SIZE + i) / SAMPLE_RATE) * 8192));
+            }
+            
+            samples.setNumSamples(FRAME_SIZE);
+            samples.setTimeStamp((long) frame * FRAME_SIZE);
+            samples.setComplete(true);
+            
+            encoder.encodeAudio(packet, samples);
+            
+            if (packet.isComplete()) {
+                
+                muxer.write(packet, false);
+            }
+        }
+        
+        do {
+            
+            encoder.encodeAudio(packet, null);
+            
+            if (packet.isComplete()) {
+                
+                muxer.write(packet, false);
+            }
+        } while (packet.isComplete());
+        
+        muxer.close();
+    }
+    
+    @Test
+    public void decodesEveryFramePacketByPacket() throws Exception {
+        
+        List<MediaPacket> packets = readPackets();
+        Decoder decoder = openDecoder();
+        
+        int[] frames = { 0 };
+        int[] numSamples = { 0 };
+        
+        Decoding.FrameCallback<MediaAudio, RuntimeException> count = complete -> {
+            
+            frames[0]++;
+            numSamples[0] += complete.getNumSamples();
+            
+            return complete;
+        };
+        
+        MediaAudio samples = newSamples(decoder);
+        
+        for (MediaPacket packet : packets) {
+            
+            samples = Decoding.decodeAll(decoder, packet, samples, count);
+        }
+        
+        Decoding.decodeAll(decoder, null, samples, count);
+        
+        assertEquals(packets.size(), frames[0]);
+        assertTrue("The encoder pads, it never drops", numSamples[0] >= FRAMES * FRAME_SIZE);
+    }
+    
+    @Test
+    public void decodesEveryFrameOfAPacketHoldingSeveral() throws Exception {
+        
+        List<MediaPacket> packets = readPackets();
+        
+        int size = packets.stream().mapToInt(MediaPacket::getSize).sum();
+        MediaPacket glued = MediaPacket.make(size);
+        ByteBuffer data = glued.getData().getByteBuffer(0, size);
+        
+        for (MediaPacket packet : packets) {
+            
+            data.put(packet.getData().getByteBuffer(0, packet.getSize()));
+        }
+        
+        glued.setPts(packets.get(0).getPts());
+        glued.setDts(packets.get(0).getDts());
+        glued.setTimeBase(packets.get(0).getTimeBase());
+        
+        Decoder decoder = openDecoder();
+        int[] frames = { 0 };
+        
+        Decoding.FrameCallback<MediaAudio, RuntimeException> count = complete -> {
+            
+            frames[0]++;
+            
+            return complete;
+        };
+        
+        MediaAudio samples = Decoding.decodeAll(decoder, glued, newSamples(decoder), count);
+        Decoding.decodeAll(decoder, null, samples, count);
+        
+        assertEquals(packets.size(), frames[0]);
+    }
+    
+    private static List<MediaPacket> readPackets() throws Exception {
+        
+        Demuxer demuxer = Demuxer.make();
+        demuxer.open(reference.getPath(), null, false, true, null, null);
+        
+        List<MediaPacket> packets = new ArrayList<>();
+        MediaPacket packet = MediaPacket.make();
+        
+        while (demuxer.read(packet) >= 0) {
+            
+            packets.add(MediaPacket.make(packet, true));
+        }
+        
+        demuxer.close();
+        
+        assertTrue("Expected at least one packet per encoded frame", packets.size() >= FRAMES);
+        
+        return packets;
+    }
+    
+    private static Decoder openDecoder() throws Exception {
+        
+        Demuxer demuxer = Demuxer.make();
+        demuxer.open(reference.getPath(), null, false, true, null, null);
+        
+        DemuxerStream stream = MediaStreams.firstOfType(demuxer, MediaDescriptor.Type.MEDIA_AUDIO);
+        Decoder decoder = Decoder.make(stream.getDecoder());
+        decoder.open(null, null);
+        
+        demuxer.close();
+        
+        return decoder;
+    }
+    
+    private static MediaAudio newSamples(Decoder decoder) {
+        
+        return MediaAudio.make(decoder.getFrameSize(), decoder.getSampleRate(), decoder.getChannels(),
+                decoder.getChannelLayout(), decoder.getSampleFormat());
+    }
+}
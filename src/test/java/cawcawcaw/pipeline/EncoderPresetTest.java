@@ -0,0 +1,67 @@
+package cawcawcaw.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import io.humble.video.Codec;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: EncoderPresetTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 21, 2026 10:41:12 AM
+ */
+
+/**
+ * <p>
+ * Checks the lookup of the built in {@link EncoderPreset}s and that presets
+ * stay immutable.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.EncoderPresetTest
+ *
+ */
+public class EncoderPresetTest {
+    
+    @Test
+    public void looksUpTheBuiltInPresetsByName() {
+        
+        assertSame(EncoderPreset.OPUS_LOW, EncoderPreset.named("opus-low"));
+        assertSame(EncoderPreset.AAC_128K, EncoderPreset.named("aac-128k"));
+        assertSame(EncoderPreset.FLAC, EncoderPreset.named("flac"));
+        assertTrue(EncoderPreset.names().containsAll(RenditionExtractor.DEFAULT_PRESETS.stream()
+                .map(EncoderPreset::getName).collect(Collectors.toList())));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownNames() {
+        
+        EncoderPreset.named("vorbis-320k");
+    }
+    
+    @Test
+    public void copiesOnChange() {
+        
+        EncoderPreset louder = EncoderPreset.OPUS_LOW.withBitRate(96000);
+        
+        assertEquals("opus-low", louder.getName());
+        assertEquals(Codec.ID.CODEC_ID_OPUS, louder.getCodecId());
+        assertEquals("opus", louder.getExtension());
+        assertEquals(96000, louder.getBitRate());
+        assertEquals(48000, EncoderPreset.OPUS_LOW.getBitRate());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeBitRates() {
+        
+        EncoderPreset.MP3.withBitRate(-1);
+    }
+}
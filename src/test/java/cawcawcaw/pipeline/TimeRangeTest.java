@@ -0,0 +1,67 @@
+package cawcawcaw.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pipeline
+ * File: TimeRangeTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 10:22:05 AM
+ */
+
+/**
+ * <p>
+ * Checks the bounds of a {@link TimeRange}, minutes 12 to 14 of a file.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pipeline.TimeRangeTest
+ *
+ */
+public class TimeRangeTest {
+    
+    private final TimeRange range = TimeRange.of(12, 14, TimeUnit.MINUTES);
+    
+    @Test
+    public void startIsInclusiveAndEndExclusive() {
+        
+        assertEquals(720_000_000L, this.range.getStartMicros());
+        assertEquals(840_000_000L, this.range.getEndMicros());
+        
+        assertTrue(this.range.isBefore(719_999_999L));
+        assertTrue(this.range.contains(720_000_000L));
+        assertTrue(this.range.contains(839_999_999L));
+        assertFalse(this.range.contains(840_000_000L));
+        assertTrue(this.range.isAfter(840_000_000L));
+    }
+    
+    @Test
+    public void openEndedRangeRunsToTheEnd() {
+        
+        TimeRange rest = TimeRange.from(90, TimeUnit.SECONDS);
+        
+        assertTrue(rest.contains(Long.MAX_VALUE - 1));
+        assertFalse(rest.isAfter(Long.MAX_VALUE - 1));
+        assertTrue(rest.isBefore(0));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesAnEmptyRange() {
+        
+        TimeRange.of(5, 5, TimeUnit.SECONDS);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesANegativeStart() {
+        
+        TimeRange.of(-1, 5, TimeUnit.SECONDS);
+    }
+}
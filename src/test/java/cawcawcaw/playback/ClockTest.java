@@ -0,0 +1,93 @@
+package cawcawcaw.playback;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.playback
+ * File: ClockTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 5:58:13 PM
+ */
+
+/**
+ * <p>
+ * Checks that a {@link Clock} paces frames at its speed, never waits for late
+ * frames, and that the unlimited clock never waits at all.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.playback.ClockTest
+ *
+ */
+public class ClockTest {
+    
+    private static final long SECOND = 1000000;
+    
+    @Test
+    public void unlimitedNeverWaits() throws Exception {
+        
+        Clock clock = Clock.unlimited();
+        long start = System.nanoTime();
+        
+        for (long micros = 0; micros < 3600 * SECOND; micros += SECOND) {
+            
+            clock.await(micros);
+        }
+        
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+    
+    @Test
+    public void pacesAtItsSpeed() throws Exception {
+        
+        // 2 seconds of media at 40x is 50 ms
+        Clock clock = Clock.speed(40);
+        long start = System.nanoTime();
+        
+        for (long micros = 0; micros <= 2 * SECOND; micros += SECOND / 25) {
+            
+            clock.await(micros);
+        }
+        
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        assertTrue("took " + elapsed + " ms", elapsed >= 49);
+        assertTrue("took " + elapsed + " ms", elapsed < 1000);
+    }
+    
+    @Test
+    public void lateFramesAreDueRightAway() throws Exception {
+        
+        AtomicLong now = new AtomicLong();
+        Clock clock = new ScaledClock(1, now::get);
+        
+        clock.await(0);
+        
+        // the decoder stalled for 10 seconds
+        now.set(TimeUnit.SECONDS.toNanos(10));
+        
+        long start = System.nanoTime();
+        
+        for (long micros = 0; micros < 10 * SECOND; micros += SECOND / 25) {
+            
+            clock.await(micros);
+        }
+        
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(TimeUnit.SECONDS.toNanos(10), now.get());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesANonPositiveSpeed() {
+        
+        Clock.speed(0);
+    }
+}
@@ -0,0 +1,98 @@
+package cawcawcaw.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.pool
+ * File: MediaPoolTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 9:14:40 AM
+ */
+
+/**
+ * <p>
+ * Checks that the byte budget of a {@link MediaPool} counts objects from the
+ * moment they are made.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.pool.MediaPoolTest
+ *
+ */
+public class MediaPoolTest {
+    
+    @Test
+    public void countsNewObjectsInTheBytesInFlight() throws InterruptedException {
+        
+        MediaPool<byte[]> pool = new MediaPool<>("test", 8, 0, () -> new byte[100], bytes -> bytes.length);
+        
+        Pooled<byte[]> first = pool.acquire();
+        Pooled<byte[]> second = pool.acquire();
+        
+        assertEquals(200, pool.getInFlightBytes());
+        
+        first.release();
+        second.release();
+        
+        assertEquals(0, pool.getInFlightBytes());
+    }
+    
+    @Test
+    public void blocksNewObjectsOverTheByteBudget() throws InterruptedException {
+        
+        MediaPool<byte[]> pool = new MediaPool<>("test", 8, 250, () -> new byte[100], bytes -> bytes.length);
+        
+        Pooled<byte[]> first = pool.acquire();
+        pool.acquire();
+        
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread third = new Thread(() -> {
+            
+            try {
+                
+                pool.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                
+                Thread.currentThread().interrupt();
+            }
+        });
+        third.start();
+        
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(2, pool.getAllocated());
+        
+        first.release();
+        
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        third.join();
+    }
+    
+    @Test
+    public void refusesToRetainAReleasedObject() throws InterruptedException {
+        
+        MediaPool<byte[]> pool = new MediaPool<>("test", 8, 0, () -> new byte[100], bytes -> bytes.length);
+        
+        Pooled<byte[]> first = pool.acquire();
+        first.release();
+        
+        try {
+            
+            first.retain();
+            fail("retained a released object");
+        } catch (IllegalStateException e) {
+            
+            assertEquals(0, first.refCount());
+        }
+    }
+}
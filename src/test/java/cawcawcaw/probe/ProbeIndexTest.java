@@ -0,0 +1,239 @@
+package cawcawcaw.probe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.probe
+ * File: ProbeIndexTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 9:25:47 PM
+ */
+
+/**
+ * <p>
+ * Stores made up entries for plain files in a {@link ProbeIndex}, and checks
+ * they survive a reopen, go stale when the file changes or was probed in a
+ * weaker mode, get pruned, compact while staying locked, and that a torn
+ * record at the end is dropped.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.probe.ProbeIndexTest
+ *
+ */
+public class ProbeIndexTest {
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    private Path media(String name) throws IOException {
+        
+        Path path = this.folder.newFile(name).toPath();
+        
+        Files.write(path, name.getBytes());
+        
+        return path;
+    }
+    
+    private static MediaInfo info(Path path) throws IOException {
+        
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Map<String, String> metadata = Collections.singletonMap("language", "jpn");
+        StreamInfo audio = new StreamInfo(1, "MEDIA_AUDIO", "aac", "jpn", 1, 48000, 48000L * 1440, 0, 48000, 2, 0, 0,
+                metadata);
+        
+        return new MediaInfo(path.toAbsolutePath().toString(), attributes.size(),
+                attributes.lastModifiedTime().toMillis(), "matroska,webm", "Matroska / WebM", 1440000000L, 0,
+                192000, Collections.singletonMap("title", "Episode \u7b2c1\u8a71"), Arrays.asList(audio));
+    }
+    
+    @Test
+    public void keepsEntriesWhileTheFilesDontChange() throws Exception {
+        
+        Path file = this.folder.getRoot().toPath().resolve("index");
+        Path episode = media("ep01.mkv");
+        
+        try (ProbeIndex index = new ProbeIndex(file)) {
+            
+            index.put(info(episode));
+            
+            assertEquals(1, index.size());
+        }
+        
+        try (ProbeIndex index = new ProbeIndex(file)) {
+            
+            MediaInfo info = index.get(episode);
+            
+            assertNotNull(info);
+            assertEquals("Episode \u7b2c1\u8a71", info.getMetadata().get("title"));
+            assertEquals(1440.0, info.getDurationSeconds(), 0);
+            assertEquals("aac", info.firstOfType("MEDIA_AUDIO").getCodec());
+            assertEquals(1440.0, info.getStreams().get(0).getDurationSeconds(), 0);
+            
+            Files.setLastModifiedTime(episode, FileTime.fromMillis(info.getLastModified() + 5000));
+            
+            assertNull(index.get(episode));
+            
+            Files.delete(episode);
+            
+            assertEquals(1, index.prune());
+            assertEquals(0, index.size());
+        }
+        
+        try (ProbeIndex index = new ProbeIndex(file)) {
+            
+            assertEquals(0, index.size());
+        }
+    }
+    
+    @Test
+    public void compactsAndGrows() throws Exception {
+        
+        Path file = this.folder.getRoot().toPath().resolve("index");
+        Path[] episodes = new Path[50];
+        
+        for (int i = 0; i < episodes.length; i++) {
+            
+            episodes[i] = media(String.format("ep%02d.mkv", i));
+        }
+        
+        try (ProbeIndex index = new ProbeIndex(file)) {
+            
+            // enough rewrites to outgrow the first mapping and to compact
+            for (int round = 0; round < 60; round++) {
+                
+                for (Path episode : episodes) {
+                    
+                    index.put(info(episode));
+                }
+            }
+            
+            assertEquals(episodes.length, index.size());
+            
+            // and a library bigger than the first mapping
+            for (int i = 0; i < 5000; i++) {
+                
+                MediaInfo info = info(episodes[0]);
+                
+                index.put(new MediaInfo(info.getPath() + i, info.getSize(), info.getLastModified(), info.getFormat(),
+                        info.getFormatLongName(), info.getDuration(), info.getStartTime(), info.getBitRate(),
+                        info.getMetadata(), info.getStreams()));
+            }
+        }
+        
+        assertTrue("index is " + Files.size(file) + " bytes", Files.size(file) < 4 << 20);
+        
+        try (ProbeIndex index = new ProbeIndex(file)) {
+            
+            assertEquals(episodes.length + 5000, index.size());
+            
+            for (Path episode : episodes) {
+                
+                assertNotNull(index.get(episode));
+            }
+            
+            index.compact();
+            
+            try (ProbeIndex other = new ProbeIndex(file)) {
+                
+                fail(String.format("a compacted index is still in use, opened again with %d entries", other.size()));
+            } catch (IOException e) {
+                
+                assertTrue(e.getMessage(), e.getMessage().contains("in use"));
+            }
+            
+            assertNotNull(index.get(episodes[0]));
+        }
+    }
+    
+    @Test
+    public void onlyAnswersForTheModeProbedOrWeaker() throws Exception {
+        
+        Path file = this.folder.getRoot().toPath().resolve("index");
+        Path episode = media("ep01.mkv");
+        
+        try (ProbeIndex index = new ProbeIndex(file)) {
+            
+            index.put(info(episode), Prober.Mode.HEADER);
+        }
+        
+        try (ProbeIndex index = new ProbeIndex(file)) {
+            
+            assertNull(index.get(episode));
+            assertNull(index.get(episode, Prober.Mode.FULL));
+            assertNotNull(index.get(episode, Prober.Mode.HEADER));
+            assertNotNull(index.get(episode, Prober.Mode.LAZY));
+            
+            index.withProber(new Prober().withMode(Prober.Mode.HEADER));
+            
+            assertNotNull(index.get(episode));
+            
+            index.put(info(episode));
+            
+            assertNotNull(index.get(episode, Prober.Mode.FULL));
+        }
+    }
+    
+    @Test
+    public void dropsATornRecord() throws Exception {
+        
+        Path file = this.folder.getRoot().toPath().resolve("index");
+        Path first = media("ep01.mkv");
+        Path second = media("ep02.mkv");
+        
+        try (ProbeIndex index = new ProbeIndex(file)) {
+            
+            index.put(info(first));
+            index.put(info(second));
+        }
+        
+        // flip a byte in the middle of the last record
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            
+            long last = 16;
+            
+            raw.seek(last);
+            last += 8 + raw.readInt();
+            raw.seek(last + 8 + 20);
+            
+            int b = raw.read();
+            
+            raw.seek(last + 8 + 20);
+            raw.write(b ^ 0xff);
+        }
+        
+        try (ProbeIndex index = new ProbeIndex(file)) {
+            
+            assertNotNull(index.get(first));
+            assertNull(index.get(second));
+            
+            index.put(info(second));
+        }
+        
+        try (ProbeIndex index = new ProbeIndex(file)) {
+            
+            assertEquals(2, index.size());
+            assertNotNull(index.get(second));
+        }
+    }
+}
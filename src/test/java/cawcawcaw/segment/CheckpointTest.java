@@ -0,0 +1,118 @@
+package cawcawcaw.segment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.segment
+ * File: CheckpointTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 19, 2026 12:48:19 PM
+ */
+
+/**
+ * <p>
+ * Checks that a {@link Checkpoint} hands the timeline back to a restarted job,
+ * and is thrown away for another job.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.segment.CheckpointTest
+ *
+ */
+public class CheckpointTest {
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    private static Properties job(String input, long size) {
+        
+        Properties job = new Properties();
+        job.setProperty("input", input);
+        job.setProperty("input.size", Long.toString(size));
+        
+        return job;
+    }
+    
+    private static List<Segment> timeline() {
+        
+        return Segment.split(new long[] { 0, 1000, 2000, 3000, 4000 }, 4);
+    }
+    
+    @Test
+    public void resumesTheSameJob() throws Exception {
+        
+        Path dir = this.folder.getRoot().toPath().resolve("checkpoint");
+        Checkpoint first = Checkpoint.open(dir, job("movie.mkv", 42));
+        
+        assertEquals(-1, first.getStreamIndex());
+        assertTrue(first.getTimeline().isEmpty());
+        
+        first.saveTimeline(1, timeline());
+        
+        Checkpoint restarted = Checkpoint.open(dir, job("movie.mkv", 42));
+        List<Segment> resumed = restarted.getTimeline();
+        
+        assertEquals(1, restarted.getStreamIndex());
+        assertEquals(timeline().size(), resumed.size());
+        
+        for (int i = 0; i < resumed.size(); i++) {
+            
+            assertEquals(timeline().get(i).toString(), resumed.get(i).toString());
+        }
+        
+        assertFalse(restarted.isDone(resumed.get(0)));
+        assertEquals(0, restarted.getDoneCount());
+    }
+    
+    @Test
+    public void dropsAnotherJob() throws Exception {
+        
+        Path dir = this.folder.getRoot().toPath().resolve("checkpoint");
+        
+        Checkpoint.open(dir, job("movie.mkv", 42)).saveTimeline(1, timeline());
+        Files.write(dir.resolve("segment-00000.packets"), new byte[16]);
+        
+        // the input changed since
+        Checkpoint other = Checkpoint.open(dir, job("movie.mkv", 43));
+        
+        assertEquals(-1, other.getStreamIndex());
+        assertTrue(other.getTimeline().isEmpty());
+        assertFalse(Files.exists(dir.resolve("segment-00000.packets")));
+    }
+    
+    @Test
+    public void clearsOnceDone() throws Exception {
+        
+        Path dir = this.folder.getRoot().toPath().resolve("checkpoint");
+        Checkpoint checkpoint = Checkpoint.open(dir, job("movie.mkv", 42));
+        
+        checkpoint.saveTimeline(0, timeline());
+        Files.write(dir.resolve("segment-00001.packets"), new byte[16]);
+        
+        assertTrue(checkpoint.isDone(timeline().get(1)));
+        assertEquals(1, checkpoint.getDoneCount());
+        
+        checkpoint.clear();
+        
+        try (Stream<Path> left = Files.list(dir)) {
+            
+            assertEquals(Arrays.asList(), left.collect(Collectors.toList()));
+        }
+    }
+}
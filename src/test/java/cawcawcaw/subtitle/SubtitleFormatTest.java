@@ -0,0 +1,75 @@
+package cawcawcaw.subtitle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import cawcawcaw.translate.Transcript;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.subtitle
+ * File: SubtitleFormatTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 21, 2026 3:37:19 PM
+ */
+
+/**
+ * <p>
+ * Checks how transcripts are laid out as cues, and the SRT and ASS files
+ * written from them.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.subtitle.SubtitleFormatTest
+ *
+ */
+public class SubtitleFormatTest {
+    
+    private static Transcript transcript(int index, long start, long end, String translation) {
+        
+        return new Transcript(index, start, end, "ja", "", "en", translation);
+    }
+    
+    @Test
+    public void laysTranscriptsOutInOrderWithoutOverlaps() {
+        
+        List<Cue> cues = Cue.timeline(Arrays.asList(transcript(2, 3000, 5000, "Later"),
+                transcript(0, 1000, 4000, "First"), transcript(1, 1000, 2500, "Also first"),
+                transcript(3, 6000, 7000, "  \n"), transcript(4, 8000, 8000, "Empty")), Transcript::getTranslation);
+        
+        assertEquals(2, cues.size());
+        assertEquals(1000, cues.get(0).getStartMillis());
+        assertEquals(3000, cues.get(0).getEndMillis());
+        assertEquals("First\nAlso first", cues.get(0).getText());
+        assertEquals(3000, cues.get(1).getStartMillis());
+        assertEquals(5000, cues.get(1).getEndMillis());
+        assertEquals("Later", cues.get(1).getText());
+    }
+    
+    @Test
+    public void writesSrt() throws IOException {
+        
+        StringBuilder out = new StringBuilder();
+        SubtitleFormat.SRT.write(Arrays.asList(new Cue(1500, 3723456, "Hello\nthere")), out);
+        
+        assertEquals("1\n00:00:01,500 --> 01:02:03,456\nHello\nthere\n\n", out.toString());
+    }
+    
+    @Test
+    public void writesAss() throws IOException {
+        
+        StringBuilder out = new StringBuilder();
+        SubtitleFormat.ASS.write(Arrays.asList(new Cue(1500, 3723456, "Hello {there}\nagain")), out);
+        
+        assertTrue(out.toString().startsWith("[Script Info]\n"));
+        assertTrue(out.toString()
+                .endsWith("Dialogue: 0,0:00:01.50,1:02:03.45,Default,,0,0,0,,Hello (there)\\Nagain\n"));
+    }
+}
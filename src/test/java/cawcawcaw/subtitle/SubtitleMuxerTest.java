@@ -0,0 +1,194 @@
+package cawcawcaw.subtitle;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cawcawcaw.remux.RemuxStage;
+import cawcawcaw.translate.Transcript;
+import io.humble.video.AudioChannel;
+import io.humble.video.AudioFormat;
+import io.humble.video.Codec;
+import io.humble.video.Coder;
+import io.humble.video.Demuxer;
+import io.humble.video.Encoder;
+import io.humble.video.MediaAudio;
+import io.humble.video.MediaPacket;
+import io.humble.video.Muxer;
+import io.humble.video.MuxerFormat;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.subtitle
+ * File: SubtitleMuxerTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 22, 2026 4:20:12 PM
+ */
+
+/**
+ * <p>
+ * Muxes subtitles into made up Matroska files with 2 mp3 streams, one of them
+ * much shorter than the other: ending early or starting late. The demuxer
+ * reads hundreds of packets of the long stream in a row there, more than the
+ * reorder queues hold, and every packet must still come out.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.subtitle.SubtitleMuxerTest
+ *
+ */
+public class SubtitleMuxerTest {
+    
+    private static final int SAMPLE_RATE = 44100;
+    
+    private static final int FRAME_SIZE = 1152;
+    
+    /**
+     * About 10 seconds.
+     */
+    private static final int FRAMES = 400;
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    private final List<Transcript> transcripts = Arrays.asList(
+            new Transcript(0, 1000, 2500, "ja", "\u3053\u3093\u306b\u3061\u306f", "en", "Hello"),
+            new Transcript(1, 8000, 9000, "ja", "\u3055\u3088\u306a\u3089", "en", "Goodbye"));
+    
+    @Test(timeout = 60000)
+    public void muxesAStreamEndingEarly() throws Exception {
+        
+        // the short stream is only in the first 20 frames
+        File input = twoStreams("early.mkv", 0, 20);
+        File output = this.folder.newFile("early.en.mkv");
+        
+        new SubtitleMuxer(input.getPath(), output.getPath()).withTranscripts(this.transcripts).mux();
+        
+        assertEquals(Arrays.asList(countPackets(input, 0), countPackets(input, 1), 2),
+                Arrays.asList(countPackets(output, 0), countPackets(output, 1), countPackets(output, 2)));
+    }
+    
+    @Test(timeout = 60000)
+    public void muxesAStreamStartingLate() throws Exception {
+        
+        File input = twoStreams("late.mkv", FRAMES - 20, FRAMES);
+        File output = this.folder.newFile("late.en.mkv");
+        
+        new SubtitleMuxer(input.getPath(), output.getPath()).withTranscripts(this.transcripts).mux();
+        
+        assertEquals(Arrays.asList(countPackets(input, 0), countPackets(input, 1), 2),
+                Arrays.asList(countPackets(output, 0), countPackets(output, 1), countPackets(output, 2)));
+    }
+    
+    /**
+     * Writes a tone as stream 0 for {@value #FRAMES} mp3 frames, and as stream
+     * 1 for the frames from first to last only.
+     */
+    private File twoStreams(String name, int first, int last) throws Exception {
+        
+        File file = this.folder.newFile(name);
+        Muxer muxer = Muxer.make(file.getPath(), null, "matroska");
+        Encoder[] encoders = { encoder(muxer.getFormat()), encoder(muxer.getFormat()) };
+        
+        muxer.addNewStream(encoders[0]);
+        muxer.addNewStream(encoders[1]);
+        muxer.open(null, null);
+        
+        MediaAudio samples = MediaAudio.make(FRAME_SIZE, SAMPLE_RATE, 1, AudioChannel.Layout.CH_LAYOUT_MONO,
+                AudioFormat.Type.SAMPLE_FMT_S16P);
+        MediaPacket packet = MediaPacket.make();
+        
+        for (int frame = 0; frame < FRAMES; frame++) {
+            
+            ByteBuffer data = samples.getData(0).getByteBuffer(0, samples.getDataPlaneSize(0))
+                    .order(ByteOrder.nativeOrder());
+            
+            for (int i = 0; i < FRAME_SIZE; i++) {
+                
+                data.putShort((short) (Math.sin(2 * Math.PI * 440 * (frame * FRAME_SIZE + i) / SAMPLE_RATE) * 8192));
+            }
+            
+            samples.setNumSamples(FRAME_SIZE);
+            samples.setTimeStamp((long) frame * FRAME_SIZE);
+            samples.setComplete(true);
+            
+            encoders[0].encodeAudio(packet, samples);
+            write(muxer, encoders[0], 0, packet);
+            
+            if (frame >= first && frame < last) {
+                
+                encoders[1].encodeAudio(packet, samples);
+                write(muxer, encoders[1], 1, packet);
+            }
+        }
+        
+        for (int stream = 0; stream < encoders.length; stream++) {
+            
+            do {
+                
+                encoders[stream].encodeAudio(packet, null);
+                write(muxer, encoders[stream], stream, packet);
+            } while (packet.isComplete());
+        }
+        
+        muxer.close();
+        
+        return file;
+    }
+    
+    private static Encoder encoder(MuxerFormat format) throws Exception {
+        
+        Encoder encoder = Encoder.make(Codec.findEncodingCodec(Codec.ID.CODEC_ID_MP3));
+        
+        encoder.setSampleRate(SAMPLE_RATE);
+        encoder.setChannels(1);
+        encoder.setChannelLayout(AudioChannel.Layout.CH_LAYOUT_MONO);
+        encoder.setSampleFormat(AudioFormat.Type.SAMPLE_FMT_S16P);
+        
+        if (format.getFlag(MuxerFormat.Flag.GLOBAL_HEADER)) {
+            
+            encoder.setFlag(Coder.Flag.FLAG_GLOBAL_HEADER, true);
+        }
+        
+        encoder.open(null, null);
+        
+        return encoder;
+    }
+    
+    private static void write(Muxer muxer, Encoder encoder, int stream, MediaPacket packet) throws Exception {
+        
+        if (packet.isComplete()) {
+            
+            RemuxStage.rescale(packet, encoder.getTimeBase(), muxer.getStream(stream).getTimeBase());
+            packet.setStreamIndex(stream);
+            muxer.write(packet, false);
+        }
+    }
+    
+    private static int countPackets(File file, int stream) throws Exception {
+        
+        Demuxer demuxer = Demuxer.make();
+        demuxer.open(file.getPath(), null, false, true, null, null);
+        
+        MediaPacket packet = MediaPacket.make();
+        int count = 0;
+        
+        while (demuxer.read(packet) >= 0) {
+            
+            count += packet.getStreamIndex() == stream ? 1 : 0;
+        }
+        
+        demuxer.close();
+        
+        return count;
+    }
+}
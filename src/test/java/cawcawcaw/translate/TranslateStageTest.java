@@ -0,0 +1,250 @@
+package cawcawcaw.translate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import cawcawcaw.pcm.PcmRing;
+import cawcawcaw.pipeline.Pipeline;
+import cawcawcaw.vad.VoiceActivityDetector;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: TranslateStageTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 17, 2026 10:31:20 PM
+ */
+
+/**
+ * <p>
+ * Runs synthetic audio through {@link UtteranceSource} and
+ * {@link TranslateStage} with the stub engine, and checks the transcripts come
+ * out complete, in order, and with no more requests in flight than allowed.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.TranslateStageTest
+ *
+ */
+public class TranslateStageTest {
+    
+    private static final int SAMPLE_RATE = 16000;
+    
+    /**
+     * Chunks a second of loud noise followed by half a second of silence,
+     * repeated.
+     * 
+     * @param utterances
+     *            The number of repeats
+     * @return The utterances cut by an {@link UtteranceSource}
+     */
+    private static List<Utterance> talk(int utterances) throws Exception {
+        
+        PcmRing ring = new PcmRing(1 << 16);
+        List<Utterance> chunks = Collections.synchronizedList(new ArrayList<>());
+        
+        Pipeline.Runner chunker = Pipeline
+                .from("chunk", new UtteranceSource(ring.reader(), SAMPLE_RATE, 1).withDuration(0.5, 2))
+                .to("collect", chunks::add);
+        Thread thread = new Thread(() -> {
+            
+            try {
+                
+                chunker.run();
+            } catch (Exception e) {
+                
+                throw new IllegalStateException(e);
+            }
+        });
+        
+        thread.start();
+        
+        ByteBuffer pcm = ByteBuffer.allocate(SAMPLE_RATE * 3).order(ByteOrder.nativeOrder());
+        
+        for (int i = 0; i < utterances; i++) {
+            
+            pcm.clear();
+            
+            for (int sample = 0; sample < SAMPLE_RATE; sample++) {
+                
+                pcm.putShort((short) ((sample * 7919 + i) % 20000 - 10000));
+            }
+            
+            while (pcm.hasRemaining()) {
+                
+                pcm.putShort((short) 0);
+            }
+            
+            pcm.flip();
+            ring.write(pcm);
+        }
+        
+        ring.close();
+        thread.join();
+        
+        return chunks;
+    }
+    
+    @Test
+    public void cutsUtterancesInThePauses() throws Exception {
+        
+        List<Utterance> utterances = talk(5);
+        long end = 0;
+        
+        for (int i = 0; i < utterances.size(); i++) {
+            
+            Utterance utterance = utterances.get(i);
+            
+            assertEquals(i, utterance.getIndex());
+            assertEquals(end, utterance.getStartMillis());
+            
+            end = utterance.getEndMillis();
+            
+            if (i < utterances.size() - 1) {
+                
+                assertTrue("cut in the middle of the noise at " + end, end % 1500 >= 1000);
+            }
+        }
+        
+        assertEquals(5 * 1500, end);
+    }
+    
+    @Test
+    public void skipsAllButSpeechWithVoiceActivity() throws Exception {
+        
+        PcmRing ring = new PcmRing(1 << 20);
+        List<Utterance> utterances = new ArrayList<>();
+        UtteranceSource source = new UtteranceSource(ring.reader(), SAMPLE_RATE, 1)
+                .withVoiceActivity(new VoiceActivityDetector(SAMPLE_RATE, (start, end) -> {
+                    
+                }));
+        
+        // quiet 0-1s, speech 1-2.5s, quiet 2.5-4.5s, speech 4.5-5.5s, quiet
+        ByteBuffer pcm = ByteBuffer.allocate(SAMPLE_RATE * 13).order(ByteOrder.nativeOrder());
+        
+        for (int sample = 0; sample < SAMPLE_RATE * 13 / 2; sample++) {
+            
+            double t = (double) sample / SAMPLE_RATE;
+            boolean speaking = t >= 1 && t < 2.5 || t >= 4.5 && t < 5.5;
+            
+            pcm.putShort((short) (speaking ? 10000 * Math.sin(2 * Math.PI * 180 * t) : (sample % 3 - 1) * 20));
+        }
+        
+        pcm.flip();
+        ring.write(pcm);
+        ring.close();
+        
+        Pipeline.from("chunk", source).to("collect", utterances::add).run();
+        
+        assertEquals(utterances.toString(), 2, utterances.size());
+        assertEquals(1000, utterances.get(0).getStartMillis(), 60);
+        assertEquals(4500, utterances.get(1).getStartMillis(), 60);
+        
+        // the speech and the hangover after it
+        assertEquals(1500 + 300, utterances.get(0).getDurationMillis(), 100);
+        assertEquals(1000 + 300, utterances.get(1).getDurationMillis(), 100);
+    }
+    
+    @Test
+    public void dropsSpeechShorterThanTheMinSpeech() throws Exception {
+        
+        PcmRing ring = new PcmRing(1 << 20);
+        List<Utterance> utterances = new ArrayList<>();
+        UtteranceSource source = new UtteranceSource(ring.reader(), SAMPLE_RATE, 1)
+                .withVoiceActivity(new VoiceActivityDetector(SAMPLE_RATE, (start, end) -> {
+                    
+                }).withMinSpeech(250));
+        
+        // quiet 0-1s, a 150 ms burst, quiet 1.15-3s, speech 3-4s, quiet
+        ByteBuffer pcm = ByteBuffer.allocate(SAMPLE_RATE * 11).order(ByteOrder.nativeOrder());
+        
+        for (int sample = 0; sample < SAMPLE_RATE * 11 / 2; sample++) {
+            
+            double t = (double) sample / SAMPLE_RATE;
+            boolean speaking = t >= 1 && t < 1.15 || t >= 3 && t < 4;
+            
+            pcm.putShort((short) (speaking ? 10000 * Math.sin(2 * Math.PI * 180 * t) : (sample % 3 - 1) * 20));
+        }
+        
+        pcm.flip();
+        ring.write(pcm);
+        ring.close();
+        
+        Pipeline.from("chunk", source).to("collect", utterances::add).run();
+        
+        assertEquals(utterances.toString(), 1, utterances.size());
+        assertEquals(0, utterances.get(0).getIndex());
+        assertEquals(3000, utterances.get(0).getStartMillis(), 60);
+    }
+    
+    @Test
+    public void keepsOrderAndConcurrency() throws Exception {
+        
+        List<Utterance> utterances = talk(23);
+        Properties config = new Properties();
+        
+        config.setProperty("stub.latency.millis", "5");
+        
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        TranslationEngine stub = TranslationEngines.create("stub", config);
+        TranslationEngine counting = new TranslationEngine() {
+            
+            @Override
+            public String getName() {
+                
+                return "counting";
+            }
+            
+            @Override
+            public List<Transcript> translate(List<Utterance> batch) throws IOException {
+                
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                
+                try {
+                    
+                    return stub.translate(batch);
+                } finally {
+                    
+                    running.decrementAndGet();
+                }
+            }
+        };
+        
+        List<Transcript> transcripts = new ArrayList<>();
+        
+        Pipeline.<Utterance> from("talk", output -> {
+            
+            for (Utterance utterance : utterances) {
+                
+                output.emit(utterance);
+            }
+        }).then("translate", new TranslateStage(counting).withBatchSize(3).withConcurrency(3))
+                .to("collect", transcripts::add).run();
+        
+        assertEquals(utterances.size(), transcripts.size());
+        assertTrue("too many requests at once: " + maxRunning.get(), maxRunning.get() <= 3);
+        
+        for (int i = 0; i < transcripts.size(); i++) {
+            
+            Transcript transcript = transcripts.get(i);
+            
+            assertEquals(i, transcript.getIndex());
+            assertEquals(utterances.get(i).getEndMillis(), transcript.getEndMillis());
+            assertEquals(stub.translate(Collections.singletonList(utterances.get(i))).get(0).getTranslation(),
+                    transcript.getTranslation());
+        }
+    }
+}
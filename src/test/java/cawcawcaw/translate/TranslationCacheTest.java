@@ -0,0 +1,296 @@
+package cawcawcaw.translate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.translate
+ * File: TranslationCacheTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 3:30:14 PM
+ */
+
+/**
+ * <p>
+ * Checks {@link TranslationCache} hits, also on re-encoded audio, survives a
+ * restart, evicts by size and age, drops corrupt entries, and that
+ * {@link CachingTranslationEngine} only sends the misses to the engine.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.translate.TranslationCacheTest
+ *
+ */
+public class TranslationCacheTest {
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    private final TranslationEngine stub = new StubTranslationEngine(new Properties());
+    
+    private static Utterance utterance(int index, int seed) {
+        
+        byte[] pcm = new byte[3200];
+        
+        for (int i = 0; i < pcm.length; i++) {
+            
+            pcm[i] = (byte) (i * seed);
+        }
+        
+        return new Utterance(index, index * 1000L, 16000, 1, pcm);
+    }
+    
+    /**
+     * 2 seconds of tones changing every 50 ms, a stand-in for speech.
+     * 
+     * @param seed
+     *            Which audio
+     * @param offset
+     *            The first sample, to cut the same audio elsewhere
+     * @param noise
+     *            The amplitude of the noise added, like a lossy re-encode
+     */
+    private static Utterance speech(int index, long seed, int offset, double noise) {
+        
+        int rate = 16000;
+        Random tones = new Random(seed);
+        double[][] amplitudes = new double[50][8];
+        
+        for (double[] segment : amplitudes) {
+            
+            for (int tone = 0; tone < segment.length; tone++) {
+                
+                segment[tone] = tones.nextDouble() * 2000;
+            }
+        }
+        
+        Random hiss = new Random(seed + offset);
+        ByteBuffer pcm = ByteBuffer.allocate(2 * 2 * rate).order(ByteOrder.nativeOrder());
+        
+        for (int i = 0; i < 2 * rate; i++) {
+            
+            int t = i + offset;
+            double[] segment = amplitudes[t * 20 / rate % amplitudes.length];
+            double sample = hiss.nextGaussian() * noise;
+            
+            for (int tone = 0; tone < segment.length; tone++) {
+                
+                sample += segment[tone] * Math.sin(2 * Math.PI * (350 * Math.pow(1.35, tone)) * t / rate);
+            }
+            
+            pcm.putShort((short) sample);
+        }
+        
+        return new Utterance(index, index * 1000L, rate, 1, pcm.array());
+    }
+    
+    private static List<Path> entries(Path directory) throws IOException {
+        
+        try (Stream<Path> walk = Files.walk(directory)) {
+            
+            return walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+    
+    @Test
+    public void hitsFromMemoryThenFromDisk() throws Exception {
+        
+        Path directory = this.folder.getRoot().toPath();
+        TranslationCache cache = new TranslationCache(directory);
+        Utterance opening = utterance(0, 7);
+        String key = TranslationCache.key(opening, "stub ja-en");
+        
+        assertNull(cache.get(key, opening));
+        
+        cache.put(key, this.stub.translate(Arrays.asList(opening)).get(0));
+        
+        // the same audio later in the episode, the timing is the new one
+        Transcript hit = cache.get(key, utterance(42, 7));
+        
+        assertNotNull(hit);
+        assertEquals(42000, hit.getStartMillis());
+        assertEquals(1, cache.getMemoryHits());
+        assertEquals(1, cache.getMisses());
+        
+        // a new process
+        TranslationCache reopened = new TranslationCache(directory);
+        
+        assertEquals(hit.getTranslation(), reopened.get(key, opening).getTranslation());
+        assertEquals(1, reopened.getDiskHits());
+        assertEquals(1.0, reopened.getHitRate(), 0);
+        
+        assertTrue(!key.equals(TranslationCache.key(opening, "stub ja-fr")));
+        assertTrue(!key.equals(TranslationCache.key(utterance(0, 11), "stub ja-en")));
+    }
+    
+    @Test
+    public void onlyMissesGoToTheEngine() throws Exception {
+        
+        List<Integer> sent = new ArrayList<>();
+        TranslationEngine counting = new TranslationEngine() {
+            
+            @Override
+            public String getName() {
+                
+                return "counting";
+            }
+            
+            @Override
+            public List<Transcript> translate(List<Utterance> batch) throws IOException {
+                
+                batch.forEach(utterance -> sent.add(utterance.getIndex()));
+                
+                return TranslationCacheTest.this.stub.translate(batch);
+            }
+        };
+        
+        TranslationCache cache = new TranslationCache(this.folder.getRoot().toPath());
+        
+        try (TranslationEngine engine = new CachingTranslationEngine(counting, cache, "ja-en")) {
+            
+            List<Transcript> first = engine.translate(Arrays.asList(utterance(0, 1), utterance(1, 2)));
+            List<Transcript> second = engine
+                    .translate(Arrays.asList(utterance(2, 1), utterance(3, 3), utterance(4, 2)));
+            
+            assertEquals(Arrays.asList(0, 1, 3), sent);
+            assertEquals(3, second.size());
+            assertEquals(first.get(0).getTranslation(), second.get(0).getTranslation());
+            assertEquals(first.get(1).getTranslation(), second.get(2).getTranslation());
+            assertEquals(4, second.get(2).getIndex());
+            assertEquals(2, cache.getMemoryHits());
+            assertEquals(3, cache.getPuts());
+        }
+    }
+    
+    @Test
+    public void evictsBySizeAndAge() throws Exception {
+        
+        Path directory = this.folder.getRoot().toPath();
+        TranslationCache cache = new TranslationCache(directory).withMaxBytes(2000);
+        
+        for (int i = 0; i < 30; i++) {
+            
+            Utterance utterance = utterance(i, i + 1);
+            
+            cache.put(TranslationCache.key(utterance, ""), this.stub.translate(Arrays.asList(utterance)).get(0));
+        }
+        
+        long size = 0;
+        
+        for (Path entry : entries(directory)) {
+            
+            size += Files.size(entry);
+        }
+        
+        assertTrue("cache is " + size + " bytes", size <= 2000);
+        assertTrue(cache.getEvictions() > 0);
+        
+        for (Path entry : entries(directory)) {
+            
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis() - 3600000));
+        }
+        
+        TranslationCache aged = new TranslationCache(directory).withMaxAge(10, TimeUnit.MINUTES);
+        
+        aged.evict();
+        
+        assertEquals(0, entries(directory).size());
+    }
+    
+    @Test
+    public void hitsTheSameAudioReEncoded() throws Exception {
+        
+        Path directory = this.folder.getRoot().toPath();
+        TranslationCache cache = new TranslationCache(directory);
+        Utterance opening = speech(0, 7, 0, 0);
+        Transcript translated = this.stub.translate(Arrays.asList(opening)).get(0);
+        
+        cache.put(opening, "stub ja-en", translated);
+        
+        // cut 5 ms later, with noise, in another process
+        TranslationCache reopened = new TranslationCache(directory);
+        Transcript hit = reopened.get(speech(3, 7, 80, 300), "stub ja-en");
+        
+        assertNotNull(hit);
+        assertEquals(translated.getTranslation(), hit.getTranslation());
+        assertEquals(3000, hit.getStartMillis());
+        assertEquals(1, reopened.getFuzzyHits());
+        
+        assertNull(reopened.get(speech(4, 11, 0, 0), "stub ja-en"));
+        assertNull(reopened.get(speech(5, 7, 80, 300), "stub ja-fr"));
+        assertEquals(2, reopened.getMisses());
+        
+        assertTrue(AudioFingerprint.of(opening).bitErrorRate(AudioFingerprint.of(speech(0, 11, 0, 0))) > 0.35);
+    }
+    
+    @Test
+    public void memoryHitsKeepTheEntryYoung() throws Exception {
+        
+        Path directory = this.folder.getRoot().toPath();
+        TranslationCache cache = new TranslationCache(directory);
+        Utterance opening = utterance(0, 7);
+        String key = TranslationCache.key(opening, "");
+        
+        cache.put(key, this.stub.translate(Arrays.asList(opening)).get(0));
+        
+        Path entry = entries(directory).get(0);
+        long old = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+        
+        // the put counts as a use, a hit right after doesn't write again
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(old));
+        assertNotNull(cache.get(key, opening));
+        assertEquals(old, Files.getLastModifiedTime(entry).toMillis());
+        
+        cache.touchMillis = 0;
+        
+        assertNotNull(cache.get(key, opening));
+        assertTrue(Files.getLastModifiedTime(entry).toMillis() > old);
+        assertEquals(2, cache.getMemoryHits());
+    }
+    
+    @Test
+    public void corruptEntriesAreMisses() throws Exception {
+        
+        Path directory = this.folder.getRoot().toPath();
+        TranslationCache cache = new TranslationCache(directory);
+        Utterance opening = utterance(0, 7);
+        String key = TranslationCache.key(opening, "");
+        
+        cache.put(key, this.stub.translate(Arrays.asList(opening)).get(0));
+        
+        Path entry = entries(directory).get(0);
+        
+        Files.write(entry, "text=half of it\n".getBytes(StandardCharsets.UTF_8));
+        
+        TranslationCache reopened = new TranslationCache(directory);
+        
+        assertNull(reopened.get(key, opening));
+        assertEquals(1, reopened.getMisses());
+        assertFalse(Files.exists(entry));
+    }
+}
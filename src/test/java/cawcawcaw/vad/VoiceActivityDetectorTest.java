@@ -0,0 +1,116 @@
+package cawcawcaw.vad;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Project: VidsUsingXuggler
+ * Package: cawcawcaw.vad
+ * File: VoiceActivityDetectorTest.java
+ * 
+ * @author sidmishraw
+ *         Last modified: Oct 18, 2026 12:04:10 PM
+ */
+
+/**
+ * <p>
+ * Plays a made up scene to a {@link VoiceActivityDetector}: room noise, a line
+ * of "speech" (a buzzing 180 Hz tone), a click, a line with a short pause in
+ * it, and a burst of hiss. Only the two lines are speech.
+ * 
+ * @author sidmishraw
+ *
+ *         Qualified Name: cawcawcaw.vad.VoiceActivityDetectorTest
+ *
+ */
+public class VoiceActivityDetectorTest {
+    
+    private static final int SAMPLE_RATE = 16000;
+    
+    /**
+     * How far off the detected edges may be, a couple of windows.
+     */
+    private static final long SLACK_MILLIS = 3 * VoiceActivityDetector.WINDOW_MILLIS;
+    
+    private final Random random = new Random(42);
+    
+    private final List<SpeechSegment> segments = new ArrayList<>();
+    
+    private final VoiceActivityDetector detector = new VoiceActivityDetector(SAMPLE_RATE,
+            (start, end) -> this.segments.add(new SpeechSegment(start, end)));
+    
+    private long millis = 0;
+    
+    private void noise(long duration, double level) {
+        
+        for (int i = 0; i < duration * SAMPLE_RATE / 1000; i++) {
+            
+            this.detector.sample((float) (this.random.nextGaussian() * level));
+        }
+        
+        this.millis += duration;
+    }
+    
+    private void speech(long duration) {
+        
+        long start = this.millis * SAMPLE_RATE / 1000;
+        
+        for (int i = 0; i < duration * SAMPLE_RATE / 1000; i++) {
+            
+            double t = (double) (start + i) / SAMPLE_RATE;
+            
+            this.detector.sample((float) (0.3 * Math.sin(2 * Math.PI * 180 * t) + this.random.nextGaussian() * 0.002));
+        }
+        
+        this.millis += duration;
+    }
+    
+    private static void assertSegment(SpeechSegment segment, long start, long end) {
+        
+        assertEquals("start of " + segment, start, segment.getStartMillis(), SLACK_MILLIS);
+        assertEquals("end of " + segment, end, segment.getEndMillis(), SLACK_MILLIS);
+    }
+    
+    @Test
+    public void findsTheLines() {
+        
+        noise(1000, 0.002);
+        speech(1500); // 1000 - 2500
+        noise(1000, 0.002);
+        speech(100); // the click
+        noise(1000, 0.002);
+        speech(1000); // 4600 - 6750
+        noise(150, 0.002);
+        speech(1000);
+        noise(1000, 0.002);
+        noise(500, 0.3); // hiss
+        noise(1000, 0.002);
+        
+        this.detector.finish();
+        
+        assertEquals(this.segments.toString(), 2, this.segments.size());
+        assertSegment(this.segments.get(0), 1000, 2500);
+        assertSegment(this.segments.get(1), 4600, 6750);
+    }
+    
+    @Test
+    public void finishEndsTheSpeechGoingOn() {
+        
+        this.detector.seek(60000);
+        
+        noise(500, 0.002);
+        speech(1000);
+        
+        assertEquals(0, this.segments.size());
+        
+        this.detector.finish();
+        
+        assertEquals(1, this.segments.size());
+        assertSegment(this.segments.get(0), 60500, 61500);
+    }
+}